@@ -0,0 +1,149 @@
+package com.hon.orderbook.bench;
+
+import com.hon.orderbook.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order book seeded with {@code priceLevels} price levels of {@code bookDepth} orders on each side,
+ * kept at that shape between benchmark operations<p>
+ * Resting orders fully filled by an operation are recorded through the execution listener and
+ * re-submitted by {@code replenish}, so every operation starts from the same book.
+ * Events are raised to a {@code NoOpEventSink} so no output is measured<p>
+ * {@code SimpleOrderBookImpl} crosses a buy against sells priced at or above it, so its book is
+ * laid out mirrored, buys above the mid price and sells below. Prices are taken through
+ * {@code bidPrice} and {@code askPrice} so the same operation plays the same role on every book
+ */
+final class BookFixture implements IExecutionListener {
+
+    static final long MID_PRICE = 10000;
+    static final int ORDER_QTY = 100;
+    static final String CLIENT_ID = "bench";
+
+    static final Instrument INSTRUMENT = new Instrument("bench", Instrument.DEFAULT_TICK_SIZE);
+
+    final IOrderBook orderbook;
+    final int bookDepth;
+    final int priceLevels;
+    private final long direction;
+    private final Map<String, SimpleOrder> seeded = new HashMap<>();
+    private final String[] filled;
+    private int filledcount;
+
+    /**
+     * Seeded order book fixture
+     * @param book order book implementation, one of simple, tree, ladder or offheap
+     * @param bookDepth orders per price level
+     * @param priceLevels price levels per side
+     */
+    BookFixture(String book, int bookDepth, int priceLevels){
+        this.bookDepth = bookDepth;
+        this.priceLevels = priceLevels;
+        switch (book){
+            case "simple":
+                this.orderbook = new SimpleOrderBookImpl(INSTRUMENT);
+                this.direction = -1;
+                break;
+            case "tree":
+                this.orderbook = new TreeOrderBookImpl(INSTRUMENT);
+                this.direction = 1;
+                break;
+            case "ladder":
+                this.orderbook = new LadderOrderBookImpl(INSTRUMENT, MID_PRICE);
+                this.direction = 1;
+                break;
+            case "offheap":
+                this.orderbook = new OffHeapOrderBookImpl(INSTRUMENT, MID_PRICE);
+                this.direction = 1;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown order book " + book);
+        }
+        this.orderbook.setEventSink(NoOpEventSink.INSTANCE);
+        this.orderbook.setExecutionListener(this);
+        this.filled = new String[2 * bookDepth * priceLevels];
+        for (int level = 0; level < priceLevels; level++){
+            for (int i = 0; i < bookDepth; i++){
+                seed(order("b" + level + "_" + i, OrderSide.Buy, bidPrice(level), ORDER_QTY, OrderType.GTC));
+            }
+        }
+        for (int level = 0; level < priceLevels; level++){
+            for (int i = 0; i < bookDepth; i++){
+                seed(order("a" + level + "_" + i, OrderSide.Sell, askPrice(level), ORDER_QTY, OrderType.GTC));
+            }
+        }
+    }
+
+    /** Price of the bid level at a distance from the best bid **/
+    long bidPrice(int level){
+        return MID_PRICE - this.direction * (level + 1);
+    }
+
+    /** Price of the ask level at a distance from the best ask **/
+    long askPrice(int level){
+        return MID_PRICE + this.direction * (level + 1);
+    }
+
+    /** Order id of a seeded resting order **/
+    static String seededId(OrderSide side, int level, int index){
+        return (side == OrderSide.Buy ? "b" : "a") + level + "_" + index;
+    }
+
+    static SimpleOrder order(String orderId, OrderSide side, long priceTicks, int qty, OrderType orderType){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setSide(side).setClientid(CLIENT_ID).setOrderqty(qty).setOrderType(orderType).createSimpleOrder();
+    }
+
+    static SimpleOrder marketOrder(String orderId, OrderSide side, int qty){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setMarket(true)
+                .setSide(side).setClientid(CLIENT_ID).setOrderqty(qty).setOrderType(OrderType.ImmediateOrCancel)
+                .createSimpleOrder();
+    }
+
+    /**
+     * Re-submit every seeded order fully filled since the last call to the back of its level
+     * @return number of orders re-submitted
+     */
+    int replenish(){
+        int count = this.filledcount;
+        this.filledcount = 0;
+        for (int i = 0; i < count; i++){
+            SimpleOrder template = this.seeded.get(this.filled[i]);
+            if (template != null){
+                this.orderbook.submitOrder(order(template.OrderID(), template.Side(), template.PriceTicks(),
+                        template.OrderQty(), OrderType.GTC));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Cancel a seeded order and re-submit it to the back of its level
+     * @return true if the order was resting
+     */
+    boolean cancelAndRestore(String orderId){
+        boolean cancelled = this.orderbook.cancelOrder(orderId, CLIENT_ID);
+        if (cancelled){
+            SimpleOrder template = this.seeded.get(orderId);
+            this.orderbook.submitOrder(order(orderId, template.Side(), template.PriceTicks(),
+                    template.OrderQty(), OrderType.GTC));
+        }
+        return cancelled;
+    }
+
+    @Override
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty,
+                            OrderStatus makerStatus, OrderStatus takerStatus) {
+        if (makerStatus == OrderStatus.FullyFilled && this.filledcount < this.filled.length
+                && this.seeded.containsKey(makerOrderId)){
+            this.filled[this.filledcount++] = makerOrderId;
+        }
+    }
+
+    private void seed(SimpleOrder order){
+        this.seeded.put(order.OrderID(), order(order.OrderID(), order.Side(), order.PriceTicks(),
+                order.OrderQty(), OrderType.GTC));
+        this.orderbook.submitOrder(order);
+    }
+}
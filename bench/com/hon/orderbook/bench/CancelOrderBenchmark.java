@@ -0,0 +1,61 @@
+package com.hon.orderbook.bench;
+
+import com.hon.orderbook.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancel order benchmarks against a book of {@code priceLevels} levels of {@code bookDepth} orders per side<p>
+ * {@code cancelResting} cycles through every resting order of the book, each cancelled order is
+ * re-submitted to the back of its level within the measured time. {@code cancelUnknown} cancels
+ * an order id that is not on the book
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CancelOrderBenchmark {
+
+    @Param({"simple", "tree", "ladder", "offheap"})
+    public String book;
+
+    @Param({"1", "10", "100"})
+    public int bookDepth;
+
+    @Param({"10", "100"})
+    public int priceLevels;
+
+    private BookFixture fixture;
+    private String[] orderIds;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        this.fixture = new BookFixture(this.book, this.bookDepth, this.priceLevels);
+        this.orderIds = new String[2 * this.priceLevels * this.bookDepth];
+        int i = 0;
+        for (int level = 0; level < this.priceLevels; level++){
+            for (int index = 0; index < this.bookDepth; index++){
+                this.orderIds[i++] = BookFixture.seededId(OrderSide.Buy, level, index);
+                this.orderIds[i++] = BookFixture.seededId(OrderSide.Sell, level, index);
+            }
+        }
+    }
+
+    /** Cancel the next resting order of the book and restore it **/
+    @Benchmark
+    public boolean cancelResting(){
+        String orderId = this.orderIds[this.next];
+        this.next = this.next + 1 == this.orderIds.length ? 0 : this.next + 1;
+        return this.fixture.cancelAndRestore(orderId);
+    }
+
+    /** Cancel an order id not on the book **/
+    @Benchmark
+    public boolean cancelUnknown(){
+        return this.fixture.orderbook.cancelOrder("unknown", BookFixture.CLIENT_ID);
+    }
+}
@@ -0,0 +1,54 @@
+package com.hon.orderbook.bench;
+
+import com.hon.orderbook.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Market depth read benchmarks against a book of {@code priceLevels} levels of {@code bookDepth} orders
+ * per side: best bid and ask with size, and a snapshot of the top {@code topLevels} levels of both sides
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarketDepthBenchmark {
+
+    @Param({"tree", "ladder", "offheap"})
+    public String book;
+
+    @Param({"1", "10"})
+    public int bookDepth;
+
+    @Param({"10", "100"})
+    public int priceLevels;
+
+    @Param({"5", "10"})
+    public int topLevels;
+
+    private IMarketDepth depth;
+    private DepthSnapshot snapshot;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        this.depth = (IMarketDepth) new BookFixture(this.book, this.bookDepth, this.priceLevels).orderbook;
+        this.snapshot = new DepthSnapshot(this.topLevels);
+    }
+
+    /** Best bid and ask with total quantity **/
+    @Benchmark
+    public long bestBidAsk(){
+        return this.depth.getBestBidTicks() + this.depth.getBestBidQty()
+                + this.depth.getBestAskTicks() + this.depth.getBestAskQty();
+    }
+
+    /** Top levels of both sides copied into a reusable snapshot **/
+    @Benchmark
+    public int topDepth(){
+        this.depth.getDepth(this.snapshot);
+        return this.snapshot.bidLevels() + this.snapshot.askLevels();
+    }
+}
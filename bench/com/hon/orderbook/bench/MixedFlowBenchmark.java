@@ -0,0 +1,121 @@
+package com.hon.orderbook.bench;
+
+import com.hon.orderbook.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed order flow benchmark replaying a fixed random script against a book of
+ * {@code priceLevels} levels of {@code bookDepth} orders per side<p>
+ * The script is 40% passive GTC orders at a random level, 40% cancels of those orders,
+ * 15% aggressive limit orders at the best price and 5% market orders, either side.
+ * It ends by cancelling its orders still resting so it can be replayed in a loop,
+ * filled orders of the seeded book are re-submitted within the measured time
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MixedFlowBenchmark {
+
+    private static final int SCRIPT_LENGTH = 1 << 16;
+    private static final int MAX_LIVE_ORDERS = 256;
+    private static final byte PASSIVE = 0;
+    private static final byte CANCEL = 1;
+    private static final byte AGGRESSIVE = 2;
+    private static final byte MARKET = 3;
+
+    @Param({"simple", "tree", "ladder", "offheap"})
+    public String book;
+
+    @Param({"1", "10"})
+    public int bookDepth;
+
+    @Param({"10", "100"})
+    public int priceLevels;
+
+    private BookFixture fixture;
+    private byte[] actions;
+    private OrderSide[] sides;
+    private long[] prices;
+    private String[] orderIds;
+    private int length;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        this.fixture = new BookFixture(this.book, this.bookDepth, this.priceLevels);
+        this.next = 0;
+        if (this.actions == null){
+            createScript(new Random(7));
+        }
+    }
+
+    /** Run the next step of the script **/
+    @Benchmark
+    public boolean mixedFlow(){
+        int i = this.next;
+        this.next = i + 1 == this.length ? 0 : i + 1;
+        IOrderBook orderbook = this.fixture.orderbook;
+        switch (this.actions[i]){
+            case PASSIVE:
+                orderbook.submitOrder(BookFixture.order(this.orderIds[i], this.sides[i], this.prices[i],
+                        BookFixture.ORDER_QTY, OrderType.GTC));
+                return true;
+            case CANCEL:
+                return orderbook.cancelOrder(this.orderIds[i], BookFixture.CLIENT_ID);
+            case AGGRESSIVE:
+                orderbook.submitOrder(BookFixture.order(this.orderIds[i], this.sides[i], this.prices[i],
+                        BookFixture.ORDER_QTY, OrderType.GTC));
+                return this.fixture.replenish() > 0;
+            default:
+                orderbook.submitOrder(BookFixture.marketOrder(this.orderIds[i], this.sides[i], 2 * BookFixture.ORDER_QTY));
+                return this.fixture.replenish() > 0;
+        }
+    }
+
+    private void createScript(Random rand){
+        int capacity = SCRIPT_LENGTH + MAX_LIVE_ORDERS;
+        this.actions = new byte[capacity];
+        this.sides = new OrderSide[capacity];
+        this.prices = new long[capacity];
+        this.orderIds = new String[capacity];
+        List<String> live = new ArrayList<>();
+        int i = 0;
+        for (; i < SCRIPT_LENGTH; i++){
+            int roll = rand.nextInt(100);
+            OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+            this.sides[i] = side;
+            if ((roll < 40 || live.isEmpty()) && live.size() < MAX_LIVE_ORDERS){
+                int level = rand.nextInt(this.priceLevels);
+                this.actions[i] = PASSIVE;
+                this.prices[i] = side == OrderSide.Buy ? this.fixture.bidPrice(level) : this.fixture.askPrice(level);
+                this.orderIds[i] = "m" + i;
+                live.add(this.orderIds[i]);
+            }
+            else if (roll < 80){
+                int index = rand.nextInt(live.size());
+                this.actions[i] = CANCEL;
+                this.orderIds[i] = live.get(index);
+                live.set(index, live.get(live.size() - 1));
+                live.remove(live.size() - 1);
+            }
+            else {
+                this.actions[i] = roll < 95 ? AGGRESSIVE : MARKET;
+                this.prices[i] = side == OrderSide.Buy ? this.fixture.askPrice(0) : this.fixture.bidPrice(0);
+                this.orderIds[i] = "x" + i;
+            }
+        }
+        for (String orderId : live){
+            this.actions[i] = CANCEL;
+            this.orderIds[i++] = orderId;
+        }
+        this.length = i;
+    }
+}
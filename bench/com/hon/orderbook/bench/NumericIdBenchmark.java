@@ -0,0 +1,79 @@
+package com.hon.orderbook.bench;
+
+import com.hon.orderbook.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancel and re-submit benchmarks of an off-heap book holding {@code restingOrders} orders per side,
+ * comparing {@code String} order ids with numeric order ids and client numbers<p>
+ * Each operation cancels the next resting order and re-submits it to the back of its level,
+ * cycling through every order of the book
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumericIdBenchmark {
+
+    private static final int PRICE_LEVELS = 100;
+
+    @Param({"1000", "100000"})
+    public int restingOrders;
+
+    private OffHeapOrderBookImpl stringbook;
+    private OffHeapOrderBookImpl numericbook;
+    private String[] orderIds;
+    private int client;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        this.stringbook = new OffHeapOrderBookImpl(BookFixture.INSTRUMENT, BookFixture.MID_PRICE);
+        this.numericbook = new OffHeapOrderBookImpl(BookFixture.INSTRUMENT, BookFixture.MID_PRICE);
+        this.stringbook.setEventSink(NoOpEventSink.INSTANCE);
+        this.numericbook.setEventSink(NoOpEventSink.INSTANCE);
+        this.client = this.numericbook.getClientRegistry().intern(BookFixture.CLIENT_ID);
+        this.orderIds = new String[this.restingOrders];
+        for (int i = 0; i < this.restingOrders; i++){
+            this.orderIds[i] = "order" + i;
+            this.stringbook.submitOrder(BookFixture.order(this.orderIds[i], OrderSide.Buy, price(i),
+                    BookFixture.ORDER_QTY, OrderType.GTC));
+            this.numericbook.submitOrder(i, this.client, OrderSide.Buy, OrderType.GTC, price(i),
+                    BookFixture.ORDER_QTY, false);
+        }
+    }
+
+    private static long price(int i){
+        return BookFixture.MID_PRICE - 1 - (i % PRICE_LEVELS);
+    }
+
+    private int nextIndex(){
+        int index = this.next;
+        this.next = index + 1 == this.restingOrders ? 0 : index + 1;
+        return index;
+    }
+
+    /** Cancel and re-submit a resting order by {@code String} order id and client id **/
+    @Benchmark
+    public boolean stringIds(){
+        int index = nextIndex();
+        boolean cancelled = this.stringbook.cancelOrder(this.orderIds[index], BookFixture.CLIENT_ID);
+        this.stringbook.submitOrder(BookFixture.order(this.orderIds[index], OrderSide.Buy, price(index),
+                BookFixture.ORDER_QTY, OrderType.GTC));
+        return cancelled;
+    }
+
+    /** Cancel and re-submit a resting order by numeric order id and client number **/
+    @Benchmark
+    public boolean numericIds(){
+        int index = nextIndex();
+        boolean cancelled = this.numericbook.cancelOrder(index, this.client);
+        this.numericbook.submitOrder(index, this.client, OrderSide.Buy, OrderType.GTC, price(index),
+                BookFixture.ORDER_QTY, false);
+        return cancelled;
+    }
+}
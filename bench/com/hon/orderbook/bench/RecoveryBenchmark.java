@@ -0,0 +1,84 @@
+package com.hon.orderbook.bench;
+
+import com.hon.orderbook.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restart benchmarks of a ladder order book: replaying a whole journal of {@code records} submits and
+ * cancels, against loading a snapshot taken at the end of the journal<p>
+ * Single shot, each measurement recovers into a new order book
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+    private static final Instrument INSTRUMENT = new Instrument("bench", Instrument.DEFAULT_TICK_SIZE);
+
+    @Param({"100000", "1000000"})
+    public int records;
+
+    private Path directory;
+    private Path journalfile;
+    private Path snapshotfile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("orderbook-recovery");
+        this.journalfile = this.directory.resolve("orderbook.journal");
+        this.snapshotfile = this.directory.resolve("orderbook.snapshot");
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, BookFixture.MID_PRICE);
+        orderbook.setRetainFills(false);
+        Random rand = new Random(3);
+        try (OrderJournal journal = new OrderJournal(this.journalfile, INSTRUMENT, this.records, FsyncPolicy.None)){
+            JournaledOrderBook journaled = new JournaledOrderBook(orderbook, journal);
+            for (int i = 0; journal.sequence() < this.records; i++){
+                if (i > 0 && rand.nextInt(4) == 0){
+                    journaled.cancelOrder("r" + rand.nextInt(i), BookFixture.CLIENT_ID);
+                    continue;
+                }
+                OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+                long offset = 1 + rand.nextInt(500);
+                long price = rand.nextInt(20) == 0 ? BookFixture.MID_PRICE
+                        : side == OrderSide.Buy ? BookFixture.MID_PRICE - offset : BookFixture.MID_PRICE + offset;
+                journaled.submitOrder(BookFixture.order("r" + i, side, price, BookFixture.ORDER_QTY, OrderType.GTC));
+            }
+            OrderBookSnapshot.write(this.snapshotfile, orderbook, journal.sequence());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.journalfile);
+        Files.deleteIfExists(this.snapshotfile);
+        Files.deleteIfExists(this.directory);
+    }
+
+    /** Replay every journal record into an empty order book **/
+    @Benchmark
+    public int replayJournal() throws IOException {
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, BookFixture.MID_PRICE);
+        orderbook.setRetainFills(false);
+        try (OrderJournal journal = new OrderJournal(this.journalfile, INSTRUMENT, this.records, FsyncPolicy.None)){
+            journal.replay(orderbook);
+        }
+        return orderbook.getBidQueue().size();
+    }
+
+    /** Load the snapshot taken at the end of the journal, leaving no record to replay **/
+    @Benchmark
+    public int loadSnapshot() throws IOException {
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, BookFixture.MID_PRICE);
+        OrderBookSnapshot.load(this.snapshotfile, orderbook);
+        return orderbook.getBidQueue().size();
+    }
+}
@@ -0,0 +1,113 @@
+package com.hon.orderbook.bench;
+
+import com.hon.orderbook.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submit order benchmarks: a resting GTC order, an aggressive limit order, a market order sweeping
+ * price levels and an {@code ImmediateOrCancel} order, against a book of
+ * {@code priceLevels} levels of {@code bookDepth} orders per side<p>
+ * Reports throughput and, in sample time mode, latency percentiles per operation.
+ * Each operation leaves the book as it found it: the resting order is cancelled and
+ * filled resting orders are re-submitted, which is included in the measured time
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SubmitOrderBenchmark {
+
+    private static final int SWEEP_LEVELS = 5;
+    private static final int BATCH_SIZE = 16;
+
+    @Param({"simple", "tree", "ladder", "offheap"})
+    public String book;
+
+    @Param({"1", "10"})
+    public int bookDepth;
+
+    @Param({"10", "100"})
+    public int priceLevels;
+
+    private BookFixture fixture;
+    private String[] orderIds;
+    private int next;
+    private OrderBatch batch;
+    private OrderBatch cancelbatch;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        this.fixture = new BookFixture(this.book, this.bookDepth, this.priceLevels);
+        this.orderIds = new String[1024];
+        for (int i = 0; i < this.orderIds.length; i++){
+            this.orderIds[i] = "t" + i;
+        }
+        this.batch = new OrderBatch(BATCH_SIZE);
+        this.cancelbatch = new OrderBatch(BATCH_SIZE);
+    }
+
+    private String nextOrderId(){
+        return this.orderIds[this.next++ & (this.orderIds.length - 1)];
+    }
+
+    /** GTC buy resting behind the worst bid level, then cancelled **/
+    @Benchmark
+    public boolean restingGtc(){
+        String orderId = nextOrderId();
+        this.fixture.orderbook.submitOrder(BookFixture.order(orderId, OrderSide.Buy,
+                this.fixture.bidPrice(this.priceLevels - 1), BookFixture.ORDER_QTY, OrderType.GTC));
+        return this.fixture.orderbook.cancelOrder(orderId, BookFixture.CLIENT_ID);
+    }
+
+    /** GTC sell at the best bid filling the first order of the level **/
+    @Benchmark
+    public OrderStatus aggressiveLimit(){
+        SimpleOrder order = BookFixture.order(nextOrderId(), OrderSide.Sell, this.fixture.bidPrice(0),
+                BookFixture.ORDER_QTY, OrderType.GTC);
+        this.fixture.orderbook.submitOrder(order);
+        this.fixture.replenish();
+        return order.getStatus();
+    }
+
+    /** Market sell filling every order of the best five bid levels **/
+    @Benchmark
+    public OrderStatus marketSweep(){
+        int levels = Math.min(SWEEP_LEVELS, this.priceLevels);
+        SimpleOrder order = BookFixture.marketOrder(nextOrderId(), OrderSide.Sell,
+                levels * this.bookDepth * BookFixture.ORDER_QTY);
+        this.fixture.orderbook.submitOrder(order);
+        this.fixture.replenish();
+        return order.getStatus();
+    }
+
+    /** ImmediateOrCancel sell at the best bid filling the level, the remaining half order cancelled **/
+    @Benchmark
+    public OrderStatus immediateOrCancel(){
+        SimpleOrder order = BookFixture.order(nextOrderId(), OrderSide.Sell, this.fixture.bidPrice(0),
+                this.bookDepth * BookFixture.ORDER_QTY + BookFixture.ORDER_QTY / 2, OrderType.ImmediateOrCancel);
+        this.fixture.orderbook.submitOrder(order);
+        this.fixture.replenish();
+        return order.getStatus();
+    }
+
+    /** Batch of GTC buys resting behind the worst bid level, then a batch cancelling them **/
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public OrderStatus restingGtcBatch(){
+        this.batch.clear();
+        this.cancelbatch.clear();
+        for (int i = 0; i < BATCH_SIZE; i++){
+            String orderId = nextOrderId();
+            this.batch.addSubmit(BookFixture.order(orderId, OrderSide.Buy,
+                    this.fixture.bidPrice(this.priceLevels - 1), BookFixture.ORDER_QTY, OrderType.GTC));
+            this.cancelbatch.addCancel(orderId, BookFixture.CLIENT_ID);
+        }
+        this.fixture.orderbook.processBatch(this.batch);
+        this.fixture.orderbook.processBatch(this.cancelbatch);
+        return this.cancelbatch.getResult(BATCH_SIZE - 1);
+    }
+}
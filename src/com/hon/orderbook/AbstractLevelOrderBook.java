@@ -0,0 +1,934 @@
+package com.hon.orderbook;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Base of the price level order book implementations of the {@code IOrderBook} interface
+ * Each side indexes price levels, each level holding its orders first in first out
+ * in a queue of linked order nodes, so fills at the head and cancels anywhere in a level are O(1)<p>
+ * Buy orders rest on the bid side sorted by descending price, sell orders rest on the
+ * ask side sorted by ascending price. Orders match in strict price-time priority and
+ * trade at the price of the resting order. Prices are compared as integer ticks of the instrument.<p>
+ * Implementations choose how the levels of a side are indexed through {@code BookSide}.
+ * Each level keeps the total remaining quantity and number of its orders, updated on every insert,
+ * fill and cancel, so best bid and ask with size are O(1) and the top k levels are O(k).
+ * Each change of a level and each trade is streamed to an optional {@code IMarketDataListener}.
+ * Resting orders are also indexed by order id so a cancel is a hash lookup and needs no scan.<p>
+ * Stop and stop limit orders wait off the book in a {@code StopBook} keyed by stop price until a trade
+ * reaches their stop price. After each submit or replace the stops triggered by the range of its trade
+ * prices are taken from the front of the stop book and executed in turn, buy stops lowest stop price first
+ * then sell stops highest stop price first, as market and GTC limit orders. The trades of a triggered
+ * stop can trigger further stops. A stop whose stop price the last trade already reached is executed
+ * on submit.<p>
+ * Order nodes are recycled by the book. With an {@code OrderPool} set, fills are taken from the pool
+ * and orders with their fills are released to it once fully filled, cancelled or rejected, so that
+ * after warm-up submitting and cancelling pooled orders allocates nothing on a ladder book.<p>
+ * Executions are streamed to an optional {@code IExecutionListener}. Orders keep a list of their
+ * fills unless fill retention is turned off, in which case only their cumulative quantity
+ * and average price are recorded<p>
+ * Order events are raised to an {@code IEventSink}, none by default, so output and logging
+ * stay off the matching path unless a sink such as {@code AsyncEventLog} is set. The sink is flushed
+ * once per call, so a batch of orders or cancels publishes its events once<p>
+ * Latency, fill, level and depth metrics are recorded to an optional {@code OrderBookMetrics},
+ * none by default in which case no time is taken<p>
+ * A simple non thread safe implemenation
+ */
+public abstract class AbstractLevelOrderBook implements IOrderBook, IMarketDepth {
+
+    private static final String INVALID_ORDER = "Invalid order";
+    private static final String INVALID_PRICE = "Invalid price in order";
+    private static final String DUPLICATE_ORDER_ID = "Duplicate order id";
+    private static final String INVALID_STOP_PRICE = "Invalid stop price in order";
+
+    private final BookSide bids;
+    private final BookSide asks;
+    private final Instrument instrument;
+    private final OrderIdIndex restingorders;
+    private final ClientOrderIndex clientorders;
+    private final StopBook stoporders = new StopBook();
+    private final List<IOrder> bidqueue;
+    private final List<IOrder> askqueue;
+    private OrderNode freenodes;
+    private OrderPool orderpool;
+    private IExecutionListener executionlistener;
+    private IEventSink eventsink = NoOpEventSink.INSTANCE;
+    private IMarketDataListener marketdatalistener;
+    private boolean retainfills = true;
+    private OrderBookMetrics metrics;
+    private int matchedfills;
+    private int matchedlevels;
+    private long lasttradeticks;
+    private long tradelow = Long.MAX_VALUE;
+    private long tradehigh = Long.MIN_VALUE;
+
+    /**
+     * Level order book constructor
+     * @param instrument instrument and tick size of order book
+     * @param bids bid side of the book
+     * @param asks ask side of the book
+     */
+    AbstractLevelOrderBook(Instrument instrument, BookSide bids, BookSide asks){
+        this.instrument = instrument;
+        this.bids = bids;
+        this.asks = asks;
+        this.restingorders = new OrderIdIndex(1024);
+        this.clientorders = new ClientOrderIndex(64);
+        this.bidqueue = new SideView(bids);
+        this.askqueue = new SideView(asks);
+    }
+
+    /**
+     * Returns the instrument of the order book
+     * @return instrument of order book
+     */
+    public Instrument getInstrument() {
+        return this.instrument;
+    }
+
+    /**
+     * Set the pool fills are taken from and orders released to
+     * @param orderPool pool of orders and fills, {@code null} to allocate fills and not release orders
+     */
+    public void setOrderPool(OrderPool orderPool) {
+        this.orderpool = orderPool;
+    }
+
+    /**
+     * Set the listener notified of every execution
+     * @param listener execution listener, {@code null} for none
+     */
+    @Override
+    public void setExecutionListener(IExecutionListener listener) {
+        this.executionlistener = listener;
+    }
+
+    /**
+     * Set the sink order events are raised to
+     * @param sink event sink, {@code null} for none
+     */
+    @Override
+    public void setEventSink(IEventSink sink) {
+        this.eventsink = sink == null ? NoOpEventSink.INSTANCE : sink;
+    }
+
+    /**
+     * Set the listener notified of every level change and trade
+     * @param listener market data listener such as a {@code MarketDataPublisher}, {@code null} for none
+     */
+    public void setMarketDataListener(IMarketDataListener listener) {
+        this.marketdatalistener = listener;
+    }
+
+    /**
+     * Set the metrics submits, cancels and matching are recorded to
+     * @param metrics order book metrics, {@code null} to record none
+     */
+    public void setMetrics(OrderBookMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Set whether orders keep a {@code Fill} per execution
+     * @param retainFills true to add a fill to the order per execution, false to only record
+     *                    cumulative quantity and average price on the order
+     */
+    public void setRetainFills(boolean retainFills) {
+        this.retainfills = retainFills;
+    }
+
+    /**
+     * Returns list of resting buy orders, best price first and time priority within a price
+     * @return read only live {@code List} of {@code IOrder} on bid side
+     */
+    @Override
+    public List<IOrder> getBidQueue() {
+        return this.bidqueue;
+    }
+
+    /**
+     * Returns list of resting sell orders, best price first and time priority within a price
+     * @return read only live {@code List} of {@code IOrder} on ask side
+     */
+    @Override
+    public List<IOrder> getAskQueue() {
+        return this.askqueue;
+    }
+
+    /**
+     * Returns the best bid price
+     * @return price in ticks of the best bid level, 0 if no bids
+     */
+    @Override
+    public long getBestBidTicks() {
+        PriceLevel level = this.bids.best();
+        return level == null ? 0 : level.getPrice();
+    }
+
+    /**
+     * Returns the total remaining quantity at the best bid
+     * @return quantity of the best bid level, 0 if no bids
+     */
+    @Override
+    public long getBestBidQty() {
+        PriceLevel level = this.bids.best();
+        return level == null ? 0 : level.getTotalQty();
+    }
+
+    /**
+     * Returns the number of orders at the best bid
+     * @return orders of the best bid level, 0 if no bids
+     */
+    @Override
+    public int getBestBidOrderCount() {
+        PriceLevel level = this.bids.best();
+        return level == null ? 0 : level.size();
+    }
+
+    /**
+     * Returns the best ask price
+     * @return price in ticks of the best ask level, 0 if no asks
+     */
+    @Override
+    public long getBestAskTicks() {
+        PriceLevel level = this.asks.best();
+        return level == null ? 0 : level.getPrice();
+    }
+
+    /**
+     * Returns the total remaining quantity at the best ask
+     * @return quantity of the best ask level, 0 if no asks
+     */
+    @Override
+    public long getBestAskQty() {
+        PriceLevel level = this.asks.best();
+        return level == null ? 0 : level.getTotalQty();
+    }
+
+    /**
+     * Returns the number of orders at the best ask
+     * @return orders of the best ask level, 0 if no asks
+     */
+    @Override
+    public int getBestAskOrderCount() {
+        PriceLevel level = this.asks.best();
+        return level == null ? 0 : level.size();
+    }
+
+    /**
+     * Copy the top levels of both sides, as many as the snapshot holds, best level first
+     * @param snapshot reusable snapshot to overwrite
+     */
+    @Override
+    public void getDepth(DepthSnapshot snapshot) {
+        snapshot.clear();
+        copyDepth(this.bids, snapshot);
+        copyDepth(this.asks, snapshot);
+    }
+
+    private static void copyDepth(BookSide side, DepthSnapshot snapshot){
+        PriceLevel level = side.best();
+        while (level != null && snapshot.add(side.getSide(), level.getPrice(), level.getTotalQty(), level.size())){
+            level = side.next(level);
+        }
+    }
+
+    /**
+     * Returns the price of the last trade
+     * @return price in ticks, 0 before the first trade
+     */
+    public long getLastTradeTicks() {
+        return this.lasttradeticks;
+    }
+
+    /**
+     * Returns the number of stop and stop limit orders waiting for their stop price
+     * @return number of pending stop orders
+     */
+    public int getStopOrderCount() {
+        return this.stoporders.size();
+    }
+
+    /**
+     * Submit order to order book and execute according to order type
+     * Orders with a missing side or type, a non positive quantity, a limit order
+     * without a positive price, a stop order without a positive stop price, a stop order
+     * that is not a market order or a stop limit order that is, or the order id of a resting
+     * or pending stop order are set to {@code OrderStatus.Rejected}
+     * @param order order to submit
+     */
+    @Override
+    public void submitOrder(IOrder order) {
+        submit(order);
+        endOfUpdate();
+    }
+
+    /**
+     * Cancel a resting order on the order book
+     * @param orderId OrderId of which the order is to be cancelled
+     * @param clientId ClientId that owns the order
+     * @return true if the order was resting and has been cancelled
+     */
+    @Override
+    public boolean cancelOrder(String orderId, String clientId) {
+        boolean cancelled = cancel(orderId, clientId);
+        endOfUpdate();
+        return cancelled;
+    }
+
+    /**
+     * Replace the price and open quantity of a resting order
+     * Lowering the quantity at the same price updates the order in place and keeps its time priority.
+     * A new price or a higher quantity unlinks the order and matches it at its new price like an incoming order,
+     * resting the remainder at the back of its level. The order is left unchanged if the replace is rejected
+     * @param orderId OrderId of the resting order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order, its order quantity becomes the executed plus the open quantity
+     * @return status of the order once replaced, {@code OrderStatus.Rejected} if the order was not resting,
+     * such as a pending stop order, the quantity is not positive or the price cannot rest on its side of the book
+     */
+    @Override
+    public OrderStatus replaceOrder(String orderId, String clientId, long priceTicks, int qty) {
+        OrderStatus status = replace(orderId, clientId, priceTicks, qty);
+        endOfUpdate();
+        return status;
+    }
+
+    /**
+     * Cancel every resting and pending stop order of a client, such as when its session drops
+     * Orders of the client are linked to each other by a per client index, so the cancel costs O(k)
+     * for the k orders of the client whatever the size of the book. Each order raises its cancel event,
+     * followed by one mass cancel event, and events are flushed once. The cancelled orders are counted as cancels
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled, 0 if the client id is {@code null}
+     */
+    @Override
+    public int cancelAllOrders(String clientId, OrderSide side) {
+        if (clientId == null){
+            return 0;
+        }
+        int cancelled = cancelClient(clientId, side);
+        this.eventsink.onMassCancel(clientId, side, cancelled);
+        if (this.metrics != null){
+            this.metrics.onMassCancel(cancelled);
+            recordDepth();
+        }
+        endOfUpdate();
+        return cancelled;
+    }
+
+    /**
+     * Submit orders in array order, events are flushed once for the batch
+     * @param orders orders to submit
+     * @param count number of orders to submit from the start of the array
+     * @param results status of each order once submitted, {@code null} for none
+     */
+    @Override
+    public void submitOrders(IOrder[] orders, int count, OrderStatus[] results) {
+        for (int i = 0; i < count; i++){
+            OrderStatus status = submit(orders[i]);
+            if (results != null){
+                results[i] = status;
+            }
+        }
+        endOfUpdate();
+    }
+
+    /**
+     * Cancel resting orders in array order, events are flushed once for the batch
+     * @param orderIds OrderIds of the orders to cancel
+     * @param clientIds ClientIds that own the orders
+     * @param count number of cancels from the start of the arrays
+     * @param results whether each order was resting and has been cancelled, {@code null} for none
+     */
+    @Override
+    public void cancelOrders(String[] orderIds, String[] clientIds, int count, boolean[] results) {
+        for (int i = 0; i < count; i++){
+            boolean cancelled = cancel(orderIds[i], clientIds[i]);
+            if (results != null){
+                results[i] = cancelled;
+            }
+        }
+        endOfUpdate();
+    }
+
+    /**
+     * Process the submits and cancels of a batch in order, events are flushed once for the batch
+     * @param batch batch of commands
+     */
+    @Override
+    public void processBatch(OrderBatch batch) {
+        for (int i = 0; i < batch.size(); i++){
+            if (batch.isCancel(i)){
+                batch.setResult(i, cancel(batch.getOrderId(i), batch.getClientId(i))
+                        ? OrderStatus.Cancelled : OrderStatus.Rejected);
+            }
+            else {
+                batch.setResult(i, submit(batch.getOrder(i)));
+            }
+        }
+        endOfUpdate();
+    }
+
+    /**
+     * Submit an order, recording it to the metrics if set
+     * @param order order to submit
+     * @return status of the order, taken before it may be released to the order pool
+     */
+    private OrderStatus submit(IOrder order){
+        if (this.metrics == null){
+            return execute(order);
+        }
+        long begin = System.nanoTime();
+        this.matchedfills = 0;
+        this.matchedlevels = 0;
+        OrderStatus status = execute(order);
+        this.metrics.onSubmit(System.nanoTime() - begin, status == OrderStatus.Rejected, this.matchedfills,
+                this.matchedlevels);
+        recordDepth();
+        return status;
+    }
+
+    /**
+     * Validate and execute an order, holding back an untriggered stop order, then execute the stops it triggers
+     * @param order order to submit
+     * @return status of the order before the stops it triggers are executed,
+     * taken before it may be released to the order pool
+     */
+    private OrderStatus execute(IOrder order){
+        this.eventsink.onOrderReceived(order.OrderID(), order.Side(), order.OrderQty(), order.PriceTicks(),
+                order.isMarketOrder());
+        String rejectReason = validateOrder(order);
+        if (rejectReason == null && order.OrderType().isStop() && order.StopPriceTicks() <= 0){
+            rejectReason = INVALID_STOP_PRICE;
+        }
+        if (rejectReason != null){
+            this.eventsink.onOrderRejected(order.OrderID(), rejectReason);
+            if (rejectReason != DUPLICATE_ORDER_ID || !isLive(order)){
+                order.setStatus(OrderStatus.Rejected);
+                releaseOrder(order);
+            }
+            return OrderStatus.Rejected;
+        }
+        if (order.getStatus() == null){
+            order.setStatus(OrderStatus.New);
+        }
+        if (order.OrderType().isStop()
+                && (this.lasttradeticks == 0 || !StopBook.isTriggered(order, this.lasttradeticks))){
+            this.stoporders.add(order);
+            return order.getStatus();
+        }
+        OrderStatus status = enter(order);
+        triggerStops();
+        return status;
+    }
+
+    /**
+     * Match an accepted order, resting the remainder of a GTC or stop limit order and cancelling any other remainder
+     * @param order order to match
+     * @return status of the order, taken before it may be released to the order pool
+     */
+    private OrderStatus enter(IOrder order){
+        matchOrder(order);
+        if (order.getRemainingQty() > 0 && rests(order)){
+            addOrder(order);
+            return order.getStatus();
+        }
+        if (order.getRemainingQty() > 0){
+            order.setStatus(OrderStatus.Cancelled);
+            this.eventsink.onOrderCancelled(order.OrderID(), order.getRemainingQty());
+        }
+        OrderStatus status = order.getStatus();
+        releaseOrder(order);
+        return status;
+    }
+
+    /**
+     * Returns whether the remainder of an order rests on the book once matched
+     * @param order limit or market order
+     */
+    private static boolean rests(IOrder order){
+        return (order.OrderType() == OrderType.GTC || order.OrderType() == OrderType.StopLimit)
+                && !order.isMarketOrder();
+    }
+
+    /**
+     * Execute the pending stops triggered by the trades since the stops were last triggered
+     * in the order of {@code StopBook.pollTriggered}, until no pending stop is triggered
+     */
+    private void triggerStops(){
+        if (this.stoporders.size() > 0){
+            IOrder stop;
+            while ((stop = this.stoporders.pollTriggered(this.tradelow, this.tradehigh)) != null){
+                enter(stop);
+            }
+        }
+        this.tradelow = Long.MAX_VALUE;
+        this.tradehigh = Long.MIN_VALUE;
+    }
+
+    /**
+     * Cancel a resting order, recording it to the metrics if set
+     * @return true if the order was resting and has been cancelled
+     */
+    private boolean cancel(String orderId, String clientId){
+        if (this.metrics == null){
+            return cancelResting(orderId, clientId);
+        }
+        long begin = System.nanoTime();
+        boolean cancelled = cancelResting(orderId, clientId);
+        this.metrics.onCancel(System.nanoTime() - begin, cancelled);
+        recordDepth();
+        return cancelled;
+    }
+
+    /**
+     * Record the levels and orders of each side to the metrics
+     */
+    private void recordDepth(){
+        this.metrics.onDepth(this.bids.levelCount(), this.bids.orderCount(), this.asks.levelCount(),
+                this.asks.orderCount());
+    }
+
+    /**
+     * Cancel a resting order looked up by order id
+     * @return true if the order was resting and has been cancelled
+     */
+    private boolean cancelResting(String orderId, String clientId){
+        OrderNode node = this.restingorders.get(orderId);
+        if (node == null){
+            return cancelStop(orderId, clientId);
+        }
+        if (!Objects.equals(node.order.ClientID(), clientId)){
+            return false;
+        }
+        cancelNode(node);
+        return true;
+    }
+
+    /**
+     * Cancel the resting order of a node
+     * @param node node of a resting order
+     */
+    private void cancelNode(OrderNode node){
+        IOrder order = node.order;
+        BookSide side = side(order.Side());
+        PriceLevel level = (PriceLevel) node.queue;
+        this.restingorders.remove(order.OrderID());
+        removeNode(side, node);
+        levelChanged(side, level);
+        order.setStatus(OrderStatus.Cancelled);
+        this.eventsink.onOrderCancelled(order.OrderID(), order.getRemainingQty());
+        releaseOrder(order);
+    }
+
+    /**
+     * Cancel the resting and pending stop orders of a client walking its orders in the client indexes
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled
+     */
+    private int cancelClient(String clientId, OrderSide side){
+        int cancelled = 0;
+        OrderNode node = this.clientorders.first(clientId);
+        while (node != null){
+            OrderNode next = node.clientnext;
+            if (side == null || node.order.Side() == side){
+                cancelNode(node);
+                cancelled++;
+            }
+            node = next;
+        }
+        node = this.stoporders.clientOrders(clientId);
+        while (node != null){
+            OrderNode next = node.clientnext;
+            if (side == null || node.order.Side() == side){
+                IOrder order = this.stoporders.remove(node);
+                order.setStatus(OrderStatus.Cancelled);
+                this.eventsink.onOrderCancelled(order.OrderID(), order.getRemainingQty());
+                releaseOrder(order);
+                cancelled++;
+            }
+            node = next;
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancel a pending stop order looked up by order id
+     * @return true if the stop order was pending and has been cancelled
+     */
+    private boolean cancelStop(String orderId, String clientId){
+        IOrder order = this.stoporders.remove(orderId, clientId);
+        if (order == null){
+            return false;
+        }
+        order.setStatus(OrderStatus.Cancelled);
+        this.eventsink.onOrderCancelled(orderId, order.getRemainingQty());
+        releaseOrder(order);
+        return true;
+    }
+
+    /**
+     * Replace a resting order looked up by order id, in place when only its quantity is lowered
+     * @return status of the order once replaced
+     */
+    private OrderStatus replace(String orderId, String clientId, long priceTicks, int qty){
+        OrderNode node = this.restingorders.get(orderId);
+        if (node == null || !Objects.equals(node.order.ClientID(), clientId)){
+            return OrderStatus.Rejected;
+        }
+        IOrder order = node.order;
+        BookSide side = side(order.Side());
+        if (qty <= 0 || priceTicks <= 0 || !side.canHold(priceTicks)){
+            return OrderStatus.Rejected;
+        }
+        PriceLevel level = (PriceLevel) node.queue;
+        order.setOrderQty(order.getCumulativeQty() + qty);
+        if (priceTicks == order.PriceTicks() && qty <= order.getRemainingQty()){
+            level.addTotalQty(qty - order.getRemainingQty());
+            order.setRemainingQty(qty);
+            levelChanged(side, level);
+            this.eventsink.onOrderReplaced(orderId, priceTicks, qty);
+            return order.getStatus();
+        }
+        this.restingorders.remove(orderId);
+        removeNode(side, node);
+        levelChanged(side, level);
+        order.setPriceTicks(priceTicks);
+        order.setRemainingQty(qty);
+        this.eventsink.onOrderReplaced(orderId, priceTicks, qty);
+        OrderStatus status = enter(order);
+        triggerStops();
+        return status;
+    }
+
+    /**
+     * Rest an order at the back of its level without matching, the bulk load path of a snapshot
+     * Orders must be restored best level first and in time priority within a level
+     * @param order resting order with its remaining quantity and status
+     * @throws IllegalArgumentException if the order could not rest on the order book
+     */
+    void restoreOrder(IOrder order){
+        String rejectReason = validateOrder(order);
+        if (rejectReason != null){
+            throw new IllegalArgumentException(rejectReason + " " + order.OrderID());
+        }
+        addOrder(order);
+    }
+
+    /**
+     * Returns the stop and stop limit orders waiting for their stop price, the order a snapshot writes them in
+     * @return buy stops lowest stop price first then sell stops highest stop price first,
+     * in time priority within a stop price
+     */
+    List<IOrder> getStopOrders(){
+        List<IOrder> orders = new ArrayList<>(this.stoporders.size());
+        this.stoporders.copyOrders(orders);
+        return orders;
+    }
+
+    /**
+     * Add a pending stop order without checking its trigger, the bulk load path of a snapshot
+     * Stops must be restored in the order {@link #getStopOrders()} returns them
+     * @param order stop or stop limit order with its stop price
+     * @throws IllegalArgumentException if the order is not a valid stop order
+     */
+    void restoreStopOrder(IOrder order){
+        String rejectReason = validateOrder(order);
+        if (rejectReason == null && (!order.OrderType().isStop() || order.StopPriceTicks() <= 0)){
+            rejectReason = INVALID_STOP_PRICE;
+        }
+        if (rejectReason != null){
+            throw new IllegalArgumentException(rejectReason + " " + order.OrderID());
+        }
+        this.stoporders.add(order);
+    }
+
+    /**
+     * Restore the price of the last trade, which decides whether a new stop order triggers on submit
+     * @param priceTicks price in ticks of the last trade, 0 if none
+     */
+    void restoreLastTrade(long priceTicks){
+        this.lasttradeticks = priceTicks;
+    }
+
+    /**
+     * Order must have a side, a type, a positive quantity, an order id not already resting or pending
+     * and a positive price unless market order. A resting limit order must also fit on its side of the book.
+     * A stop order must be a market order and a stop limit order a limit order
+     * @return reason the order is rejected, {@code null} if valid
+     **/
+    private String validateOrder(IOrder order){
+        if (order.Side() == null || order.OrderType() == null || order.OrderID() == null
+                || order.OrderQty() <= 0 || order.getRemainingQty() <= 0
+                || (order.OrderType() == OrderType.Stop && !order.isMarketOrder())
+                || (order.OrderType() == OrderType.StopLimit && order.isMarketOrder())){
+            return INVALID_ORDER;
+        }
+        if (this.restingorders.containsKey(order.OrderID()) || this.stoporders.containsKey(order.OrderID())){
+            return DUPLICATE_ORDER_ID;
+        }
+
+        if (order.isMarketOrder()
+                || (order.PriceTicks() > 0 && side(order.Side()).canHold(order.PriceTicks()))){
+            return null;
+        }
+        return INVALID_PRICE;
+    }
+
+    /**
+     * Execute order against the opposite side while it crosses the best price level
+     * @param order order to match against resting orders
+     */
+    private void matchOrder(IOrder order){
+        BookSide opposite = order.Side() == OrderSide.Buy ? this.asks : this.bids;
+        PriceLevel level = opposite.best();
+        while (level != null && order.getRemainingQty() > 0 && crosses(order, level.getPrice())){
+            this.matchedlevels++;
+            traded(level.getPrice());
+            matchLevel(order, opposite, level);
+            if (order.getRemainingQty() > 0){
+                level = opposite.best();
+            }
+        }
+    }
+
+    /**
+     * Record a trade price as the last trade and in the range of trade prices that trigger stops
+     * @param price price in ticks of the trade
+     */
+    private void traded(long price){
+        this.lasttradeticks = price;
+        if (price < this.tradelow){
+            this.tradelow = price;
+        }
+        if (price > this.tradehigh){
+            this.tradehigh = price;
+        }
+    }
+
+    /**
+     * Returns whether the order is willing to trade at a resting price
+     * @param order incoming order
+     * @param price price in ticks of the resting level
+     */
+    private boolean crosses(IOrder order, long price){
+        if (order.isMarketOrder()){
+            return true;
+        }
+        return order.Side() == OrderSide.Buy ? order.PriceTicks() >= price : order.PriceTicks() <= price;
+    }
+
+    /**
+     * Fill incoming order against a level in time priority at the level price
+     * Fully filled resting orders are unlinked from the level, an emptied level is removed from its side
+     * @param order incoming order
+     * @param side side of the level
+     * @param level level to execute against
+     */
+    private void matchLevel(IOrder order, BookSide side, PriceLevel level){
+        while (order.getRemainingQty() > 0 && !level.isEmpty()){
+            OrderNode node = level.first();
+            IOrder queueOrder = node.order;
+            int fillQty = Math.min(order.getRemainingQty(), queueOrder.getRemainingQty());
+            fill(queueOrder, fillQty, level.getPrice());
+            fill(order, fillQty, level.getPrice());
+            level.addTotalQty(-fillQty);
+            this.matchedfills++;
+            if (this.executionlistener != null){
+                this.executionlistener.onExecution(queueOrder.OrderID(), order.OrderID(), level.getPrice(), fillQty,
+                        queueOrder.getStatus(), order.getStatus());
+            }
+            this.eventsink.onExecution(queueOrder.OrderID(), order.OrderID(), level.getPrice(), fillQty);
+            if (queueOrder.getRemainingQty() == 0){
+                this.restingorders.remove(queueOrder.OrderID());
+                removeNode(side, node);
+                releaseOrder(queueOrder);
+            }
+            if (this.marketdatalistener != null){
+                this.marketdatalistener.onTrade(level.getPrice(), fillQty, order.Side());
+                levelChanged(side, level);
+            }
+        }
+    }
+
+    /**
+     * Fill an order and update remaining quantity and status
+     * @param order order to fill
+     * @param fillQty executed quantity
+     * @param price executed price in ticks
+     */
+    private void fill(IOrder order, int fillQty, long price){
+        if (!this.retainfills){
+            order.recordExecution(fillQty, price);
+        }
+        else if (this.orderpool != null){
+            order.FillOrder(this.orderpool.acquireFill(fillQty, price, this.instrument.TickSize()));
+        }
+        else {
+            order.FillOrder(new Fill(fillQty, price, this.instrument.TickSize()));
+        }
+        order.setRemainingQty(order.getRemainingQty() - fillQty);
+        order.setStatus(order.getRemainingQty() == 0 ? OrderStatus.FullyFilled : OrderStatus.PartialFill);
+    }
+
+    /**
+     * Add order to the back of its price level, creating the level if needed
+     * @param order order to add
+     */
+    private void addOrder(IOrder order){
+        BookSide side = side(order.Side());
+        OrderNode node = acquireNode(order);
+        PriceLevel level = side.getOrCreate(order.PriceTicks());
+        level.addLast(node);
+        level.addTotalQty(order.getRemainingQty());
+        levelChanged(side, level);
+        side.addOrderCount(1);
+        this.restingorders.put(order.OrderID(), node);
+        this.clientorders.add(node);
+    }
+
+    /**
+     * Unlink a resting order and its remaining quantity from its level, removing the level from its side if emptied
+     * @param side side of the order
+     * @param node node of the resting order
+     */
+    private void removeNode(BookSide side, OrderNode node){
+        this.clientorders.remove(node);
+        PriceLevel level = (PriceLevel) node.queue;
+        level.addTotalQty(-node.order.getRemainingQty());
+        level.remove(node);
+        side.addOrderCount(-1);
+        if (level.isEmpty()){
+            side.remove(level);
+        }
+        node.order = null;
+        node.next = this.freenodes;
+        this.freenodes = node;
+    }
+
+    /**
+     * Notify the market data listener of the new total quantity and number of orders of a level
+     * @param side side of the level
+     * @param level changed level, possibly emptied and removed from its side
+     */
+    private void levelChanged(BookSide side, PriceLevel level){
+        if (this.marketdatalistener != null){
+            this.marketdatalistener.onLevelChange(side.getSide(), level.getPrice(), level.getTotalQty(), level.size());
+        }
+    }
+
+    /**
+     * Flush the event sink and mark the end of an update to the market data listener
+     */
+    private void endOfUpdate(){
+        this.eventsink.flush();
+        if (this.marketdatalistener != null){
+            this.marketdatalistener.onEndOfUpdate();
+        }
+    }
+
+    /**
+     * Take a node from the recycled nodes, allocating one if none is free
+     * @param order order the node links
+     * @return unlinked node
+     */
+    private OrderNode acquireNode(IOrder order){
+        OrderNode node = this.freenodes;
+        if (node == null){
+            return new OrderNode(order);
+        }
+        this.freenodes = node.next;
+        node.next = null;
+        node.order = order;
+        return node;
+    }
+
+    /**
+     * Release an order that no longer rests on the book to the order pool
+     * @param order fully filled, cancelled or rejected order
+     */
+    private void releaseOrder(IOrder order){
+        if (this.orderpool != null){
+            this.orderpool.release(order);
+        }
+    }
+
+    /**
+     * Returns whether an order object is itself resting or pending as a stop, such as when the same instance
+     * is submitted twice, so rejecting the duplicate must leave it untouched
+     */
+    private boolean isLive(IOrder order){
+        OrderNode node = this.restingorders.get(order.OrderID());
+        if (node == null){
+            node = this.stoporders.get(order.OrderID());
+        }
+        return node != null && node.order == order;
+    }
+
+    private BookSide side(OrderSide side){
+        return side == OrderSide.Buy ? this.bids : this.asks;
+    }
+
+    /**
+     * Read only live list of the orders of a side, best level first and time priority within a level
+     */
+    private static final class SideView extends AbstractList<IOrder> {
+
+        private final BookSide side;
+
+        SideView(BookSide side){
+            this.side = side;
+        }
+
+        @Override
+        public IOrder get(int index) {
+            if (index < 0 || index >= this.side.orderCount()){
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.side.orderCount());
+            }
+            Iterator<IOrder> orders = iterator();
+            for (int i = 0; i < index; i++){
+                orders.next();
+            }
+            return orders.next();
+        }
+
+        @Override
+        public int size() {
+            return this.side.orderCount();
+        }
+
+        @Override
+        public Iterator<IOrder> iterator() {
+            return new Iterator<IOrder>() {
+                private PriceLevel level = SideView.this.side.best();
+                private OrderNode node = this.level == null ? null : this.level.first();
+
+                @Override
+                public boolean hasNext() {
+                    return this.node != null;
+                }
+
+                @Override
+                public IOrder next() {
+                    if (this.node == null){
+                        throw new NoSuchElementException();
+                    }
+                    IOrder order = this.node.order;
+                    this.node = this.node.next;
+                    while (this.node == null && this.level != null){
+                        this.level = SideView.this.side.next(this.level);
+                        this.node = this.level == null ? null : this.level.first();
+                    }
+                    return order;
+                }
+            };
+        }
+    }
+}
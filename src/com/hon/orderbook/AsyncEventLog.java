@@ -0,0 +1,246 @@
+package com.hon.orderbook;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An event sink that records events as fixed size binary records into a pre-allocated ring
+ * and hands them to a target sink on a background thread, which does the formatting and output<p>
+ * Each record takes three longs, a header with event type, side and market flag, a price in ticks
+ * and a quantity, and two references to the order id strings already held by the order book.
+ * Raising an event on the order book thread is a few array writes, nothing is allocated or formatted.
+ * Recorded events are published to the background thread with one ordered store on {@code flush},
+ * which order books call once per submit, cancel or batch. When the ring is full the event is
+ * dropped and counted rather than blocking the order book<p>
+ * Single producer, events must be raised from one thread
+ */
+public class AsyncEventLog implements IEventSink, AutoCloseable {
+
+    private static final int ORDER_RECEIVED = 1;
+    private static final int ORDER_REJECTED = 2;
+    private static final int EXECUTION = 3;
+    private static final int ORDER_CANCELLED = 4;
+    private static final int ORDER_REPLACED = 5;
+    private static final int MASS_CANCEL = 6;
+    private static final int RECORD_LONGS = 3;
+    private static final int RECORD_REFS = 2;
+    private static final long IDLE_PARK_NANOS = 50000;
+
+    private final IEventSink target;
+    private final long[] records;
+    private final String[] refs;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean running;
+    private long sequence;
+    private long publishedsequence;
+    private long cachedconsumed;
+
+    /**
+     * Asynchronous event log constructor, call {@code start} to begin consuming events
+     * @param target sink the background thread passes events to
+     * @param capacity number of records of the ring, rounded up to a power of two
+     */
+    public AsyncEventLog(IEventSink target, int capacity){
+        int size = 1;
+        while (size < capacity){
+            size <<= 1;
+        }
+        this.target = target;
+        this.records = new long[size * RECORD_LONGS];
+        this.refs = new String[size * RECORD_REFS];
+        this.mask = size - 1;
+        this.consumer = new Thread(this::consume, "orderbook-event-log");
+        this.consumer.setDaemon(true);
+    }
+
+    /**
+     * Start the background thread consuming events
+     */
+    public void start(){
+        this.running = true;
+        this.consumer.start();
+    }
+
+    /**
+     * Publish the events recorded since the last flush, then stop the background thread once every
+     * recorded event has been passed to the target sink. Must be called from the thread raising events
+     */
+    @Override
+    public void close() {
+        flush();
+        this.running = false;
+        LockSupport.unpark(this.consumer);
+        try {
+            this.consumer.join();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    /** Number of events dropped because the ring was full **/
+    public long droppedEvents(){
+        return this.dropped.get();
+    }
+
+    @Override
+    public void onOrderReceived(String orderId, OrderSide side, int qty, long priceTicks, boolean market) {
+        int slot = claim();
+        if (slot >= 0){
+            write(slot, header(ORDER_RECEIVED, side, market), priceTicks, qty, orderId, null);
+        }
+    }
+
+    @Override
+    public void onOrderRejected(String orderId, String reason) {
+        int slot = claim();
+        if (slot >= 0){
+            write(slot, ORDER_REJECTED, 0, 0, orderId, reason);
+        }
+    }
+
+    @Override
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty) {
+        int slot = claim();
+        if (slot >= 0){
+            write(slot, EXECUTION, priceTicks, qty, makerOrderId, takerOrderId);
+        }
+    }
+
+    @Override
+    public void onOrderCancelled(String orderId, int remainingQty) {
+        int slot = claim();
+        if (slot >= 0){
+            write(slot, ORDER_CANCELLED, 0, remainingQty, orderId, null);
+        }
+    }
+
+    @Override
+    public void onOrderReplaced(String orderId, long priceTicks, int remainingQty) {
+        int slot = claim();
+        if (slot >= 0){
+            write(slot, ORDER_REPLACED, priceTicks, remainingQty, orderId, null);
+        }
+    }
+
+    @Override
+    public void onMassCancel(String clientId, OrderSide side, int cancelledCount) {
+        int slot = claim();
+        if (slot >= 0){
+            write(slot, header(MASS_CANCEL, side, false), 0, cancelledCount, clientId, null);
+        }
+    }
+
+    /**
+     * Claim the slot of the next record
+     * @return slot index or -1 if the ring is full
+     */
+    private int claim(){
+        if (this.sequence - this.cachedconsumed > this.mask){
+            this.cachedconsumed = this.consumed.get();
+            if (this.sequence - this.cachedconsumed > this.mask){
+                this.dropped.incrementAndGet();
+                return -1;
+            }
+        }
+        return (int) (this.sequence & this.mask);
+    }
+
+    /**
+     * Publish every event recorded since the last flush to the background thread
+     */
+    @Override
+    public void flush() {
+        if (this.publishedsequence != this.sequence){
+            this.publishedsequence = this.sequence;
+            this.published.lazySet(this.sequence);
+        }
+    }
+
+    /** Write a record into a claimed slot, published on the next flush **/
+    private void write(int slot, long header, long priceTicks, long qty, String ref, String ref1){
+        int index = slot * RECORD_LONGS;
+        this.records[index] = header;
+        this.records[index + 1] = priceTicks;
+        this.records[index + 2] = qty;
+        this.refs[slot * RECORD_REFS] = ref;
+        this.refs[slot * RECORD_REFS + 1] = ref1;
+        this.sequence++;
+    }
+
+    private static long header(int type, OrderSide side, boolean market){
+        return type | (side == null ? 0 : (side.ordinal() + 1) << 8) | (market ? 1 << 16 : 0);
+    }
+
+    private static OrderSide side(long header){
+        int side = (int) ((header >>> 8) & 0xFF);
+        return side == 0 ? null : OrderSide.values()[side - 1];
+    }
+
+    /** Background thread loop, drains the ring and parks briefly while it is empty **/
+    private void consume(){
+        while (this.running){
+            if (drain() == 0){
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Pass every published record to the target sink
+     * @return number of records passed
+     */
+    private int drain(){
+        long available = this.published.get();
+        long next = this.consumed.get();
+        if (next == available){
+            return 0;
+        }
+        int count = 0;
+        for (; next < available; next++, count++){
+            int slot = (int) (next & this.mask);
+            dispatch(slot);
+            this.refs[slot * RECORD_REFS] = null;
+            this.refs[slot * RECORD_REFS + 1] = null;
+        }
+        this.consumed.lazySet(next);
+        this.target.flush();
+        return count;
+    }
+
+    private void dispatch(int slot){
+        int index = slot * RECORD_LONGS;
+        long header = this.records[index];
+        long priceTicks = this.records[index + 1];
+        int qty = (int) this.records[index + 2];
+        String ref = this.refs[slot * RECORD_REFS];
+        String ref1 = this.refs[slot * RECORD_REFS + 1];
+        switch ((int) (header & 0xFF)){
+            case ORDER_RECEIVED:
+                this.target.onOrderReceived(ref, side(header), qty, priceTicks, (header & (1 << 16)) != 0);
+                break;
+            case ORDER_REJECTED:
+                this.target.onOrderRejected(ref, ref1);
+                break;
+            case EXECUTION:
+                this.target.onExecution(ref, ref1, priceTicks, qty);
+                break;
+            case ORDER_CANCELLED:
+                this.target.onOrderCancelled(ref, qty);
+                break;
+            case ORDER_REPLACED:
+                this.target.onOrderReplaced(ref, priceTicks, qty);
+                break;
+            case MASS_CANCEL:
+                this.target.onMassCancel(ref, side(header), qty);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.hon.orderbook;
+
+/**
+ * One side of a price level order book, indexes the price levels of the side
+ * Levels are ranked best price first, highest for the bid side and lowest for the ask side<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+abstract class BookSide {
+
+    protected final OrderSide side;
+    private int ordercount;
+
+    BookSide(OrderSide side){
+        this.side = side;
+    }
+
+    OrderSide getSide(){
+        return this.side;
+    }
+
+    /**
+     * Returns whether a price ranks ahead of another price on this side
+     * @param price price in ticks
+     * @param other price in ticks to compare with
+     * @return true if {@code price} is the better price
+     */
+    boolean isBetter(long price, long other){
+        return this.side == OrderSide.Buy ? price > other : price < other;
+    }
+
+    /**
+     * Returns the best level of the side
+     * @return best level or {@code null} if the side is empty
+     */
+    abstract PriceLevel best();
+
+    /**
+     * Returns the level at a price
+     * @param price price in ticks
+     * @return level or {@code null} if no order rests at the price
+     */
+    abstract PriceLevel get(long price);
+
+    /**
+     * Returns the level at a price, adding an empty level to the side if none rests at the price
+     * @param price price in ticks
+     * @return level at the price
+     */
+    abstract PriceLevel getOrCreate(long price);
+
+    /**
+     * Removes an empty level from the side
+     * @param level level to remove
+     */
+    abstract void remove(PriceLevel level);
+
+    /**
+     * Returns the next worse level after a level of this side
+     * @param level level on this side
+     * @return next level or {@code null} if the level is the worst
+     */
+    abstract PriceLevel next(PriceLevel level);
+
+    /**
+     * Returns the number of levels on this side
+     * @return number of levels
+     */
+    abstract int levelCount();
+
+    /**
+     * Returns whether a level at a price can be added to this side
+     * @param price price in ticks
+     * @return true if the side can hold the price
+     */
+    boolean canHold(long price){
+        return true;
+    }
+
+    /**
+     * Returns the number of orders resting on this side
+     * @return number of orders
+     */
+    int orderCount(){
+        return this.ordercount;
+    }
+
+    /**
+     * Adjust the number of orders resting on this side
+     * @param delta number of orders added, negative for orders removed
+     */
+    void addOrderCount(int delta){
+        this.ordercount += delta;
+    }
+
+    boolean isEmpty(){
+        return best() == null;
+    }
+}
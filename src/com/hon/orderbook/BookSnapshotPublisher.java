@@ -0,0 +1,165 @@
+package com.hon.orderbook;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Publishes the top levels of an order book for reader threads through a sequence lock<p>
+ * Set as the market data listener of an order book, the publisher copies the top {@code levels} of both
+ * sides at the end of every update that changed a level, forwarding every event to an optional downstream
+ * listener. The copy is written between two increments of a version, odd while writing, so the order book
+ * thread never waits on readers. Any number of reader threads copy the levels into their own
+ * {@code DepthSnapshot} without locking, retrying only if a publish overlapped their copy, and get a
+ * consistent view as of the end of one update together with its version and publish time.
+ * {@code latestVersion} and {@code DepthSnapshot.ageNanos} tell a reader how far behind its copy is<p>
+ * {@code publish} may also be called directly on the order book thread, for an order book
+ * without a market data listener<p>
+ * Published levels are held in primitive arrays sized once, nothing is allocated per publish or read
+ */
+public class BookSnapshotPublisher implements IMarketDataListener {
+
+    private static final int BID_LEVELS = 0;
+    private static final int ASK_LEVELS = 1;
+    private static final int TIMESTAMP = 2;
+    private static final int HEADER = 3;
+    private static final int FIELDS = 3;
+
+    private final IMarketDepth depth;
+    private final IMarketDataListener downstream;
+    private final DepthSnapshot scratch;
+    private final int levels;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLongArray published;
+    private boolean dirty = true;
+
+    /**
+     * Book snapshot publisher
+     * @param depth order book the levels are copied from
+     * @param levels number of levels published per side
+     */
+    public BookSnapshotPublisher(IMarketDepth depth, int levels){
+        this(depth, levels, null);
+    }
+
+    /**
+     * Book snapshot publisher
+     * @param depth order book the levels are copied from
+     * @param levels number of levels published per side
+     * @param downstream listener every market data event is forwarded to, {@code null} for none
+     */
+    public BookSnapshotPublisher(IMarketDepth depth, int levels, IMarketDataListener downstream){
+        if (levels <= 0){
+            throw new IllegalArgumentException("Invalid number of levels " + levels);
+        }
+        this.depth = depth;
+        this.downstream = downstream;
+        this.levels = levels;
+        this.scratch = new DepthSnapshot(levels);
+        this.published = new AtomicLongArray(HEADER + 2 * levels * FIELDS);
+    }
+
+    @Override
+    public void onLevelChange(OrderSide side, long priceTicks, long qty, int orderCount) {
+        this.dirty = true;
+        if (this.downstream != null){
+            this.downstream.onLevelChange(side, priceTicks, qty, orderCount);
+        }
+    }
+
+    @Override
+    public void onTrade(long priceTicks, int qty, OrderSide aggressorSide) {
+        if (this.downstream != null){
+            this.downstream.onTrade(priceTicks, qty, aggressorSide);
+        }
+    }
+
+    /** Publish the levels if the update changed any **/
+    @Override
+    public void onEndOfUpdate() {
+        if (this.dirty){
+            publish();
+        }
+        if (this.downstream != null){
+            this.downstream.onEndOfUpdate();
+        }
+    }
+
+    /**
+     * Copy the top levels of the order book and publish them as a new version, on the order book thread only
+     */
+    public void publish(){
+        this.dirty = false;
+        this.depth.getDepth(this.scratch);
+        long version = this.sequence.get();
+        this.sequence.set(version + 1);
+        VarHandle.storeStoreFence();
+        this.published.setPlain(BID_LEVELS, this.scratch.bidLevels());
+        this.published.setPlain(ASK_LEVELS, this.scratch.askLevels());
+        this.published.setPlain(TIMESTAMP, System.nanoTime());
+        for (int i = 0; i < this.scratch.bidLevels(); i++){
+            int at = bidField(i);
+            this.published.setPlain(at, this.scratch.bidPriceTicks(i));
+            this.published.setPlain(at + 1, this.scratch.bidQty(i));
+            this.published.setPlain(at + 2, this.scratch.bidOrderCount(i));
+        }
+        for (int i = 0; i < this.scratch.askLevels(); i++){
+            int at = askField(i);
+            this.published.setPlain(at, this.scratch.askPriceTicks(i));
+            this.published.setPlain(at + 1, this.scratch.askQty(i));
+            this.published.setPlain(at + 2, this.scratch.askOrderCount(i));
+        }
+        this.sequence.set(version + 2);
+    }
+
+    /**
+     * Returns the version of the last completed publish, from any thread
+     * @return number of publishes, 0 if none
+     */
+    public long latestVersion(){
+        return this.sequence.get() >>> 1;
+    }
+
+    /**
+     * Copy the last published levels into a snapshot, from any thread
+     * Levels beyond the capacity of the snapshot are left out
+     * @param snapshot reusable snapshot of the reader thread to overwrite
+     * @return version of the levels copied, 0 if nothing was published yet
+     */
+    public long read(DepthSnapshot snapshot){
+        while (true){
+            long before = this.sequence.get();
+            if ((before & 1) != 0){
+                Thread.onSpinWait();
+                continue;
+            }
+            snapshot.clear();
+            int bidLevels = (int) Math.min(this.published.getPlain(BID_LEVELS), snapshot.capacity());
+            int askLevels = (int) Math.min(this.published.getPlain(ASK_LEVELS), snapshot.capacity());
+            long timestamp = this.published.getPlain(TIMESTAMP);
+            for (int i = 0; i < bidLevels && i < this.levels; i++){
+                int at = bidField(i);
+                snapshot.add(OrderSide.Buy, this.published.getPlain(at), this.published.getPlain(at + 1),
+                        (int) this.published.getPlain(at + 2));
+            }
+            for (int i = 0; i < askLevels && i < this.levels; i++){
+                int at = askField(i);
+                snapshot.add(OrderSide.Sell, this.published.getPlain(at), this.published.getPlain(at + 1),
+                        (int) this.published.getPlain(at + 2));
+            }
+            VarHandle.loadLoadFence();
+            if (this.sequence.get() == before){
+                snapshot.setVersion(before >>> 1, timestamp);
+                return before >>> 1;
+            }
+        }
+    }
+
+    private int bidField(int level){
+        return HEADER + level * FIELDS;
+    }
+
+    private int askField(int level){
+        return HEADER + (this.levels + level) * FIELDS;
+    }
+}
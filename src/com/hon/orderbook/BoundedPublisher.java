@@ -0,0 +1,236 @@
+package com.hon.orderbook;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code Flow.Publisher} fed by the order book thread, delivering to each subscriber through its own bounded buffer<p>
+ * {@code submit} never blocks: an item is appended to the ring buffer of each subscriber and a delivery task
+ * is scheduled on the executor, which calls the subscriber as far as its requested demand allows.
+ * A subscriber whose buffer is full when an item is submitted has fallen too far behind, it is sent a
+ * {@code SubscriberOverflowException} through {@code onError} and its subscription is cancelled,
+ * so it never stalls the order book and never silently misses an item<p>
+ * Delivery tasks are handed to the executor from the order book thread, so the executor must queue
+ * them for threads of its own and return at once. An executor that runs tasks in the calling thread,
+ * such as a caller-runs policy, would run subscriber code inside matching, and one that blocks while
+ * its queue is full would stall it. A task the executor rejects is treated as an overflow of the
+ * subscriber, signalled once a later task is accepted, each later submit retrying the delivery<p>
+ * {@code submit} and {@code close} are called from the order book thread only, subscribing,
+ * requesting and cancelling from any thread
+ * @param <T> type of the items published
+ */
+public class BoundedPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+    private final Executor executor;
+    private final int capacity;
+    private final CopyOnWriteArrayList<BoundedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Bounded publisher constructor
+     * @param executor executor running the deliveries to subscribers on its own threads, it must never run
+     *                 a task in the calling thread nor block to accept one
+     * @param bufferCapacity number of items buffered per subscriber, rounded up to a power of two
+     */
+    public BoundedPublisher(Executor executor, int bufferCapacity){
+        if (bufferCapacity <= 0){
+            throw new IllegalArgumentException("Invalid buffer capacity " + bufferCapacity);
+        }
+        int size = 1;
+        while (size < bufferCapacity){
+            size <<= 1;
+        }
+        this.executor = executor;
+        this.capacity = size;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null){
+            throw new NullPointerException("subscriber");
+        }
+        BoundedSubscription subscription = new BoundedSubscription(subscriber);
+        if (!this.closed){
+            this.subscriptions.add(subscription);
+        }
+        else {
+            subscription.completed = true;
+        }
+        subscription.schedule();
+    }
+
+    /** Returns whether any subscriber is subscribed, to skip building items no one receives **/
+    public boolean hasSubscribers(){
+        return !this.subscriptions.isEmpty();
+    }
+
+    /** Number of subscribers subscribed **/
+    public int subscriberCount(){
+        return this.subscriptions.size();
+    }
+
+    /**
+     * Publish an item to every subscriber without blocking, from the order book thread only
+     * @param item item to publish
+     */
+    public void submit(T item){
+        for (BoundedSubscription subscription : this.subscriptions){
+            subscription.offer(item);
+        }
+    }
+
+    /**
+     * Complete every subscription once its buffered items are delivered, from the order book thread only
+     */
+    @Override
+    public void close(){
+        this.closed = true;
+        for (BoundedSubscription subscription : this.subscriptions){
+            subscription.completed = true;
+            subscription.schedule();
+        }
+    }
+
+    /**
+     * Subscription with a single producer single consumer ring buffer, delivered by at most
+     * one task at a time on the executor
+     */
+    private final class BoundedSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Object[] buffer = new Object[BoundedPublisher.this.capacity];
+        private final int mask = BoundedPublisher.this.capacity - 1;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger scheduled = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean overflowed;
+        private volatile boolean completed;
+        private volatile Throwable invalidrequest;
+        private boolean subscribed;
+
+        BoundedSubscription(Flow.Subscriber<? super T> subscriber){
+            this.subscriber = subscriber;
+        }
+
+        void offer(T item){
+            if (this.cancelled){
+                return;
+            }
+            if (this.overflowed){
+                schedule();
+                return;
+            }
+            long t = this.tail.get();
+            if (t - this.head.get() == this.buffer.length){
+                this.overflowed = true;
+            }
+            else {
+                this.buffer[(int) t & this.mask] = item;
+                this.tail.lazySet(t + 1);
+            }
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0){
+                this.invalidrequest = new IllegalArgumentException("Non positive request " + n);
+            }
+            else {
+                long current;
+                do {
+                    current = this.demand.get();
+                } while (current != Long.MAX_VALUE
+                        && !this.demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            BoundedPublisher.this.subscriptions.remove(this);
+        }
+
+        void schedule(){
+            if (this.scheduled.getAndIncrement() == 0){
+                try {
+                    BoundedPublisher.this.executor.execute(this);
+                }
+                catch (RejectedExecutionException e){
+                    this.overflowed = true;
+                    this.scheduled.set(0);
+                }
+            }
+        }
+
+        /** Deliver buffered items within demand, then overflow, invalid request or completion signals **/
+        @Override
+        public void run() {
+            int missed = 1;
+            if (!this.subscribed){
+                this.subscribed = true;
+                this.subscriber.onSubscribe(this);
+            }
+            while (true){
+                if (this.cancelled){
+                    clear();
+                    return;
+                }
+                if (this.overflowed){
+                    terminate(new SubscriberOverflowException(this.buffer.length));
+                    return;
+                }
+                if (this.invalidrequest != null){
+                    terminate(this.invalidrequest);
+                    return;
+                }
+                long requested = this.demand.get();
+                long emitted = 0;
+                long h = this.head.get();
+                while (emitted != requested && h != this.tail.get() && !this.cancelled){
+                    int slot = (int) h & this.mask;
+                    @SuppressWarnings("unchecked")
+                    T item = (T) this.buffer[slot];
+                    this.buffer[slot] = null;
+                    this.head.lazySet(++h);
+                    this.subscriber.onNext(item);
+                    emitted++;
+                }
+                if (emitted > 0 && requested != Long.MAX_VALUE){
+                    this.demand.addAndGet(-emitted);
+                }
+                if (this.completed && !this.cancelled && !this.overflowed && this.head.get() == this.tail.get()){
+                    this.cancelled = true;
+                    BoundedPublisher.this.subscriptions.remove(this);
+                    this.subscriber.onComplete();
+                    return;
+                }
+                missed = this.scheduled.addAndGet(-missed);
+                if (missed == 0){
+                    return;
+                }
+            }
+        }
+
+        private void terminate(Throwable error){
+            cancel();
+            clear();
+            this.subscriber.onError(error);
+        }
+
+        private void clear(){
+            long t = this.tail.get();
+            for (long h = this.head.get(); h != t; h++){
+                this.buffer[(int) h & this.mask] = null;
+            }
+            this.head.lazySet(t);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.hon.orderbook;
+
+/**
+ * Index of order nodes by client id
+ * Each client id maps to the most recently added node of the client, the nodes of a client being
+ * doubly linked to each other through their client links. Adding and removing a node are O(1)
+ * and the k nodes of a client are walked in O(k) without looking at the orders of other clients.
+ * Nodes of orders without a client id are not indexed<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+final class ClientOrderIndex {
+
+    private final OrderIdIndex clients;
+
+    /**
+     * Client order index constructor
+     * @param expectedClients number of clients expected to have orders at once
+     */
+    ClientOrderIndex(int expectedClients){
+        this.clients = new OrderIdIndex(expectedClients);
+    }
+
+    /**
+     * Returns the first node of a client, following nodes are linked through {@code clientnext}
+     * @param clientId client id
+     * @return first node or {@code null} if the client has no indexed node
+     */
+    OrderNode first(String clientId){
+        return clientId == null ? null : this.clients.get(clientId);
+    }
+
+    /**
+     * Link a node at the front of the nodes of the client of its order
+     * @param node node of an order
+     */
+    void add(OrderNode node){
+        String clientId = node.order.ClientID();
+        if (clientId == null){
+            return;
+        }
+        OrderNode head = this.clients.get(clientId);
+        node.clientprev = null;
+        node.clientnext = head;
+        if (head != null){
+            head.clientprev = node;
+        }
+        this.clients.put(clientId, node);
+    }
+
+    /**
+     * Unlink a node from the nodes of the client of its order
+     * @param node indexed node, its order still set
+     */
+    void remove(OrderNode node){
+        String clientId = node.order.ClientID();
+        if (clientId == null){
+            return;
+        }
+        if (node.clientprev == null){
+            if (node.clientnext == null){
+                this.clients.remove(clientId);
+            }
+            else {
+                this.clients.put(clientId, node.clientnext);
+            }
+        }
+        else {
+            node.clientprev.clientnext = node.clientnext;
+        }
+        if (node.clientnext != null){
+            node.clientnext.clientprev = node.clientprev;
+        }
+        node.clientprev = null;
+        node.clientnext = null;
+    }
+}
@@ -0,0 +1,127 @@
+package com.hon.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * Registry interning client ids to small consecutive integers, from 0 in order of registration<p>
+ * Orders submitted with a client number carry an int rather than a {@code String}, and comparing
+ * the owner of an order on cancel is an integer comparison. The name of a client number is kept
+ * once for reporting. Client ids are never unregistered<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+public final class ClientRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private String[] keys;
+    private int[] numbers;
+    private int mask;
+    private String[] names;
+    private int size;
+
+    /**
+     * Client registry constructor
+     * @param expectedClients number of clients expected to register
+     */
+    public ClientRegistry(int expectedClients){
+        int capacity = 16;
+        while (capacity < expectedClients * 2){
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.numbers = new int[capacity];
+        this.mask = capacity - 1;
+        this.names = new String[Math.max(16, expectedClients)];
+    }
+
+    /** Number of registered clients **/
+    public int size(){
+        return this.size;
+    }
+
+    /**
+     * Returns the number of a client id, registering it if new
+     * @param clientId client id
+     * @return client number
+     */
+    public int intern(String clientId){
+        int i = slot(clientId);
+        for (String k = this.keys[i]; k != null; k = this.keys[i]){
+            if (k == clientId || k.equals(clientId)){
+                return this.numbers[i];
+            }
+            i = (i + 1) & this.mask;
+        }
+        int number = this.size++;
+        if (number == this.names.length){
+            this.names = Arrays.copyOf(this.names, number << 1);
+        }
+        this.names[number] = clientId;
+        this.keys[i] = clientId;
+        this.numbers[i] = number;
+        if (this.size * 2 > this.keys.length){
+            resize(this.keys.length << 1);
+        }
+        return number;
+    }
+
+    /**
+     * Returns the number of a registered client id
+     * @param clientId client id
+     * @return client number, {@code UNKNOWN} if not registered
+     */
+    public int get(String clientId){
+        for (int i = slot(clientId); ; i = (i + 1) & this.mask){
+            String k = this.keys[i];
+            if (k == null){
+                return UNKNOWN;
+            }
+            if (k == clientId || k.equals(clientId)){
+                return this.numbers[i];
+            }
+        }
+    }
+
+    /**
+     * Returns whether a client number is registered
+     * @param number client number
+     */
+    public boolean contains(int number){
+        return number >= 0 && number < this.size;
+    }
+
+    /**
+     * Returns the client id of a client number
+     * @param number registered client number
+     * @return client id
+     */
+    public String name(int number){
+        if (!contains(number)){
+            throw new IllegalArgumentException("Unknown client number " + number);
+        }
+        return this.names[number];
+    }
+
+    private int slot(String key){
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & this.mask;
+    }
+
+    private void resize(int capacity){
+        String[] oldKeys = this.keys;
+        int[] oldNumbers = this.numbers;
+        this.keys = new String[capacity];
+        this.numbers = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++){
+            if (oldKeys[i] != null){
+                int j = slot(oldKeys[i]);
+                while (this.keys[j] != null){
+                    j = (j + 1) & this.mask;
+                }
+                this.keys[j] = oldKeys[i];
+                this.numbers[j] = oldNumbers[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.hon.orderbook;
+
+/**
+ * A reusable snapshot of the top price levels of both sides of an order book
+ * Each level holds its price in ticks, total remaining quantity and number of orders,
+ * best level first. Held in primitive arrays sized once, so taking a snapshot allocates nothing.
+ * A snapshot read from a {@code BookSnapshotPublisher} also holds the version it was published as
+ * and when, to tell how stale it is<p>
+ * non thread safe, should not be shared between threads while being written
+ */
+public class DepthSnapshot {
+
+    private final long[] bidprices;
+    private final long[] bidqtys;
+    private final int[] bidcounts;
+    private final long[] askprices;
+    private final long[] askqtys;
+    private final int[] askcounts;
+    private int bidlevels;
+    private int asklevels;
+    private long version;
+    private long timestampnanos;
+
+    /**
+     * Depth snapshot constructor
+     * @param levels maximum number of levels held per side
+     */
+    public DepthSnapshot(int levels){
+        this.bidprices = new long[levels];
+        this.bidqtys = new long[levels];
+        this.bidcounts = new int[levels];
+        this.askprices = new long[levels];
+        this.askqtys = new long[levels];
+        this.askcounts = new int[levels];
+    }
+
+    /** Maximum number of levels held per side **/
+    public int capacity(){
+        return this.bidprices.length;
+    }
+
+    /** Number of bid levels in the snapshot **/
+    public int bidLevels(){
+        return this.bidlevels;
+    }
+
+    /** Number of ask levels in the snapshot **/
+    public int askLevels(){
+        return this.asklevels;
+    }
+
+    public long bidPriceTicks(int level){
+        return this.bidprices[level];
+    }
+
+    public long bidQty(int level){
+        return this.bidqtys[level];
+    }
+
+    public int bidOrderCount(int level){
+        return this.bidcounts[level];
+    }
+
+    public long askPriceTicks(int level){
+        return this.askprices[level];
+    }
+
+    public long askQty(int level){
+        return this.askqtys[level];
+    }
+
+    public int askOrderCount(int level){
+        return this.askcounts[level];
+    }
+
+    /** Version of the published snapshot, 0 if not read from a {@code BookSnapshotPublisher} **/
+    public long getVersion(){
+        return this.version;
+    }
+
+    /** {@code System.nanoTime} the snapshot was published at **/
+    public long getTimestampNanos(){
+        return this.timestampnanos;
+    }
+
+    /** Nanoseconds elapsed since the snapshot was published **/
+    public long ageNanos(){
+        return System.nanoTime() - this.timestampnanos;
+    }
+
+    void setVersion(long version, long timestampNanos){
+        this.version = version;
+        this.timestampnanos = timestampNanos;
+    }
+
+    /**
+     * Clear both sides of the snapshot
+     */
+    public void clear(){
+        this.bidlevels = 0;
+        this.asklevels = 0;
+    }
+
+    /**
+     * Append a level to a side of the snapshot
+     * @return false if the side is full
+     */
+    boolean add(OrderSide side, long priceTicks, long qty, int orderCount){
+        if (side == OrderSide.Buy){
+            if (this.bidlevels == this.bidprices.length){
+                return false;
+            }
+            this.bidprices[this.bidlevels] = priceTicks;
+            this.bidqtys[this.bidlevels] = qty;
+            this.bidcounts[this.bidlevels++] = orderCount;
+            return true;
+        }
+        if (this.asklevels == this.askprices.length){
+            return false;
+        }
+        this.askprices[this.asklevels] = priceTicks;
+        this.askqtys[this.asklevels] = qty;
+        this.askcounts[this.asklevels++] = orderCount;
+        return true;
+    }
+}
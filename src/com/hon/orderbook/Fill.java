@@ -11,20 +11,39 @@ package com.hon.orderbook;
 public class Fill implements IFill {
 
     private int orderqty;
-    private double price;
+    private long priceticks;
+    private double ticksize;
 
-// test 
-    public Fill(int orderQty, double price){
+    /**
+     * Fill constructor
+     * @param orderQty executed quantity
+     * @param priceTicks executed price in ticks
+     * @param tickSize tick size of the instrument
+     */
+    public Fill(int orderQty, long priceTicks, double tickSize){
+        set(orderQty, priceTicks, tickSize);
+    }
+
+    /**
+     * Set the fields of a pooled fill
+     */
+    void set(int orderQty, long priceTicks, double tickSize){
         this.orderqty = orderQty;
-        this.price = price;
+        this.priceticks = priceTicks;
+        this.ticksize = tickSize;
     }
     @Override
     public int OrderQty() {
         return this.orderqty;
     }
 
+    @Override
+    public long PriceTicks() {
+        return this.priceticks;
+    }
+
     @Override
     public double Price() {
-        return this.price;
+        return Instrument.toPrice(this.priceticks, this.ticksize);
     }
 }
@@ -0,0 +1,52 @@
+package com.hon.orderbook;
+
+/**
+ * Policy of when an {@code OrderJournal} forces appended records to disk
+ * None, never force, records reach the disk when the operating system writes the pages back
+ * and survive a crash of the process but not of the host
+ * Group, a background thread forces every record appended while it forced the previous group
+ * Periodic, a background thread forces appended records at a fixed interval, 10 milliseconds
+ * unless created with {@code periodic}
+ */
+
+public final class FsyncPolicy {
+
+    public static final FsyncPolicy None = new FsyncPolicy("None", -1);
+    public static final FsyncPolicy Group = new FsyncPolicy("Group", 0);
+    public static final FsyncPolicy Periodic = new FsyncPolicy("Periodic", 10000000);
+
+    private final String name;
+    private final long intervalnanos;
+
+    private FsyncPolicy(String name, long intervalNanos){
+        this.name = name;
+        this.intervalnanos = intervalNanos;
+    }
+
+    /**
+     * Policy forcing appended records to disk at a fixed interval
+     * @param intervalNanos interval between forces in nanoseconds, must be positive
+     * @return periodic policy
+     */
+    public static FsyncPolicy periodic(long intervalNanos){
+        if (intervalNanos <= 0){
+            throw new IllegalArgumentException("Invalid fsync interval " + intervalNanos);
+        }
+        return new FsyncPolicy("Periodic", intervalNanos);
+    }
+
+    /** Whether appended records are forced to disk by a background thread **/
+    public boolean isForced(){
+        return this.intervalnanos >= 0;
+    }
+
+    /** Interval between forces in nanoseconds, 0 if records are forced as a group once appended **/
+    public long intervalNanos(){
+        return Math.max(0, this.intervalnanos);
+    }
+
+    @Override
+    public String toString() {
+        return this.intervalnanos > 0 ? this.name + " " + this.intervalnanos + "ns" : this.name;
+    }
+}
@@ -0,0 +1,128 @@
+package com.hon.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * Index of order store records by order id
+ * Open addressing with linear probing over parallel arrays of handles and id hashes, the ids
+ * themselves stay in the records and are compared there, so the index holds no object per order.
+ * Removal shifts following entries back so no tombstones are left<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+final class HandleIndex {
+
+    private final OffHeapOrderStore store;
+    private int[] handles;
+    private int[] hashes;
+    private int mask;
+    private int size;
+
+    /**
+     * Handle index constructor
+     * @param store store of the indexed records
+     * @param expectedSize number of orders expected to rest at once
+     */
+    HandleIndex(OffHeapOrderStore store, int expectedSize){
+        this.store = store;
+        int capacity = 16;
+        while (capacity < expectedSize * 2){
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    int size(){
+        return this.size;
+    }
+
+    /**
+     * Returns the record of an order id
+     * @param orderId order id
+     * @return handle or {@code OffHeapOrderStore.NIL} if the order id is not indexed or {@code null}
+     */
+    int get(String orderId){
+        if (orderId == null){
+            return OffHeapOrderStore.NIL;
+        }
+        int hash = orderId.hashCode();
+        for (int i = slot(hash); ; i = (i + 1) & this.mask){
+            int handle = this.handles[i];
+            if (handle == OffHeapOrderStore.NIL){
+                return OffHeapOrderStore.NIL;
+            }
+            if (this.hashes[i] == hash && this.store.orderIdEquals(handle, orderId)){
+                return handle;
+            }
+        }
+    }
+
+    /**
+     * Index a record by its order id, which must not be indexed already
+     * @param handle handle of the record
+     */
+    void put(int handle){
+        int hash = this.store.orderIdHash(handle);
+        int i = slot(hash);
+        while (this.handles[i] != OffHeapOrderStore.NIL){
+            i = (i + 1) & this.mask;
+        }
+        this.handles[i] = handle;
+        this.hashes[i] = hash;
+        if (++this.size * 2 > this.handles.length){
+            resize(this.handles.length << 1);
+        }
+    }
+
+    /**
+     * Remove a record from the index
+     * @param handle handle of an indexed record
+     */
+    void remove(int handle){
+        int i = slot(this.store.orderIdHash(handle));
+        while (this.handles[i] != handle){
+            if (this.handles[i] == OffHeapOrderStore.NIL){
+                return;
+            }
+            i = (i + 1) & this.mask;
+        }
+        this.size--;
+        //Shift back following entries of the probe sequence into the freed slot
+        int free = i;
+        for (int j = (i + 1) & this.mask; this.handles[j] != OffHeapOrderStore.NIL; j = (j + 1) & this.mask){
+            int home = slot(this.hashes[j]);
+            if (((j - home) & this.mask) >= ((j - free) & this.mask)){
+                this.handles[free] = this.handles[j];
+                this.hashes[free] = this.hashes[j];
+                free = j;
+            }
+        }
+        this.handles[free] = OffHeapOrderStore.NIL;
+    }
+
+    private int slot(int hash){
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    private void allocate(int capacity){
+        this.handles = new int[capacity];
+        this.hashes = new int[capacity];
+        Arrays.fill(this.handles, OffHeapOrderStore.NIL);
+        this.mask = capacity - 1;
+    }
+
+    private void resize(int capacity){
+        int[] oldHandles = this.handles;
+        int[] oldHashes = this.hashes;
+        allocate(capacity);
+        for (int i = 0; i < oldHandles.length; i++){
+            if (oldHandles[i] != OffHeapOrderStore.NIL){
+                int j = slot(oldHashes[i]);
+                while (this.handles[j] != OffHeapOrderStore.NIL){
+                    j = (j + 1) & this.mask;
+                }
+                this.handles[j] = oldHandles[i];
+                this.hashes[j] = oldHashes[i];
+            }
+        }
+    }
+}
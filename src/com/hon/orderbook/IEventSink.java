@@ -0,0 +1,29 @@
+package com.hon.orderbook;
+
+/**
+ * A sink of the events of an order book: orders received, rejected, replaced and cancelled, executions
+ * and mass cancels of the orders of a client
+ * Arguments are primitives and references the order book already holds, so raising an event
+ * allocates nothing. Formatting and output are left to the sink<p>
+ *
+ */
+
+public interface IEventSink {
+
+    public void onOrderReceived(String orderId, OrderSide side, int qty, long priceTicks, boolean market);
+    public void onOrderRejected(String orderId, String reason);
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty);
+    public void onOrderCancelled(String orderId, int remainingQty);
+
+    /** A resting order was replaced with a new price and open quantity, before any execution the new price causes **/
+    public default void onOrderReplaced(String orderId, long priceTicks, int remainingQty) {
+    }
+
+    /** Every order of a client on a side, or both sides if {@code null}, was cancelled, after the cancel of each order **/
+    public default void onMassCancel(String clientId, OrderSide side, int cancelledCount) {
+    }
+
+    /** Flush any buffered events, called once a batch of events has been raised **/
+    public default void flush() {
+    }
+}
@@ -0,0 +1,15 @@
+package com.hon.orderbook;
+
+/**
+ * A listener notified of every execution of an order book as it happens
+ * Receives the resting (maker) and incoming (taker) order ids, the executed price in ticks
+ * and quantity, and the status of both orders after the execution<p>
+ * Called on the thread of the order book, implementations should not block
+ *
+ */
+
+public interface IExecutionListener {
+
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty,
+                            OrderStatus makerStatus, OrderStatus takerStatus);
+}
@@ -3,12 +3,13 @@ package com.hon.orderbook;
 /**
  * A fill associated with an order
  * It contains the order qty that was executed
- * and the price at which it was executed<p>
+ * and the price at which it was executed, in ticks and as a decimal price<p>
  *
  */
 
 public interface IFill {
 
     public int OrderQty();
+    public long PriceTicks();
     public double Price();
 }
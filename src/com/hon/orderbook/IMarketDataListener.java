@@ -0,0 +1,20 @@
+package com.hon.orderbook;
+
+/**
+ * A listener of the market data of an order book
+ * Receives the new total quantity and number of orders of a price level each time it changes,
+ * a quantity of 0 meaning the level is gone, and every trade with the side of the incoming order.
+ * {@code onEndOfUpdate} marks the end of the changes of one submit, cancel or batch<p>
+ * Called on the thread of the order book, implementations should not block
+ *
+ */
+
+public interface IMarketDataListener {
+
+    public void onLevelChange(OrderSide side, long priceTicks, long qty, int orderCount);
+    public void onTrade(long priceTicks, int qty, OrderSide aggressorSide);
+
+    /** Called once the order book is done with a submit, cancel or batch **/
+    public default void onEndOfUpdate() {
+    }
+}
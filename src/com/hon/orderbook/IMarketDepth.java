@@ -0,0 +1,19 @@
+package com.hon.orderbook;
+
+/**
+ * Aggregated market depth of an order book
+ * Best bid and ask with their total quantity and number of orders in O(1),
+ * and the top levels of both sides copied into a reusable {@code DepthSnapshot} in O(k)
+ * Prices are in ticks, a price of 0 means the side is empty <p>
+ *
+ */
+
+public interface IMarketDepth {
+    public long getBestBidTicks();
+    public long getBestBidQty();
+    public int getBestBidOrderCount();
+    public long getBestAskTicks();
+    public long getBestAskQty();
+    public int getBestAskOrderCount();
+    public void getDepth(DepthSnapshot snapshot);
+}
@@ -2,18 +2,47 @@ package com.hon.orderbook;
 
 import java.util.List;
 
+/**
+ * An order submitted to an order book
+ * Limit prices are carried in ticks of the instrument, {@code Price()} is the decimal equivalent.
+ * Market orders are flagged explicitly and carry no limit price.
+ * Stop and stop limit orders carry the price in ticks a trade must reach to trigger them.
+ * Executions are kept as a list of fills, an order book may instead only record them
+ * into the cumulative quantity and average price<p>
+ *
+ */
+
 public interface IOrder<T> extends Comparable<T> {
 
     public String OrderID();
+    public long PriceTicks();
+    public void setPriceTicks(long priceTicks);
     public double Price();
+    /**
+     * Price in ticks a trade must reach to trigger a stop or stop limit order
+     * @return stop price in ticks, 0 if not a stop order
+     */
+    public default long StopPriceTicks() {
+        return 0;
+    }
+    public boolean isMarketOrder();
     public OrderSide Side();
     public OrderType OrderType();
     public String ClientID();
     public int OrderQty();
+
+    /**
+     * Set the total quantity of the order, as a replace changes it to the executed plus the new open quantity
+     * @param orderQty total quantity of the order
+     */
+    public void setOrderQty(int orderQty);
     public int getRemainingQty();
     public void setRemainingQty(int remainingQty);
     public List<Fill> Fills();
     public void FillOrder(Fill fill);
+    public void recordExecution(int qty, long priceTicks);
+    public int getCumulativeQty();
+    public double getAveragePrice();
     public OrderStatus getStatus();
     public void setStatus(OrderStatus status);
 
@@ -1,10 +1,17 @@
 package com.hon.orderbook;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * An order book of orders that allows the submissions
- * of orders and cancel of existing orders
+ * of orders and cancel or replace of existing orders
+ * A replace that only lowers the open quantity of an order keeps its time priority,
+ * a new price or a higher quantity moves the order to the back of its new level<p>
+ * Executions are streamed to an optional {@code IExecutionListener}
+ * Order events are raised to an {@code IEventSink}
+ * Orders and cancels can be entered in batches, results are written to caller supplied buffers
+ * Every order of a client can be cancelled at once, such as when its session drops
  * Current use of List is a non thread safe interface <p>
  *
  */
@@ -13,6 +20,108 @@ public interface IOrderBook {
     public List<IOrder> getBidQueue();
     public List<IOrder> getAskQueue();
     public void submitOrder(IOrder order);
-    public void cancelOrder(String orderId, String clientId);
+    public boolean cancelOrder(String orderId, String clientId);
 
+    /**
+     * Replace the price and open quantity of a resting order
+     * @param orderId OrderId of the resting order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order, its order quantity becomes the executed plus the open quantity
+     * @return status of the order once replaced, {@code OrderStatus.Rejected} if not replaced,
+     * always rejected by order books that do not support replaces
+     */
+    public default OrderStatus replaceOrder(String orderId, String clientId, long priceTicks, int qty) {
+        return OrderStatus.Rejected;
+    }
+
+    public void setExecutionListener(IExecutionListener listener);
+    public void setEventSink(IEventSink sink);
+
+    /**
+     * Submit orders in array order
+     * @param orders orders to submit
+     * @param count number of orders to submit from the start of the array
+     * @param results status of each order once submitted, {@code null} for none
+     */
+    public default void submitOrders(IOrder[] orders, int count, OrderStatus[] results) {
+        for (int i = 0; i < count; i++){
+            submitOrder(orders[i]);
+            if (results != null){
+                results[i] = orders[i].getStatus();
+            }
+        }
+    }
+
+    /**
+     * Cancel resting orders in array order
+     * @param orderIds OrderIds of the orders to cancel
+     * @param clientIds ClientIds that own the orders
+     * @param count number of cancels from the start of the arrays
+     * @param results whether each order was resting and has been cancelled, {@code null} for none
+     */
+    public default void cancelOrders(String[] orderIds, String[] clientIds, int count, boolean[] results) {
+        for (int i = 0; i < count; i++){
+            boolean cancelled = cancelOrder(orderIds[i], clientIds[i]);
+            if (results != null){
+                results[i] = cancelled;
+            }
+        }
+    }
+
+    /**
+     * Cancel every resting order of a client, scanning both queues for its orders
+     * Order books override this to walk the orders of the client once and raise one mass cancel event
+     * after the cancel of each order, this default having no event sink to raise it to
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled, 0 if the client id is {@code null}
+     */
+    public default int cancelAllOrders(String clientId, OrderSide side) {
+        if (clientId == null){
+            return 0;
+        }
+        List<IOrder> bids = getBidQueue();
+        List<IOrder> asks = getAskQueue();
+        String[] orderIds = new String[bids.size() + asks.size()];
+        int count = 0;
+        for (IOrder order : bids){
+            if (clientId.equals(order.ClientID()) && (side == null || order.Side() == side)){
+                orderIds[count++] = order.OrderID();
+            }
+        }
+        for (IOrder order : asks){
+            if (clientId.equals(order.ClientID()) && (side == null || order.Side() == side)){
+                orderIds[count++] = order.OrderID();
+            }
+        }
+        String[] clientIds = new String[count];
+        Arrays.fill(clientIds, clientId);
+        boolean[] results = new boolean[count];
+        cancelOrders(orderIds, clientIds, count, results);
+        int cancelled = 0;
+        for (boolean result : results){
+            if (result){
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Process the submits and cancels of a batch in order, writing the result of each to the batch
+     * @param batch batch of commands
+     */
+    public default void processBatch(OrderBatch batch) {
+        for (int i = 0; i < batch.size(); i++){
+            if (batch.isCancel(i)){
+                boolean cancelled = cancelOrder(batch.getOrderId(i), batch.getClientId(i));
+                batch.setResult(i, cancelled ? OrderStatus.Cancelled : OrderStatus.Rejected);
+            }
+            else {
+                submitOrder(batch.getOrder(i));
+                batch.setResult(i, batch.getOrder(i).getStatus());
+            }
+        }
+    }
 }
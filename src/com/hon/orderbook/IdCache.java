@@ -0,0 +1,65 @@
+package com.hon.orderbook;
+
+/**
+ * Direct mapped cache of id strings decoded from single byte characters
+ * Decoding an id already cached returns the same {@code String} without building one, so a cancel
+ * of a recently submitted order shares the id of the submit. A colliding id replaces the cached one,
+ * keeping the cache a fixed size however many ids are decoded<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+final class IdCache {
+
+    private final String[] ids;
+    private final int mask;
+
+    /**
+     * Id cache constructor
+     * @param size number of ids cached, rounded up to a power of two
+     */
+    IdCache(int size){
+        int capacity = 1;
+        while (capacity < size){
+            capacity <<= 1;
+        }
+        this.ids = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Returns the id held in a range of bytes, one character per byte
+     * @param bytes bytes holding the id
+     * @param offset offset of the first byte
+     * @param length number of bytes of the id
+     * @return cached or newly decoded id
+     */
+    String get(byte[] bytes, int offset, int length){
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++){
+            hash = (hash ^ (bytes[offset + i] & 0xFF)) * 0x01000193;
+        }
+        int slot = (hash ^ (hash >>> 16)) & this.mask;
+        String id = this.ids[slot];
+        if (id != null && matches(id, bytes, offset, length)){
+            return id;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++){
+            chars[i] = (char) (bytes[offset + i] & 0xFF);
+        }
+        id = new String(chars);
+        this.ids[slot] = id;
+        return id;
+    }
+
+    private static boolean matches(String id, byte[] bytes, int offset, int length){
+        if (id.length() != length){
+            return false;
+        }
+        for (int i = 0; i < length; i++){
+            if (id.charAt(i) != (bytes[offset + i] & 0xFF)){
+                return false;
+            }
+        }
+        return true;
+    }
+}
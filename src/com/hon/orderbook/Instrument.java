@@ -0,0 +1,77 @@
+package com.hon.orderbook;
+
+import java.math.BigDecimal;
+
+/**
+ * An instrument traded on an order book and the tick size of its prices
+ * Prices are carried as a {@code long} number of ticks, a price of 100.25 with
+ * a tick size of 0.01 is 10025 ticks<p>
+ *
+ */
+
+public class Instrument {
+
+    public static final double DEFAULT_TICK_SIZE = 0.01;
+
+    private final String symbol;
+    private final double ticksize;
+
+    /**
+     * Instrument constructor
+     * @param symbol symbol of the instrument
+     * @param tickSize minimum price increment, must be positive
+     */
+    public Instrument(String symbol, double tickSize){
+        if (!(tickSize > 0)){
+            throw new IllegalArgumentException("Invalid tick size " + tickSize);
+        }
+        this.symbol = symbol;
+        this.ticksize = tickSize;
+    }
+
+    public String Symbol() {
+        return this.symbol;
+    }
+
+    public double TickSize() {
+        return this.ticksize;
+    }
+
+    /**
+     * Convert a decimal price to the nearest number of ticks
+     * @param price decimal price
+     * @return price in ticks
+     */
+    public long toTicks(double price){
+        return toTicks(price, this.ticksize);
+    }
+
+    /**
+     * Convert a number of ticks to a decimal price
+     * @param ticks price in ticks
+     * @return decimal price
+     */
+    public double toPrice(long ticks){
+        return toPrice(ticks, this.ticksize);
+    }
+
+    public static long toTicks(double price, double tickSize){
+        return Math.round(price / tickSize);
+    }
+
+    /**
+     * Convert a number of ticks to the decimal price nearest to its exact value
+     * A tick size of one over a whole number, such as 0.01 or 0.25, divides by the ticks per unit,
+     * a single rounding, where multiplying by the tick size would carry its binary error into the price
+     * @param ticks price in ticks
+     * @param tickSize tick size of the price
+     * @return decimal price
+     */
+    public static double toPrice(long ticks, double tickSize){
+        double ticksPerUnit = Math.rint(1 / tickSize);
+        if (ticksPerUnit >= 1 && 1 / ticksPerUnit == tickSize){
+            return ticks / ticksPerUnit;
+        }
+        return BigDecimal.valueOf(ticks).multiply(BigDecimal.valueOf(tickSize)).doubleValue();
+    }
+}
@@ -0,0 +1,137 @@
+package com.hon.orderbook;
+
+import java.util.List;
+
+/**
+ * Order book decorator that appends every submit, cancel, replace and mass cancel to an
+ * {@code OrderJournal} before applying it to the order book, so nothing the order book has applied
+ * and reported can be missing from the journal after a crash<p>
+ * Rejected submits and cancels or replaces of orders that are not resting are journaled too, replaying them
+ * in sequence rejects them again, so the journal replays to the same order book. To recover, replay the
+ * journal into a new order book and wrap it with the same journal<p>
+ * A cancel, replace or mass cancel with an id the journal cannot hold finds no order, as no such order was
+ * submitted, and one made once the journal is full is not applied, neither is journaled<p>
+ * An order with an id the journal cannot hold, or submitted once the journal is full, is rejected through
+ * the event sink without being journaled or submitted<p>
+ * A simple non thread safe implemenation
+ */
+public class JournaledOrderBook implements IOrderBook {
+
+    private static final String INVALID_ID = "Invalid id in order";
+    private static final String JOURNAL_FULL = "Order journal full";
+
+    private final IOrderBook orderbook;
+    private final OrderJournal journal;
+    private IEventSink eventsink = NoOpEventSink.INSTANCE;
+
+    /**
+     * Journaled order book constructor
+     * @param orderbook order book to journal
+     * @param journal journal to append to
+     */
+    public JournaledOrderBook(IOrderBook orderbook, OrderJournal journal){
+        this.orderbook = orderbook;
+        this.journal = journal;
+    }
+
+    @Override
+    public List<IOrder> getBidQueue() {
+        return this.orderbook.getBidQueue();
+    }
+
+    @Override
+    public List<IOrder> getAskQueue() {
+        return this.orderbook.getAskQueue();
+    }
+
+    /**
+     * Journal then submit order to order book, rejecting it if its ids cannot be journaled or the journal is full
+     * @param order order to submit
+     */
+    @Override
+    public void submitOrder(IOrder order) {
+        String rejectReason = null;
+        if (!OrderJournal.isValidId(order.OrderID()) || !OrderJournal.isValidId(order.ClientID())){
+            rejectReason = INVALID_ID;
+        }
+        else if (this.journal.isFull()){
+            rejectReason = JOURNAL_FULL;
+        }
+        if (rejectReason != null){
+            order.setStatus(OrderStatus.Rejected);
+            this.eventsink.onOrderReceived(order.OrderID(), order.Side(), order.OrderQty(), order.PriceTicks(),
+                    order.isMarketOrder());
+            this.eventsink.onOrderRejected(order.OrderID(), rejectReason);
+            this.eventsink.flush();
+            return;
+        }
+        this.journal.appendSubmit(order);
+        this.orderbook.submitOrder(order);
+    }
+
+    /**
+     * Journal then cancel a resting order
+     * @param orderId OrderId of which the order is to be cancelled
+     * @param clientId ClientId that owns the order
+     * @return true if the order was resting and has been cancelled,
+     * false without journaling if an id cannot be journaled or the journal is full
+     */
+    @Override
+    public boolean cancelOrder(String orderId, String clientId) {
+        if (!canJournal(orderId, clientId)){
+            return false;
+        }
+        this.journal.appendCancel(orderId, clientId);
+        return this.orderbook.cancelOrder(orderId, clientId);
+    }
+
+    /**
+     * Journal then replace a resting order
+     * @param orderId OrderId of the resting order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order
+     * @return status of the order once replaced, {@code OrderStatus.Rejected} if not replaced,
+     * without journaling if an id cannot be journaled or the journal is full
+     */
+    @Override
+    public OrderStatus replaceOrder(String orderId, String clientId, long priceTicks, int qty) {
+        if (!canJournal(orderId, clientId)){
+            return OrderStatus.Rejected;
+        }
+        this.journal.appendReplace(orderId, clientId, priceTicks, qty);
+        return this.orderbook.replaceOrder(orderId, clientId, priceTicks, qty);
+    }
+
+    /**
+     * Journal then cancel every order of a client
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled, 0 without journaling if the client id is {@code null},
+     * cannot be journaled or the journal is full
+     */
+    @Override
+    public int cancelAllOrders(String clientId, OrderSide side) {
+        if (clientId == null || !canJournal(null, clientId)){
+            return 0;
+        }
+        this.journal.appendMassCancel(clientId, side);
+        return this.orderbook.cancelAllOrders(clientId, side);
+    }
+
+    /** Returns whether a command with the ids can be journaled **/
+    private boolean canJournal(String orderId, String clientId){
+        return OrderJournal.isValidId(orderId) && OrderJournal.isValidId(clientId) && !this.journal.isFull();
+    }
+
+    @Override
+    public void setExecutionListener(IExecutionListener listener) {
+        this.orderbook.setExecutionListener(listener);
+    }
+
+    @Override
+    public void setEventSink(IEventSink sink) {
+        this.eventsink = sink == null ? NoOpEventSink.INSTANCE : sink;
+        this.orderbook.setEventSink(sink);
+    }
+}
@@ -0,0 +1,215 @@
+package com.hon.orderbook;
+
+/**
+ * Book side that keeps its price levels in a pre-allocated array indexed by tick offset
+ * from a base price, with an occupancy bitmap of the non empty levels<p>
+ * Adding or removing a level is O(1), the next best level is found by bit scans over the bitmap.
+ * When a price falls outside the window the ladder is re-centred on the resting levels,
+ * and grown if they no longer fit<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+class LadderBookSide extends BookSide {
+
+    static final int MAX_CAPACITY = 1 << 24;
+
+    private long base;
+    private PriceLevel[] levels;
+    private long[] occupied;
+    private int best = -1;
+    private int count;
+
+    /**
+     * Ladder book side constructor
+     * @param side side of the book
+     * @param referencePrice price in ticks the ladder is centred on
+     * @param capacity number of ticks covered by the ladder, rounded up to a power of two
+     */
+    LadderBookSide(OrderSide side, long referencePrice, int capacity){
+        super(side);
+        int size = roundCapacity(capacity);
+        this.base = referencePrice - size / 2;
+        this.levels = new PriceLevel[size];
+        this.occupied = new long[size >>> 6];
+    }
+
+    @Override
+    PriceLevel best() {
+        return this.best < 0 ? null : this.levels[this.best];
+    }
+
+    @Override
+    PriceLevel get(long price) {
+        int index = index(price);
+        if (index < 0 || !isOccupied(index)){
+            return null;
+        }
+        return this.levels[index];
+    }
+
+    @Override
+    PriceLevel getOrCreate(long price) {
+        int index = index(price);
+        if (index < 0){
+            recenter(price);
+            index = index(price);
+        }
+        PriceLevel level = this.levels[index];
+        if (level == null){
+            level = new PriceLevel(price);
+            this.levels[index] = level;
+        }
+        if (!isOccupied(index)){
+            this.occupied[index >>> 6] |= 1L << index;
+            this.count++;
+            if (this.best < 0 || isBetter(price, this.levels[this.best].getPrice())){
+                this.best = index;
+            }
+        }
+        return level;
+    }
+
+    @Override
+    void remove(PriceLevel level) {
+        int index = index(level.getPrice());
+        this.occupied[index >>> 6] &= ~(1L << index);
+        this.count--;
+        if (index == this.best){
+            this.best = nextOccupied(index);
+        }
+    }
+
+    @Override
+    PriceLevel next(PriceLevel level) {
+        int index = nextOccupied(index(level.getPrice()));
+        return index < 0 ? null : this.levels[index];
+    }
+
+    @Override
+    int levelCount() {
+        return this.count;
+    }
+
+    @Override
+    boolean canHold(long price) {
+        if (index(price) >= 0 || this.count == 0){
+            return true;
+        }
+        long low = Math.min(price, this.base + lowestAbove(-1));
+        long high = Math.max(price, this.base + highestBelow(this.levels.length));
+        return high - low < MAX_CAPACITY;
+    }
+
+    /** Base price in ticks of the first slot of the ladder **/
+    long getBase(){
+        return this.base;
+    }
+
+    /** Number of ticks covered by the ladder **/
+    int getCapacity(){
+        return this.levels.length;
+    }
+
+    private int index(long price){
+        long offset = price - this.base;
+        return offset >= 0 && offset < this.levels.length ? (int) offset : -1;
+    }
+
+    private boolean isOccupied(int index){
+        return (this.occupied[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /** Next occupied slot in priority order after a slot, -1 if none **/
+    private int nextOccupied(int index){
+        return this.side == OrderSide.Buy ? highestBelow(index) : lowestAbove(index);
+    }
+
+    /** Lowest occupied slot above a slot, -1 if none **/
+    private int lowestAbove(int index){
+        int start = index + 1;
+        if (start >= this.levels.length){
+            return -1;
+        }
+        int word = start >>> 6;
+        long bits = this.occupied[word] & (-1L << start);
+        while (bits == 0){
+            if (++word == this.occupied.length){
+                return -1;
+            }
+            bits = this.occupied[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /** Highest occupied slot below a slot, -1 if none **/
+    private int highestBelow(int index){
+        int start = index - 1;
+        if (start < 0){
+            return -1;
+        }
+        int word = start >>> 6;
+        long bits = this.occupied[word] & (-1L >>> (63 - (start & 63)));
+        while (bits == 0){
+            if (--word < 0){
+                return -1;
+            }
+            bits = this.occupied[word];
+        }
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+    }
+
+    /**
+     * Move the window so that both a new price and every resting level fit,
+     * doubling the ladder while the span of prices does not fit in half of it
+     * @param price price in ticks outside of the current window
+     */
+    private void recenter(long price){
+        long low = price;
+        long high = price;
+        if (this.count > 0){
+            low = Math.min(low, this.base + lowestAbove(-1));
+            high = Math.max(high, this.base + highestBelow(this.levels.length));
+        }
+        long span = high - low + 1;
+        int size = this.levels.length;
+        while (size < span * 2 && size < MAX_CAPACITY){
+            size <<= 1;
+        }
+        if (span > size){
+            throw new IllegalArgumentException("Price " + price + " outside of ladder capacity");
+        }
+        long newBase = low - (size - span) / 2;
+        PriceLevel[] newLevels = new PriceLevel[size];
+        long[] newOccupied = new long[size >>> 6];
+        for (int i = 0; i < this.levels.length; i++){
+            PriceLevel level = this.levels[i];
+            if (level == null){
+                continue;
+            }
+            long offset = level.getPrice() - newBase;
+            if (offset >= 0 && offset < size){
+                int index = (int) offset;
+                newLevels[index] = level;
+                if (isOccupied(i)){
+                    newOccupied[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+        if (this.best >= 0){
+            this.best = (int) (this.levels[this.best].getPrice() - newBase);
+        }
+        this.base = newBase;
+        this.levels = newLevels;
+        this.occupied = newOccupied;
+    }
+
+    private static int roundCapacity(int capacity){
+        if (capacity <= 0 || capacity > MAX_CAPACITY){
+            throw new IllegalArgumentException("Invalid ladder capacity " + capacity);
+        }
+        int size = 64;
+        while (size < capacity){
+            size <<= 1;
+        }
+        return size;
+    }
+}
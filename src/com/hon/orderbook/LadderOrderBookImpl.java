@@ -0,0 +1,37 @@
+package com.hon.orderbook;
+
+/**
+ * Order book implementation of the {@code IOrderBook} interface that keeps the price
+ * levels of each side in a pre-allocated array indexed by tick offset from a reference price<p>
+ * Best bid and ask, inserting at a level and stepping to the next level during a sweep are O(1),
+ * the next best level is found with bit scans over an occupancy bitmap. The ladder re-centres,
+ * growing if needed, when prices drift out of its window.
+ * Suited to instruments whose prices stay within a bounded range of ticks.<p>
+ * A simple non thread safe implemenation
+ */
+public class LadderOrderBookImpl extends AbstractLevelOrderBook {
+
+    public static final int DEFAULT_LADDER_SIZE = 4096;
+
+    /**
+     * Ladder order book implementation constructor
+     * create bid and ask ladders of the default size
+     * @param instrument instrument and tick size of order book
+     * @param referencePriceTicks price in ticks the ladders are centred on
+     */
+    public LadderOrderBookImpl(Instrument instrument, long referencePriceTicks){
+        this(instrument, referencePriceTicks, DEFAULT_LADDER_SIZE);
+    }
+
+    /**
+     * Ladder order book implementation constructor
+     * create bid and ask ladders
+     * @param instrument instrument and tick size of order book
+     * @param referencePriceTicks price in ticks the ladders are centred on
+     * @param ladderSize number of ticks covered by each ladder, rounded up to a power of two
+     */
+    public LadderOrderBookImpl(Instrument instrument, long referencePriceTicks, int ladderSize){
+        super(instrument, new LadderBookSide(OrderSide.Buy, referencePriceTicks, ladderSize),
+                new LadderBookSide(OrderSide.Sell, referencePriceTicks, ladderSize));
+    }
+}
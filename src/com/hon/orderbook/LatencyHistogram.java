@@ -0,0 +1,135 @@
+package com.hon.orderbook;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds in log-scale buckets
+ * Each power of two is split in {@value #SUB_BUCKETS} buckets, so a percentile is reported within
+ * 12.5% of the recorded value, and the whole range of a {@code long} takes {@value #BUCKETS} counters.
+ * Recording a value is a few bit operations and an increment, nothing is allocated<p>
+ * Values are recorded by a single thread and may be read by any thread while recording goes on.
+ * Counters are published with ordered writes and no locking, a reader sees each counter whole
+ * but possibly a value or two behind the others
+ */
+public class LatencyHistogram {
+
+    public static final int SUB_BUCKETS = 8;
+    public static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency, from the recording thread only
+     * @param nanos latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos){
+        long value = Math.max(0, nanos);
+        int bucket = bucket(value);
+        this.counts.lazySet(bucket, this.counts.get(bucket) + 1);
+        this.total.lazySet(this.total.get() + value);
+        if (value < this.min.get()){
+            this.min.lazySet(value);
+        }
+        if (value > this.max.get()){
+            this.max.lazySet(value);
+        }
+        this.count.lazySet(this.count.get() + 1);
+    }
+
+    /** Number of recorded latencies **/
+    public long count(){
+        return this.count.get();
+    }
+
+    /** Lowest recorded latency, 0 if none **/
+    public long min(){
+        long min = this.min.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    /** Highest recorded latency **/
+    public long max(){
+        return this.max.get();
+    }
+
+    /** Mean of the recorded latencies, 0 if none **/
+    public double mean(){
+        long count = this.count.get();
+        return count == 0 ? 0 : (double) this.total.get() / count;
+    }
+
+    /**
+     * Returns the latency at or under which a percentage of the recorded latencies fall
+     * @param percentile percentage between 0 and 100
+     * @return upper bound of the bucket holding the percentile, at most the highest recorded latency
+     */
+    public long percentile(double percentile){
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            counts[i] = this.counts.get(i);
+            count += counts[i];
+        }
+        if (count == 0){
+            return 0;
+        }
+        long max = this.max.get();
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            cumulative += counts[i];
+            if (cumulative >= rank){
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Clear every recorded latency, from the recording thread only
+     */
+    public void reset(){
+        for (int i = 0; i < BUCKETS; i++){
+            this.counts.lazySet(i, 0);
+        }
+        this.count.lazySet(0);
+        this.total.lazySet(0);
+        this.min.lazySet(Long.MAX_VALUE);
+        this.max.lazySet(0);
+    }
+
+    /**
+     * Returns the bucket of a value, values under {@value #SUB_BUCKETS} have a bucket each
+     * @param value non negative value
+     * @return bucket index
+     */
+    static int bucket(long value){
+        if (value < SUB_BUCKETS){
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS)
+                + (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Returns the highest value of a bucket
+     * @param bucket bucket index
+     * @return highest value counted in the bucket
+     */
+    static long upperBound(int bucket){
+        if (bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long lower = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
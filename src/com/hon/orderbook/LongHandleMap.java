@@ -0,0 +1,126 @@
+package com.hon.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * Map of 64-bit order ids to order store handles
+ * Open addressing with linear probing over parallel primitive arrays of keys and handles, so no key is
+ * boxed and no entry allocated. Any long is a valid key, an empty slot being marked by its handle.
+ * Removal shifts following entries back so no tombstones are left<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+final class LongHandleMap {
+
+    private long[] keys;
+    private int[] handles;
+    private int mask;
+    private int size;
+
+    /**
+     * Long to handle map constructor
+     * @param expectedSize number of entries expected at once
+     */
+    LongHandleMap(int expectedSize){
+        int capacity = 16;
+        while (capacity < expectedSize * 2){
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    int size(){
+        return this.size;
+    }
+
+    /**
+     * Returns the handle of a key
+     * @param key order id
+     * @return handle or {@code OffHeapOrderStore.NIL} if the key is not mapped
+     */
+    int get(long key){
+        for (int i = slot(key); ; i = (i + 1) & this.mask){
+            int handle = this.handles[i];
+            if (handle == OffHeapOrderStore.NIL || this.keys[i] == key){
+                return handle;
+            }
+        }
+    }
+
+    /**
+     * Map a key to a handle, replacing any handle of the same key
+     * @param key order id
+     * @param handle handle of the order record
+     */
+    void put(long key, int handle){
+        int i = slot(key);
+        while (this.handles[i] != OffHeapOrderStore.NIL){
+            if (this.keys[i] == key){
+                this.handles[i] = handle;
+                return;
+            }
+            i = (i + 1) & this.mask;
+        }
+        this.keys[i] = key;
+        this.handles[i] = handle;
+        if (++this.size * 2 > this.keys.length){
+            resize(this.keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove a key from the map
+     * @param key order id
+     * @return removed handle or {@code OffHeapOrderStore.NIL} if the key was not mapped
+     */
+    int remove(long key){
+        int i = slot(key);
+        for (int h = this.handles[i]; this.keys[i] != key || h == OffHeapOrderStore.NIL; h = this.handles[i]){
+            if (h == OffHeapOrderStore.NIL){
+                return OffHeapOrderStore.NIL;
+            }
+            i = (i + 1) & this.mask;
+        }
+        int handle = this.handles[i];
+        this.size--;
+        //Shift back following entries of the probe sequence into the freed slot
+        int free = i;
+        for (int j = (i + 1) & this.mask; this.handles[j] != OffHeapOrderStore.NIL; j = (j + 1) & this.mask){
+            int home = slot(this.keys[j]);
+            if (((j - home) & this.mask) >= ((j - free) & this.mask)){
+                this.keys[free] = this.keys[j];
+                this.handles[free] = this.handles[j];
+                free = j;
+            }
+        }
+        this.handles[free] = OffHeapOrderStore.NIL;
+        return handle;
+    }
+
+    private int slot(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+
+    private void allocate(int capacity){
+        this.keys = new long[capacity];
+        this.handles = new int[capacity];
+        Arrays.fill(this.handles, OffHeapOrderStore.NIL);
+        this.mask = capacity - 1;
+    }
+
+    private void resize(int capacity){
+        long[] oldKeys = this.keys;
+        int[] oldHandles = this.handles;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++){
+            if (oldHandles[i] != OffHeapOrderStore.NIL){
+                int j = slot(oldKeys[i]);
+                while (this.handles[j] != OffHeapOrderStore.NIL){
+                    j = (j + 1) & this.mask;
+                }
+                this.keys[j] = oldKeys[i];
+                this.handles[j] = oldHandles[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.hon.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * A market data stage between an order book and a downstream listener that turns the
+ * level changes of the order book into a compact stream of deltas<p>
+ * Changes to the same level are merged while pending, only the last quantity and number of orders
+ * of a level is published, in the order the levels first changed. Trades are published in order
+ * ahead of the level deltas they caused. Without a conflation window pending changes are published
+ * at the end of every order book update, so an order sweeping a level publishes one delta for it.
+ * With a conflation window they are published at the end of the first update once the window has
+ * elapsed since the first pending change, or on {@code publish}<p>
+ * Pending changes are held in primitive arrays, grown when a window holds more changes than ever before<p>
+ * non thread safe, to be called on the thread of the order book
+ */
+public class MarketDataPublisher implements IMarketDataListener {
+
+    private final IMarketDataListener downstream;
+    private final long conflationnanos;
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+    private OrderSide[] levelsides;
+    private long[] levelprices;
+    private long[] levelqtys;
+    private int[] levelcounts;
+    private int[] levelslots;
+    private int levelcount;
+    private long[] tradeprices;
+    private int[] tradeqtys;
+    private OrderSide[] tradesides;
+    private int tradecount;
+    private long windowstart;
+    private long conflatedupdates;
+
+    /**
+     * Market data publisher publishing at the end of every order book update
+     * @param downstream listener receiving the deltas and trades
+     */
+    public MarketDataPublisher(IMarketDataListener downstream){
+        this(downstream, 0);
+    }
+
+    /**
+     * Market data publisher
+     * @param downstream listener receiving the deltas and trades
+     * @param conflationNanos window in nanoseconds pending changes are merged for, 0 for none
+     */
+    public MarketDataPublisher(IMarketDataListener downstream, long conflationNanos){
+        this.downstream = downstream;
+        this.conflationnanos = conflationNanos;
+        this.keys = new long[64];
+        this.slots = new int[64];
+        this.mask = 63;
+        this.levelsides = new OrderSide[32];
+        this.levelprices = new long[32];
+        this.levelqtys = new long[32];
+        this.levelcounts = new int[32];
+        this.levelslots = new int[32];
+        this.tradeprices = new long[32];
+        this.tradeqtys = new int[32];
+        this.tradesides = new OrderSide[32];
+    }
+
+    /** Number of level changes merged into a pending delta instead of being published **/
+    public long conflatedUpdates(){
+        return this.conflatedupdates;
+    }
+
+    @Override
+    public void onLevelChange(OrderSide side, long priceTicks, long qty, int orderCount) {
+        startWindow();
+        long key = (priceTicks << 1) | side.ordinal();
+        int slot = (int) mix(key) & this.mask;
+        while (this.slots[slot] != 0){
+            if (this.keys[slot] == key){
+                int level = this.slots[slot] - 1;
+                this.levelqtys[level] = qty;
+                this.levelcounts[level] = orderCount;
+                this.conflatedupdates++;
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        if (this.levelcount == this.levelprices.length){
+            growLevels();
+        }
+        int level = this.levelcount++;
+        this.levelsides[level] = side;
+        this.levelprices[level] = priceTicks;
+        this.levelqtys[level] = qty;
+        this.levelcounts[level] = orderCount;
+        this.levelslots[level] = slot;
+        this.keys[slot] = key;
+        this.slots[slot] = level + 1;
+        if (this.levelcount * 2 > this.mask){
+            growSlots();
+        }
+    }
+
+    @Override
+    public void onTrade(long priceTicks, int qty, OrderSide aggressorSide) {
+        startWindow();
+        if (this.tradecount == this.tradeprices.length){
+            int capacity = this.tradecount * 2;
+            this.tradeprices = Arrays.copyOf(this.tradeprices, capacity);
+            this.tradeqtys = Arrays.copyOf(this.tradeqtys, capacity);
+            this.tradesides = Arrays.copyOf(this.tradesides, capacity);
+        }
+        this.tradeprices[this.tradecount] = priceTicks;
+        this.tradeqtys[this.tradecount] = qty;
+        this.tradesides[this.tradecount++] = aggressorSide;
+    }
+
+    @Override
+    public void onEndOfUpdate() {
+        if (this.conflationnanos == 0 || System.nanoTime() - this.windowstart >= this.conflationnanos){
+            publish();
+        }
+    }
+
+    /**
+     * Publish every pending trade and level delta downstream
+     */
+    public void publish(){
+        if (this.tradecount == 0 && this.levelcount == 0){
+            return;
+        }
+        for (int i = 0; i < this.tradecount; i++){
+            this.downstream.onTrade(this.tradeprices[i], this.tradeqtys[i], this.tradesides[i]);
+            this.tradesides[i] = null;
+        }
+        for (int i = 0; i < this.levelcount; i++){
+            this.downstream.onLevelChange(this.levelsides[i], this.levelprices[i], this.levelqtys[i], this.levelcounts[i]);
+            this.slots[this.levelslots[i]] = 0;
+            this.levelsides[i] = null;
+        }
+        this.tradecount = 0;
+        this.levelcount = 0;
+        this.downstream.onEndOfUpdate();
+    }
+
+    private void startWindow(){
+        if (this.conflationnanos != 0 && this.tradecount == 0 && this.levelcount == 0){
+            this.windowstart = System.nanoTime();
+        }
+    }
+
+    private void growLevels(){
+        int capacity = this.levelcount * 2;
+        this.levelsides = Arrays.copyOf(this.levelsides, capacity);
+        this.levelprices = Arrays.copyOf(this.levelprices, capacity);
+        this.levelqtys = Arrays.copyOf(this.levelqtys, capacity);
+        this.levelcounts = Arrays.copyOf(this.levelcounts, capacity);
+        this.levelslots = Arrays.copyOf(this.levelslots, capacity);
+    }
+
+    /** Double the slot table and re-insert the pending levels **/
+    private void growSlots(){
+        int capacity = (this.mask + 1) * 2;
+        this.keys = new long[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int level = 0; level < this.levelcount; level++){
+            long key = (this.levelprices[level] << 1) | this.levelsides[level].ordinal();
+            int slot = (int) mix(key) & this.mask;
+            while (this.slots[slot] != 0){
+                slot = (slot + 1) & this.mask;
+            }
+            this.keys[slot] = key;
+            this.slots[slot] = level + 1;
+            this.levelslots[level] = slot;
+        }
+    }
+
+    private static long mix(long key){
+        key *= 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 32);
+    }
+}
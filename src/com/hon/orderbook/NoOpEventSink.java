@@ -0,0 +1,27 @@
+package com.hon.orderbook;
+
+/**
+ * An event sink that discards every event, for benchmarking the order book without logging<p>
+ *
+ */
+
+public class NoOpEventSink implements IEventSink {
+
+    public static final NoOpEventSink INSTANCE = new NoOpEventSink();
+
+    @Override
+    public void onOrderReceived(String orderId, OrderSide side, int qty, long priceTicks, boolean market) {
+    }
+
+    @Override
+    public void onOrderRejected(String orderId, String reason) {
+    }
+
+    @Override
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty) {
+    }
+
+    @Override
+    public void onOrderCancelled(String orderId, int remainingQty) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.hon.orderbook;
+
+/**
+ * Side of an {@code OffHeapOrderBookImpl}, a ladder of price levels indexed by tick offset from a base price
+ * Each level is its head and tail handle, total quantity and order count in primitive arrays, the orders
+ * of a level being linked through the previous and next handles of their records in the order store.
+ * Non empty levels are tracked in an occupancy bitmap so the next best level is found by bit scans.
+ * The ladder covers a fixed window of prices<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+final class OffHeapBookSide {
+
+    private final OrderSide side;
+    private final OffHeapOrderStore store;
+    private final long base;
+    private final int[] heads;
+    private final int[] tails;
+    private final long[] quantities;
+    private final int[] counts;
+    private final long[] occupied;
+    private int best = -1;
+    private int levelcount;
+    private int ordercount;
+
+    /**
+     * Off-heap book side constructor
+     * @param side side of the book
+     * @param store store of the order records
+     * @param referencePrice price in ticks the ladder is centred on
+     * @param capacity number of ticks covered by the ladder, rounded up to a power of two
+     */
+    OffHeapBookSide(OrderSide side, OffHeapOrderStore store, long referencePrice, int capacity){
+        if (capacity <= 0 || capacity > LadderBookSide.MAX_CAPACITY){
+            throw new IllegalArgumentException("Invalid ladder capacity " + capacity);
+        }
+        int size = 64;
+        while (size < capacity){
+            size <<= 1;
+        }
+        this.side = side;
+        this.store = store;
+        this.base = referencePrice - size / 2;
+        this.heads = new int[size];
+        this.tails = new int[size];
+        this.quantities = new long[size];
+        this.counts = new int[size];
+        this.occupied = new long[size >>> 6];
+    }
+
+    OrderSide getSide(){
+        return this.side;
+    }
+
+    /** Returns whether a price falls in the ladder **/
+    boolean canHold(long price){
+        return index(price) >= 0;
+    }
+
+    /** Slot of the best level, -1 if the side is empty **/
+    int best(){
+        return this.best;
+    }
+
+    /** Slot of the next level in priority order after a slot, -1 if none **/
+    int next(int slot){
+        return this.side == OrderSide.Buy ? highestBelow(slot) : lowestAbove(slot);
+    }
+
+    long price(int slot){
+        return this.base + slot;
+    }
+
+    int head(int slot){
+        return this.heads[slot];
+    }
+
+    long quantity(int slot){
+        return this.quantities[slot];
+    }
+
+    int orderCount(int slot){
+        return this.counts[slot];
+    }
+
+    int levelCount(){
+        return this.levelcount;
+    }
+
+    int orderCount(){
+        return this.ordercount;
+    }
+
+    /**
+     * Link a record at the back of the level of its price
+     * @param handle record of a resting order, its price must fall in the ladder
+     * @return slot of the level
+     */
+    int addLast(int handle){
+        long price = this.store.priceTicks(handle);
+        int slot = index(price);
+        if (this.counts[slot] == 0){
+            this.heads[slot] = handle;
+            this.store.setPrev(handle, OffHeapOrderStore.NIL);
+            this.occupied[slot >>> 6] |= 1L << slot;
+            this.levelcount++;
+            if (this.best < 0 || (this.side == OrderSide.Buy ? slot > this.best : slot < this.best)){
+                this.best = slot;
+            }
+        }
+        else {
+            this.store.setNext(this.tails[slot], handle);
+            this.store.setPrev(handle, this.tails[slot]);
+        }
+        this.store.setNext(handle, OffHeapOrderStore.NIL);
+        this.tails[slot] = handle;
+        this.quantities[slot] += this.store.remainingQty(handle);
+        this.counts[slot]++;
+        this.ordercount++;
+        return slot;
+    }
+
+    /**
+     * Unlink a record and its remaining quantity from its level, emptying the level if it was the last
+     * @param handle record of a resting order
+     * @return slot of the level
+     */
+    int remove(int handle){
+        int slot = index(this.store.priceTicks(handle));
+        int prev = this.store.prev(handle);
+        int next = this.store.next(handle);
+        if (prev == OffHeapOrderStore.NIL){
+            this.heads[slot] = next;
+        }
+        else {
+            this.store.setNext(prev, next);
+        }
+        if (next == OffHeapOrderStore.NIL){
+            this.tails[slot] = prev;
+        }
+        else {
+            this.store.setPrev(next, prev);
+        }
+        this.quantities[slot] -= this.store.remainingQty(handle);
+        this.ordercount--;
+        if (--this.counts[slot] == 0){
+            this.occupied[slot >>> 6] &= ~(1L << slot);
+            this.levelcount--;
+            if (slot == this.best){
+                this.best = next(slot);
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Change the remaining quantity of a linked record and the quantity of its level, keeping its place in the level
+     * @param handle record of a resting order
+     * @param remainingQty new remaining quantity
+     * @return slot of the level
+     */
+    int updateQuantity(int handle, int remainingQty){
+        int slot = index(this.store.priceTicks(handle));
+        this.quantities[slot] += remainingQty - this.store.remainingQty(handle);
+        this.store.setRemainingQty(handle, remainingQty);
+        return slot;
+    }
+
+    /** Add a change of remaining quantity to a level **/
+    void addQuantity(int slot, long delta){
+        this.quantities[slot] += delta;
+    }
+
+    private int index(long price){
+        long offset = price - this.base;
+        return offset >= 0 && offset < this.heads.length ? (int) offset : -1;
+    }
+
+    /** Lowest occupied slot above a slot, -1 if none **/
+    private int lowestAbove(int index){
+        int start = index + 1;
+        if (start >= this.heads.length){
+            return -1;
+        }
+        int word = start >>> 6;
+        long bits = this.occupied[word] & (-1L << start);
+        while (bits == 0){
+            if (++word == this.occupied.length){
+                return -1;
+            }
+            bits = this.occupied[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /** Highest occupied slot below a slot, -1 if none **/
+    private int highestBelow(int index){
+        int start = index - 1;
+        if (start < 0){
+            return -1;
+        }
+        int word = start >>> 6;
+        long bits = this.occupied[word] & (-1L >>> (63 - (start & 63)));
+        while (bits == 0){
+            if (--word < 0){
+                return -1;
+            }
+            bits = this.occupied[word];
+        }
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+    }
+}
@@ -0,0 +1,147 @@
+package com.hon.orderbook;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@code IOrder} view of a record of an {@code OffHeapOrderStore}
+ * Reads and writes go straight to the record, the view holds no order state of its own.
+ * A view is only valid while its record is in use, once the order is fully filled or cancelled
+ * the record may be reused by another order. Fills are not kept, only the cumulative quantity
+ * and average price, so {@code Fills()} is always empty<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+public class OffHeapOrder implements IOrder {
+
+    private final OffHeapOrderStore store;
+    private int handle;
+
+    /**
+     * Off-heap order view constructor
+     * @param store store holding the record
+     * @param handle handle of the record
+     */
+    public OffHeapOrder(OffHeapOrderStore store, int handle){
+        this.store = store;
+        this.handle = handle;
+    }
+
+    /** Point the view at another record of the store **/
+    void view(int handle){
+        this.handle = handle;
+    }
+
+    /** Handle of the record viewed **/
+    public int getHandle(){
+        return this.handle;
+    }
+
+    @Override
+    public String OrderID() {
+        return this.store.orderId(this.handle);
+    }
+
+    @Override
+    public long PriceTicks() {
+        return this.store.priceTicks(this.handle);
+    }
+
+    @Override
+    public void setPriceTicks(long priceTicks) {
+        this.store.setPriceTicks(this.handle, priceTicks);
+    }
+
+    @Override
+    public long StopPriceTicks() {
+        return 0;
+    }
+
+    @Override
+    public double Price() {
+        return Instrument.toPrice(PriceTicks(), this.store.getTickSize());
+    }
+
+    @Override
+    public boolean isMarketOrder() {
+        return this.store.isMarketOrder(this.handle);
+    }
+
+    @Override
+    public OrderSide Side() {
+        return this.store.side(this.handle);
+    }
+
+    @Override
+    public OrderType OrderType() {
+        return this.store.orderType(this.handle);
+    }
+
+    @Override
+    public String ClientID() {
+        return this.store.clientId(this.handle);
+    }
+
+    @Override
+    public int OrderQty() {
+        return this.store.orderQty(this.handle);
+    }
+
+    @Override
+    public void setOrderQty(int orderQty) {
+        this.store.setOrderQty(this.handle, orderQty);
+    }
+
+    @Override
+    public int getRemainingQty() {
+        return this.store.remainingQty(this.handle);
+    }
+
+    @Override
+    public void setRemainingQty(int remainingQty) {
+        this.store.setRemainingQty(this.handle, remainingQty);
+    }
+
+    @Override
+    public List<Fill> Fills() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void FillOrder(Fill fill) {
+        recordExecution(fill.OrderQty(), fill.PriceTicks());
+    }
+
+    @Override
+    public void recordExecution(int qty, long priceTicks) {
+        this.store.recordExecution(this.handle, qty, priceTicks);
+    }
+
+    @Override
+    public int getCumulativeQty() {
+        return this.store.cumulativeQty(this.handle);
+    }
+
+    @Override
+    public double getAveragePrice() {
+        int cumulativeQty = getCumulativeQty();
+        if (cumulativeQty == 0){
+            return 0;
+        }
+        return (double) this.store.notionalTicks(this.handle) / cumulativeQty * this.store.getTickSize();
+    }
+
+    @Override
+    public OrderStatus getStatus() {
+        return this.store.status(this.handle);
+    }
+
+    @Override
+    public void setStatus(OrderStatus status) {
+        this.store.setStatus(this.handle, status);
+    }
+
+    @Override
+    public int compareTo(Object o) {
+        return Long.compare(PriceTicks(), ((IOrder)o).PriceTicks());
+    }
+}
@@ -0,0 +1,734 @@
+package com.hon.orderbook;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Order book implementation of the {@code IOrderBook} interface that keeps its resting orders off the heap
+ * in an {@code OffHeapOrderStore}, so that heap use and collection pauses do not grow with the depth of the book<p>
+ * A submitted order is matched as on the other level books, in strict price-time priority at the price of the
+ * resting order. Its remainder is then copied into a store record and the submitted object is no longer
+ * referenced or updated, fills, cancels and status changes of a resting order being applied to its record.
+ * Resting orders are read back through {@code OffHeapOrder} views, from {@code getOrder} and the bid and ask queues.
+ * Orders keep no {@code Fill} list, only their cumulative quantity and average price are recorded.<p>
+ * Price levels are a ladder covering a fixed window of ticks around a reference price, each level linking its
+ * records through their handles, and records are indexed by order id in primitive arrays.
+ * Limit orders priced outside of the ladder, orders whose ids are too long to store and stop orders are rejected<p>
+ * Orders may also be submitted and cancelled with a 64-bit order id and the number of their client
+ * in a {@code ClientRegistry}, without an {@code IOrder} object. Those are indexed in a primitive long to handle
+ * map, so a cancel hashes and compares a long and an int. Numeric and {@code String} order ids are
+ * separate, an order is only cancelled with the kind of id it was submitted with.
+ * Every resting record is also linked to the other records of its client through client handles of the record,
+ * the client ids of {@code String} orders being interned in the same registry, so cancelling every order of a client
+ * walks the k orders of the client, of either kind of id, whatever the size of the book.<p>
+ * Executions are streamed to an optional {@code IExecutionListener} and order events raised to an
+ * {@code IEventSink}, none by default. Ids of resting orders are only decoded when either is set<p>
+ * A simple non thread safe implemenation
+ */
+public class OffHeapOrderBookImpl implements IOrderBook, IMarketDepth {
+
+    public static final int DEFAULT_SLAB_RECORDS = 1 << 16;
+
+    private static final String INVALID_ORDER = "Invalid order";
+    private static final String INVALID_PRICE = "Invalid price in order";
+    private static final String DUPLICATE_ORDER_ID = "Duplicate order id";
+
+    private final Instrument instrument;
+    private final OffHeapOrderStore store;
+    private final OffHeapBookSide bids;
+    private final OffHeapBookSide asks;
+    private final HandleIndex restingorders;
+    private final LongHandleMap numericorders;
+    private final ClientRegistry clients;
+    private final OffHeapOrder takerview;
+    private final List<IOrder> bidqueue;
+    private final List<IOrder> askqueue;
+    private int[] clientheads;
+    private IExecutionListener executionlistener;
+    private IEventSink eventsink = NoOpEventSink.INSTANCE;
+
+    /**
+     * Off-heap order book implementation constructor
+     * create bid and ask ladders of the default size and slabs of the default number of records
+     * @param instrument instrument and tick size of order book
+     * @param referencePriceTicks price in ticks the ladders are centred on
+     */
+    public OffHeapOrderBookImpl(Instrument instrument, long referencePriceTicks){
+        this(instrument, referencePriceTicks, LadderOrderBookImpl.DEFAULT_LADDER_SIZE, DEFAULT_SLAB_RECORDS);
+    }
+
+    /**
+     * Off-heap order book implementation constructor
+     * @param instrument instrument and tick size of order book
+     * @param referencePriceTicks price in ticks the ladders are centred on
+     * @param ladderSize number of ticks covered by each ladder, rounded up to a power of two
+     * @param slabRecords number of order records per off-heap slab, rounded up to a power of two
+     */
+    public OffHeapOrderBookImpl(Instrument instrument, long referencePriceTicks, int ladderSize, int slabRecords){
+        this.instrument = instrument;
+        this.clients = new ClientRegistry(64);
+        this.store = new OffHeapOrderStore(slabRecords, instrument.TickSize(), this.clients);
+        this.bids = new OffHeapBookSide(OrderSide.Buy, this.store, referencePriceTicks, ladderSize);
+        this.asks = new OffHeapBookSide(OrderSide.Sell, this.store, referencePriceTicks, ladderSize);
+        this.restingorders = new HandleIndex(this.store, 1024);
+        this.numericorders = new LongHandleMap(1024);
+        this.clientheads = new int[64];
+        Arrays.fill(this.clientheads, OffHeapOrderStore.NIL);
+        this.takerview = new OffHeapOrder(this.store, OffHeapOrderStore.NIL);
+        this.bidqueue = new SideView(this.bids);
+        this.askqueue = new SideView(this.asks);
+    }
+
+    /**
+     * Returns the instrument of the order book
+     * @return instrument of order book
+     */
+    public Instrument getInstrument() {
+        return this.instrument;
+    }
+
+    /**
+     * Returns the store holding the resting orders
+     * @return off-heap order store
+     */
+    public OffHeapOrderStore getStore() {
+        return this.store;
+    }
+
+    /**
+     * Returns the registry client numbers of numeric orders are interned in
+     * @return client registry of the order book
+     */
+    public ClientRegistry getClientRegistry() {
+        return this.clients;
+    }
+
+    /**
+     * Set the listener notified of every execution
+     * @param listener execution listener, {@code null} for none
+     */
+    @Override
+    public void setExecutionListener(IExecutionListener listener) {
+        this.executionlistener = listener;
+    }
+
+    /**
+     * Set the sink order events are raised to
+     * @param sink event sink, {@code null} for none
+     */
+    @Override
+    public void setEventSink(IEventSink sink) {
+        this.eventsink = sink == null ? NoOpEventSink.INSTANCE : sink;
+    }
+
+    /**
+     * Returns list of resting buy orders, best price first and time priority within a price
+     * @return read only live {@code List} of {@code OffHeapOrder} views on bid side
+     */
+    @Override
+    public List<IOrder> getBidQueue() {
+        return this.bidqueue;
+    }
+
+    /**
+     * Returns list of resting sell orders, best price first and time priority within a price
+     * @return read only live {@code List} of {@code OffHeapOrder} views on ask side
+     */
+    @Override
+    public List<IOrder> getAskQueue() {
+        return this.askqueue;
+    }
+
+    /**
+     * Returns a view of a resting order
+     * @param orderId order id of the order
+     * @return view of the order, {@code null} if no order of that id rests on the book
+     */
+    public IOrder getOrder(String orderId) {
+        int handle = this.restingorders.get(orderId);
+        return handle == OffHeapOrderStore.NIL ? null : new OffHeapOrder(this.store, handle);
+    }
+
+    /**
+     * Returns a view of a resting order submitted with a numeric order id
+     * @param orderId numeric order id of the order
+     * @return view of the order, {@code null} if no order of that id rests on the book
+     */
+    public IOrder getOrder(long orderId) {
+        int handle = this.numericorders.get(orderId);
+        return handle == OffHeapOrderStore.NIL ? null : new OffHeapOrder(this.store, handle);
+    }
+
+    @Override
+    public long getBestBidTicks() {
+        int slot = this.bids.best();
+        return slot < 0 ? 0 : this.bids.price(slot);
+    }
+
+    @Override
+    public long getBestBidQty() {
+        int slot = this.bids.best();
+        return slot < 0 ? 0 : this.bids.quantity(slot);
+    }
+
+    @Override
+    public int getBestBidOrderCount() {
+        int slot = this.bids.best();
+        return slot < 0 ? 0 : this.bids.orderCount(slot);
+    }
+
+    @Override
+    public long getBestAskTicks() {
+        int slot = this.asks.best();
+        return slot < 0 ? 0 : this.asks.price(slot);
+    }
+
+    @Override
+    public long getBestAskQty() {
+        int slot = this.asks.best();
+        return slot < 0 ? 0 : this.asks.quantity(slot);
+    }
+
+    @Override
+    public int getBestAskOrderCount() {
+        int slot = this.asks.best();
+        return slot < 0 ? 0 : this.asks.orderCount(slot);
+    }
+
+    /**
+     * Copy the top levels of both sides, as many as the snapshot holds, best level first
+     * @param snapshot reusable snapshot to overwrite
+     */
+    @Override
+    public void getDepth(DepthSnapshot snapshot) {
+        snapshot.clear();
+        copyDepth(this.bids, snapshot);
+        copyDepth(this.asks, snapshot);
+    }
+
+    private static void copyDepth(OffHeapBookSide side, DepthSnapshot snapshot){
+        int slot = side.best();
+        while (slot >= 0 && snapshot.add(side.getSide(), side.price(slot), side.quantity(slot), side.orderCount(slot))){
+            slot = side.next(slot);
+        }
+    }
+
+    /**
+     * Submit order to order book and execute according to order type
+     * Orders with a missing side, a missing or stop type, a non positive quantity, ids too long to store, a limit order
+     * without a price on the ladder or the order id of a resting order are set to {@code OrderStatus.Rejected}
+     * @param order order to submit
+     */
+    @Override
+    public void submitOrder(IOrder order) {
+        submit(order);
+        this.eventsink.flush();
+    }
+
+    /**
+     * Cancel a resting order on the order book
+     * @param orderId OrderId of which the order is to be cancelled
+     * @param clientId ClientId that owns the order
+     * @return true if the order was resting and has been cancelled
+     */
+    @Override
+    public boolean cancelOrder(String orderId, String clientId) {
+        boolean cancelled = cancel(orderId, clientId);
+        this.eventsink.flush();
+        return cancelled;
+    }
+
+    /**
+     * Cancel every resting order of a client, such as when its session drops
+     * Orders submitted with a numeric order id and the registry number of the client are cancelled too.
+     * The records of the client are linked to each other, so the cancel costs O(k) for the k orders of the client
+     * whatever the size of the book. Each order raises its cancel event, followed by one mass cancel event,
+     * and events are flushed once
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled, 0 if the client id is {@code null}
+     */
+    @Override
+    public int cancelAllOrders(String clientId, OrderSide side) {
+        if (clientId == null){
+            return 0;
+        }
+        int cancelled = cancelClient(this.clients.get(clientId), side);
+        this.eventsink.onMassCancel(clientId, side, cancelled);
+        this.eventsink.flush();
+        return cancelled;
+    }
+
+    /**
+     * Cancel every resting order of a client looked up by its number in the {@code ClientRegistry} of the order book
+     * @param clientNumber number of the client that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled, 0 if the client number is not registered
+     * @see #cancelAllOrders(String, OrderSide)
+     */
+    public int cancelAllOrders(int clientNumber, OrderSide side) {
+        if (!this.clients.contains(clientNumber)){
+            return 0;
+        }
+        int cancelled = cancelClient(clientNumber, side);
+        if (this.eventsink != NoOpEventSink.INSTANCE){
+            this.eventsink.onMassCancel(this.clients.name(clientNumber), side, cancelled);
+        }
+        this.eventsink.flush();
+        return cancelled;
+    }
+
+    /**
+     * Replace the price and open quantity of a resting order
+     * Lowering the quantity at the same price updates the record in place and keeps its time priority.
+     * A new price or a higher quantity unlinks the record and matches it at its new price like an incoming order,
+     * linking the remainder at the back of its level. The order is left unchanged if the replace is rejected
+     * @param orderId OrderId of the resting order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order, its order quantity becomes the executed plus the open quantity
+     * @return status of the order once replaced, {@code OrderStatus.Rejected} if the order was not resting,
+     * the quantity is not positive or the price is not on the ladder
+     */
+    @Override
+    public OrderStatus replaceOrder(String orderId, String clientId, long priceTicks, int qty) {
+        int handle = this.restingorders.get(orderId);
+        OrderStatus status = handle == OffHeapOrderStore.NIL || !this.store.clientIdEquals(handle, clientId)
+                ? OrderStatus.Rejected : replace(handle, priceTicks, qty);
+        this.eventsink.flush();
+        return status;
+    }
+
+    /**
+     * Submit an order with a numeric order id to order book and execute according to order type
+     * Orders with a missing side, a missing or stop type, a non positive quantity, an unregistered client number, a limit order
+     * without a price on the ladder or the order id of a resting numeric order are rejected
+     * @param orderId numeric order id
+     * @param clientNumber number of the client in the {@code ClientRegistry} of the order book
+     * @param side side of the order
+     * @param orderType type of the order
+     * @param priceTicks limit price in ticks, ignored for a market order
+     * @param qty order quantity
+     * @param market whether the order is a market order
+     * @return status of the order once submitted
+     */
+    public OrderStatus submitOrder(long orderId, int clientNumber, OrderSide side, OrderType orderType,
+                                   long priceTicks, int qty, boolean market) {
+        OrderStatus status = submit(orderId, clientNumber, side, orderType, priceTicks, qty, market);
+        this.eventsink.flush();
+        return status;
+    }
+
+    /**
+     * Cancel a resting order submitted with a numeric order id
+     * @param orderId numeric order id of the order
+     * @param clientNumber number of the client that owns the order
+     * @return true if the order was resting and has been cancelled
+     */
+    public boolean cancelOrder(long orderId, int clientNumber) {
+        boolean cancelled = cancel(orderId, clientNumber);
+        this.eventsink.flush();
+        return cancelled;
+    }
+
+    /**
+     * Replace the price and open quantity of a resting order submitted with a numeric order id
+     * @param orderId numeric order id of the order
+     * @param clientNumber number of the client that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order
+     * @return status of the order once replaced, {@code OrderStatus.Rejected} if not replaced
+     * @see #replaceOrder(String, String, long, int)
+     */
+    public OrderStatus replaceOrder(long orderId, int clientNumber, long priceTicks, int qty) {
+        int handle = this.numericorders.get(orderId);
+        OrderStatus status = handle == OffHeapOrderStore.NIL || this.store.clientNumber(handle) != clientNumber
+                ? OrderStatus.Rejected : replace(handle, priceTicks, qty);
+        this.eventsink.flush();
+        return status;
+    }
+
+    /**
+     * Validate and execute an order, storing the remainder of a GTC limit order
+     * @param order order to submit
+     * @return status of the order
+     */
+    private OrderStatus submit(IOrder order){
+        this.eventsink.onOrderReceived(order.OrderID(), order.Side(), order.OrderQty(), order.PriceTicks(),
+                order.isMarketOrder());
+        String rejectReason = validateOrder(order);
+        if (rejectReason != null){
+            this.eventsink.onOrderRejected(order.OrderID(), rejectReason);
+            order.setStatus(OrderStatus.Rejected);
+            return OrderStatus.Rejected;
+        }
+        if (order.getStatus() == null){
+            order.setStatus(OrderStatus.New);
+        }
+        long notional = matchOrder(order);
+        if (order.getRemainingQty() > 0 && order.OrderType() == OrderType.GTC && !order.isMarketOrder()){
+            int handle = this.store.add(order, notional);
+            side(order.Side()).addLast(handle);
+            this.restingorders.put(handle);
+            linkClient(handle);
+            return order.getStatus();
+        }
+        if (order.getRemainingQty() > 0){
+            order.setStatus(OrderStatus.Cancelled);
+            this.eventsink.onOrderCancelled(order.OrderID(), order.getRemainingQty());
+        }
+        return order.getStatus();
+    }
+
+    /**
+     * Validate and execute a numeric order from a store record, keeping the record for a resting GTC limit order
+     * @return status of the order
+     */
+    private OrderStatus submit(long orderId, int clientNumber, OrderSide side, OrderType orderType,
+                               long priceTicks, int qty, boolean market){
+        boolean events = this.eventsink != NoOpEventSink.INSTANCE;
+        if (events){
+            this.eventsink.onOrderReceived(Long.toString(orderId), side, qty, priceTicks, market);
+        }
+        String rejectReason = null;
+        if (side == null || orderType == null || orderType.isStop() || qty <= 0 || !this.clients.contains(clientNumber)){
+            rejectReason = INVALID_ORDER;
+        }
+        else if (this.numericorders.get(orderId) != OffHeapOrderStore.NIL){
+            rejectReason = DUPLICATE_ORDER_ID;
+        }
+        else if (!market && (priceTicks <= 0 || !side(side).canHold(priceTicks))){
+            rejectReason = INVALID_PRICE;
+        }
+        if (rejectReason != null){
+            if (events){
+                this.eventsink.onOrderRejected(Long.toString(orderId), rejectReason);
+            }
+            return OrderStatus.Rejected;
+        }
+        int handle = this.store.add(orderId, clientNumber, side, orderType, priceTicks, qty, market);
+        this.takerview.view(handle);
+        matchOrder(this.takerview);
+        int remaining = this.store.remainingQty(handle);
+        if (remaining > 0 && orderType == OrderType.GTC && !market){
+            side(side).addLast(handle);
+            this.numericorders.put(orderId, handle);
+            linkClient(handle);
+            return this.store.status(handle);
+        }
+        if (remaining > 0){
+            this.store.setStatus(handle, OrderStatus.Cancelled);
+            if (events){
+                this.eventsink.onOrderCancelled(Long.toString(orderId), remaining);
+            }
+        }
+        OrderStatus status = this.store.status(handle);
+        this.store.free(handle);
+        return status;
+    }
+
+    /**
+     * Cancel a resting numeric order looked up by order id
+     * @return true if the order was resting and has been cancelled
+     */
+    private boolean cancel(long orderId, int clientNumber){
+        int handle = this.numericorders.get(orderId);
+        if (handle == OffHeapOrderStore.NIL || this.store.clientNumber(handle) != clientNumber){
+            return false;
+        }
+        side(this.store.side(handle)).remove(handle);
+        this.numericorders.remove(orderId);
+        unlinkClient(handle);
+        this.store.setStatus(handle, OrderStatus.Cancelled);
+        if (this.eventsink != NoOpEventSink.INSTANCE){
+            this.eventsink.onOrderCancelled(Long.toString(orderId), this.store.remainingQty(handle));
+        }
+        this.store.free(handle);
+        return true;
+    }
+
+    /**
+     * Cancel a resting order looked up by order id
+     * @return true if the order was resting and has been cancelled
+     */
+    private boolean cancel(String orderId, String clientId){
+        int handle = this.restingorders.get(orderId);
+        if (handle == OffHeapOrderStore.NIL || !this.store.clientIdEquals(handle, clientId)){
+            return false;
+        }
+        side(this.store.side(handle)).remove(handle);
+        this.restingorders.remove(handle);
+        unlinkClient(handle);
+        this.store.setStatus(handle, OrderStatus.Cancelled);
+        this.eventsink.onOrderCancelled(orderId, this.store.remainingQty(handle));
+        this.store.free(handle);
+        return true;
+    }
+
+    /**
+     * Cancel the resting records of a client, walking its client links, freeing them
+     * @param client client number, {@code ClientRegistry.UNKNOWN} for a client without orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled
+     */
+    private int cancelClient(int client, OrderSide side){
+        int cancelled = 0;
+        int handle = client >= 0 && client < this.clientheads.length ? this.clientheads[client] : OffHeapOrderStore.NIL;
+        while (handle != OffHeapOrderStore.NIL){
+            int next = this.store.clientNext(handle);
+            OrderSide orderside = this.store.side(handle);
+            if (side == null || orderside == side){
+                side(orderside).remove(handle);
+                removeIndex(handle);
+                unlinkClient(handle);
+                this.store.setStatus(handle, OrderStatus.Cancelled);
+                if (this.eventsink != NoOpEventSink.INSTANCE){
+                    this.eventsink.onOrderCancelled(this.store.orderId(handle), this.store.remainingQty(handle));
+                }
+                this.store.free(handle);
+                cancelled++;
+            }
+            handle = next;
+        }
+        return cancelled;
+    }
+
+    /**
+     * Link a resting record at the front of the records of its client
+     * @param handle record of a resting order
+     */
+    private void linkClient(int handle){
+        int client = this.store.clientNumber(handle);
+        if (client >= this.clientheads.length){
+            int length = this.clientheads.length;
+            this.clientheads = Arrays.copyOf(this.clientheads, Math.max(length << 1, client + 1));
+            Arrays.fill(this.clientheads, length, this.clientheads.length, OffHeapOrderStore.NIL);
+        }
+        int head = this.clientheads[client];
+        this.store.setClientPrev(handle, OffHeapOrderStore.NIL);
+        this.store.setClientNext(handle, head);
+        if (head != OffHeapOrderStore.NIL){
+            this.store.setClientPrev(head, handle);
+        }
+        this.clientheads[client] = handle;
+    }
+
+    /**
+     * Unlink a resting record from the records of its client
+     * @param handle linked record
+     */
+    private void unlinkClient(int handle){
+        int prev = this.store.clientPrev(handle);
+        int next = this.store.clientNext(handle);
+        if (prev == OffHeapOrderStore.NIL){
+            this.clientheads[this.store.clientNumber(handle)] = next;
+        }
+        else {
+            this.store.setClientNext(prev, next);
+        }
+        if (next != OffHeapOrderStore.NIL){
+            this.store.setClientPrev(next, prev);
+        }
+    }
+
+    /**
+     * Remove a resting record from the index of its kind of order id
+     * @param handle record of a resting order
+     */
+    private void removeIndex(int handle){
+        if (this.store.isNumeric(handle)){
+            this.numericorders.remove(this.store.orderNumber(handle));
+        }
+        else {
+            this.restingorders.remove(handle);
+        }
+    }
+
+    /**
+     * Replace a resting record, in place when only its quantity is lowered, the record is freed if fully filled
+     * @param handle record of the resting order
+     * @return status of the order once replaced
+     */
+    private OrderStatus replace(int handle, long priceTicks, int qty){
+        OffHeapBookSide side = side(this.store.side(handle));
+        if (qty <= 0 || priceTicks <= 0 || !side.canHold(priceTicks)){
+            return OrderStatus.Rejected;
+        }
+        boolean events = this.eventsink != NoOpEventSink.INSTANCE;
+        this.store.setOrderQty(handle, this.store.cumulativeQty(handle) + qty);
+        if (priceTicks == this.store.priceTicks(handle) && qty <= this.store.remainingQty(handle)){
+            side.updateQuantity(handle, qty);
+            if (events){
+                this.eventsink.onOrderReplaced(this.store.orderId(handle), priceTicks, qty);
+            }
+            return this.store.status(handle);
+        }
+        side.remove(handle);
+        this.store.setPriceTicks(handle, priceTicks);
+        this.store.setRemainingQty(handle, qty);
+        if (events){
+            this.eventsink.onOrderReplaced(this.store.orderId(handle), priceTicks, qty);
+        }
+        this.takerview.view(handle);
+        matchOrder(this.takerview);
+        if (this.store.remainingQty(handle) > 0){
+            side.addLast(handle);
+            return this.store.status(handle);
+        }
+        removeIndex(handle);
+        unlinkClient(handle);
+        OrderStatus status = this.store.status(handle);
+        this.store.free(handle);
+        return status;
+    }
+
+    /**
+     * Order must have a side, a type other than a stop type, a positive quantity, ids that can be stored, an order id not
+     * already resting and a price on the ladder unless market order
+     * @return reason the order is rejected, {@code null} if valid
+     **/
+    private String validateOrder(IOrder order){
+        if (order.Side() == null || order.OrderType() == null || order.OrderType().isStop()
+                || order.OrderQty() <= 0 || order.getRemainingQty() <= 0
+                || !OffHeapOrderStore.canStore(order.OrderID(), OffHeapOrderStore.MAX_ID_LENGTH)
+                || !OffHeapOrderStore.canStore(order.ClientID(), OffHeapOrderStore.MAX_CLIENT_ID_LENGTH)){
+            return INVALID_ORDER;
+        }
+        if (this.restingorders.get(order.OrderID()) != OffHeapOrderStore.NIL){
+            return DUPLICATE_ORDER_ID;
+        }
+        if (order.isMarketOrder() || (order.PriceTicks() > 0 && side(order.Side()).canHold(order.PriceTicks()))){
+            return null;
+        }
+        return INVALID_PRICE;
+    }
+
+    /**
+     * Execute order against the opposite side while it crosses the best price level
+     * Fully filled resting orders are unlinked from their level and client and their records freed
+     * @param order order to match against resting orders
+     * @return executed notional of the order in ticks
+     */
+    private long matchOrder(IOrder order){
+        OffHeapBookSide opposite = order.Side() == OrderSide.Buy ? this.asks : this.bids;
+        boolean notify = this.executionlistener != null || this.eventsink != NoOpEventSink.INSTANCE;
+        long notional = 0;
+        int slot = opposite.best();
+        while (slot >= 0 && order.getRemainingQty() > 0 && crosses(order, opposite.price(slot))){
+            long price = opposite.price(slot);
+            int maker = opposite.head(slot);
+            while (maker != OffHeapOrderStore.NIL && order.getRemainingQty() > 0){
+                int next = this.store.next(maker);
+                int makerQty = this.store.remainingQty(maker);
+                int fillQty = Math.min(order.getRemainingQty(), makerQty);
+                this.store.setRemainingQty(maker, makerQty - fillQty);
+                this.store.recordExecution(maker, fillQty, price);
+                this.store.setStatus(maker, makerQty == fillQty ? OrderStatus.FullyFilled : OrderStatus.PartialFill);
+                order.recordExecution(fillQty, price);
+                order.setRemainingQty(order.getRemainingQty() - fillQty);
+                order.setStatus(order.getRemainingQty() == 0 ? OrderStatus.FullyFilled : OrderStatus.PartialFill);
+                opposite.addQuantity(slot, -fillQty);
+                notional += fillQty * price;
+                if (notify){
+                    publishExecution(maker, order, price, fillQty);
+                }
+                if (makerQty == fillQty){
+                    removeIndex(maker);
+                    unlinkClient(maker);
+                    opposite.remove(maker);
+                    this.store.free(maker);
+                }
+                maker = next;
+            }
+            slot = opposite.best();
+        }
+        return notional;
+    }
+
+    /**
+     * Notify the execution listener and event sink of an execution between a resting and an incoming order
+     */
+    private void publishExecution(int maker, IOrder order, long price, int fillQty){
+        String makerId = this.store.orderId(maker);
+        if (this.executionlistener != null){
+            this.executionlistener.onExecution(makerId, order.OrderID(), price, fillQty, this.store.status(maker),
+                    order.getStatus());
+        }
+        this.eventsink.onExecution(makerId, order.OrderID(), price, fillQty);
+    }
+
+    /**
+     * Returns whether the order is willing to trade at a resting price
+     * @param order incoming order
+     * @param price price in ticks of the resting level
+     */
+    private boolean crosses(IOrder order, long price){
+        if (order.isMarketOrder()){
+            return true;
+        }
+        return order.Side() == OrderSide.Buy ? order.PriceTicks() >= price : order.PriceTicks() <= price;
+    }
+
+    private OffHeapBookSide side(OrderSide side){
+        return side == OrderSide.Buy ? this.bids : this.asks;
+    }
+
+    /**
+     * Read only live list of views of the orders of a side, best level first and time priority within a level
+     */
+    private final class SideView extends AbstractList<IOrder> {
+
+        private final OffHeapBookSide side;
+
+        SideView(OffHeapBookSide side){
+            this.side = side;
+        }
+
+        @Override
+        public IOrder get(int index) {
+            if (index < 0 || index >= this.side.orderCount()){
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.side.orderCount());
+            }
+            Iterator<IOrder> orders = iterator();
+            for (int i = 0; i < index; i++){
+                orders.next();
+            }
+            return orders.next();
+        }
+
+        @Override
+        public int size() {
+            return this.side.orderCount();
+        }
+
+        @Override
+        public Iterator<IOrder> iterator() {
+            return new Iterator<IOrder>() {
+                private int slot = SideView.this.side.best();
+                private int handle = this.slot < 0 ? OffHeapOrderStore.NIL : SideView.this.side.head(this.slot);
+
+                @Override
+                public boolean hasNext() {
+                    return this.handle != OffHeapOrderStore.NIL;
+                }
+
+                @Override
+                public IOrder next() {
+                    if (this.handle == OffHeapOrderStore.NIL){
+                        throw new NoSuchElementException();
+                    }
+                    IOrder order = new OffHeapOrder(OffHeapOrderBookImpl.this.store, this.handle);
+                    this.handle = OffHeapOrderBookImpl.this.store.next(this.handle);
+                    while (this.handle == OffHeapOrderStore.NIL && this.slot >= 0){
+                        this.slot = SideView.this.side.next(this.slot);
+                        this.handle = this.slot < 0 ? OffHeapOrderStore.NIL : SideView.this.side.head(this.slot);
+                    }
+                    return order;
+                }
+            };
+        }
+    }
+}
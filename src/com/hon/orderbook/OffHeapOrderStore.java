@@ -0,0 +1,426 @@
+package com.hon.orderbook;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Store of orders kept off the heap as fixed width records in direct {@code ByteBuffer} slabs<p>
+ * Each record is addressed by an integer handle, the slab in its high bits and the record within
+ * the slab in its low bits. A record of {@value #RECORD_SIZE} bytes holds:
+ * <pre>
+ *   0 long  price in ticks                  40 byte  order id length, then up to {@value #MAX_ID_LENGTH} bytes
+ *   8 int   order quantity                  80 int   previous handle of the client
+ *  12 int   remaining quantity              84 int   next handle of the client
+ *  16 int   previous handle in level        88 byte  client id length, then up to {@value #MAX_CLIENT_ID_LENGTH} bytes
+ *  20 int   next handle in level or free   120 int   client number
+ *  24 int   cumulative quantity            124 int   hash code of the order id
+ *  28 byte  side, 29 type, 30 status, 31 market flag
+ *  32 long  executed notional in ticks
+ * </pre>
+ * Ids are stored one byte per character and must be of characters up to 0xFF. Every record holds the
+ * {@code ClientRegistry} number of its client, client ids being interned as their records are added.
+ * Orders submitted with a numeric order id and client number instead hold a 64-bit order id at 48,
+ * their id lengths being set to {@value #NUMERIC}.
+ * Freed records are chained through their next handle and reused first, a slab is added when none
+ * is free, so heap use does not grow with the number of orders and the collector has nothing to trace<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+public final class OffHeapOrderStore {
+
+    public static final int NIL = -1;
+    public static final int RECORD_SIZE = 128;
+    public static final int MAX_ID_LENGTH = 39;
+    public static final int MAX_CLIENT_ID_LENGTH = 31;
+
+    private static final int PRICE = 0;
+    private static final int QTY = 8;
+    private static final int REMAINING = 12;
+    private static final int PREV = 16;
+    private static final int NEXT = 20;
+    private static final int CUMULATIVE_QTY = 24;
+    private static final int SIDE = 28;
+    private static final int TYPE = 29;
+    private static final int STATUS = 30;
+    private static final int MARKET = 31;
+    private static final int NOTIONAL = 32;
+    private static final int ORDER_ID = 40;
+    private static final int CLIENT_PREV = 80;
+    private static final int CLIENT_NEXT = 84;
+    private static final int CLIENT_ID = 88;
+    private static final int CLIENT_NUMBER = 120;
+    private static final int ORDER_ID_HASH = 124;
+    private static final int ORDER_NUMBER = 48;
+    private static final int NUMERIC = 0xFF;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderType[] TYPES = OrderType.values();
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final int slabbits;
+    private final int slabmask;
+    private final double ticksize;
+    private final ClientRegistry clients;
+    private ByteBuffer[] slabs = new ByteBuffer[0];
+    private int freehead = NIL;
+    private int size;
+
+    /**
+     * Off-heap order store constructor
+     * @param slabRecords number of records per slab, rounded up to a power of two
+     * @param tickSize tick size of the stored prices, used for average prices
+     */
+    public OffHeapOrderStore(int slabRecords, double tickSize){
+        this(slabRecords, tickSize, new ClientRegistry(16));
+    }
+
+    /**
+     * Off-heap order store constructor
+     * @param slabRecords number of records per slab, rounded up to a power of two
+     * @param tickSize tick size of the stored prices, used for average prices
+     * @param clients registry client ids are interned in and the client numbers of numeric orders named from
+     */
+    public OffHeapOrderStore(int slabRecords, double tickSize, ClientRegistry clients){
+        if (slabRecords <= 0 || slabRecords > (Integer.MAX_VALUE / RECORD_SIZE)){
+            throw new IllegalArgumentException("Invalid slab size " + slabRecords);
+        }
+        int bits = 0;
+        while ((1 << bits) < slabRecords){
+            bits++;
+        }
+        this.slabbits = bits;
+        this.slabmask = (1 << bits) - 1;
+        this.ticksize = tickSize;
+        this.clients = clients;
+    }
+
+    /** Number of records in use **/
+    public int size(){
+        return this.size;
+    }
+
+    /** Number of records the allocated slabs hold **/
+    public long capacity(){
+        return (long) this.slabs.length << this.slabbits;
+    }
+
+    /** Tick size of the stored prices **/
+    public double getTickSize(){
+        return this.ticksize;
+    }
+
+    /**
+     * Returns whether an id can be stored
+     * @param id order or client id
+     * @param maxLength longest id of its field
+     */
+    static boolean canStore(String id, int maxLength){
+        if (id == null || id.length() > maxLength){
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++){
+            if (id.charAt(i) > 0xFF){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy an order into a new record, unlinked, interning its client id
+     * @param order order with an order id and client id that can be stored
+     * @param notionalTicks executed notional of the order in ticks
+     * @return handle of the record
+     * @throws IllegalArgumentException if an id is too long or not single byte characters
+     */
+    public int add(IOrder order, long notionalTicks){
+        if (!canStore(order.OrderID(), MAX_ID_LENGTH) || !canStore(order.ClientID(), MAX_CLIENT_ID_LENGTH)){
+            throw new IllegalArgumentException("Order id or client id cannot be stored: " + order.OrderID());
+        }
+        int handle = allocate();
+        ByteBuffer slab = slab(handle);
+        int offset = offset(handle);
+        slab.putLong(offset + PRICE, order.PriceTicks());
+        slab.putInt(offset + QTY, order.OrderQty());
+        slab.putInt(offset + REMAINING, order.getRemainingQty());
+        slab.putInt(offset + PREV, NIL);
+        slab.putInt(offset + NEXT, NIL);
+        slab.putInt(offset + CLIENT_PREV, NIL);
+        slab.putInt(offset + CLIENT_NEXT, NIL);
+        slab.putInt(offset + CUMULATIVE_QTY, order.getCumulativeQty());
+        slab.put(offset + SIDE, (byte) order.Side().ordinal());
+        slab.put(offset + TYPE, (byte) order.OrderType().ordinal());
+        slab.put(offset + STATUS, (byte) (order.getStatus() == null ? OrderStatus.New : order.getStatus()).ordinal());
+        slab.put(offset + MARKET, (byte) (order.isMarketOrder() ? 1 : 0));
+        slab.putLong(offset + NOTIONAL, notionalTicks);
+        putId(slab, offset + ORDER_ID, order.OrderID());
+        putId(slab, offset + CLIENT_ID, order.ClientID());
+        slab.putInt(offset + CLIENT_NUMBER, this.clients.intern(order.ClientID()));
+        slab.putInt(offset + ORDER_ID_HASH, order.OrderID().hashCode());
+        return handle;
+    }
+
+    /**
+     * Create a record for an order with a numeric order id and client number, unlinked
+     * with status {@code OrderStatus.New} and nothing executed
+     * @param orderId numeric order id
+     * @param clientNumber registered client number
+     * @param side side of the order
+     * @param orderType type of the order
+     * @param priceTicks limit price in ticks
+     * @param qty order quantity
+     * @param market whether the order is a market order
+     * @return handle of the record
+     */
+    public int add(long orderId, int clientNumber, OrderSide side, OrderType orderType, long priceTicks, int qty,
+                   boolean market){
+        int handle = allocate();
+        ByteBuffer slab = slab(handle);
+        int offset = offset(handle);
+        slab.putLong(offset + PRICE, priceTicks);
+        slab.putInt(offset + QTY, qty);
+        slab.putInt(offset + REMAINING, qty);
+        slab.putInt(offset + PREV, NIL);
+        slab.putInt(offset + NEXT, NIL);
+        slab.putInt(offset + CLIENT_PREV, NIL);
+        slab.putInt(offset + CLIENT_NEXT, NIL);
+        slab.putInt(offset + CUMULATIVE_QTY, 0);
+        slab.put(offset + SIDE, (byte) side.ordinal());
+        slab.put(offset + TYPE, (byte) orderType.ordinal());
+        slab.put(offset + STATUS, (byte) OrderStatus.New.ordinal());
+        slab.put(offset + MARKET, (byte) (market ? 1 : 0));
+        slab.putLong(offset + NOTIONAL, 0);
+        slab.put(offset + ORDER_ID, (byte) NUMERIC);
+        slab.putLong(offset + ORDER_NUMBER, orderId);
+        slab.put(offset + CLIENT_ID, (byte) NUMERIC);
+        slab.putInt(offset + CLIENT_NUMBER, clientNumber);
+        return handle;
+    }
+
+    /**
+     * Release a record for reuse, its handle must no longer be used
+     * @param handle handle of the record
+     */
+    public void free(int handle){
+        ByteBuffer slab = slab(handle);
+        int offset = offset(handle);
+        slab.putInt(offset + PREV, NIL);
+        slab.putInt(offset + NEXT, this.freehead);
+        slab.put(offset + ORDER_ID, (byte) 0);
+        this.freehead = handle;
+        this.size--;
+    }
+
+    private int allocate(){
+        if (this.freehead == NIL){
+            addSlab();
+        }
+        int handle = this.freehead;
+        this.freehead = slab(handle).getInt(offset(handle) + NEXT);
+        this.size++;
+        return handle;
+    }
+
+    /** Add a slab and chain its records as free **/
+    private void addSlab(){
+        int index = this.slabs.length;
+        if (((long) (index + 1) << this.slabbits) > Integer.MAX_VALUE){
+            throw new IllegalStateException("Order store full");
+        }
+        int records = 1 << this.slabbits;
+        ByteBuffer slab = ByteBuffer.allocateDirect(records * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        this.slabs = Arrays.copyOf(this.slabs, index + 1);
+        this.slabs[index] = slab;
+        int first = index << this.slabbits;
+        for (int i = records - 1; i >= 0; i--){
+            slab.putInt(i * RECORD_SIZE + NEXT, this.freehead);
+            this.freehead = first + i;
+        }
+    }
+
+    public long priceTicks(int handle){
+        return slab(handle).getLong(offset(handle) + PRICE);
+    }
+
+    public void setPriceTicks(int handle, long priceTicks){
+        slab(handle).putLong(offset(handle) + PRICE, priceTicks);
+    }
+
+    public int orderQty(int handle){
+        return slab(handle).getInt(offset(handle) + QTY);
+    }
+
+    public void setOrderQty(int handle, int orderQty){
+        slab(handle).putInt(offset(handle) + QTY, orderQty);
+    }
+
+    public int remainingQty(int handle){
+        return slab(handle).getInt(offset(handle) + REMAINING);
+    }
+
+    public void setRemainingQty(int handle, int remainingQty){
+        slab(handle).putInt(offset(handle) + REMAINING, remainingQty);
+    }
+
+    public int cumulativeQty(int handle){
+        return slab(handle).getInt(offset(handle) + CUMULATIVE_QTY);
+    }
+
+    public long notionalTicks(int handle){
+        return slab(handle).getLong(offset(handle) + NOTIONAL);
+    }
+
+    /**
+     * Add an execution to the cumulative quantity and notional of a record
+     * @param handle handle of the record
+     * @param qty executed quantity
+     * @param priceTicks executed price in ticks
+     */
+    public void recordExecution(int handle, int qty, long priceTicks){
+        ByteBuffer slab = slab(handle);
+        int offset = offset(handle);
+        slab.putInt(offset + CUMULATIVE_QTY, slab.getInt(offset + CUMULATIVE_QTY) + qty);
+        slab.putLong(offset + NOTIONAL, slab.getLong(offset + NOTIONAL) + qty * priceTicks);
+    }
+
+    public OrderSide side(int handle){
+        return SIDES[slab(handle).get(offset(handle) + SIDE)];
+    }
+
+    public OrderType orderType(int handle){
+        return TYPES[slab(handle).get(offset(handle) + TYPE)];
+    }
+
+    public OrderStatus status(int handle){
+        return STATUSES[slab(handle).get(offset(handle) + STATUS)];
+    }
+
+    public void setStatus(int handle, OrderStatus status){
+        slab(handle).put(offset(handle) + STATUS, (byte) status.ordinal());
+    }
+
+    public boolean isMarketOrder(int handle){
+        return slab(handle).get(offset(handle) + MARKET) != 0;
+    }
+
+    public int prev(int handle){
+        return slab(handle).getInt(offset(handle) + PREV);
+    }
+
+    public void setPrev(int handle, int prev){
+        slab(handle).putInt(offset(handle) + PREV, prev);
+    }
+
+    public int next(int handle){
+        return slab(handle).getInt(offset(handle) + NEXT);
+    }
+
+    public void setNext(int handle, int next){
+        slab(handle).putInt(offset(handle) + NEXT, next);
+    }
+
+    public int clientPrev(int handle){
+        return slab(handle).getInt(offset(handle) + CLIENT_PREV);
+    }
+
+    public void setClientPrev(int handle, int prev){
+        slab(handle).putInt(offset(handle) + CLIENT_PREV, prev);
+    }
+
+    public int clientNext(int handle){
+        return slab(handle).getInt(offset(handle) + CLIENT_NEXT);
+    }
+
+    public void setClientNext(int handle, int next){
+        slab(handle).putInt(offset(handle) + CLIENT_NEXT, next);
+    }
+
+    /** Returns whether a record holds a numeric order id and client number **/
+    public boolean isNumeric(int handle){
+        return (slab(handle).get(offset(handle) + ORDER_ID) & 0xFF) == NUMERIC;
+    }
+
+    /** Numeric order id of a record **/
+    public long orderNumber(int handle){
+        return slab(handle).getLong(offset(handle) + ORDER_NUMBER);
+    }
+
+    /** Client number of a record in the client registry **/
+    public int clientNumber(int handle){
+        return slab(handle).getInt(offset(handle) + CLIENT_NUMBER);
+    }
+
+    /** Order id of a record, decoded to a new {@code String} **/
+    public String orderId(int handle){
+        if (isNumeric(handle)){
+            return Long.toString(orderNumber(handle));
+        }
+        return getId(slab(handle), offset(handle) + ORDER_ID);
+    }
+
+    /** Client id of a record, decoded to a new {@code String} or named from the client registry **/
+    public String clientId(int handle){
+        if (isNumeric(handle)){
+            return this.clients.name(clientNumber(handle));
+        }
+        return getId(slab(handle), offset(handle) + CLIENT_ID);
+    }
+
+    /**
+     * Returns whether the order id of a record equals an id, without decoding it,
+     * never for a numeric record or a {@code null} id
+     */
+    public boolean orderIdEquals(int handle, String id){
+        return idEquals(slab(handle), offset(handle) + ORDER_ID, id);
+    }
+
+    /**
+     * Returns whether the client id of a record equals an id, without decoding it,
+     * never for a numeric record or a {@code null} id
+     */
+    public boolean clientIdEquals(int handle, String id){
+        return idEquals(slab(handle), offset(handle) + CLIENT_ID, id);
+    }
+
+    /** Hash code of the order id of a record, equal to the {@code hashCode} of the id as a {@code String} **/
+    int orderIdHash(int handle){
+        return slab(handle).getInt(offset(handle) + ORDER_ID_HASH);
+    }
+
+    private ByteBuffer slab(int handle){
+        return this.slabs[handle >>> this.slabbits];
+    }
+
+    private int offset(int handle){
+        return (handle & this.slabmask) * RECORD_SIZE;
+    }
+
+    private static void putId(ByteBuffer slab, int offset, String id){
+        slab.put(offset, (byte) id.length());
+        for (int i = 0; i < id.length(); i++){
+            slab.put(offset + 1 + i, (byte) id.charAt(i));
+        }
+    }
+
+    private static String getId(ByteBuffer slab, int offset){
+        int length = slab.get(offset) & 0xFF;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++){
+            chars[i] = (char) (slab.get(offset + 1 + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    private static boolean idEquals(ByteBuffer slab, int offset, String id){
+        int length = slab.get(offset) & 0xFF;
+        if (id == null || length != id.length() || length == NUMERIC){
+            return false;
+        }
+        for (int i = 0; i < length; i++){
+            if ((slab.get(offset + 1 + i) & 0xFF) != id.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,110 @@
+package com.hon.orderbook;
+
+/**
+ * A reusable buffer of order submits and cancels processed by an order book in one pass<p>
+ * Commands keep the order they were added in. Once processed each command has a result:
+ * the status of a submitted order when the order book was done with it, or for a cancel
+ * {@code OrderStatus.Cancelled} if the order was resting and {@code OrderStatus.Rejected} if not.
+ * Clearing the batch keeps its arrays so a feed handler can refill it without allocating
+ */
+public class OrderBatch {
+
+    private final IOrder[] orders;
+    private final String[] orderids;
+    private final String[] clientids;
+    private final OrderStatus[] results;
+    private int size;
+
+    /**
+     * Order batch constructor
+     * @param capacity maximum number of commands of the batch
+     */
+    public OrderBatch(int capacity){
+        this.orders = new IOrder[capacity];
+        this.orderids = new String[capacity];
+        this.clientids = new String[capacity];
+        this.results = new OrderStatus[capacity];
+    }
+
+    /**
+     * Add an order to submit
+     * @param order order to submit
+     * @return false if the batch is full
+     */
+    public boolean addSubmit(IOrder order){
+        if (this.size == this.orders.length){
+            return false;
+        }
+        this.orders[this.size] = order;
+        this.results[this.size++] = null;
+        return true;
+    }
+
+    /**
+     * Add a cancel of a resting order
+     * @param orderId OrderId of which the order is to be cancelled
+     * @param clientId ClientId that owns the order
+     * @return false if the batch is full
+     */
+    public boolean addCancel(String orderId, String clientId){
+        if (this.size == this.orders.length){
+            return false;
+        }
+        this.orderids[this.size] = orderId;
+        this.clientids[this.size] = clientId;
+        this.results[this.size++] = null;
+        return true;
+    }
+
+    /** Number of commands in the batch **/
+    public int size(){
+        return this.size;
+    }
+
+    /** Maximum number of commands of the batch **/
+    public int capacity(){
+        return this.orders.length;
+    }
+
+    /** Returns whether the command at an index is a cancel **/
+    public boolean isCancel(int index){
+        return this.orders[index] == null;
+    }
+
+    /** Returns the order of a submit command, {@code null} for a cancel **/
+    public IOrder getOrder(int index){
+        return this.orders[index];
+    }
+
+    /** Returns the order id of a cancel command **/
+    public String getOrderId(int index){
+        return this.orderids[index];
+    }
+
+    /** Returns the client id of a cancel command **/
+    public String getClientId(int index){
+        return this.clientids[index];
+    }
+
+    /** Returns the result of a processed command, {@code null} until processed **/
+    public OrderStatus getResult(int index){
+        return this.results[index];
+    }
+
+    void setResult(int index, OrderStatus result){
+        this.results[index] = result;
+    }
+
+    /**
+     * Remove every command, keeping the buffers
+     */
+    public void clear(){
+        for (int i = 0; i < this.size; i++){
+            this.orders[i] = null;
+            this.orderids[i] = null;
+            this.clientids[i] = null;
+            this.results[i] = null;
+        }
+        this.size = 0;
+    }
+}
@@ -0,0 +1,312 @@
+package com.hon.orderbook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the order books of many instruments and routes each order, cancel or batch by instrument
+ * to the shard that owns its order book<p>
+ * Each shard is an {@code OrderSequencer} with its own matching thread, named
+ * {@code orderbook-shard-N} so it can be pinned to a core. An order book is only ever
+ * touched by the matching thread of its shard, so it stays single threaded and lock free,
+ * and throughput scales with the number of shards<p>
+ * Order books are assigned to a shard when added, either explicitly or to the shard with the
+ * fewest order books. {@code rebalance} re-assigns them by the number of commands each has
+ * matched so busy instruments are spread across the shards<p>
+ * Every order of a client can be cancelled on one instrument or on all of them, such as when
+ * the session of the client drops
+ */
+public class OrderBookManager implements AutoCloseable {
+
+    private final OrderSequencer[] shards;
+    private final ConcurrentHashMap<String, ShardedOrderBook> orderbooks = new ConcurrentHashMap<>();
+
+    /**
+     * Order book manager constructor, call {@code start} to begin matching
+     * @param shards number of shards, each with a matching thread
+     * @param capacity number of commands of the ring of each shard
+     * @param waitStrategy how the matching threads and producers wait
+     */
+    public OrderBookManager(int shards, int capacity, WaitStrategy waitStrategy){
+        if (shards <= 0){
+            throw new IllegalArgumentException("Invalid shard count " + shards);
+        }
+        this.shards = new OrderSequencer[shards];
+        for (int i = 0; i < shards; i++){
+            this.shards[i] = new OrderSequencer(null, capacity, waitStrategy, "orderbook-shard-" + i);
+        }
+    }
+
+    /**
+     * Start the matching thread of every shard
+     */
+    public void start(){
+        for (OrderSequencer shard : this.shards){
+            shard.start();
+        }
+    }
+
+    /**
+     * Stop every shard once every published command has been applied
+     */
+    @Override
+    public void close() {
+        for (OrderSequencer shard : this.shards){
+            shard.close();
+        }
+    }
+
+    /** Number of shards **/
+    public int shardCount(){
+        return this.shards.length;
+    }
+
+    /**
+     * Add the order book of an instrument to the shard with the fewest order books
+     * Adds are serialised so order books added from several threads at once are spread across the shards
+     * @param instrument instrument orders are routed by
+     * @param orderbook order book of the instrument, not to be used by any other thread afterwards
+     * @return shard of the order book
+     */
+    public synchronized int addOrderBook(String instrument, IOrderBook orderbook){
+        int[] counts = new int[this.shards.length];
+        for (ShardedOrderBook sharded : this.orderbooks.values()){
+            counts[sharded.shard]++;
+        }
+        int shard = 0;
+        for (int i = 1; i < counts.length; i++){
+            if (counts[i] < counts[shard]){
+                shard = i;
+            }
+        }
+        addOrderBook(instrument, orderbook, shard);
+        return shard;
+    }
+
+    /**
+     * Add the order book of an instrument to a shard
+     * @param instrument instrument orders are routed by
+     * @param orderbook order book of the instrument, not to be used by any other thread afterwards
+     * @param shard shard owning the order book
+     */
+    public synchronized void addOrderBook(String instrument, IOrderBook orderbook, int shard){
+        if (shard < 0 || shard >= this.shards.length){
+            throw new IllegalArgumentException("Invalid shard " + shard);
+        }
+        if (this.orderbooks.putIfAbsent(instrument, new ShardedOrderBook(orderbook, shard)) != null){
+            throw new IllegalArgumentException("Duplicate instrument " + instrument);
+        }
+    }
+
+    /**
+     * Returns the order book of an instrument, to be read only once the shards are idle or closed
+     * @param instrument instrument of the order book
+     * @return order book or {@code null} if none
+     */
+    public IOrderBook getOrderBook(String instrument){
+        ShardedOrderBook sharded = this.orderbooks.get(instrument);
+        return sharded == null ? null : sharded.orderbook;
+    }
+
+    /**
+     * Returns the shard owning the order book of an instrument
+     * @param instrument instrument of the order book
+     * @return shard or -1 if no order book
+     */
+    public int getShard(String instrument){
+        ShardedOrderBook sharded = this.orderbooks.get(instrument);
+        return sharded == null ? -1 : sharded.shard;
+    }
+
+    /**
+     * Route an order to the order book of its instrument, safe to call from any thread
+     * An order for an instrument without an order book is set to {@code OrderStatus.Rejected}
+     * @param instrument instrument of the order
+     * @param order order to submit
+     */
+    public void submitOrder(String instrument, IOrder order){
+        ShardedOrderBook sharded = this.orderbooks.get(instrument);
+        if (sharded == null){
+            order.setStatus(OrderStatus.Rejected);
+            return;
+        }
+        this.shards[sharded.shard].submitOrder(sharded, order);
+    }
+
+    /**
+     * Route a cancel to the order book of its instrument, safe to call from any thread
+     * @param instrument instrument of the order
+     * @param orderId OrderId of which the order is to be cancelled
+     * @param clientId ClientId that owns the order
+     * @return true if the cancel was queued, false if the instrument has no order book
+     */
+    public boolean cancelOrder(String instrument, String orderId, String clientId){
+        ShardedOrderBook sharded = this.orderbooks.get(instrument);
+        if (sharded == null){
+            return false;
+        }
+        this.shards[sharded.shard].cancelOrder(sharded, orderId, clientId);
+        return true;
+    }
+
+    /**
+     * Route a replace of the price and open quantity of a resting order to the order book of its instrument,
+     * safe to call from any thread
+     * @param instrument instrument of the order
+     * @param orderId OrderId of the resting order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order
+     * @return true if the replace was queued, false if the instrument has no order book
+     */
+    public boolean replaceOrder(String instrument, String orderId, String clientId, long priceTicks, int qty){
+        ShardedOrderBook sharded = this.orderbooks.get(instrument);
+        if (sharded == null){
+            return false;
+        }
+        this.shards[sharded.shard].replaceOrder(sharded, orderId, clientId, priceTicks, qty);
+        return true;
+    }
+
+    /**
+     * Route a batch to the order book of its instrument, processed in one pass and flushed once, safe to call from any thread
+     * The results are written to the batch on the matching thread of the shard, to be read once the manager is idle
+     * @param instrument instrument of the orders of the batch
+     * @param batch batch of commands, not to be touched until the manager is idle
+     * @return true if the batch was queued, false if the instrument has no order book
+     */
+    public boolean processBatch(String instrument, OrderBatch batch){
+        ShardedOrderBook sharded = this.orderbooks.get(instrument);
+        if (sharded == null){
+            return false;
+        }
+        this.shards[sharded.shard].processBatch(sharded, batch);
+        return true;
+    }
+
+    /**
+     * Route a cancel of every order of a client to the order book of an instrument, safe to call from any thread
+     * @param instrument instrument of the orders
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return true if the cancel was queued, false if the instrument has no order book
+     */
+    public boolean cancelAllOrders(String instrument, String clientId, OrderSide side){
+        ShardedOrderBook sharded = this.orderbooks.get(instrument);
+        if (sharded == null){
+            return false;
+        }
+        this.shards[sharded.shard].cancelAllOrders(sharded, clientId, side);
+        return true;
+    }
+
+    /**
+     * Route a cancel of every order of a client to the order book of every instrument, safe to call from any thread
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     */
+    public void cancelAllOrders(String clientId, OrderSide side){
+        for (ShardedOrderBook sharded : this.orderbooks.values()){
+            this.shards[sharded.shard].cancelAllOrders(sharded, clientId, side);
+        }
+    }
+
+    /**
+     * Wait until every shard has applied every command published so far
+     */
+    public void awaitIdle(){
+        for (OrderSequencer shard : this.shards){
+            shard.awaitIdle();
+        }
+    }
+
+    /**
+     * Re-assign order books to shards by the number of commands each matched since the last
+     * rebalance, busiest first to the least loaded shard<p>
+     * Must be called while no thread submits or cancels orders, it waits for the shards to be idle
+     * so no command of a moved order book is still queued on its previous shard
+     */
+    public synchronized void rebalance(){
+        awaitIdle();
+        List<ShardedOrderBook> byload = new ArrayList<>(this.orderbooks.values());
+        byload.sort((a, b) -> Long.compare(b.load, a.load));
+        long[] shardloads = new long[this.shards.length];
+        for (ShardedOrderBook sharded : byload){
+            int shard = 0;
+            for (int i = 1; i < shardloads.length; i++){
+                if (shardloads[i] < shardloads[shard]){
+                    shard = i;
+                }
+            }
+            shardloads[shard] += Math.max(1, sharded.load);
+            sharded.shard = shard;
+            sharded.load = 0;
+        }
+    }
+
+    /**
+     * Order book owned by a shard counting the commands it matches, called on the matching thread of the shard
+     */
+    private static final class ShardedOrderBook implements IOrderBook {
+
+        private final IOrderBook orderbook;
+        private volatile int shard;
+        private long load;
+
+        ShardedOrderBook(IOrderBook orderbook, int shard){
+            this.orderbook = orderbook;
+            this.shard = shard;
+        }
+
+        @Override
+        public List<IOrder> getBidQueue() {
+            return this.orderbook.getBidQueue();
+        }
+
+        @Override
+        public List<IOrder> getAskQueue() {
+            return this.orderbook.getAskQueue();
+        }
+
+        @Override
+        public void submitOrder(IOrder order) {
+            this.load++;
+            this.orderbook.submitOrder(order);
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String clientId) {
+            this.load++;
+            return this.orderbook.cancelOrder(orderId, clientId);
+        }
+
+        @Override
+        public void processBatch(OrderBatch batch) {
+            this.load += batch.size();
+            this.orderbook.processBatch(batch);
+        }
+
+        @Override
+        public OrderStatus replaceOrder(String orderId, String clientId, long priceTicks, int qty) {
+            this.load++;
+            return this.orderbook.replaceOrder(orderId, clientId, priceTicks, qty);
+        }
+
+        @Override
+        public int cancelAllOrders(String clientId, OrderSide side) {
+            this.load++;
+            return this.orderbook.cancelAllOrders(clientId, side);
+        }
+
+        @Override
+        public void setExecutionListener(IExecutionListener listener) {
+            this.orderbook.setExecutionListener(listener);
+        }
+
+        @Override
+        public void setEventSink(IEventSink sink) {
+            this.orderbook.setEventSink(sink);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.hon.orderbook;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and latency histograms recorded by an order book around submits, cancels and matching<p>
+ * An order book records into its metrics once set with {@code setMetrics} and records nothing,
+ * not even the time, while none is set. Recorded per submit are its latency, whether it was rejected,
+ * the number of fills and of price levels it matched against; per cancel its latency and whether
+ * the order was found; per mass cancel the number of orders cancelled, counted as cancels;
+ * after each of them the levels and orders resting on each side.<p>
+ * Metrics are recorded by the order book thread and read from any other thread without stopping it,
+ * counters being published with ordered writes. They may also be registered as an MXBean.
+ */
+public class OrderBookMetrics implements OrderBookMetricsMXBean {
+
+    private static final int SUBMITS = 0;
+    private static final int CANCELS = 1;
+    private static final int CANCEL_MISSES = 2;
+    private static final int REJECTS = 3;
+    private static final int FILLS = 4;
+    private static final int LEVELS_MATCHED = 5;
+    private static final int BID_LEVELS = 6;
+    private static final int ASK_LEVELS = 7;
+    private static final int BID_ORDERS = 8;
+    private static final int ASK_ORDERS = 9;
+    private static final int COUNTERS = 10;
+
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+    private final LatencyHistogram submitlatency = new LatencyHistogram();
+    private final LatencyHistogram cancellatency = new LatencyHistogram();
+    private final LatencyHistogram fillsperorder = new LatencyHistogram();
+    private final LatencyHistogram levelsperorder = new LatencyHistogram();
+    private ObjectName objectname;
+
+    /**
+     * Record a submit, from the order book thread only
+     * @param nanos time taken to submit the order
+     * @param rejected whether the order was rejected
+     * @param fills number of fills of the order
+     * @param levels number of price levels matched
+     */
+    public void onSubmit(long nanos, boolean rejected, int fills, int levels){
+        this.submitlatency.record(nanos);
+        increment(SUBMITS, 1);
+        if (rejected){
+            increment(REJECTS, 1);
+            return;
+        }
+        this.fillsperorder.record(fills);
+        this.levelsperorder.record(levels);
+        increment(FILLS, fills);
+        increment(LEVELS_MATCHED, levels);
+    }
+
+    /**
+     * Record a cancel, from the order book thread only
+     * @param nanos time taken to cancel the order
+     * @param cancelled whether the order was resting and has been cancelled
+     */
+    public void onCancel(long nanos, boolean cancelled){
+        this.cancellatency.record(nanos);
+        increment(CANCELS, 1);
+        if (!cancelled){
+            increment(CANCEL_MISSES, 1);
+        }
+    }
+
+    /**
+     * Record the orders cancelled by a mass cancel as cancels, from the order book thread only
+     * No latency is recorded, the time of a mass cancel not being that of a single cancel
+     * @param cancelled number of orders cancelled
+     */
+    public void onMassCancel(int cancelled){
+        increment(CANCELS, cancelled);
+    }
+
+    /**
+     * Record the depth of the book, from the order book thread only
+     * @param bidLevels number of bid price levels
+     * @param bidOrders number of resting bid orders
+     * @param askLevels number of ask price levels
+     * @param askOrders number of resting ask orders
+     */
+    public void onDepth(int bidLevels, int bidOrders, int askLevels, int askOrders){
+        this.counters.lazySet(BID_LEVELS, bidLevels);
+        this.counters.lazySet(BID_ORDERS, bidOrders);
+        this.counters.lazySet(ASK_LEVELS, askLevels);
+        this.counters.lazySet(ASK_ORDERS, askOrders);
+    }
+
+    private void increment(int counter, long delta){
+        this.counters.lazySet(counter, this.counters.get(counter) + delta);
+    }
+
+    /**
+     * Register these metrics with the platform MBean server
+     * @param name name of the metrics, such as the instrument symbol
+     * @throws IllegalStateException if metrics of the same name are registered or registration failed
+     */
+    public void register(String name){
+        try {
+            ObjectName objectName = new ObjectName("com.hon.orderbook:type=OrderBookMetrics,name="
+                    + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectname = objectName;
+        } catch (InstanceAlreadyExistsException e){
+            throw new IllegalStateException("Metrics already registered: " + name, e);
+        } catch (JMException e){
+            throw new IllegalStateException("Cannot register metrics: " + name, e);
+        }
+    }
+
+    /**
+     * Unregister these metrics from the platform MBean server if registered
+     */
+    public void unregister(){
+        if (this.objectname == null){
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(this.objectname);
+        } catch (JMException e){
+            throw new IllegalStateException("Cannot unregister metrics: " + this.objectname, e);
+        } finally {
+            this.objectname = null;
+        }
+    }
+
+    /** Latency of each submit **/
+    public LatencyHistogram getSubmitLatency(){
+        return this.submitlatency;
+    }
+
+    /** Latency of each cancel **/
+    public LatencyHistogram getCancelLatency(){
+        return this.cancellatency;
+    }
+
+    /** Number of fills of each accepted submit **/
+    public LatencyHistogram getFillsPerOrder(){
+        return this.fillsperorder;
+    }
+
+    /** Number of price levels matched by each accepted submit **/
+    public LatencyHistogram getLevelsPerOrder(){
+        return this.levelsperorder;
+    }
+
+    @Override
+    public long getSubmitCount(){
+        return this.counters.get(SUBMITS);
+    }
+
+    @Override
+    public long getCancelCount(){
+        return this.counters.get(CANCELS);
+    }
+
+    @Override
+    public long getCancelMissCount(){
+        return this.counters.get(CANCEL_MISSES);
+    }
+
+    @Override
+    public long getRejectCount(){
+        return this.counters.get(REJECTS);
+    }
+
+    @Override
+    public long getFillCount(){
+        return this.counters.get(FILLS);
+    }
+
+    @Override
+    public long getLevelsMatchedCount(){
+        return this.counters.get(LEVELS_MATCHED);
+    }
+
+    @Override
+    public int getBidLevels(){
+        return (int) this.counters.get(BID_LEVELS);
+    }
+
+    @Override
+    public int getAskLevels(){
+        return (int) this.counters.get(ASK_LEVELS);
+    }
+
+    @Override
+    public int getBidOrders(){
+        return (int) this.counters.get(BID_ORDERS);
+    }
+
+    @Override
+    public int getAskOrders(){
+        return (int) this.counters.get(ASK_ORDERS);
+    }
+
+    @Override
+    public long getSubmitLatencyP50(){
+        return this.submitlatency.percentile(50);
+    }
+
+    @Override
+    public long getSubmitLatencyP99(){
+        return this.submitlatency.percentile(99);
+    }
+
+    @Override
+    public long getSubmitLatencyP999(){
+        return this.submitlatency.percentile(99.9);
+    }
+
+    @Override
+    public long getSubmitLatencyMax(){
+        return this.submitlatency.max();
+    }
+
+    @Override
+    public long getCancelLatencyP50(){
+        return this.cancellatency.percentile(50);
+    }
+
+    @Override
+    public long getCancelLatencyP99(){
+        return this.cancellatency.percentile(99);
+    }
+
+    @Override
+    public long getCancelLatencyP999(){
+        return this.cancellatency.percentile(99.9);
+    }
+
+    @Override
+    public long getCancelLatencyMax(){
+        return this.cancellatency.max();
+    }
+
+    @Override
+    public long getFillsPerOrderP99(){
+        return this.fillsperorder.percentile(99);
+    }
+
+    @Override
+    public long getLevelsPerOrderP99(){
+        return this.levelsperorder.percentile(99);
+    }
+
+    @Override
+    public String toString(){
+        return String.format("submits=%d rejects=%d cancels=%d cancelMisses=%d fills=%d levelsMatched=%d "
+                        + "bids=%d/%d asks=%d/%d submit(ns) p50=%d p99=%d max=%d cancel(ns) p50=%d p99=%d max=%d",
+                getSubmitCount(), getRejectCount(), getCancelCount(), getCancelMissCount(), getFillCount(),
+                getLevelsMatchedCount(), getBidOrders(), getBidLevels(), getAskOrders(), getAskLevels(),
+                getSubmitLatencyP50(), getSubmitLatencyP99(), getSubmitLatencyMax(), getCancelLatencyP50(),
+                getCancelLatencyP99(), getCancelLatencyMax());
+    }
+}
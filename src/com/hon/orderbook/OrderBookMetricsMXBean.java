@@ -0,0 +1,29 @@
+package com.hon.orderbook;
+
+/**
+ * JMX view of the {@code OrderBookMetrics} of an order book
+ * Latencies are in nanoseconds
+ */
+public interface OrderBookMetricsMXBean {
+
+    public long getSubmitCount();
+    public long getCancelCount();
+    public long getCancelMissCount();
+    public long getRejectCount();
+    public long getFillCount();
+    public long getLevelsMatchedCount();
+    public int getBidLevels();
+    public int getAskLevels();
+    public int getBidOrders();
+    public int getAskOrders();
+    public long getSubmitLatencyP50();
+    public long getSubmitLatencyP99();
+    public long getSubmitLatencyP999();
+    public long getSubmitLatencyMax();
+    public long getCancelLatencyP50();
+    public long getCancelLatencyP99();
+    public long getCancelLatencyP999();
+    public long getCancelLatencyMax();
+    public long getFillsPerOrderP99();
+    public long getLevelsPerOrderP99();
+}
@@ -0,0 +1,213 @@
+package com.hon.orderbook;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary snapshots of the resting and pending stop orders of an order book, written and read through NIO channels<p>
+ * A snapshot holds the journal sequence it was taken at and the price of the last trade, then the bids and the asks
+ * best level first and in time priority within a level, then the stop orders still waiting for their stop price
+ * in the order they trigger. Each order is written with its side, type, status, whether it is a market order,
+ * price and stop price in ticks, order, remaining and cumulative quantity, average price,
+ * and its order id and client id as UTF-8 after their length, a {@code null} id written as the length {@code 0xFFFF}.
+ * Loading maps the file and rests
+ * the orders straight onto their levels in the order they were written, with no matching or sorting,
+ * restores the pending stops and the last trade that decides whether a new stop triggers on submit,
+ * then the journal records from the snapshot sequence are replayed to bring the order book up to date.
+ * Only an {@code AbstractLevelOrderBook} has its stops and last trade written<p>
+ * Snapshots must be taken on the order book thread, with the sequence of the journal at that point
+ */
+public final class OrderBookSnapshot {
+
+    private static final int MAGIC = 0x4F425353;
+    private static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int HEADER_SIZE = 36;
+    private static final int FIXED_RECORD_SIZE = 44;
+    private static final byte MARKET = 1;
+    private static final int NULL_ID = 0xFFFF;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private OrderBookSnapshot(){
+    }
+
+    /**
+     * Write the resting and pending stop orders of an order book to a snapshot file
+     * @param file snapshot file, replaced if it exists
+     * @param orderbook order book to snapshot
+     * @param journalSequence sequence of the journal the snapshot is taken at
+     * @return number of orders written
+     * @throws IOException if the file cannot be written
+     */
+    public static int write(Path file, IOrderBook orderbook, long journalSequence) throws IOException {
+        List<IOrder> bids = orderbook.getBidQueue();
+        List<IOrder> asks = orderbook.getAskQueue();
+        List<IOrder> stops = Collections.emptyList();
+        long lastTradeTicks = 0;
+        if (orderbook instanceof AbstractLevelOrderBook){
+            stops = ((AbstractLevelOrderBook) orderbook).getStopOrders();
+            lastTradeTicks = ((AbstractLevelOrderBook) orderbook).getLastTradeTicks();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(journalSequence);
+            buffer.putLong(lastTradeTicks);
+            buffer.putInt(bids.size());
+            buffer.putInt(asks.size());
+            buffer.putInt(stops.size());
+            for (IOrder order : bids){
+                buffer = writeOrder(channel, buffer, order);
+            }
+            for (IOrder order : asks){
+                buffer = writeOrder(channel, buffer, order);
+            }
+            for (IOrder order : stops){
+                buffer = writeOrder(channel, buffer, order);
+            }
+            writeOut(channel, buffer);
+            channel.force(false);
+        }
+        return bids.size() + asks.size() + stops.size();
+    }
+
+    /**
+     * Load a snapshot into an empty order book, resting every order and restoring every pending stop without matching
+     * @param file snapshot file
+     * @param orderbook empty order book to load into
+     * @return sequence of the journal the snapshot was taken at, to replay the journal from
+     * @throws IOException if the file cannot be read, is not a snapshot or is corrupt
+     */
+    public static long load(Path file, AbstractLevelOrderBook orderbook) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION){
+                throw new IOException("Not an order book snapshot " + file);
+            }
+            long journalSequence = buffer.getLong();
+            long lastTradeTicks = buffer.getLong();
+            int restingCount = buffer.getInt() + buffer.getInt();
+            int count = restingCount + buffer.getInt();
+            byte[] chars = new byte[256];
+            Instrument instrument = orderbook.getInstrument();
+            OrderSide[] sides = OrderSide.values();
+            OrderType[] orderTypes = OrderType.values();
+            OrderStatus[] statuses = OrderStatus.values();
+            try {
+                for (int i = 0; i < count; i++){
+                    OrderSide side = valueOf(sides, buffer.get(), file);
+                    OrderType orderType = valueOf(orderTypes, buffer.get(), file);
+                    OrderStatus status = valueOf(statuses, buffer.get(), file);
+                    boolean market = (buffer.get() & MARKET) != 0;
+                    long priceTicks = buffer.getLong();
+                    long stopPriceTicks = buffer.getLong();
+                    int orderQty = buffer.getInt();
+                    int remainingQty = buffer.getInt();
+                    int cumulativeQty = buffer.getInt();
+                    double averagePrice = buffer.getDouble();
+                    String orderId = readId(buffer, chars);
+                    String clientId = readId(buffer, chars);
+                    SimpleOrder order = new SimpleOrder(orderId, priceTicks, instrument.TickSize(), market, side,
+                            orderType, clientId, orderQty);
+                    order.setStopPriceTicks(stopPriceTicks);
+                    order.setRemainingQty(remainingQty);
+                    order.restoreExecutions(cumulativeQty, averagePrice);
+                    order.setStatus(status);
+                    if (i < restingCount){
+                        orderbook.restoreOrder(order);
+                    }
+                    else {
+                        orderbook.restoreStopOrder(order);
+                    }
+                }
+            }
+            catch (BufferUnderflowException e){
+                throw new IOException("Truncated order book snapshot " + file);
+            }
+            orderbook.restoreLastTrade(lastTradeTicks);
+            return journalSequence;
+        }
+    }
+
+    /** Returns the enum constant of an ordinal read from a snapshot **/
+    private static <E> E valueOf(E[] values, byte ordinal, Path file) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length){
+            throw new IOException("Corrupt order book snapshot " + file);
+        }
+        return values[ordinal];
+    }
+
+    /** Read an id written after its length, {@code null} for the null length, reusing a buffer it fits **/
+    private static String readId(ByteBuffer buffer, byte[] chars){
+        int length = buffer.getShort() & 0xFFFF;
+        if (length == NULL_ID){
+            return null;
+        }
+        byte[] bytes = chars.length < length ? new byte[length] : chars;
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** Returns the UTF-8 bytes of an id, checking they fit below the null length **/
+    private static byte[] encodeId(String id, IOrder order){
+        if (id == null){
+            return NO_BYTES;
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_ID){
+            throw new IllegalArgumentException("Id longer than " + (NULL_ID - 1) + " bytes " + order.OrderID());
+        }
+        return bytes;
+    }
+
+    private static void putId(ByteBuffer buffer, String id, byte[] bytes){
+        buffer.putShort((short) (id == null ? NULL_ID : bytes.length));
+        buffer.put(bytes);
+    }
+
+    /** Append an order, writing the buffer out first if the order may not fit **/
+    private static ByteBuffer writeOrder(FileChannel channel, ByteBuffer buffer, IOrder order) throws IOException {
+        byte[] orderId = encodeId(order.OrderID(), order);
+        byte[] clientId = encodeId(order.ClientID(), order);
+        int size = FIXED_RECORD_SIZE + orderId.length + clientId.length;
+        if (buffer.remaining() < size){
+            writeOut(channel, buffer);
+            buffer.clear();
+            if (buffer.capacity() < size){
+                buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        buffer.put((byte) order.Side().ordinal());
+        buffer.put((byte) order.OrderType().ordinal());
+        buffer.put((byte) order.getStatus().ordinal());
+        buffer.put(order.isMarketOrder() ? MARKET : 0);
+        buffer.putLong(order.PriceTicks());
+        buffer.putLong(order.StopPriceTicks());
+        buffer.putInt(order.OrderQty());
+        buffer.putInt(order.getRemainingQty());
+        buffer.putInt(order.getCumulativeQty());
+        buffer.putDouble(order.getAveragePrice());
+        putId(buffer, order.OrderID(), orderId);
+        putId(buffer, order.ClientID(), clientId);
+        return buffer;
+    }
+
+    private static void writeOut(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+    }
+}
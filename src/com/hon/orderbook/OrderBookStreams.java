@@ -0,0 +1,240 @@
+package com.hon.orderbook;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+
+/**
+ * {@code Flow.Publisher} streams of the trades, order status changes and level changes of an order book<p>
+ * The streams receive the events of the order book as its event sink, execution listener and market data
+ * listener, set by {@code attach}, and publish them through a {@code BoundedPublisher} each, so every
+ * subscriber has its own bounded buffer and demand and a slow subscriber is cut off with a
+ * {@code SubscriberOverflowException} rather than stalling the order book. Events are only built for a
+ * stream that has subscribers.<p>
+ * Order updates follow each order from {@code New} on receipt, then {@code Rejected}, or {@code PartialFill}
+ * and {@code FullyFilled} per execution and {@code Cancelled}, for the incoming and the resting order alike<p>
+ * Events are published on the order book thread, subscribers are called on the executor
+ */
+public class OrderBookStreams implements IEventSink, IExecutionListener, IMarketDataListener, AutoCloseable {
+
+    private final BoundedPublisher<Trade> trades;
+    private final BoundedPublisher<OrderUpdate> orderupdates;
+    private final BoundedPublisher<LevelChange> levelchanges;
+
+    /**
+     * Order book streams delivering on the common fork join pool
+     * @param bufferCapacity number of events buffered per subscriber
+     */
+    public OrderBookStreams(int bufferCapacity){
+        this(ForkJoinPool.commonPool(), bufferCapacity);
+    }
+
+    /**
+     * Order book streams
+     * @param executor executor running the deliveries to subscribers on its own threads, it must never run
+     *                 a task in the calling thread nor block to accept one, see {@code BoundedPublisher}
+     * @param bufferCapacity number of events buffered per subscriber
+     */
+    public OrderBookStreams(Executor executor, int bufferCapacity){
+        this.trades = new BoundedPublisher<>(executor, bufferCapacity);
+        this.orderupdates = new BoundedPublisher<>(executor, bufferCapacity);
+        this.levelchanges = new BoundedPublisher<>(executor, bufferCapacity);
+    }
+
+    /**
+     * Set the streams as event sink, execution listener and market data listener of an order book
+     * @param orderbook order book to stream
+     */
+    public void attach(AbstractLevelOrderBook orderbook){
+        orderbook.setEventSink(this);
+        orderbook.setExecutionListener(this);
+        orderbook.setMarketDataListener(this);
+    }
+
+    /** Stream of the executions of the order book **/
+    public Flow.Publisher<Trade> trades(){
+        return this.trades;
+    }
+
+    /** Stream of the status changes of orders **/
+    public Flow.Publisher<OrderUpdate> orderUpdates(){
+        return this.orderupdates;
+    }
+
+    /** Stream of the changes of price levels **/
+    public Flow.Publisher<LevelChange> levelChanges(){
+        return this.levelchanges;
+    }
+
+    @Override
+    public void onOrderReceived(String orderId, OrderSide side, int qty, long priceTicks, boolean market) {
+        if (this.orderupdates.hasSubscribers()){
+            this.orderupdates.submit(new OrderUpdate(orderId, OrderStatus.New, qty));
+        }
+    }
+
+    @Override
+    public void onOrderRejected(String orderId, String reason) {
+        if (this.orderupdates.hasSubscribers()){
+            this.orderupdates.submit(new OrderUpdate(orderId, OrderStatus.Rejected, 0));
+        }
+    }
+
+    /** Executions are streamed from {@code IExecutionListener.onExecution}, which carries the order statuses **/
+    @Override
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty) {
+    }
+
+    @Override
+    public void onOrderCancelled(String orderId, int remainingQty) {
+        if (this.orderupdates.hasSubscribers()){
+            this.orderupdates.submit(new OrderUpdate(orderId, OrderStatus.Cancelled, remainingQty));
+        }
+    }
+
+    @Override
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty,
+                            OrderStatus makerStatus, OrderStatus takerStatus) {
+        if (this.trades.hasSubscribers()){
+            this.trades.submit(new Trade(makerOrderId, takerOrderId, priceTicks, qty));
+        }
+        if (this.orderupdates.hasSubscribers()){
+            this.orderupdates.submit(new OrderUpdate(makerOrderId, makerStatus, qty));
+            this.orderupdates.submit(new OrderUpdate(takerOrderId, takerStatus, qty));
+        }
+    }
+
+    @Override
+    public void onLevelChange(OrderSide side, long priceTicks, long qty, int orderCount) {
+        if (this.levelchanges.hasSubscribers()){
+            this.levelchanges.submit(new LevelChange(side, priceTicks, qty, orderCount));
+        }
+    }
+
+    @Override
+    public void onTrade(long priceTicks, int qty, OrderSide aggressorSide) {
+    }
+
+    /**
+     * Complete every stream once the buffered events are delivered, from the order book thread only
+     */
+    @Override
+    public void close(){
+        this.trades.close();
+        this.orderupdates.close();
+        this.levelchanges.close();
+    }
+
+    /**
+     * An execution between a resting and an incoming order
+     */
+    public static final class Trade {
+
+        private final String makerorderid;
+        private final String takerorderid;
+        private final long priceticks;
+        private final int qty;
+
+        Trade(String makerOrderId, String takerOrderId, long priceTicks, int qty){
+            this.makerorderid = makerOrderId;
+            this.takerorderid = takerOrderId;
+            this.priceticks = priceTicks;
+            this.qty = qty;
+        }
+
+        public String getMakerOrderId(){
+            return this.makerorderid;
+        }
+
+        public String getTakerOrderId(){
+            return this.takerorderid;
+        }
+
+        public long getPriceTicks(){
+            return this.priceticks;
+        }
+
+        public int getQty(){
+            return this.qty;
+        }
+
+        @Override
+        public String toString(){
+            return "Trade " + this.qty + " @ " + this.priceticks + " maker " + this.makerorderid
+                    + " taker " + this.takerorderid;
+        }
+    }
+
+    /**
+     * A status change of an order, with the order quantity when new, the executed quantity
+     * when filled and the remaining quantity when cancelled
+     */
+    public static final class OrderUpdate {
+
+        private final String orderid;
+        private final OrderStatus status;
+        private final int qty;
+
+        OrderUpdate(String orderId, OrderStatus status, int qty){
+            this.orderid = orderId;
+            this.status = status;
+            this.qty = qty;
+        }
+
+        public String getOrderId(){
+            return this.orderid;
+        }
+
+        public OrderStatus getStatus(){
+            return this.status;
+        }
+
+        public int getQty(){
+            return this.qty;
+        }
+
+        @Override
+        public String toString(){
+            return "Order " + this.orderid + " " + this.status + " " + this.qty;
+        }
+    }
+
+    /**
+     * The new total quantity and number of orders of a price level, a quantity of 0 meaning the level is gone
+     */
+    public static final class LevelChange {
+
+        private final OrderSide side;
+        private final long priceticks;
+        private final long qty;
+        private final int ordercount;
+
+        LevelChange(OrderSide side, long priceTicks, long qty, int orderCount){
+            this.side = side;
+            this.priceticks = priceTicks;
+            this.qty = qty;
+            this.ordercount = orderCount;
+        }
+
+        public OrderSide getSide(){
+            return this.side;
+        }
+
+        public long getPriceTicks(){
+            return this.priceticks;
+        }
+
+        public long getQty(){
+            return this.qty;
+        }
+
+        public int getOrderCount(){
+            return this.ordercount;
+        }
+
+        @Override
+        public String toString(){
+            return "Level " + this.side + " " + this.priceticks + " " + this.qty + " (" + this.ordercount + ")";
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.hon.orderbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records order flow to a binary file for the {@code ReplayEngine}<p>
+ * The file starts with a magic number and a version, then one record per submit or cancel:
+ * a record type byte, side, order type and market flag bytes, the order quantity, the price in ticks,
+ * the timestamp in nanoseconds, then the order id and client id, each a short length followed by
+ * one byte per character<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+public class OrderFlowWriter implements Closeable {
+
+    static final int MAGIC = 0x4F464C57;
+    static final int VERSION = 1;
+    static final byte SUBMIT = 'S';
+    static final byte CANCEL = 'C';
+    static final int FIXED_RECORD_SIZE = 24;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Order flow writer constructor
+     * @param file file to record to, replaced if it exists
+     * @throws IOException if the file cannot be opened
+     */
+    public OrderFlowWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.putInt(MAGIC);
+        this.buffer.putInt(VERSION);
+    }
+
+    /**
+     * Record an order submit
+     * @param timestampNanos time the order was received
+     * @param order order submitted
+     * @throws IOException if the file cannot be written
+     */
+    public void appendSubmit(long timestampNanos, IOrder order) throws IOException {
+        reserve(FIXED_RECORD_SIZE + 4 + order.OrderID().length() + order.ClientID().length());
+        this.buffer.put(SUBMIT);
+        this.buffer.put((byte) order.Side().ordinal());
+        this.buffer.put((byte) order.OrderType().ordinal());
+        this.buffer.put((byte) (order.isMarketOrder() ? 1 : 0));
+        this.buffer.putInt(order.OrderQty());
+        this.buffer.putLong(order.PriceTicks());
+        this.buffer.putLong(timestampNanos);
+        putId(order.OrderID());
+        putId(order.ClientID());
+    }
+
+    /**
+     * Record an order cancel
+     * @param timestampNanos time the cancel was received
+     * @param orderId order id to cancel
+     * @param clientId client id of the order
+     * @throws IOException if the file cannot be written
+     */
+    public void appendCancel(long timestampNanos, String orderId, String clientId) throws IOException {
+        reserve(FIXED_RECORD_SIZE + 4 + orderId.length() + clientId.length());
+        this.buffer.put(CANCEL);
+        this.buffer.put((byte) 0);
+        this.buffer.put((byte) 0);
+        this.buffer.put((byte) 0);
+        this.buffer.putInt(0);
+        this.buffer.putLong(0);
+        this.buffer.putLong(timestampNanos);
+        putId(orderId);
+        putId(clientId);
+    }
+
+    /**
+     * Write the buffered records out and close the file
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeOut();
+        }
+        finally {
+            this.channel.close();
+        }
+    }
+
+    private void putId(String id){
+        int length = id.length();
+        if (length > 0xFFFF){
+            throw new IllegalArgumentException("Id longer than " + 0xFFFF + " characters: " + id);
+        }
+        this.buffer.putShort((short) length);
+        for (int i = 0; i < length; i++){
+            char c = id.charAt(i);
+            if (c > 0xFF){
+                throw new IllegalArgumentException("Id is not single byte characters: " + id);
+            }
+            this.buffer.put((byte) c);
+        }
+    }
+
+    private void reserve(int size) throws IOException {
+        if (size > BUFFER_SIZE){
+            throw new IllegalArgumentException("Record too large: " + size + " bytes");
+        }
+        if (this.buffer.remaining() < size){
+            writeOut();
+        }
+    }
+
+    private void writeOut() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()){
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
@@ -0,0 +1,135 @@
+package com.hon.orderbook;
+
+/**
+ * Index of resting order nodes by order id
+ * Open addressing with linear probing over parallel key and value arrays, removal shifts
+ * following entries back so no tombstones are left. Unlike a {@code HashMap} no entry object
+ * is allocated per put, the arrays are only reallocated when the index grows<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+final class OrderIdIndex {
+
+    private String[] keys;
+    private OrderNode[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Order id index constructor
+     * @param expectedSize number of orders expected to rest at once
+     */
+    OrderIdIndex(int expectedSize){
+        int capacity = 16;
+        while (capacity < expectedSize * 2){
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.values = new OrderNode[capacity];
+        this.mask = capacity - 1;
+    }
+
+    int size(){
+        return this.size;
+    }
+
+    /**
+     * Returns the node of an order id
+     * @param key order id
+     * @return node or {@code null} if the order id is not indexed or {@code null}
+     */
+    OrderNode get(String key){
+        if (key == null){
+            return null;
+        }
+        for (int i = slot(key); ; i = (i + 1) & this.mask){
+            String k = this.keys[i];
+            if (k == null){
+                return null;
+            }
+            if (k == key || k.equals(key)){
+                return this.values[i];
+            }
+        }
+    }
+
+    boolean containsKey(String key){
+        return get(key) != null;
+    }
+
+    /**
+     * Index a node by order id, replacing any node of the same id
+     * @param key order id
+     * @param value node of the order
+     */
+    void put(String key, OrderNode value){
+        int i = slot(key);
+        for (String k = this.keys[i]; k != null; k = this.keys[i]){
+            if (k == key || k.equals(key)){
+                this.values[i] = value;
+                return;
+            }
+            i = (i + 1) & this.mask;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        if (++this.size * 2 > this.keys.length){
+            resize(this.keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove an order id from the index
+     * @param key order id
+     * @return removed node or {@code null} if the order id was not indexed
+     */
+    OrderNode remove(String key){
+        int i = slot(key);
+        for (String k = this.keys[i]; ; k = this.keys[i]){
+            if (k == null){
+                return null;
+            }
+            if (k == key || k.equals(key)){
+                break;
+            }
+            i = (i + 1) & this.mask;
+        }
+        OrderNode value = this.values[i];
+        this.size--;
+        //Shift back following entries of the probe sequence into the freed slot
+        int free = i;
+        for (int j = (i + 1) & this.mask; this.keys[j] != null; j = (j + 1) & this.mask){
+            int home = slot(this.keys[j]);
+            if (((j - home) & this.mask) >= ((j - free) & this.mask)){
+                this.keys[free] = this.keys[j];
+                this.values[free] = this.values[j];
+                free = j;
+            }
+        }
+        this.keys[free] = null;
+        this.values[free] = null;
+        return value;
+    }
+
+    private int slot(String key){
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & this.mask;
+    }
+
+    private void resize(int capacity){
+        String[] oldKeys = this.keys;
+        OrderNode[] oldValues = this.values;
+        this.keys = new String[capacity];
+        this.values = new OrderNode[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++){
+            if (oldKeys[i] != null){
+                int j = slot(oldKeys[i]);
+                while (this.keys[j] != null){
+                    j = (j + 1) & this.mask;
+                }
+                this.keys[j] = oldKeys[i];
+                this.values[j] = oldValues[i];
+            }
+        }
+    }
+}
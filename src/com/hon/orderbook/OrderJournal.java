@@ -0,0 +1,354 @@
+package com.hon.orderbook;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A write ahead journal of the submits, cancels, replaces and mass cancels of an order book, appended as fixed layout
+ * binary records to a memory-mapped file<p>
+ * Appending a record is a copy of its fields into the mapped file on the order book thread,
+ * with no system call. Records are forced to disk according to an {@code FsyncPolicy} by a
+ * background thread, which forces every record appended since its last force at once, a group commit.
+ * Replaying the journal into an empty order book applies the same submits, cancels, replaces and mass cancels in the same
+ * order, rebuilding the bid and ask queues and the status of every order exactly<p>
+ * Each record is {@value #RECORD_SIZE} bytes: type, side, order type and market flag, order and
+ * remaining quantity, price in ticks, sequence, order id and client id of at most
+ * {@value #MAX_ID_LENGTH} single byte characters, stop price in ticks, and a commit marker written last so a record
+ * torn by a crash is not replayed<p>
+ * The journal is a single mapping, so it holds at most {@code MAX_CAPACITY} records, about 2 GB. It does not roll over,
+ * {@code isFull} tells when no more record can be appended<p>
+ * Single writer, records must be appended from the order book thread
+ */
+public class OrderJournal implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 136;
+    public static final int MAX_ID_LENGTH = 47;
+    /** Largest capacity in records, the header and records fitting a single mapping of at most 2 GB **/
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD_SIZE - 1;
+
+    private static final int MAGIC = 0x4F424A4C;
+    private static final int VERSION = 2;
+    private static final int COMMITTED = 0x434D4954;
+    private static final byte SUBMIT = 1;
+    private static final byte CANCEL = 2;
+    private static final byte REPLACE = 3;
+    private static final byte MASS_CANCEL = 4;
+    private static final int QTY = 4;
+    private static final int PRICE = 8;
+    private static final int SEQUENCE = 16;
+    private static final int REMAINING = 24;
+    private static final int ORDER_ID = 28;
+    private static final int CLIENT_ID = 76;
+    private static final int STOP_PRICE = 124;
+    private static final int MARKER = 132;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Instrument instrument;
+    private final FsyncPolicy fsyncpolicy;
+    private final int capacity;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong durable = new AtomicLong();
+    private final Thread flusher;
+    private volatile boolean running;
+    private long sequence;
+
+    /**
+     * Open or create a journal, positioned after its last committed record
+     * @param file journal file
+     * @param instrument instrument of the journaled order book, orders are replayed in its tick size
+     * @param capacity maximum number of records of the journal, at most {@code MAX_CAPACITY}
+     * @param fsyncPolicy when appended records are forced to disk
+     * @throws IOException if the file cannot be mapped or is not a journal
+     * @throws IllegalArgumentException if the capacity is not positive or above {@code MAX_CAPACITY}
+     */
+    public OrderJournal(Path file, Instrument instrument, int capacity, FsyncPolicy fsyncPolicy) throws IOException {
+        if (capacity <= 0 || capacity > MAX_CAPACITY){
+            throw new IllegalArgumentException("Journal capacity " + capacity + " not between 1 and " + MAX_CAPACITY
+                    + " records of a single mapping");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) (capacity + 1) * RECORD_SIZE);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.instrument = instrument;
+        this.fsyncpolicy = fsyncPolicy;
+        this.capacity = capacity;
+        if (this.buffer.getInt(0) == 0){
+            this.buffer.putInt(4, VERSION);
+            this.buffer.putInt(8, RECORD_SIZE);
+            this.buffer.putInt(0, MAGIC);
+        }
+        else if (this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != VERSION
+                || this.buffer.getInt(8) != RECORD_SIZE){
+            this.channel.close();
+            throw new IOException("Not an order journal " + file);
+        }
+        while (this.sequence < capacity && this.buffer.getInt(offset(this.sequence) + MARKER) == COMMITTED){
+            this.sequence++;
+        }
+        this.written.set(this.sequence);
+        this.durable.set(this.sequence);
+        this.flusher = new Thread(this::flush, "orderbook-journal");
+        this.flusher.setDaemon(true);
+        if (fsyncPolicy.isForced()){
+            this.running = true;
+            this.flusher.start();
+        }
+    }
+
+    /** Number of committed records, the sequence of the next record **/
+    public long sequence(){
+        return this.sequence;
+    }
+
+    /** Returns whether the journal holds its capacity of records and cannot append any more **/
+    public boolean isFull(){
+        return this.sequence == this.capacity;
+    }
+
+    /** Number of records forced to disk, every record under {@code FsyncPolicy.None} **/
+    public long durableSequence(){
+        return this.fsyncpolicy.isForced() ? this.durable.get() : this.written.get();
+    }
+
+    /**
+     * Wait until a number of records have been forced to disk
+     * @param sequence number of records
+     */
+    public void awaitDurable(long sequence){
+        for (int attempts = 0; durableSequence() < sequence && this.running; attempts++){
+            WaitStrategy.Parking.idle(attempts);
+        }
+    }
+
+    /**
+     * Append the submit of an order
+     * @param order order about to be submitted
+     * @throws IllegalStateException if the journal is full
+     * @throws IllegalArgumentException if an id is longer than {@value #MAX_ID_LENGTH} single byte characters
+     */
+    public void appendSubmit(IOrder order){
+        int offset = claim();
+        this.buffer.put(offset, SUBMIT);
+        this.buffer.put(offset + 1, (byte) (order.Side() == null ? 0 : order.Side().ordinal() + 1));
+        this.buffer.put(offset + 2, (byte) (order.OrderType() == null ? 0 : order.OrderType().ordinal() + 1));
+        this.buffer.put(offset + 3, (byte) (order.isMarketOrder() ? 1 : 0));
+        this.buffer.putInt(offset + QTY, order.OrderQty());
+        this.buffer.putLong(offset + PRICE, order.PriceTicks());
+        this.buffer.putInt(offset + REMAINING, order.getRemainingQty());
+        putId(offset + ORDER_ID, order.OrderID());
+        putId(offset + CLIENT_ID, order.ClientID());
+        this.buffer.putLong(offset + STOP_PRICE, order.StopPriceTicks());
+        commit(offset);
+    }
+
+    /**
+     * Append the cancel of a resting order
+     * @param orderId OrderId of the cancelled order
+     * @param clientId ClientId that owns the order
+     * @throws IllegalStateException if the journal is full
+     * @throws IllegalArgumentException if an id is longer than {@value #MAX_ID_LENGTH} single byte characters
+     */
+    public void appendCancel(String orderId, String clientId){
+        int offset = claim();
+        this.buffer.put(offset, CANCEL);
+        putId(offset + ORDER_ID, orderId);
+        putId(offset + CLIENT_ID, clientId);
+        commit(offset);
+    }
+
+    /**
+     * Append the replace of a resting order
+     * @param orderId OrderId of the replaced order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order
+     * @throws IllegalStateException if the journal is full
+     * @throws IllegalArgumentException if an id is longer than {@value #MAX_ID_LENGTH} single byte characters
+     */
+    public void appendReplace(String orderId, String clientId, long priceTicks, int qty){
+        int offset = claim();
+        this.buffer.put(offset, REPLACE);
+        this.buffer.putLong(offset + PRICE, priceTicks);
+        this.buffer.putInt(offset + REMAINING, qty);
+        putId(offset + ORDER_ID, orderId);
+        putId(offset + CLIENT_ID, clientId);
+        commit(offset);
+    }
+
+    /**
+     * Append the cancel of every order of a client
+     * @param clientId ClientId that owns the orders
+     * @param side side of the cancelled orders, {@code null} for both sides
+     * @throws IllegalStateException if the journal is full
+     * @throws IllegalArgumentException if the id is longer than {@value #MAX_ID_LENGTH} single byte characters
+     */
+    public void appendMassCancel(String clientId, OrderSide side){
+        int offset = claim();
+        this.buffer.put(offset, MASS_CANCEL);
+        this.buffer.put(offset + 1, (byte) (side == null ? 0 : side.ordinal() + 1));
+        putId(offset + CLIENT_ID, clientId);
+        commit(offset);
+    }
+
+    /**
+     * Apply every committed record to an order book, in sequence
+     * @param orderbook empty order book, not journaled to this journal
+     * @return number of records replayed
+     */
+    public long replay(IOrderBook orderbook){
+        return replay(orderbook, 0);
+    }
+
+    /**
+     * Apply the committed records from a sequence to an order book, in sequence
+     * @param orderbook order book holding the state of the records before {@code fromSequence}
+     * @param fromSequence sequence of the first record to apply
+     * @return number of records replayed
+     */
+    public long replay(IOrderBook orderbook, long fromSequence){
+        long count = 0;
+        for (long i = fromSequence; i < this.sequence; i++, count++){
+            int offset = offset(i);
+            if (this.buffer.get(offset) == CANCEL){
+                orderbook.cancelOrder(getId(offset + ORDER_ID), getId(offset + CLIENT_ID));
+                continue;
+            }
+            if (this.buffer.get(offset) == REPLACE){
+                orderbook.replaceOrder(getId(offset + ORDER_ID), getId(offset + CLIENT_ID),
+                        this.buffer.getLong(offset + PRICE), this.buffer.getInt(offset + REMAINING));
+                continue;
+            }
+            int side = this.buffer.get(offset + 1);
+            if (this.buffer.get(offset) == MASS_CANCEL){
+                orderbook.cancelAllOrders(getId(offset + CLIENT_ID), side == 0 ? null : OrderSide.values()[side - 1]);
+                continue;
+            }
+            int orderType = this.buffer.get(offset + 2);
+            SimpleOrder order = new SimpleOrderBuilder().setOrderid(getId(offset + ORDER_ID))
+                    .setInstrument(this.instrument)
+                    .setPriceTicks(this.buffer.getLong(offset + PRICE))
+                    .setMarket(this.buffer.get(offset + 3) == 1)
+                    .setSide(side == 0 ? null : OrderSide.values()[side - 1])
+                    .setOrderType(orderType == 0 ? null : OrderType.values()[orderType - 1])
+                    .setClientid(getId(offset + CLIENT_ID))
+                    .setOrderqty(this.buffer.getInt(offset + QTY))
+                    .setStopPriceTicks(this.buffer.getLong(offset + STOP_PRICE))
+                    .createSimpleOrder();
+            order.setRemainingQty(this.buffer.getInt(offset + REMAINING));
+            orderbook.submitOrder(order);
+        }
+        return count;
+    }
+
+    /**
+     * Force every appended record to disk and close the journal
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.running = false;
+        if (this.flusher.isAlive()){
+            try {
+                this.flusher.join();
+            }
+            catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (this.fsyncpolicy.isForced()){
+            this.buffer.force();
+        }
+        this.channel.close();
+    }
+
+    private int claim(){
+        if (this.sequence == this.capacity){
+            throw new IllegalStateException("Order journal full at " + this.capacity + " records");
+        }
+        int offset = offset(this.sequence);
+        this.buffer.putLong(offset + SEQUENCE, this.sequence);
+        return offset;
+    }
+
+    private void commit(int offset){
+        this.buffer.putInt(offset + MARKER, COMMITTED);
+        this.written.lazySet(++this.sequence);
+    }
+
+    private static int offset(long sequence){
+        return (int) ((sequence + 1) * RECORD_SIZE);
+    }
+
+    /**
+     * Returns whether an id fits a record, {@code null} or at most {@value #MAX_ID_LENGTH} single byte characters
+     * @param id order or client id
+     * @return true if the id can be journaled
+     */
+    public static boolean isValidId(String id){
+        if (id == null){
+            return true;
+        }
+        if (id.length() > MAX_ID_LENGTH){
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++){
+            if (id.charAt(i) > 0xFF){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Write an id as a length byte followed by one byte per character **/
+    private void putId(int offset, String id){
+        if (id == null){
+            this.buffer.put(offset, (byte) -1);
+            return;
+        }
+        if (!isValidId(id)){
+            throw new IllegalArgumentException("Id not at most " + MAX_ID_LENGTH + " single byte characters " + id);
+        }
+        int length = id.length();
+        this.buffer.put(offset, (byte) length);
+        for (int i = 0; i < length; i++){
+            this.buffer.put(offset + 1 + i, (byte) id.charAt(i));
+        }
+    }
+
+    private String getId(int offset){
+        int length = this.buffer.get(offset);
+        if (length < 0){
+            return null;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++){
+            chars[i] = (char) (this.buffer.get(offset + 1 + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /** Background thread loop, forces appended records to disk according to the fsync policy **/
+    private void flush(){
+        int attempts = 0;
+        while (this.running){
+            long appended = this.written.get();
+            if (appended == this.durable.get()){
+                WaitStrategy.Parking.idle(attempts++);
+                continue;
+            }
+            attempts = 0;
+            this.buffer.force();
+            this.durable.set(appended);
+            if (this.fsyncpolicy.intervalNanos() > 0){
+                LockSupport.parkNanos(this.fsyncpolicy.intervalNanos());
+            }
+        }
+    }
+}
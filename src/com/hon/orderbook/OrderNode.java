@@ -0,0 +1,21 @@
+package com.hon.orderbook;
+
+/**
+ * Link of a resting order in an order queue
+ * Carries the previous and next orders of the queue so an order is unlinked in O(1),
+ * and the previous and next orders of the same client in a {@code ClientOrderIndex}<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+final class OrderNode {
+
+    IOrder order;
+    OrderNode prev;
+    OrderNode next;
+    OrderQueue queue;
+    OrderNode clientprev;
+    OrderNode clientnext;
+
+    OrderNode(IOrder order){
+        this.order = order;
+    }
+}
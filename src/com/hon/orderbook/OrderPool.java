@@ -0,0 +1,127 @@
+package com.hon.orderbook;
+
+import java.util.List;
+
+/**
+ * A pre-sized pool of recycled orders and fills for allocation free order entry<p>
+ * Orders are acquired from the pool and submitted to an order book using the pool, which
+ * releases an order and its fills back to the pool once the order is fully filled,
+ * cancelled or rejected. Its fills are reused at once, while the order keeps its status and
+ * quantities until a later acquire reinitialises it, so it must not be referenced after the
+ * next acquire. When the pool runs dry new objects are
+ * allocated and the pool grows into its capacity as they are released<p>
+ * non thread safe, should be used from the thread of the order book
+ */
+public class OrderPool {
+
+    private final SimpleOrder[] orders;
+    private final Fill[] fills;
+    private int ordercount;
+    private int fillcount;
+
+    /**
+     * Order pool constructor, allocates every pooled order and fill up front
+     * @param orderCapacity number of pooled orders
+     * @param fillCapacity number of pooled fills
+     */
+    public OrderPool(int orderCapacity, int fillCapacity){
+        this.orders = new SimpleOrder[orderCapacity];
+        this.fills = new Fill[fillCapacity];
+        for (int i = 0; i < orderCapacity; i++){
+            SimpleOrder order = new SimpleOrder(null, 0, Instrument.DEFAULT_TICK_SIZE, false,
+                    null, null, null, 0);
+            order.pool = this;
+            order.pooled = true;
+            this.orders[i] = order;
+        }
+        this.ordercount = orderCapacity;
+        for (int i = 0; i < fillCapacity; i++){
+            this.fills[i] = new Fill(0, 0, Instrument.DEFAULT_TICK_SIZE);
+        }
+        this.fillcount = fillCapacity;
+    }
+
+    /**
+     * Acquire an order from the pool with status {@code OrderStatus.New}
+     * @param orderid id of the order
+     * @param priceTicks limit price in ticks, ignored for market orders
+     * @param tickSize tick size of the instrument
+     * @param market true for a market order
+     * @param side side of the order
+     * @param orderType execution type of the order
+     * @param clientid id of the client owning the order
+     * @param orderqty quantity of the order
+     * @return pooled order
+     */
+    public SimpleOrder acquireOrder(String orderid, long priceTicks, double tickSize, boolean market, OrderSide side,
+                                    OrderType orderType, String clientid, int orderqty){
+        SimpleOrder order;
+        if (this.ordercount > 0){
+            order = this.orders[--this.ordercount];
+            this.orders[this.ordercount] = null;
+        }
+        else {
+            order = new SimpleOrder(null, 0, tickSize, false, null, null, null, 0);
+            order.pool = this;
+        }
+        order.pooled = false;
+        order.init(orderid, priceTicks, tickSize, market, side, orderType, clientid, orderqty);
+        order.setStatus(OrderStatus.New);
+        return order;
+    }
+
+    /**
+     * Acquire a fill from the pool
+     * @param orderQty executed quantity
+     * @param priceTicks executed price in ticks
+     * @param tickSize tick size of the instrument
+     * @return pooled fill
+     */
+    Fill acquireFill(int orderQty, long priceTicks, double tickSize){
+        Fill fill;
+        if (this.fillcount > 0){
+            fill = this.fills[--this.fillcount];
+            this.fills[this.fillcount] = null;
+            fill.set(orderQty, priceTicks, tickSize);
+        }
+        else {
+            fill = new Fill(orderQty, priceTicks, tickSize);
+        }
+        return fill;
+    }
+
+    /**
+     * Release an order acquired from this pool and its fills back to the pool
+     * The order keeps its fields, status included, until it is acquired again and its fills are cleared.
+     * Orders not acquired from this pool or already released are ignored
+     * @param order order to release
+     */
+    public void release(IOrder order){
+        if (!(order instanceof SimpleOrder)){
+            return;
+        }
+        SimpleOrder simpleOrder = (SimpleOrder) order;
+        if (simpleOrder.pool != this || simpleOrder.pooled){
+            return;
+        }
+        List<Fill> orderFills = simpleOrder.Fills();
+        for (int i = 0; i < orderFills.size() && this.fillcount < this.fills.length; i++){
+            this.fills[this.fillcount++] = orderFills.get(i);
+        }
+        simpleOrder.clearFills();
+        simpleOrder.pooled = true;
+        if (this.ordercount < this.orders.length){
+            this.orders[this.ordercount++] = simpleOrder;
+        }
+    }
+
+    /** Number of orders available in the pool **/
+    public int availableOrders(){
+        return this.ordercount;
+    }
+
+    /** Number of fills available in the pool **/
+    public int availableFills(){
+        return this.fillcount;
+    }
+}
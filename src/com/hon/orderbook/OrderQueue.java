@@ -0,0 +1,137 @@
+package com.hon.orderbook;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Queue of resting orders linked through their {@code OrderNode}
+ * Adding at the back, inserting after a node and removing any node are O(1) with no array copying<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+class OrderQueue {
+
+    private OrderNode head;
+    private OrderNode tail;
+    private int size;
+
+    OrderNode first(){
+        return this.head;
+    }
+
+    OrderNode last(){
+        return this.tail;
+    }
+
+    boolean isEmpty(){
+        return this.head == null;
+    }
+
+    int size(){
+        return this.size;
+    }
+
+    /**
+     * Append node to the back of the queue
+     * @param node node to append
+     */
+    void addLast(OrderNode node){
+        insertAfter(node, this.tail);
+    }
+
+    /**
+     * Insert node after a node of the queue
+     * @param node node to insert
+     * @param at node of the queue to insert after, {@code null} to insert at the front
+     */
+    void insertAfter(OrderNode node, OrderNode at){
+        OrderNode next = at == null ? this.head : at.next;
+        node.prev = at;
+        node.next = next;
+        node.queue = this;
+        if (at == null){
+            this.head = node;
+        }
+        else {
+            at.next = node;
+        }
+        if (next == null){
+            this.tail = node;
+        }
+        else {
+            next.prev = node;
+        }
+        this.size++;
+    }
+
+    /**
+     * Unlink node from the queue
+     * @param node node of the queue to remove
+     */
+    void remove(OrderNode node){
+        if (node.prev == null){
+            this.head = node.next;
+        }
+        else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null){
+            this.tail = node.prev;
+        }
+        else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.queue = null;
+        this.size--;
+    }
+
+    /**
+     * Returns a read only live list of the orders of the queue
+     * @return {@code List} view of the queue
+     */
+    List<IOrder> asList(){
+        return new AbstractList<IOrder>() {
+            @Override
+            public IOrder get(int index) {
+                if (index < 0 || index >= OrderQueue.this.size){
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + OrderQueue.this.size);
+                }
+                OrderNode node = OrderQueue.this.head;
+                for (int i = 0; i < index; i++){
+                    node = node.next;
+                }
+                return node.order;
+            }
+
+            @Override
+            public int size() {
+                return OrderQueue.this.size;
+            }
+
+            @Override
+            public Iterator<IOrder> iterator() {
+                return new Iterator<IOrder>() {
+                    private OrderNode node = OrderQueue.this.head;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.node != null;
+                    }
+
+                    @Override
+                    public IOrder next() {
+                        if (this.node == null){
+                            throw new NoSuchElementException();
+                        }
+                        IOrder order = this.node.order;
+                        this.node = this.node.next;
+                        return order;
+                    }
+                };
+            }
+        };
+    }
+}
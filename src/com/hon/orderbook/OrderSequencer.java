@@ -0,0 +1,351 @@
+package com.hon.orderbook;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A sequencer in front of an {@code IOrderBook} letting many threads submit, cancel and replace orders,
+ * cancel every order of a client or hand over a whole {@code OrderBatch},
+ * while a single matching thread owns the order book<p>
+ * Producers claim a sequence in a pre-allocated ring of commands, write the command in place and
+ * publish it, without locks. The matching thread drains every published command in sequence order
+ * as a batch, so the order book itself stays single threaded. Threads wait for work, or for space
+ * in a full ring, according to a {@code WaitStrategy}<p>
+ * Outcomes are reported on the matching thread through the execution listener and event sink of
+ * the order book and the status of the orders<p>
+ * Commands may also name the order book they apply to, so one matching thread can own several
+ * order books, as the shards of an {@code OrderBookManager} do<p>
+ * A command that throws is counted and reported to the uncaught exception handler of the matching
+ * thread, which goes on with the next command. Once closed, queueing a command throws
+ */
+public class OrderSequencer implements AutoCloseable {
+
+    private static final int SUBMIT = 1;
+    private static final int CANCEL = 2;
+    private static final int MASS_CANCEL = 3;
+    private static final int BATCH = 4;
+    private static final int REPLACE = 5;
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final IOrderBook orderbook;
+    private final WaitStrategy waitstrategy;
+    private final Command[] commands;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Thread matcher;
+    private volatile boolean running;
+
+    /**
+     * Order sequencer constructor, call {@code start} to begin matching
+     * @param orderbook order book owned by the matching thread
+     * @param capacity number of commands of the ring, rounded up to a power of two
+     * @param waitStrategy how the matching thread and producers wait
+     */
+    public OrderSequencer(IOrderBook orderbook, int capacity, WaitStrategy waitStrategy){
+        this(orderbook, capacity, waitStrategy, "orderbook-matcher");
+    }
+
+    /**
+     * Order sequencer constructor, call {@code start} to begin matching
+     * @param orderbook order book commands without an order book apply to, {@code null} for none
+     * @param capacity number of commands of the ring, rounded up to a power of two
+     * @param waitStrategy how the matching thread and producers wait
+     * @param name name of the matching thread
+     */
+    public OrderSequencer(IOrderBook orderbook, int capacity, WaitStrategy waitStrategy, String name){
+        int size = 1;
+        while (size < capacity){
+            size <<= 1;
+        }
+        this.orderbook = orderbook;
+        this.waitstrategy = waitStrategy;
+        this.commands = new Command[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++){
+            this.commands[i] = new Command();
+            this.published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.matcher = new Thread(this::match, name);
+        this.matcher.setDaemon(true);
+    }
+
+    /**
+     * Start the matching thread
+     */
+    public void start(){
+        this.running = true;
+        this.matcher.start();
+    }
+
+    /**
+     * Stop the matching thread once every published command has been applied to the order book
+     * Commands can no longer be queued, commands claimed before the close are still applied
+     */
+    @Override
+    public void close() {
+        this.claimed.accumulateAndGet(CLOSED, (sequence, closed) -> sequence | closed);
+        this.running = false;
+        try {
+            this.matcher.join();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait until every command published so far has been applied
+     */
+    public void awaitIdle(){
+        long sequence = this.claimed.get() & ~CLOSED;
+        for (int attempts = 0; this.consumed.get() < sequence; attempts++){
+            this.waitstrategy.idle(attempts);
+        }
+    }
+
+    /**
+     * Queue an order to be submitted to the order book, safe to call from any thread
+     * @param order order to submit
+     */
+    public void submitOrder(IOrder order) {
+        submitOrder(this.orderbook, order);
+    }
+
+    /**
+     * Queue an order to be submitted to an order book owned by the matching thread, safe to call from any thread
+     * @param orderbook order book to submit to
+     * @param order order to submit
+     */
+    public void submitOrder(IOrderBook orderbook, IOrder order) {
+        long sequence = claim();
+        Command command = this.commands[(int) (sequence & this.mask)];
+        command.type = SUBMIT;
+        command.orderbook = orderbook;
+        command.order = order;
+        publish(sequence);
+    }
+
+    /**
+     * Queue a cancel of a resting order, safe to call from any thread
+     * @param orderId OrderId of which the order is to be cancelled
+     * @param clientId ClientId that owns the order
+     */
+    public void cancelOrder(String orderId, String clientId) {
+        cancelOrder(this.orderbook, orderId, clientId);
+    }
+
+    /**
+     * Queue a cancel of an order resting on an order book owned by the matching thread, safe to call from any thread
+     * @param orderbook order book of the order
+     * @param orderId OrderId of which the order is to be cancelled
+     * @param clientId ClientId that owns the order
+     */
+    public void cancelOrder(IOrderBook orderbook, String orderId, String clientId) {
+        long sequence = claim();
+        Command command = this.commands[(int) (sequence & this.mask)];
+        command.type = CANCEL;
+        command.orderbook = orderbook;
+        command.orderid = orderId;
+        command.clientid = clientId;
+        publish(sequence);
+    }
+
+    /**
+     * Queue a replace of the price and open quantity of a resting order, safe to call from any thread
+     * @param orderId OrderId of the resting order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order
+     */
+    public void replaceOrder(String orderId, String clientId, long priceTicks, int qty) {
+        replaceOrder(this.orderbook, orderId, clientId, priceTicks, qty);
+    }
+
+    /**
+     * Queue a replace of an order resting on an order book owned by the matching thread, safe to call from any thread
+     * @param orderbook order book of the order
+     * @param orderId OrderId of the resting order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order
+     */
+    public void replaceOrder(IOrderBook orderbook, String orderId, String clientId, long priceTicks, int qty) {
+        long sequence = claim();
+        Command command = this.commands[(int) (sequence & this.mask)];
+        command.type = REPLACE;
+        command.orderbook = orderbook;
+        command.orderid = orderId;
+        command.clientid = clientId;
+        command.priceticks = priceTicks;
+        command.qty = qty;
+        publish(sequence);
+    }
+
+    /**
+     * Queue a cancel of every order of a client, safe to call from any thread
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     */
+    public void cancelAllOrders(String clientId, OrderSide side) {
+        cancelAllOrders(this.orderbook, clientId, side);
+    }
+
+    /**
+     * Queue a cancel of every order of a client on an order book owned by the matching thread, safe to call from any thread
+     * @param orderbook order book of the orders
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     */
+    public void cancelAllOrders(IOrderBook orderbook, String clientId, OrderSide side) {
+        long sequence = claim();
+        Command command = this.commands[(int) (sequence & this.mask)];
+        command.type = MASS_CANCEL;
+        command.orderbook = orderbook;
+        command.clientid = clientId;
+        command.side = side;
+        publish(sequence);
+    }
+
+    /**
+     * Queue a batch to be processed by the order book in one pass, safe to call from any thread
+     * @param batch batch of commands, not to be touched until the sequencer is idle
+     */
+    public void processBatch(OrderBatch batch) {
+        processBatch(this.orderbook, batch);
+    }
+
+    /**
+     * Queue a batch to be processed in one pass by an order book owned by the matching thread, safe to call from any thread
+     * The results are written to the batch on the matching thread, to be read once the sequencer is idle
+     * @param orderbook order book to process the batch
+     * @param batch batch of commands, not to be touched until the sequencer is idle
+     */
+    public void processBatch(IOrderBook orderbook, OrderBatch batch) {
+        long sequence = claim();
+        Command command = this.commands[(int) (sequence & this.mask)];
+        command.type = BATCH;
+        command.orderbook = orderbook;
+        command.batch = batch;
+        publish(sequence);
+    }
+
+    /** Number of commands that threw when applied to their order book **/
+    public long failedCommands(){
+        return this.failed.get();
+    }
+
+    /**
+     * Claim the next sequence, waiting while the ring is full
+     * @return claimed sequence
+     * @throws IllegalStateException if the sequencer is closed
+     */
+    private long claim(){
+        long sequence;
+        do {
+            sequence = this.claimed.get();
+            if (sequence < 0){
+                throw new IllegalStateException("Order sequencer closed");
+            }
+        } while (!this.claimed.compareAndSet(sequence, sequence + 1));
+        for (int attempts = 0; sequence - this.consumed.get() > this.mask; attempts++){
+            this.waitstrategy.idle(attempts);
+        }
+        return sequence;
+    }
+
+    private void publish(long sequence){
+        this.published.lazySet((int) (sequence & this.mask), sequence);
+    }
+
+    /** Matching thread loop, applies published commands in sequence order **/
+    private void match(){
+        int attempts = 0;
+        while (true){
+            if (drain() > 0){
+                attempts = 0;
+            }
+            else if (!this.running && this.consumed.get() == (this.claimed.get() & ~CLOSED)){
+                return;
+            }
+            else {
+                this.waitstrategy.idle(attempts++);
+            }
+        }
+    }
+
+    /**
+     * Apply every command published in sequence since the last batch
+     * @return number of commands applied
+     */
+    private int drain(){
+        long next = this.consumed.get();
+        long sequence = next;
+        while (this.published.get((int) (sequence & this.mask)) == sequence){
+            Command command = this.commands[(int) (sequence & this.mask)];
+            try {
+                apply(command);
+            }
+            catch (RuntimeException e){
+                this.failed.incrementAndGet();
+                this.matcher.getUncaughtExceptionHandler().uncaughtException(this.matcher, e);
+            }
+            command.clear();
+            sequence++;
+        }
+        if (sequence != next){
+            this.consumed.lazySet(sequence);
+        }
+        return (int) (sequence - next);
+    }
+
+    private static void apply(Command command){
+        switch (command.type){
+            case SUBMIT:
+                command.orderbook.submitOrder(command.order);
+                break;
+            case CANCEL:
+                command.orderbook.cancelOrder(command.orderid, command.clientid);
+                break;
+            case MASS_CANCEL:
+                command.orderbook.cancelAllOrders(command.clientid, command.side);
+                break;
+            case BATCH:
+                command.orderbook.processBatch(command.batch);
+                break;
+            case REPLACE:
+                command.orderbook.replaceOrder(command.orderid, command.clientid, command.priceticks, command.qty);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Pre-allocated command slot of the ring
+     */
+    private static final class Command {
+
+        private int type;
+        private IOrderBook orderbook;
+        private IOrder order;
+        private String orderid;
+        private String clientid;
+        private OrderSide side;
+        private OrderBatch batch;
+        private long priceticks;
+        private int qty;
+
+        private void clear(){
+            this.orderbook = null;
+            this.order = null;
+            this.orderid = null;
+            this.clientid = null;
+            this.side = null;
+            this.batch = null;
+        }
+    }
+}
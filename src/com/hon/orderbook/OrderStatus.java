@@ -2,7 +2,7 @@ package com.hon.orderbook;
 
 /**
  * Enumerable order status defines a subset of the states an order is in
- * New, Partially filled, filled or cancelled
+ * New, Partially filled, filled, cancelled or rejected by the order book
  * Financially can be more than the below as defined in FIX protocol
  */
 
@@ -10,5 +10,6 @@ public enum OrderStatus {
     New,
     PartialFill,
     FullyFilled,
-    Cancelled
+    Cancelled,
+    Rejected
 }
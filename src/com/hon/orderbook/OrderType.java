@@ -4,10 +4,19 @@ package com.hon.orderbook;
  * Enumerable order type defines a subset of the execution types available on an order
  * GTC, good til cancel order
  * IOC, execute all or partial fill and cancel remaining
+ * Stop, market order held back until a trade reaches its stop price
+ * Stop limit, GTC limit order held back until a trade reaches its stop price
  * Financially can be more than the below as defined in FIX protocol
  */
 
 public enum OrderType {
     GTC,
-    ImmediateOrCancel
+    ImmediateOrCancel,
+    Stop,
+    StopLimit;
+
+    /** Returns whether orders of this type wait for a trade at their stop price before they are executed **/
+    public boolean isStop(){
+        return this == Stop || this == StopLimit;
+    }
 }
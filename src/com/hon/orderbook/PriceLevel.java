@@ -0,0 +1,41 @@
+package com.hon.orderbook;
+
+/**
+ * A single price level of an order book
+ * Holds the resting orders at one price in time priority, first in first out
+ * and the total remaining quantity of those orders<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+class PriceLevel extends OrderQueue {
+
+    private final long price;
+    private long totalqty;
+
+    /**
+     * Price level constructor
+     * @param price price in ticks of every order resting at this level
+     */
+    PriceLevel(long price){
+        this.price = price;
+    }
+
+    long getPrice() {
+        return this.price;
+    }
+
+    /**
+     * Returns the total remaining quantity of the orders resting at this level
+     * @return total quantity
+     */
+    long getTotalQty() {
+        return this.totalqty;
+    }
+
+    /**
+     * Adjust the total remaining quantity of this level
+     * @param delta quantity added, negative for quantity filled or cancelled
+     */
+    void addTotalQty(long delta) {
+        this.totalqty += delta;
+    }
+}
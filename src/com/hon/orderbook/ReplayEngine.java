@@ -0,0 +1,440 @@
+package com.hon.orderbook;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays recorded order flow through an order book to backtest against it<p>
+ * Records are read from a binary file written by {@code OrderFlowWriter} or from a CSV file, decoded
+ * straight from the read buffer and sent to {@code submitOrder} and {@code cancelOrder}. Numbers are
+ * parsed from the bytes in place and order ids go through a small cache, so a cancel shares the id
+ * string of its submit and no intermediate strings are built. CSV records are one per line:
+ * <pre>
+ * timestampNanos,S,orderId,clientId,side,orderType,priceTicks,qty,market
+ * timestampNanos,C,orderId,clientId
+ * </pre>
+ * side is Buy or Sell, orderType GTC or ImmediateOrCancel and market true or false, only the first
+ * character of each is read. A first line not starting with a digit is taken as a header.<p>
+ * Executions are counted through the execution listener of the order book rather than the fills
+ * of the orders, the latency of each submit and cancel is recorded in a {@code LatencyHistogram}.
+ * Replay runs as fast as possible, or paced on the recorded timestamps scaled by a speed factor<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+public class ReplayEngine implements IExecutionListener {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int ID_CACHE_SIZE = 1 << 16;
+    private static final long SPIN_NANOS = 50_000;
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderType[] TYPES = OrderType.values();
+
+    private final IOrderBook orderbook;
+    private final Instrument instrument;
+    private final IdCache idcache = new IdCache(ID_CACHE_SIZE);
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] bytes = this.buffer.array();
+    private FileChannel channel;
+    private OrderPool orderpool;
+    private double speed;
+
+    private long submits;
+    private long cancels;
+    private long executions;
+    private long executedqty;
+    private LatencyHistogram latency;
+    private long firsttimestamp;
+    private long startnanos;
+    private int cursor;
+
+    /**
+     * Replay engine constructor, registers the engine as execution listener of the order book
+     * @param orderbook order book to replay the flow through
+     * @param instrument instrument of the order book, used for the tick size of the orders
+     */
+    public ReplayEngine(IOrderBook orderbook, Instrument instrument){
+        this.orderbook = orderbook;
+        this.instrument = instrument;
+        this.orderbook.setExecutionListener(this);
+    }
+
+    /**
+     * Set the pacing of the replay
+     * @param speed 0 to replay as fast as possible, otherwise a factor of the recorded time, 1.0 replaying
+     *              at the recorded pace and 2.0 twice as fast
+     */
+    public void setSpeed(double speed){
+        if (speed < 0){
+            throw new IllegalArgumentException("Invalid speed: " + speed);
+        }
+        this.speed = speed;
+    }
+
+    /**
+     * Set a pool to take the replayed orders from, it must be the pool of the order book
+     * so orders are released back to it
+     * @param orderpool pool of the order book, null to create each order
+     */
+    public void setOrderPool(OrderPool orderpool){
+        this.orderpool = orderpool;
+    }
+
+    /**
+     * Replay a binary file written by {@code OrderFlowWriter}
+     * @param file recorded order flow
+     * @return report of the replay
+     * @throws IOException if the file cannot be read or is not a recorded order flow
+     */
+    public ReplayReport replayBinary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            start(channel);
+            if (!ensure(8) || this.buffer.getInt() != OrderFlowWriter.MAGIC
+                    || this.buffer.getInt() != OrderFlowWriter.VERSION){
+                throw new IOException("Not a recorded order flow: " + file);
+            }
+            int fixed = OrderFlowWriter.FIXED_RECORD_SIZE;
+            while (ensure(fixed + 2)){
+                int idLength = this.buffer.getShort(this.buffer.position() + fixed) & 0xFFFF;
+                if (!ensure(fixed + 4 + idLength)){
+                    throw new IOException("Truncated record in " + file);
+                }
+                int base = this.buffer.position();
+                int clientLength = this.buffer.getShort(base + fixed + 2 + idLength) & 0xFFFF;
+                if (!ensure(fixed + 4 + idLength + clientLength)){
+                    throw new IOException("Truncated record in " + file);
+                }
+                base = this.buffer.position();
+                byte type = this.bytes[base];
+                long timestamp = this.buffer.getLong(base + 16);
+                String orderId = this.idcache.get(this.bytes, base + fixed + 2, idLength);
+                String clientId = this.idcache.get(this.bytes, base + fixed + 4 + idLength, clientLength);
+                if (type == OrderFlowWriter.SUBMIT){
+                    submit(timestamp, orderId, clientId, valueOf(SIDES, this.bytes[base + 1], file),
+                            valueOf(TYPES, this.bytes[base + 2], file), this.buffer.getLong(base + 8),
+                            this.buffer.getInt(base + 4), this.bytes[base + 3] != 0);
+                }
+                else if (type == OrderFlowWriter.CANCEL){
+                    cancel(timestamp, orderId, clientId);
+                }
+                else {
+                    throw new IOException("Unknown record type " + type + " in " + file);
+                }
+                this.buffer.position(base + fixed + 4 + idLength + clientLength);
+            }
+        }
+        return finish();
+    }
+
+    /**
+     * Replay a CSV file of order flow
+     * @param file recorded order flow
+     * @return report of the replay
+     * @throws IOException if the file cannot be read or a line is malformed
+     */
+    public ReplayReport replayCsv(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            start(channel);
+            boolean first = true;
+            int end;
+            while ((end = nextLine()) >= 0){
+                this.cursor = this.buffer.position();
+                boolean header = first && (end == this.cursor || !isDigit(this.bytes[this.cursor]));
+                first = false;
+                if (end > this.cursor && !header){
+                    replayLine(end);
+                }
+                this.buffer.position(Math.min(end + 1, this.buffer.limit()));
+            }
+        }
+        return finish();
+    }
+
+    /** Count the executions of the replayed flow **/
+    @Override
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty,
+                            OrderStatus makerStatus, OrderStatus takerStatus){
+        this.executions++;
+        this.executedqty += qty;
+    }
+
+    /** Decode an enum from its recorded ordinal, refusing an ordinal out of range **/
+    private static <E> E valueOf(E[] values, byte ordinal, Path file) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length){
+            throw new IOException("Corrupt record in " + file);
+        }
+        return values[ordinal];
+    }
+
+    private void replayLine(int end) throws IOException {
+        long timestamp = parseLong(end);
+        byte type = this.bytes[this.cursor];
+        skipField(end);
+        String orderId = parseId(end);
+        String clientId = parseId(end);
+        if (type == 'S'){
+            OrderSide side = this.bytes[this.cursor] == 'B' ? OrderSide.Buy : OrderSide.Sell;
+            skipField(end);
+            OrderType orderType = this.bytes[this.cursor] == 'I' ? OrderType.ImmediateOrCancel : OrderType.GTC;
+            skipField(end);
+            long priceTicks = parseLong(end);
+            int qty = (int) parseLong(end);
+            boolean market = this.cursor < end && (this.bytes[this.cursor] == 't' || this.bytes[this.cursor] == 'T'
+                    || this.bytes[this.cursor] == '1');
+            submit(timestamp, orderId, clientId, side, orderType, priceTicks, qty, market);
+        }
+        else if (type == 'C'){
+            cancel(timestamp, orderId, clientId);
+        }
+        else {
+            throw new IOException("Unknown record type in line: "
+                    + new String(this.bytes, this.buffer.position(), end - this.buffer.position()));
+        }
+    }
+
+    private void submit(long timestamp, String orderId, String clientId, OrderSide side, OrderType orderType,
+                        long priceTicks, int qty, boolean market){
+        pace(timestamp);
+        double tickSize = this.instrument.TickSize();
+        SimpleOrder order = this.orderpool != null
+                ? this.orderpool.acquireOrder(orderId, priceTicks, tickSize, market, side, orderType, clientId, qty)
+                : new SimpleOrder(orderId, priceTicks, tickSize, market, side, orderType, clientId, qty);
+        long begin = System.nanoTime();
+        this.orderbook.submitOrder(order);
+        this.latency.record(System.nanoTime() - begin);
+        this.submits++;
+    }
+
+    private void cancel(long timestamp, String orderId, String clientId){
+        pace(timestamp);
+        long begin = System.nanoTime();
+        this.orderbook.cancelOrder(orderId, clientId);
+        this.latency.record(System.nanoTime() - begin);
+        this.cancels++;
+    }
+
+    /** Wait until the scaled recorded time of a message, parking while far from it then spinning **/
+    private void pace(long timestamp){
+        if (this.speed == 0){
+            return;
+        }
+        if (this.firsttimestamp == Long.MIN_VALUE){
+            this.firsttimestamp = timestamp;
+        }
+        long target = this.startnanos + (long) ((timestamp - this.firsttimestamp) / this.speed);
+        long remaining;
+        while ((remaining = target - System.nanoTime()) > 0){
+            if (remaining > SPIN_NANOS){
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            }
+            else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void start(FileChannel channel){
+        this.channel = channel;
+        this.buffer.clear().limit(0);
+        this.submits = 0;
+        this.cancels = 0;
+        this.executions = 0;
+        this.executedqty = 0;
+        this.latency = new LatencyHistogram();
+        this.firsttimestamp = Long.MIN_VALUE;
+        this.startnanos = System.nanoTime();
+    }
+
+    private ReplayReport finish(){
+        long elapsed = System.nanoTime() - this.startnanos;
+        this.channel = null;
+        return new ReplayReport(this.submits, this.cancels, this.executions, this.executedqty, elapsed, this.latency);
+    }
+
+    /**
+     * Make a number of bytes available from the buffer position, reading more of the file if needed
+     * @param size number of bytes needed
+     * @return true if available, false if the file ended first
+     */
+    private boolean ensure(int size) throws IOException {
+        if (size > BUFFER_SIZE){
+            throw new IOException("Record too large: " + size + " bytes");
+        }
+        while (this.buffer.remaining() < size){
+            if (!readMore()){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the end of the next line, reading more of the file if needed
+     * @return index of the newline or of the buffer limit for a last line without one, -1 at end of file
+     */
+    private int nextLine() throws IOException {
+        int scanned = this.buffer.position();
+        while (true){
+            int limit = this.buffer.limit();
+            for (int i = scanned; i < limit; i++){
+                if (this.bytes[i] == '\n'){
+                    return i;
+                }
+            }
+            int offset = this.buffer.position();
+            if (offset == 0 && limit == BUFFER_SIZE){
+                throw new IOException("Line longer than " + BUFFER_SIZE + " bytes");
+            }
+            if (!readMore()){
+                return this.buffer.hasRemaining() ? this.buffer.limit() : -1;
+            }
+            scanned = limit - offset;
+        }
+    }
+
+    /** Move the unread bytes to the start of the buffer and read after them, false at end of file **/
+    private boolean readMore() throws IOException {
+        this.buffer.compact();
+        int read = this.channel.read(this.buffer);
+        this.buffer.flip();
+        return read > 0;
+    }
+
+    private long parseLong(int end) throws IOException {
+        int i = this.cursor;
+        boolean negative = i < end && this.bytes[i] == '-';
+        if (negative){
+            i++;
+        }
+        if (i >= end || !isDigit(this.bytes[i])){
+            throw new IOException("Invalid number at offset " + (i - this.buffer.position()) + " of line");
+        }
+        long value = 0;
+        while (i < end && isDigit(this.bytes[i])){
+            value = value * 10 + (this.bytes[i] - '0');
+            i++;
+        }
+        this.cursor = i;
+        skipField(end);
+        return negative ? -value : value;
+    }
+
+    private String parseId(int end){
+        int start = this.cursor;
+        int i = start;
+        while (i < end && this.bytes[i] != ',' && this.bytes[i] != '\r'){
+            i++;
+        }
+        String id = this.idcache.get(this.bytes, start, i - start);
+        this.cursor = i;
+        skipField(end);
+        return id;
+    }
+
+    /** Move the cursor past the next field separator **/
+    private void skipField(int end){
+        int i = this.cursor;
+        while (i < end && this.bytes[i] != ','){
+            i++;
+        }
+        this.cursor = Math.min(i + 1, end);
+    }
+
+    private static boolean isDigit(byte b){
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Returns the limit price of the first limit order submit of a recorded order flow, read from the
+     * first buffer of the file, to centre a ladder order book on
+     * @param file recorded order flow
+     * @param csv true for a CSV file, false for a binary file written by {@code OrderFlowWriter}
+     * @return price in ticks, 0 if no limit order submit is found
+     * @throws IOException if the file cannot be read
+     */
+    public static long firstPriceTicks(Path file, boolean csv) throws IOException {
+        if (csv){
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)){
+                String line;
+                while ((line = reader.readLine()) != null){
+                    String[] fields = line.split(",");
+                    if (fields.length >= 8 && fields[1].startsWith("S") && !isMarket(fields)){
+                        return Long.parseLong(fields[6].trim());
+                    }
+                }
+            }
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(buffer);
+            buffer.flip();
+            int fixed = OrderFlowWriter.FIXED_RECORD_SIZE;
+            int base = 8;
+            while (base + fixed + 2 <= buffer.limit()){
+                int idLength = buffer.getShort(base + fixed) & 0xFFFF;
+                if (base + fixed + 4 + idLength > buffer.limit()){
+                    break;
+                }
+                if (buffer.get(base) == OrderFlowWriter.SUBMIT && buffer.get(base + 3) == 0){
+                    return buffer.getLong(base + 8);
+                }
+                base += fixed + 4 + idLength + (buffer.getShort(base + fixed + 2 + idLength) & 0xFFFF);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isMarket(String[] fields){
+        if (fields.length < 9 || fields[8].isEmpty()){
+            return false;
+        }
+        char c = fields[8].trim().charAt(0);
+        return c == 't' || c == 'T' || c == '1';
+    }
+
+    /**
+     * Replay a recorded order flow file through a new order book and print the report
+     * @param args file, then optionally csv or binary (default binary), speed (default 0)
+     *             and tree, ladder or simple order book (default tree), a ladder being centred on
+     *             the price of the first limit order of the file
+     * @throws IOException if the file cannot be replayed
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0){
+            System.err.println("usage: ReplayEngine <file> [csv|binary] [speed] [tree|ladder|simple]");
+            System.exit(1);
+        }
+        Path file = Paths.get(args[0]);
+        boolean csv = args.length > 1 && args[1].equalsIgnoreCase("csv");
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        String bookType = args.length > 3 ? args[3] : "tree";
+        Instrument instrument = new Instrument("replay", Instrument.DEFAULT_TICK_SIZE);
+        IOrderBook orderbook;
+        if (bookType.equalsIgnoreCase("ladder")){
+            LadderOrderBookImpl ladder = new LadderOrderBookImpl(instrument, firstPriceTicks(file, csv));
+            ladder.setRetainFills(false);
+            orderbook = ladder;
+        }
+        else if (bookType.equalsIgnoreCase("simple")){
+            orderbook = new SimpleOrderBookImpl(instrument);
+        }
+        else {
+            TreeOrderBookImpl tree = new TreeOrderBookImpl(instrument);
+            tree.setRetainFills(false);
+            orderbook = tree;
+        }
+        orderbook.setEventSink(NoOpEventSink.INSTANCE);
+        ReplayEngine engine = new ReplayEngine(orderbook, instrument);
+        engine.setSpeed(speed);
+        ReplayReport report = csv ? engine.replayCsv(file) : engine.replayBinary(file);
+        System.out.println(report);
+    }
+}
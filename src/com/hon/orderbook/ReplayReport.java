@@ -0,0 +1,80 @@
+package com.hon.orderbook;
+
+/**
+ * Summary of a replay of recorded order flow through an order book
+ * holding the message counts, the executions and the latency of each submit and cancel
+ */
+public class ReplayReport {
+
+    private final long submits;
+    private final long cancels;
+    private final long executions;
+    private final long executedQty;
+    private final long elapsedNanos;
+    private final LatencyHistogram latency;
+
+    /**
+     * Replay report constructor
+     * @param submits number of orders submitted
+     * @param cancels number of cancels sent
+     * @param executions number of executions
+     * @param executedQty total executed quantity
+     * @param elapsedNanos duration of the replay
+     * @param latency latency of each submit and cancel
+     */
+    public ReplayReport(long submits, long cancels, long executions, long executedQty, long elapsedNanos,
+                        LatencyHistogram latency){
+        this.submits = submits;
+        this.cancels = cancels;
+        this.executions = executions;
+        this.executedQty = executedQty;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+    }
+
+    public long getMessages(){
+        return this.submits + this.cancels;
+    }
+
+    public long getSubmits(){
+        return this.submits;
+    }
+
+    public long getCancels(){
+        return this.cancels;
+    }
+
+    public long getExecutions(){
+        return this.executions;
+    }
+
+    public long getExecutedQty(){
+        return this.executedQty;
+    }
+
+    public long getElapsedNanos(){
+        return this.elapsedNanos;
+    }
+
+    public LatencyHistogram getLatency(){
+        return this.latency;
+    }
+
+    /**
+     * Returns the replay throughput
+     * @return messages replayed per second, 0 if no time elapsed
+     */
+    public double messagesPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : getMessages() * 1e9 / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("messages=%d submits=%d cancels=%d executions=%d executedQty=%d elapsed=%.3fs "
+                        + "rate=%.0f msg/s latency(ns) min=%d p50=%d p99=%d p99.9=%d max=%d mean=%.1f",
+                getMessages(), this.submits, this.cancels, this.executions, this.executedQty,
+                this.elapsedNanos / 1e9, messagesPerSecond(), this.latency.min(), this.latency.percentile(50),
+                this.latency.percentile(99), this.latency.percentile(99.9), this.latency.max(),
+                this.latency.mean());
+    }
+}
@@ -1,34 +1,86 @@
 package com.hon.orderbook;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * An implementation of an IOrder, contains the concrete implementation of an order
+ * The list of fills is only created on the first fill. Orders acquired from an {@code OrderPool}
+ * are reinitialised on reuse and keep their fill list capacity
  *
  */
 
 public class SimpleOrder implements IOrder {
 
     private String orderid;
-    private double price;
+    private long priceticks;
+    private long stopticks;
+    private double ticksize;
+    private boolean market;
     private OrderSide side;
     private OrderType orderType;
     private String clientid;
     private int orderqty;
     private int remainingqty;
     private List<Fill> fills;
+    private int cumulativeqty;
+    private long notionalticks;
     private OrderStatus status;
-
+    OrderPool pool;
+    boolean pooled;
+
+    /**
+     * Simple order constructor for a limit order priced in the default tick size
+     * @param orderid id of the order
+     * @param price decimal limit price
+     * @param side side of the order
+     * @param orderType execution type of the order
+     * @param clientid id of the client owning the order
+     * @param orderqty quantity of the order
+     */
     public SimpleOrder(String orderid, double price, OrderSide side, OrderType orderType, String clientid, int orderqty){
+        this(orderid, Instrument.toTicks(price, Instrument.DEFAULT_TICK_SIZE), Instrument.DEFAULT_TICK_SIZE,
+                false, side, orderType, clientid, orderqty);
+    }
+
+    /**
+     * Simple order constructor
+     * @param orderid id of the order
+     * @param priceTicks limit price in ticks, ignored for market orders
+     * @param tickSize tick size of the instrument
+     * @param market true for a market order
+     * @param side side of the order
+     * @param orderType execution type of the order
+     * @param clientid id of the client owning the order
+     * @param orderqty quantity of the order
+     */
+    public SimpleOrder(String orderid, long priceTicks, double tickSize, boolean market, OrderSide side,
+                       OrderType orderType, String clientid, int orderqty){
+        init(orderid, priceTicks, tickSize, market, side, orderType, clientid, orderqty);
+    }
+
+    /**
+     * Set every field of the order, clearing fills and status of a previous use
+     */
+    void init(String orderid, long priceTicks, double tickSize, boolean market, OrderSide side,
+              OrderType orderType, String clientid, int orderqty){
         this.orderid = orderid;
-        this.price = price;
+        this.priceticks = market ? 0 : priceTicks;
+        this.stopticks = 0;
+        this.ticksize = tickSize;
+        this.market = market;
         this.side = side;
         this.orderType = orderType;
         this.clientid = clientid;
         this.orderqty = orderqty;
         this.remainingqty = orderqty;
-        this.fills = new ArrayList<>();
+        this.status = null;
+        this.cumulativeqty = 0;
+        this.notionalticks = 0;
+        if (this.fills != null){
+            this.fills.clear();
+        }
     }
 
     @Override
@@ -36,9 +88,41 @@ public class SimpleOrder implements IOrder {
         return this.orderid;
     }
 
+    @Override
+    public long PriceTicks() {
+        return this.priceticks;
+    }
+
+    @Override
+    public void setPriceTicks(long priceTicks) {
+        this.priceticks = priceTicks;
+    }
+
     @Override
     public double Price() {
-        return this.price;
+        return Instrument.toPrice(this.priceticks, this.ticksize);
+    }
+
+    @Override
+    public long StopPriceTicks() {
+        return this.stopticks;
+    }
+
+    /**
+     * Set the trigger price of a stop or stop limit order
+     * @param stopPriceTicks stop price in ticks
+     */
+    public void setStopPriceTicks(long stopPriceTicks) {
+        this.stopticks = stopPriceTicks;
+    }
+
+    double getTickSize() {
+        return this.ticksize;
+    }
+
+    @Override
+    public boolean isMarketOrder() {
+        return this.market;
     }
 
     @Override
@@ -61,6 +145,11 @@ public class SimpleOrder implements IOrder {
         return this.orderqty;
     }
 
+    @Override
+    public void setOrderQty(int orderQty) {
+        this.orderqty = orderQty;
+    }
+
     @Override
     public int getRemainingQty() {
         return this.remainingqty;
@@ -74,15 +163,60 @@ public class SimpleOrder implements IOrder {
 
     @Override
     public List<Fill> Fills() {
+        if (this.fills == null){
+            return Collections.emptyList();
+        }
         return this.fills;
     }
 
+    /**
+     * Restore the cumulative quantity and average price of executions of a previous run, such as from a snapshot
+     * @param cumulativeQty executed quantity
+     * @param averagePrice average execution price
+     */
+    void restoreExecutions(int cumulativeQty, double averagePrice){
+        this.cumulativeqty = cumulativeQty;
+        this.notionalticks = Math.round(averagePrice / this.ticksize * cumulativeQty);
+    }
+
+    /**
+     * Drop the fills of the order once they are returned to an order pool, keeping the list capacity
+     */
+    void clearFills(){
+        if (this.fills != null){
+            this.fills.clear();
+        }
+    }
+
     @Override
     public void FillOrder(Fill fill) {
+        if (this.fills == null){
+            this.fills = new ArrayList<>();
+        }
         this.fills.add(fill);
+        recordExecution(fill.OrderQty(), fill.PriceTicks());
 
     }
 
+    @Override
+    public void recordExecution(int qty, long priceTicks) {
+        this.cumulativeqty += qty;
+        this.notionalticks += qty * priceTicks;
+    }
+
+    @Override
+    public int getCumulativeQty() {
+        return this.cumulativeqty;
+    }
+
+    @Override
+    public double getAveragePrice() {
+        if (this.cumulativeqty == 0){
+            return 0;
+        }
+        return (double) this.notionalticks / this.cumulativeqty * this.ticksize;
+    }
+
     @Override
     public OrderStatus getStatus() {
         return this.status;
@@ -97,6 +231,6 @@ public class SimpleOrder implements IOrder {
 
     @Override
     public int compareTo(Object o) {
-        return  (this.price - ((IOrder)o).Price() >0) ? 1 : 0;
+        return Long.compare(this.priceticks, ((IOrder)o).PriceTicks());
     }
 }
@@ -1,46 +1,96 @@
 package com.hon.orderbook;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Simple Order book implementation that implements the {@code IOrderBook} interface
+ * Only GTC and immediate or cancel orders are supported, stop orders are rejected
+ * Queued orders are linked through order nodes so a filled or cancelled order is unlinked without array copying
+ * Order events are raised to an {@code IEventSink}, by default a {@code TextEventSink} printing to standard output
+ * Latency, fill and depth metrics are recorded to an optional {@code OrderBookMetrics}, the price levels
+ * of a submit being the distinct prices it matched and the level counts of the depth reported as 0
  * A simple non thread safe implemenation
  */
 public class SimpleOrderBookImpl implements IOrderBook {
 
-    private List<IOrder> bidqueue;
-    private List<IOrder> askqueue;
-    private String instrument;
+    private OrderQueue bidqueue;
+    private OrderQueue askqueue;
+    private List<IOrder> bidqueueview;
+    private List<IOrder> askqueueview;
+    private Instrument instrument;
+    private IExecutionListener executionlistener;
+    private IEventSink eventsink;
+    private OrderBookMetrics metrics;
+    private int matchedfills;
+    private int matchedlevels;
+    private long lastmatchedprice;
 
     /**
      * Simple Order book implemention constructor
-     * create bid and ask queues
+     * create bid and ask queues for an instrument priced in the default tick size
      * @param instrument instrument of order book
      */
     public SimpleOrderBookImpl(String instrument){
+        this(new Instrument(instrument, Instrument.DEFAULT_TICK_SIZE));
+    }
+
+    /**
+     * Simple Order book implemention constructor
+     * create bid and ask queues
+     * @param instrument instrument and tick size of order book
+     */
+    public SimpleOrderBookImpl(Instrument instrument){
         this.instrument = instrument;
-        bidqueue = new ArrayList<IOrder>();
-        askqueue = new ArrayList<IOrder>();
+        this.eventsink = new TextEventSink(instrument.TickSize());
+        bidqueue = new OrderQueue();
+        askqueue = new OrderQueue();
+        bidqueueview = bidqueue.asList();
+        askqueueview = askqueue.asList();
     }
 
     /**
      * Returns list of bid orders
-     * @return {@code List} of {@code IOrder} on bid queue
+     * @return read only live {@code List} of {@code IOrder} on bid queue
      */
     @Override
     public List<IOrder> getBidQueue() {
-        return this.bidqueue;
+        return this.bidqueueview;
     }
 
     /**
      * Returns list of ask orders
-     * @return {@code List} of {@code IOrder} on ask queue
+     * @return read only live {@code List} of {@code IOrder} on ask queue
      */
     @Override
     public List<IOrder> getAskQueue() {
-        return this.askqueue;
+        return this.askqueueview;
+    }
+
+    /**
+     * Set the listener notified of every execution
+     * @param listener execution listener, {@code null} for none
+     */
+    @Override
+    public void setExecutionListener(IExecutionListener listener) {
+        this.executionlistener = listener;
+    }
+
+    /**
+     * Set the sink order events are raised to
+     * @param sink event sink, {@code null} for none
+     */
+    @Override
+    public void setEventSink(IEventSink sink) {
+        this.eventsink = sink == null ? NoOpEventSink.INSTANCE : sink;
+    }
+
+    /**
+     * Set the metrics submits, cancels and matching are recorded to
+     * @param metrics order book metrics, {@code null} to record none
+     */
+    public void setMetrics(OrderBookMetrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
@@ -49,7 +99,28 @@ public class SimpleOrderBookImpl implements IOrderBook {
      */
     @Override
     public void submitOrder(IOrder order) {
-        printOrderReceivedMessage(order);
+        if (this.metrics == null){
+            execute(order);
+        }
+        else {
+            long begin = System.nanoTime();
+            this.matchedfills = 0;
+            this.matchedlevels = 0;
+            this.lastmatchedprice = Long.MIN_VALUE;
+            boolean accepted = execute(order);
+            this.metrics.onSubmit(System.nanoTime() - begin, !accepted, this.matchedfills, this.matchedlevels);
+            recordDepth();
+        }
+        this.eventsink.flush();
+    }
+
+    /**
+     * Execute order according to order type
+     * @param order order to execute
+     * @return false if the order was rejected
+     */
+    private boolean execute(IOrder order) {
+        logOrderReceived(order);
         try{
             if (order.Side() == OrderSide.Buy || order.Side() == OrderSide.Sell){
                 switch(order.OrderType()){
@@ -60,7 +131,7 @@ public class SimpleOrderBookImpl implements IOrderBook {
                         tryExecuteElseCancel(order);
                         break;
                     default:
-                        break;
+                        throw new InvalidOrderTypeException("Invalid Order Type");
                 }
             }
             else{
@@ -68,31 +139,163 @@ public class SimpleOrderBookImpl implements IOrderBook {
             }
         }
         catch (InvalidOrderTypeException | InvalidOrderSideException | InvalidPriceException e){
-           System.out.println(e.getMessage());
-
+           this.eventsink.onOrderRejected(order.OrderID(), e.getMessage());
+           return false;
         }
+        return true;
     }
 
     /**
      * Search and cancel an order on the order book
      * @param orderId OrderId of which the order is to be cancelled
+     * @param clientId ClientId that owns the order
+     * @return true if the order was resting and has been cancelled
+     */
+    @Override
+    public boolean cancelOrder(String orderId, String clientId) {
+        long begin = this.metrics == null ? 0 : System.nanoTime();
+        boolean cancelled = cancelOrder(this.askqueue, orderId, clientId) || cancelOrder(this.bidqueue, orderId, clientId);
+        if (this.metrics != null){
+            this.metrics.onCancel(System.nanoTime() - begin, cancelled);
+            recordDepth();
+        }
+        this.eventsink.flush();
+        return cancelled;
+    }
+
+    /**
+     * Cancel every queued order of a client, such as when its session drops
+     * Each queue is walked once, unlinking the orders of the client as they are found.
+     * Each order raises its cancel event, followed by one mass cancel event, and events are flushed once.
+     * The cancelled orders are counted as cancels
+     * @param clientId ClientId that owns the orders
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled, 0 if the client id is {@code null}
      */
     @Override
-    public void cancelOrder(String orderId, String clientId) {
-        for (IOrder order : this.askqueue){
-            if (order.OrderID()==orderId && order.ClientID()==clientId){
-                order.setStatus(OrderStatus.Cancelled);
-                this.askqueue.remove(order);
-                break;
+    public int cancelAllOrders(String clientId, OrderSide side) {
+        if (clientId == null){
+            return 0;
+        }
+        int cancelled = cancelClient(this.askqueue, clientId, side) + cancelClient(this.bidqueue, clientId, side);
+        this.eventsink.onMassCancel(clientId, side, cancelled);
+        if (this.metrics != null){
+            this.metrics.onMassCancel(cancelled);
+            recordDepth();
+        }
+        this.eventsink.flush();
+        return cancelled;
+    }
+
+    /**
+     * Replace the price and open quantity of a queued order
+     * Lowering the quantity at the same price updates the order in place and keeps its time priority.
+     * A new price or a higher quantity unlinks the order and executes it again as a GTC order at its new price
+     * @param orderId OrderId of the queued order
+     * @param clientId ClientId that owns the order
+     * @param priceTicks new limit price in ticks
+     * @param qty new open quantity of the order, its order quantity becomes the executed plus the open quantity
+     * @return status of the order once replaced, {@code OrderStatus.Rejected} if no limit order was found,
+     * or the price or quantity is not positive
+     */
+    @Override
+    public OrderStatus replaceOrder(String orderId, String clientId, long priceTicks, int qty) {
+        OrderStatus status = replace(orderId, clientId, priceTicks, qty);
+        this.eventsink.flush();
+        return status;
+    }
+
+    /**
+     * Search the queues for the order and replace it
+     * @return status of the order once replaced
+     */
+    private OrderStatus replace(String orderId, String clientId, long priceTicks, int qty){
+        OrderQueue queue = this.askqueue;
+        OrderNode node = findOrder(queue, orderId, clientId);
+        if (node == null){
+            queue = this.bidqueue;
+            node = findOrder(queue, orderId, clientId);
+        }
+        if (node == null || node.order.isMarketOrder() || priceTicks <= 0 || qty <= 0){
+            return OrderStatus.Rejected;
+        }
+        IOrder order = node.order;
+        order.setOrderQty(order.getCumulativeQty() + qty);
+        if (priceTicks == order.PriceTicks() && qty <= order.getRemainingQty()){
+            order.setRemainingQty(qty);
+            this.eventsink.onOrderReplaced(orderId, priceTicks, qty);
+            return order.getStatus();
+        }
+        queue.remove(node);
+        order.setPriceTicks(priceTicks);
+        order.setRemainingQty(qty);
+        this.eventsink.onOrderReplaced(orderId, priceTicks, qty);
+        try {
+            tryExecuteElseQueue(order);
+        }
+        catch (InvalidOrderSideException | InvalidPriceException e){
+            //Side and price of a queued limit order are valid
+            throw new IllegalStateException(e);
+        }
+        return order.getStatus();
+    }
+
+    /**
+     * Search a queue for the order of a client
+     * @return node of the order, {@code null} if not found
+     */
+    private OrderNode findOrder(OrderQueue queue, String orderId, String clientId){
+        for (OrderNode node = queue.first(); node != null; node = node.next){
+            if (Objects.equals(node.order.OrderID(), orderId) && Objects.equals(node.order.ClientID(), clientId)){
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Record the orders of each side to the metrics, buys as bids and sells as asks like the level books
+     * The ask queue of this book holds the buy orders and the bid queue the sell orders
+     */
+    private void recordDepth(){
+        this.metrics.onDepth(0, this.askqueue.size(), 0, this.bidqueue.size());
+    }
+
+    /**
+     * Search a queue for the order and cancel it
+     * @return true if the order was found and cancelled
+     */
+    private boolean cancelOrder(OrderQueue queue, String orderId, String clientId){
+        for (OrderNode node = queue.first(); node != null; node = node.next){
+            IOrder order = node.order;
+            if (Objects.equals(order.OrderID(), orderId) && Objects.equals(order.ClientID(), clientId)){
+                setCancelOrderStatus(order);
+                queue.remove(node);
+                return true;
             }
         }
-        for (IOrder order : this.bidqueue){
-            if (order.OrderID()==orderId && order.ClientID()==clientId){
-                order.setStatus(OrderStatus.Cancelled);
-                this.bidqueue.remove(order);
-                break;
+        return false;
+    }
+
+    /**
+     * Unlink the orders of a client from a queue, setting them cancelled
+     * @param side side of the orders to cancel, {@code null} for both sides
+     * @return number of orders cancelled
+     */
+    private int cancelClient(OrderQueue queue, String clientId, OrderSide side){
+        int cancelled = 0;
+        OrderNode node = queue.first();
+        while (node != null){
+            OrderNode next = node.next;
+            IOrder order = node.order;
+            if (clientId.equals(order.ClientID()) && (side == null || order.Side() == side)){
+                setCancelOrderStatus(order);
+                queue.remove(node);
+                cancelled++;
             }
+            node = next;
         }
+        return cancelled;
     }
 
     /**
@@ -101,15 +304,46 @@ public class SimpleOrderBookImpl implements IOrderBook {
      */
     private void setCancelOrderStatus(IOrder order){
         order.setStatus(OrderStatus.Cancelled);
+        this.eventsink.onOrderCancelled(order.OrderID(), order.getRemainingQty());
     }
 
     /**
-     * Logs order received message
-     * @param order the order of which details should be printed
+     * Create a fill priced at the limit of an order
+     * @param fillQty executed quantity
+     * @param order order whose limit price in ticks is the fill price
+     * @return fill in the tick size of the instrument
      */
-    private void printOrderReceivedMessage(IOrder order){
-        System.out.print("Order Received: " + order.Side() + " " + Integer.toString(order.OrderQty()) + " " + Double.toString(order.Price()));
+    private Fill newFill(int fillQty, IOrder order){
+        return new Fill(fillQty, order.PriceTicks(), this.instrument.TickSize());
+    }
+
+    /**
+     * Notify the execution listener and event sink of an execution between a queued and an incoming order
+     * @param queueOrder queued order
+     * @param order incoming order
+     * @param fillQty executed quantity
+     * @param priceTicks executed price in ticks
+     */
+    private void publishExecution(IOrder queueOrder, IOrder order, int fillQty, long priceTicks){
+        this.matchedfills++;
+        if (queueOrder.PriceTicks() != this.lastmatchedprice){
+            this.matchedlevels++;
+            this.lastmatchedprice = queueOrder.PriceTicks();
+        }
+        if (this.executionlistener != null){
+            this.executionlistener.onExecution(queueOrder.OrderID(), order.OrderID(), priceTicks, fillQty,
+                    queueOrder.getStatus(), order.getStatus());
+        }
+        this.eventsink.onExecution(queueOrder.OrderID(), order.OrderID(), priceTicks, fillQty);
+    }
 
+    /**
+     * Logs order received event
+     * @param order the order of which details should be logged
+     */
+    private void logOrderReceived(IOrder order){
+        this.eventsink.onOrderReceived(order.OrderID(), order.Side(), order.OrderQty(), order.PriceTicks(),
+                order.isMarketOrder());
     }
 
     /** Queue straight away if empty queue else try execute order if no more at price level queue**/
@@ -167,8 +401,7 @@ public class SimpleOrderBookImpl implements IOrderBook {
      * @param order order to add
      */
     private void addOrderBidQueue(IOrder order){
-        this.bidqueue.add(order);
-        Collections.sort(this.bidqueue);
+        insertSorted(this.bidqueue, order);
     }
 
     /**
@@ -176,8 +409,21 @@ public class SimpleOrderBookImpl implements IOrderBook {
      * @param order order to add
      */
     private void addOrderAskQueue(IOrder order){
-        this.askqueue.add(order);
-        Collections.sort(this.askqueue);
+        insertSorted(this.askqueue, order);
+    }
+
+    /**
+     * Insert order behind every queued order at the same or a lower price
+     * keeping the queue sorted by price and in time priority within a price
+     * @param queue queue to add to
+     * @param order order to add
+     */
+    private void insertSorted(OrderQueue queue, IOrder order){
+        OrderNode at = queue.last();
+        while (at != null && at.order.PriceTicks() > order.PriceTicks()){
+            at = at.prev;
+        }
+        queue.insertAfter(new OrderNode(order), at);
     }
 
     /**
@@ -200,13 +446,13 @@ public class SimpleOrderBookImpl implements IOrderBook {
      * @param order order to execute
      */
     private void matchSellOrder(IOrder order) throws InvalidPriceException{
-        if (order.Price() != 0){
-            matchSellOrderLimit(order);
-        }
-        else if (order.Price() ==0){
+        if (order.isMarketOrder()){
             matchSellOrderMarket(order);
         }
-        else{
+        else if (order.PriceTicks() > 0){
+            matchSellOrderLimit(order);
+        }
+        else {
             throw new InvalidPriceException("Invalid price in order");
         }
     }
@@ -216,84 +462,88 @@ public class SimpleOrderBookImpl implements IOrderBook {
      * @param order order to execute
      */
     private void matchSellOrderLimit(IOrder order){
-        for (int i =0; i<this.askqueue.size(); i++){
-            IOrder queueOrder = this.askqueue.get(i);
-            if (order.Price() >= queueOrder.Price() && order.getRemainingQty()>0) {
+        for (OrderNode node = this.askqueue.first(), next; node != null; node = next){
+            next = node.next;
+            IOrder queueOrder = node.order;
+            if (order.PriceTicks() >= queueOrder.PriceTicks() && order.getRemainingQty()>0) {
                 int remaining = queueOrder.getRemainingQty()-order.getRemainingQty();
                 if ( remaining >0) {
-                    order.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                    order.FillOrder(newFill(order.getRemainingQty(), order));
                     order.setStatus(OrderStatus.FullyFilled);
-                    queueOrder.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                    queueOrder.FillOrder(newFill(order.getRemainingQty(), order));
                     queueOrder.setStatus(OrderStatus.PartialFill);
+                    publishExecution(queueOrder, order, order.getRemainingQty(), order.PriceTicks());
                     queueOrder.setRemainingQty(remaining);
                     order.setRemainingQty(0);
                 }
                 else if (remaining ==0){
-                    order.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                    order.FillOrder(newFill(order.getRemainingQty(), order));
                     order.setStatus(OrderStatus.FullyFilled);
-                    queueOrder.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                    queueOrder.FillOrder(newFill(order.getRemainingQty(), order));
                     queueOrder.setStatus(OrderStatus.FullyFilled);
+                    publishExecution(queueOrder, order, order.getRemainingQty(), order.PriceTicks());
                     queueOrder.setRemainingQty(0);
                     order.setRemainingQty(0);
-                    //Remove fully filled order and reduce iterator
-                    this.askqueue.remove(i);
-                    i--;
+                    //Unlink fully filled order
+                    this.askqueue.remove(node);
                 }
                 else {
                     //fully fill queued order remove from queue
                     remaining = order.getRemainingQty() -queueOrder.getRemainingQty();
-                    queueOrder.FillOrder(new Fill(queueOrder.getRemainingQty(), order.Price()));
+                    queueOrder.FillOrder(newFill(queueOrder.getRemainingQty(), order));
                     queueOrder.setStatus(OrderStatus.FullyFilled);
-                    order.FillOrder(new Fill((queueOrder.getRemainingQty()), queueOrder.Price()));
+                    order.FillOrder(newFill(queueOrder.getRemainingQty(), queueOrder));
                     order.setStatus(OrderStatus.PartialFill);
+                    publishExecution(queueOrder, order, queueOrder.getRemainingQty(), queueOrder.PriceTicks());
                     order.setRemainingQty(remaining);
                     queueOrder.setRemainingQty(0);
-                    //Remove fully filled order and reduce iterator
-                    this.askqueue.remove(i);
-                    i--;
+                    //Unlink fully filled order
+                    this.askqueue.remove(node);
                 }
             }
         }
     }
 
     /**
-     * Execute on ask queue at market px
+     * Execute on ask queue at market, each fill at the price of the queued order
      * @param order order to execute
      */
     private void matchSellOrderMarket(IOrder order){
-        for (int i =0; i<this.askqueue.size(); i++){
-            IOrder queueOrder = this.askqueue.get(i);
+        for (OrderNode node = this.askqueue.first(), next; node != null && order.getRemainingQty() > 0; node = next){
+            next = node.next;
+            IOrder queueOrder = node.order;
             int remaining = queueOrder.getRemainingQty()-order.getRemainingQty();
             if ( remaining >0) {
-                order.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                order.FillOrder(newFill(order.getRemainingQty(), queueOrder));
                 order.setStatus(OrderStatus.FullyFilled);
-                queueOrder.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                queueOrder.FillOrder(newFill(order.getRemainingQty(), queueOrder));
                 queueOrder.setStatus(OrderStatus.PartialFill);
+                publishExecution(queueOrder, order, order.getRemainingQty(), queueOrder.PriceTicks());
                 queueOrder.setRemainingQty(remaining);
                 order.setRemainingQty(0);
             }
             else if (remaining ==0){
-                order.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                order.FillOrder(newFill(order.getRemainingQty(), queueOrder));
                 order.setStatus(OrderStatus.FullyFilled);
-                queueOrder.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                queueOrder.FillOrder(newFill(order.getRemainingQty(), queueOrder));
                 queueOrder.setStatus(OrderStatus.FullyFilled);
+                publishExecution(queueOrder, order, order.getRemainingQty(), queueOrder.PriceTicks());
                 queueOrder.setRemainingQty(0);
                 order.setRemainingQty(0);
-                //Remove fully filled order and reduce iterator
-                this.askqueue.remove(i);
-                i--;
+                //Unlink fully filled order
+                this.askqueue.remove(node);
             }else {
                 //fully fill queued order remove from queue
                 remaining = order.getRemainingQty() -queueOrder.getRemainingQty();
-                queueOrder.FillOrder(new Fill(queueOrder.getRemainingQty(), order.Price()));
+                queueOrder.FillOrder(newFill(queueOrder.getRemainingQty(), queueOrder));
                 queueOrder.setStatus(OrderStatus.FullyFilled);
-                order.FillOrder(new Fill((queueOrder.getRemainingQty()), queueOrder.Price()));
+                order.FillOrder(newFill(queueOrder.getRemainingQty(), queueOrder));
                 order.setStatus(OrderStatus.PartialFill);
+                publishExecution(queueOrder, order, queueOrder.getRemainingQty(), queueOrder.PriceTicks());
                 order.setRemainingQty(remaining);
                 queueOrder.setRemainingQty(0);
-                //Remove fully filled order and reduce iterator
-                this.askqueue.remove(i);
-                i--;
+                //Unlink fully filled order
+                this.askqueue.remove(node);
             }
 
         }
@@ -305,12 +555,12 @@ public class SimpleOrderBookImpl implements IOrderBook {
      * @param order order to execute
      */
     private void matchBuyOrder(IOrder order) throws InvalidPriceException{
-        if (order.Price() != 0){
-            matchBuyOrderLimit(order);
-        }
-        else if (order.Price() == 0){
+        if (order.isMarketOrder()){
             matchBuyOrderMarket(order);
         }
+        else if (order.PriceTicks() > 0){
+            matchBuyOrderLimit(order);
+        }
         else {
             throw new InvalidPriceException("Invalid price in order");
         }
@@ -321,84 +571,88 @@ public class SimpleOrderBookImpl implements IOrderBook {
      * @param order order to execute
      */
     private void matchBuyOrderLimit(IOrder order){
-        for (int i =0; i<this.bidqueue.size(); i++){
-            IOrder queueOrder = this.bidqueue.get(i);
-            if (order.Price() <= queueOrder.Price() && order.getRemainingQty()>0) {
+        for (OrderNode node = this.bidqueue.first(), next; node != null; node = next){
+            next = node.next;
+            IOrder queueOrder = node.order;
+            if (order.PriceTicks() <= queueOrder.PriceTicks() && order.getRemainingQty()>0) {
                 int remaining = queueOrder.getRemainingQty() - order.getRemainingQty();
                 if (remaining > 0) {
-                    order.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                    order.FillOrder(newFill(order.getRemainingQty(), order));
                     order.setStatus(OrderStatus.FullyFilled);
-                    queueOrder.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                    queueOrder.FillOrder(newFill(order.getRemainingQty(), order));
                     queueOrder.setStatus(OrderStatus.PartialFill);
+                    publishExecution(queueOrder, order, order.getRemainingQty(), order.PriceTicks());
                     queueOrder.setRemainingQty(remaining);
                     order.setRemainingQty(0);
                 }
                 else if (remaining ==0){
-                    order.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                    order.FillOrder(newFill(order.getRemainingQty(), order));
                     order.setStatus(OrderStatus.FullyFilled);
-                    queueOrder.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                    queueOrder.FillOrder(newFill(order.getRemainingQty(), order));
                     queueOrder.setStatus(OrderStatus.FullyFilled);
+                    publishExecution(queueOrder, order, order.getRemainingQty(), order.PriceTicks());
                     queueOrder.setRemainingQty(0);
                     order.setRemainingQty(0);
-                    //Remove fully filled order and reduce iterator
-                    this.bidqueue.remove(i);
-                    i--;
+                    //Unlink fully filled order
+                    this.bidqueue.remove(node);
                 }
                 else {
                     //fully fill queued order remove from queue
                     remaining = order.getRemainingQty() -queueOrder.getRemainingQty();
-                    queueOrder.FillOrder(new Fill(queueOrder.getRemainingQty(), order.Price()));
+                    queueOrder.FillOrder(newFill(queueOrder.getRemainingQty(), order));
                     queueOrder.setStatus(OrderStatus.FullyFilled);
-                    order.FillOrder(new Fill((queueOrder.getRemainingQty()), queueOrder.Price()));
+                    order.FillOrder(newFill(queueOrder.getRemainingQty(), queueOrder));
                     order.setStatus(OrderStatus.PartialFill);
+                    publishExecution(queueOrder, order, queueOrder.getRemainingQty(), queueOrder.PriceTicks());
                     order.setRemainingQty(remaining);
                     queueOrder.setRemainingQty(0);
-                    //Remove fully filled order and reduce iterator
-                    this.bidqueue.remove(i);
-                    i--;
+                    //Unlink fully filled order
+                    this.bidqueue.remove(node);
                 }
             }
         }
     }
 
     /**
-     * Match up and execute buy at market price
+     * Match up and execute buy at market, each fill at the price of the queued order
      * @param order order to execute
      */
     private void matchBuyOrderMarket(IOrder order){
-        for (int i =0; i<this.bidqueue.size(); i++){
-            IOrder queueOrder = this.bidqueue.get(i);
+        for (OrderNode node = this.bidqueue.first(), next; node != null && order.getRemainingQty() > 0; node = next){
+            next = node.next;
+            IOrder queueOrder = node.order;
             int remaining = queueOrder.getRemainingQty()-order.getRemainingQty();
             if ( remaining >0) {
-                order.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                order.FillOrder(newFill(order.getRemainingQty(), queueOrder));
                 order.setStatus(OrderStatus.FullyFilled);
-                queueOrder.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                queueOrder.FillOrder(newFill(order.getRemainingQty(), queueOrder));
                 queueOrder.setStatus(OrderStatus.PartialFill);
+                publishExecution(queueOrder, order, order.getRemainingQty(), queueOrder.PriceTicks());
                 queueOrder.setRemainingQty(remaining);
                 order.setRemainingQty(0);
             }
             else if (remaining ==0){
-                order.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                order.FillOrder(newFill(order.getRemainingQty(), queueOrder));
                 order.setStatus(OrderStatus.FullyFilled);
-                queueOrder.FillOrder(new Fill(order.getRemainingQty(), order.Price()));
+                queueOrder.FillOrder(newFill(order.getRemainingQty(), queueOrder));
                 queueOrder.setStatus(OrderStatus.FullyFilled);
+                publishExecution(queueOrder, order, order.getRemainingQty(), queueOrder.PriceTicks());
                 queueOrder.setRemainingQty(0);
                 order.setRemainingQty(0);
-                //Remove fully filled order and reduce iterator
-                this.bidqueue.remove(i);
-                i--;
+                //Unlink fully filled order
+                this.bidqueue.remove(node);
             }else {
                 //fully fill queued order remove from queue
                 remaining = order.getRemainingQty() -queueOrder.getRemainingQty();
-                queueOrder.FillOrder(new Fill(queueOrder.getRemainingQty(), order.Price()));
+                queueOrder.FillOrder(newFill(queueOrder.getRemainingQty(), queueOrder));
                 queueOrder.setStatus(OrderStatus.FullyFilled);
-                order.FillOrder(new Fill((queueOrder.getRemainingQty()), queueOrder.Price()));
+                order.FillOrder(newFill(queueOrder.getRemainingQty(), queueOrder));
                 order.setStatus(OrderStatus.PartialFill);
+                publishExecution(queueOrder, order, queueOrder.getRemainingQty(), queueOrder.PriceTicks());
                 order.setRemainingQty(remaining);
                 queueOrder.setRemainingQty(0);
-                //Remove fully filled order and reduce iterator
-                this.bidqueue.remove(i);
-                i--;
+                //Unlink fully filled order
+                this.bidqueue.remove(node);
             }
 
         }
@@ -3,6 +3,13 @@ package com.hon.orderbook;
 public class SimpleOrderBuilder {
     private String orderid;
     private double price;
+    private long priceticks;
+    private boolean priceinticks;
+    private double stopprice;
+    private long stopticks;
+    private boolean stopinticks;
+    private double ticksize = Instrument.DEFAULT_TICK_SIZE;
+    private boolean market;
     private OrderSide side;
     private OrderType orderType = OrderType.GTC;
     private String clientid;
@@ -21,6 +28,40 @@ public class SimpleOrderBuilder {
 
     public SimpleOrderBuilder setPrice(double price) {
         this.price = price;
+        this.priceinticks = false;
+        return this;
+    }
+
+    public SimpleOrderBuilder setPriceTicks(long priceTicks) {
+        this.priceticks = priceTicks;
+        this.priceinticks = true;
+        return this;
+    }
+
+    public SimpleOrderBuilder setStopPrice(double stopPrice) {
+        this.stopprice = stopPrice;
+        this.stopinticks = false;
+        return this;
+    }
+
+    public SimpleOrderBuilder setStopPriceTicks(long stopPriceTicks) {
+        this.stopticks = stopPriceTicks;
+        this.stopinticks = true;
+        return this;
+    }
+
+    public SimpleOrderBuilder setTickSize(double tickSize) {
+        this.ticksize = tickSize;
+        return this;
+    }
+
+    public SimpleOrderBuilder setInstrument(Instrument instrument) {
+        this.ticksize = instrument.TickSize();
+        return this;
+    }
+
+    public SimpleOrderBuilder setMarket(boolean market) {
+        this.market = market;
         return this;
     }
 
@@ -45,8 +86,10 @@ public class SimpleOrderBuilder {
     }
 
     public SimpleOrder createSimpleOrder() {
-        SimpleOrder simpleOrder = new SimpleOrder(orderid, price, side, orderType, clientid, orderqty);
+        long ticks = this.priceinticks ? this.priceticks : Instrument.toTicks(this.price, this.ticksize);
+        SimpleOrder simpleOrder = new SimpleOrder(orderid, ticks, ticksize, market, side, orderType, clientid, orderqty);
         simpleOrder.setStatus(this.orderStatus);
+        simpleOrder.setStopPriceTicks(this.stopinticks ? this.stopticks : Instrument.toTicks(this.stopprice, this.ticksize));
         return simpleOrder;
     }
 }
\ No newline at end of file
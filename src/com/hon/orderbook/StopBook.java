@@ -0,0 +1,159 @@
+package com.hon.orderbook;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Untriggered stop and stop limit orders of an order book, kept off the bid and ask sides
+ * in their own price levels keyed by stop price<p>
+ * Buy stops are ranked lowest stop price first and sell stops highest stop price first,
+ * so the stops triggered by a range of trade prices are always at the front of their side.
+ * Finding them walks only the triggered levels and never the pending stops.
+ * Adding a stop costs O(log S) for S distinct stop prices, removing one by order id is a hash lookup.
+ * Stops are also indexed by client so the stops of a client are found without a scan<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+final class StopBook {
+
+    private final BookSide buystops = new TreeBookSide(OrderSide.Sell);
+    private final BookSide sellstops = new TreeBookSide(OrderSide.Buy);
+    private final OrderIdIndex stoporders = new OrderIdIndex(64);
+    private final ClientOrderIndex clientorders = new ClientOrderIndex(64);
+
+    /**
+     * Returns the number of pending stop orders
+     * @return number of orders
+     */
+    int size(){
+        return this.stoporders.size();
+    }
+
+    /**
+     * Returns the node of a pending stop order
+     * @param orderId OrderId of the stop order
+     * @return node or {@code null} if no stop order is pending under the order id
+     */
+    OrderNode get(String orderId){
+        return this.stoporders.get(orderId);
+    }
+
+    boolean containsKey(String orderId){
+        return this.stoporders.containsKey(orderId);
+    }
+
+    /**
+     * Append the pending stops in the order they trigger, buy stops lowest stop price first
+     * then sell stops highest stop price first, in time priority within a stop price
+     * @param orders list to append the stops to
+     */
+    void copyOrders(List<IOrder> orders){
+        copyOrders(this.buystops, orders);
+        copyOrders(this.sellstops, orders);
+    }
+
+    private static void copyOrders(BookSide side, List<IOrder> orders){
+        for (PriceLevel level = side.best(); level != null; level = side.next(level)){
+            for (OrderNode node = level.first(); node != null; node = node.next){
+                orders.add(node.order);
+            }
+        }
+    }
+
+    /**
+     * Add a stop order at the back of the level of its stop price
+     * @param order stop or stop limit order with a stop price
+     */
+    void add(IOrder order){
+        BookSide side = side(order.Side());
+        OrderNode node = new OrderNode(order);
+        side.getOrCreate(order.StopPriceTicks()).addLast(node);
+        side.addOrderCount(1);
+        this.stoporders.put(order.OrderID(), node);
+        this.clientorders.add(node);
+    }
+
+    /**
+     * Returns the node of the most recent pending stop of a client, the others linked through {@code clientnext}
+     * @param clientId ClientId of the stops
+     * @return first node or {@code null} if the client has no pending stop
+     */
+    OrderNode clientOrders(String clientId){
+        return this.clientorders.first(clientId);
+    }
+
+    /**
+     * Remove the pending stop of a node
+     * @param node node of a pending stop
+     * @return removed order
+     */
+    IOrder remove(OrderNode node){
+        this.stoporders.remove(node.order.OrderID());
+        return unlink(side(node.order.Side()), node);
+    }
+
+    /**
+     * Remove a pending stop order looked up by order id
+     * @param orderId OrderId of the stop order
+     * @param clientId ClientId that owns the order
+     * @return removed order, {@code null} if no stop order of the client is pending under the order id
+     */
+    IOrder remove(String orderId, String clientId){
+        OrderNode node = this.stoporders.get(orderId);
+        if (node == null || !Objects.equals(node.order.ClientID(), clientId)){
+            return null;
+        }
+        return remove(node);
+    }
+
+    /**
+     * Remove the next stop order triggered by trades from a low to a high price
+     * Buy stops at or below the high come first, lowest stop price first, then sell stops at or above
+     * the low, highest stop price first, in time priority within a stop price
+     * @param low lowest trade price in ticks
+     * @param high highest trade price in ticks
+     * @return triggered order, {@code null} if no pending stop is triggered
+     */
+    IOrder pollTriggered(long low, long high){
+        PriceLevel level = this.buystops.best();
+        if (level != null && level.getPrice() <= high){
+            return poll(this.buystops, level);
+        }
+        level = this.sellstops.best();
+        if (level != null && level.getPrice() >= low){
+            return poll(this.sellstops, level);
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether a stop order is triggered by a trade price
+     * @param order stop or stop limit order
+     * @param tradePrice trade price in ticks
+     */
+    static boolean isTriggered(IOrder order, long tradePrice){
+        return order.Side() == OrderSide.Buy
+                ? tradePrice >= order.StopPriceTicks() : tradePrice <= order.StopPriceTicks();
+    }
+
+    private IOrder poll(BookSide side, PriceLevel level){
+        OrderNode node = level.first();
+        this.stoporders.remove(node.order.OrderID());
+        return unlink(side, node);
+    }
+
+    private IOrder unlink(BookSide side, OrderNode node){
+        IOrder order = node.order;
+        this.clientorders.remove(node);
+        PriceLevel level = (PriceLevel) node.queue;
+        level.remove(node);
+        side.addOrderCount(-1);
+        if (level.isEmpty()){
+            side.remove(level);
+        }
+        return order;
+    }
+
+    private BookSide side(OrderSide side){
+        return side == OrderSide.Buy ? this.buystops : this.sellstops;
+    }
+}
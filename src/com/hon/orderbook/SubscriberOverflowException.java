@@ -0,0 +1,19 @@
+package com.hon.orderbook;
+
+/**
+ * Signalled to a subscriber of a {@code BoundedPublisher} whose buffer filled up because it did not
+ * keep up with the order book. The subscription is terminated, the subscriber should resubscribe
+ * and resynchronise from a snapshot of the order book
+ */
+public class SubscriberOverflowException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Subscriber overflow exception constructor
+     * @param capacity capacity of the buffer that overflowed
+     */
+    public SubscriberOverflowException(int capacity){
+        super("Subscriber buffer of " + capacity + " items overflowed");
+    }
+}
@@ -0,0 +1,63 @@
+package com.hon.orderbook;
+
+import java.io.PrintStream;
+
+/**
+ * An event sink that prints the order received and rejected messages as text
+ * {@code Order Received: Buy 1000 100.0} followed by the reason of a rejected order<p>
+ * Writes synchronously on the calling thread, wrap in an {@code AsyncEventLog} to format
+ * and print on a background thread
+ *
+ */
+
+public class TextEventSink implements IEventSink {
+
+    private final PrintStream out;
+    private final double ticksize;
+
+    /**
+     * Text event sink printing to the current {@code System.out}
+     * @param tickSize tick size used to print prices
+     */
+    public TextEventSink(double tickSize){
+        this(null, tickSize);
+    }
+
+    /**
+     * Text event sink
+     * @param out stream to print to, {@code null} for the current {@code System.out}
+     * @param tickSize tick size used to print prices
+     */
+    public TextEventSink(PrintStream out, double tickSize){
+        this.out = out;
+        this.ticksize = tickSize;
+    }
+
+    @Override
+    public void onOrderReceived(String orderId, OrderSide side, int qty, long priceTicks, boolean market) {
+        out().print("Order Received: " + side + " " + Integer.toString(qty) + " "
+                + Double.toString(Instrument.toPrice(priceTicks, this.ticksize)));
+    }
+
+    @Override
+    public void onOrderRejected(String orderId, String reason) {
+        out().println(reason);
+    }
+
+    @Override
+    public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty) {
+    }
+
+    @Override
+    public void onOrderCancelled(String orderId, int remainingQty) {
+    }
+
+    @Override
+    public void flush() {
+        out().flush();
+    }
+
+    private PrintStream out(){
+        return this.out == null ? System.out : this.out;
+    }
+}
@@ -0,0 +1,68 @@
+package com.hon.orderbook;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Book side that keeps its price levels in a sorted map
+ * Adding or removing a level costs O(log P) for P levels, the best level is cached<p>
+ * non thread safe, should not be used in multi-threaded environment
+ */
+class TreeBookSide extends BookSide {
+
+    private final TreeMap<Long, PriceLevel> levels;
+    private PriceLevel best;
+
+    TreeBookSide(OrderSide side){
+        super(side);
+        this.levels = side == OrderSide.Buy
+                ? new TreeMap<Long, PriceLevel>(Collections.reverseOrder())
+                : new TreeMap<Long, PriceLevel>();
+    }
+
+    @Override
+    PriceLevel best() {
+        return this.best;
+    }
+
+    @Override
+    PriceLevel get(long price) {
+        return this.levels.get(price);
+    }
+
+    @Override
+    PriceLevel getOrCreate(long price) {
+        PriceLevel level = this.levels.get(price);
+        if (level == null){
+            level = new PriceLevel(price);
+            this.levels.put(price, level);
+            if (this.best == null || isBetter(price, this.best.getPrice())){
+                this.best = level;
+            }
+        }
+        return level;
+    }
+
+    @Override
+    void remove(PriceLevel level) {
+        this.levels.remove(level.getPrice());
+        if (this.best == level){
+            this.best = value(this.levels.firstEntry());
+        }
+    }
+
+    @Override
+    PriceLevel next(PriceLevel level) {
+        return value(this.levels.higherEntry(level.getPrice()));
+    }
+
+    @Override
+    int levelCount() {
+        return this.levels.size();
+    }
+
+    private static PriceLevel value(Map.Entry<Long, PriceLevel> entry){
+        return entry == null ? null : entry.getValue();
+    }
+}
@@ -0,0 +1,29 @@
+package com.hon.orderbook;
+
+/**
+ * Order book implementation of the {@code IOrderBook} interface that keeps
+ * a sorted map of price levels per side, each level holding its orders first in first out<p>
+ * Inserting a resting order costs O(log P) for P price levels, the best price on each side is cached.
+ * Suited to instruments whose prices are not bounded to a range of ticks.<p>
+ * A simple non thread safe implemenation
+ */
+public class TreeOrderBookImpl extends AbstractLevelOrderBook {
+
+    /**
+     * Tree order book implementation constructor
+     * create bid and ask price level maps for an instrument priced in the default tick size
+     * @param instrument instrument of order book
+     */
+    public TreeOrderBookImpl(String instrument){
+        this(new Instrument(instrument, Instrument.DEFAULT_TICK_SIZE));
+    }
+
+    /**
+     * Tree order book implementation constructor
+     * create bid and ask price level maps
+     * @param instrument instrument and tick size of order book
+     */
+    public TreeOrderBookImpl(Instrument instrument){
+        super(instrument, new TreeBookSide(OrderSide.Buy), new TreeBookSide(OrderSide.Sell));
+    }
+}
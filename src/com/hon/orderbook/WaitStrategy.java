@@ -0,0 +1,54 @@
+package com.hon.orderbook;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Enumerable wait strategy of a thread waiting on the {@code OrderSequencer} ring
+ * BusySpin, spin on the CPU, lowest latency and a full core per waiting thread
+ * Yielding, spin then yield the CPU to other threads
+ * Parking, spin and yield then park, the least CPU and the highest wake up latency
+ */
+
+public enum WaitStrategy {
+    BusySpin {
+        @Override
+        public void idle(int attempts) {
+            Thread.onSpinWait();
+        }
+    },
+    Yielding {
+        @Override
+        public void idle(int attempts) {
+            if (attempts < SPIN_ATTEMPTS){
+                Thread.onSpinWait();
+            }
+            else {
+                Thread.yield();
+            }
+        }
+    },
+    Parking {
+        @Override
+        public void idle(int attempts) {
+            if (attempts < SPIN_ATTEMPTS){
+                Thread.onSpinWait();
+            }
+            else if (attempts < SPIN_ATTEMPTS + YIELD_ATTEMPTS){
+                Thread.yield();
+            }
+            else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_ATTEMPTS = 100;
+    private static final int YIELD_ATTEMPTS = 100;
+    private static final long PARK_NANOS = 1000;
+
+    /**
+     * Wait once while there is nothing to do
+     * @param attempts number of times the thread has waited since it last had work
+     */
+    public abstract void idle(int attempts);
+}
@@ -0,0 +1,98 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Asynchronous event log test cases
+ *
+ */
+public class AsyncEventLogTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    /** Event sink collecting events as text **/
+    private static class CollectingEventSink implements IEventSink {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onOrderReceived(String orderId, OrderSide side, int qty, long priceTicks, boolean market) {
+            events.add("received " + orderId + " " + side + " " + qty + " " + priceTicks + " " + market);
+        }
+
+        @Override
+        public void onOrderRejected(String orderId, String reason) {
+            events.add("rejected " + orderId + " " + reason);
+        }
+
+        @Override
+        public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty) {
+            events.add("execution " + makerOrderId + " " + takerOrderId + " " + priceTicks + " " + qty);
+        }
+
+        @Override
+        public void onOrderCancelled(String orderId, int remainingQty) {
+            events.add("cancelled " + orderId + " " + remainingQty);
+        }
+    }
+
+    /** Test events raised by an order book reach the target sink in order **/
+    @Test
+    public void TestEventsDeliveredInOrder(){
+        CollectingEventSink sink = new CollectingEventSink();
+        AsyncEventLog eventlog = new AsyncEventLog(sink, 1024);
+        eventlog.start();
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.setEventSink(eventlog);
+        orderbook.submitOrder(new SimpleOrderBuilder().setOrderid("test1").setInstrument(INSTRUMENT).setPriceTicks(10000)
+                .setSide(OrderSide.Sell).setClientid("hon123").setOrderqty(100).createSimpleOrder());
+        orderbook.submitOrder(new SimpleOrderBuilder().setOrderid("test2").setInstrument(INSTRUMENT).setPriceTicks(10000)
+                .setSide(OrderSide.Buy).setClientid("hon123").setOrderqty(40).createSimpleOrder());
+        orderbook.submitOrder(new SimpleOrderBuilder().setOrderid("test3").setInstrument(INSTRUMENT)
+                .setSide(OrderSide.Buy).setClientid("hon123").setOrderqty(40).createSimpleOrder());
+        orderbook.cancelOrder("test1", "hon123");
+        eventlog.close();
+        Assert.assertEquals(0, eventlog.droppedEvents());
+        List<String> expected = new ArrayList<>();
+        expected.add("received test1 Sell 100 10000 false");
+        expected.add("received test2 Buy 40 10000 false");
+        expected.add("execution test1 test2 10000 40");
+        expected.add("received test3 Buy 40 0 false");
+        expected.add("rejected test3 Invalid price in order");
+        expected.add("cancelled test1 60");
+        Assert.assertEquals(expected, sink.events);
+    }
+
+    /** Test events raised while the ring is full are dropped and counted **/
+    @Test
+    public void TestDropWhenFull(){
+        CollectingEventSink sink = new CollectingEventSink();
+        AsyncEventLog eventlog = new AsyncEventLog(sink, 4);
+        for (int i = 0; i < 6; i++){
+            eventlog.onOrderCancelled("test" + i, i);
+        }
+        Assert.assertEquals(2, eventlog.droppedEvents());
+        eventlog.flush();
+        eventlog.start();
+        eventlog.close();
+        Assert.assertEquals(4, sink.events.size());
+        Assert.assertEquals("cancelled test3 3", sink.events.get(3));
+    }
+
+    /** Test events recorded after the last flush are delivered on close **/
+    @Test
+    public void TestCloseDeliversUnflushedEvents(){
+        CollectingEventSink sink = new CollectingEventSink();
+        AsyncEventLog eventlog = new AsyncEventLog(sink, 16);
+        eventlog.start();
+        eventlog.onOrderCancelled("test1", 10);
+        eventlog.flush();
+        eventlog.onOrderCancelled("test2", 20);
+        eventlog.close();
+        Assert.assertEquals(2, sink.events.size());
+        Assert.assertEquals("cancelled test2 20", sink.events.get(1));
+    }
+}
@@ -0,0 +1,139 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Book snapshot publisher test cases
+ *
+ */
+public class BookSnapshotPublisherTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    private SimpleOrder returnTestOrder(String orderId, OrderSide side, long priceTicks, int orderqty){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setSide(side).setClientid("hon123").setOrderqty(orderqty).createSimpleOrder();
+    }
+
+    /** Test levels are published at the end of each update that changed them and forwarded downstream **/
+    @Test
+    public void TestPublishOnUpdate(){
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        int[] updates = new int[1];
+        BookSnapshotPublisher publisher = new BookSnapshotPublisher(orderbook, 5, new IMarketDataListener() {
+            @Override
+            public void onLevelChange(OrderSide side, long priceTicks, long qty, int orderCount) {
+            }
+
+            @Override
+            public void onTrade(long priceTicks, int qty, OrderSide aggressorSide) {
+            }
+
+            @Override
+            public void onEndOfUpdate() {
+                updates[0]++;
+            }
+        });
+        orderbook.setMarketDataListener(publisher);
+        DepthSnapshot snapshot = new DepthSnapshot(2);
+        Assert.assertEquals(0, publisher.read(snapshot));
+        Assert.assertEquals(0, snapshot.bidLevels());
+
+        orderbook.submitOrder(returnTestOrder("test1", OrderSide.Buy, 9999, 100));
+        orderbook.submitOrder(returnTestOrder("test2", OrderSide.Buy, 9998, 100));
+        orderbook.submitOrder(returnTestOrder("test3", OrderSide.Buy, 9997, 100));
+        orderbook.submitOrder(returnTestOrder("test4", OrderSide.Sell, 10001, 50));
+        Assert.assertEquals(4, publisher.read(snapshot));
+        Assert.assertEquals(4, snapshot.getVersion());
+        Assert.assertEquals(2, snapshot.bidLevels());
+        Assert.assertEquals(9999, snapshot.bidPriceTicks(0));
+        Assert.assertEquals(9998, snapshot.bidPriceTicks(1));
+        Assert.assertEquals(1, snapshot.askLevels());
+        Assert.assertEquals(50, snapshot.askQty(0));
+        Assert.assertTrue(snapshot.ageNanos() >= 0);
+
+        //A cancel of an unknown order changes no level and publishes nothing
+        orderbook.cancelOrder("unknown", "hon123");
+        Assert.assertEquals(4, publisher.latestVersion());
+        Assert.assertEquals(5, updates[0]);
+        orderbook.cancelOrder("test1", "hon123");
+        Assert.assertEquals(5, publisher.read(snapshot));
+        Assert.assertEquals(9998, snapshot.bidPriceTicks(0));
+    }
+
+    /** Test readers on other threads always see a consistent uncrossed book while orders are matched **/
+    @Test
+    public void TestConsistentConcurrentReads() throws InterruptedException {
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        BookSnapshotPublisher publisher = new BookSnapshotPublisher(orderbook, 10);
+        orderbook.setMarketDataListener(publisher);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++){
+            readers[r] = new Thread(() -> {
+                DepthSnapshot snapshot = new DepthSnapshot(10);
+                long lastVersion = 0;
+                while (!done.get() && failure.get() == null){
+                    long version = publisher.read(snapshot);
+                    if (version < lastVersion){
+                        failure.set("Version went backwards");
+                    }
+                    lastVersion = version;
+                    for (int i = 1; i < snapshot.bidLevels(); i++){
+                        if (snapshot.bidPriceTicks(i) >= snapshot.bidPriceTicks(i - 1)){
+                            failure.set("Bids out of order");
+                        }
+                    }
+                    for (int i = 1; i < snapshot.askLevels(); i++){
+                        if (snapshot.askPriceTicks(i) <= snapshot.askPriceTicks(i - 1)){
+                            failure.set("Asks out of order");
+                        }
+                    }
+                    if (snapshot.bidLevels() > 0 && snapshot.askLevels() > 0
+                            && snapshot.bidPriceTicks(0) >= snapshot.askPriceTicks(0)){
+                        failure.set("Crossed book");
+                    }
+                    for (int i = 0; i < snapshot.bidLevels(); i++){
+                        if (snapshot.bidQty(i) <= 0 || snapshot.bidOrderCount(i) <= 0){
+                            failure.set("Empty bid level");
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        Random rand = new Random(3);
+        for (int i = 0; i < 100000; i++){
+            if (i > 0 && rand.nextInt(4) == 0){
+                orderbook.cancelOrder("order" + rand.nextInt(i), "hon123");
+                continue;
+            }
+            orderbook.submitOrder(returnTestOrder("order" + i, rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell,
+                    10000 + rand.nextInt(40) - 20, 1 + rand.nextInt(100)));
+        }
+        done.set(true);
+        for (Thread reader : readers){
+            reader.join();
+        }
+        Assert.assertNull(failure.get());
+        DepthSnapshot expected = new DepthSnapshot(10);
+        orderbook.getDepth(expected);
+        DepthSnapshot actual = new DepthSnapshot(10);
+        Assert.assertEquals(publisher.latestVersion(), publisher.read(actual));
+        Assert.assertEquals(expected.bidLevels(), actual.bidLevels());
+        for (int i = 0; i < expected.bidLevels(); i++){
+            Assert.assertEquals(expected.bidPriceTicks(i), actual.bidPriceTicks(i));
+            Assert.assertEquals(expected.bidQty(i), actual.bidQty(i));
+        }
+        Assert.assertEquals(expected.askLevels(), actual.askLevels());
+        for (int i = 0; i < expected.askLevels(); i++){
+            Assert.assertEquals(expected.askPriceTicks(i), actual.askPriceTicks(i));
+            Assert.assertEquals(expected.askOrderCount(i), actual.askOrderCount(i));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.List;
+import java.util.Random;
+
+/** Ladder order book test cases
+ *
+ */
+public class LadderOrderBookImplTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    private int orderId;
+
+    /** Returns a simple order priced in ticks **/
+    private SimpleOrder returnTestOrder(OrderSide side, long priceTicks, int orderqty){
+        return returnTestOrder(side, priceTicks, orderqty, OrderType.GTC);
+    }
+
+    /** Returns a simple order priced in ticks **/
+    private SimpleOrder returnTestOrder(OrderSide side, long priceTicks, int orderqty, OrderType orderType){
+
+        SimpleOrder simpleOrder = new SimpleOrderBuilder().setOrderid("test" + orderId++)
+                .setInstrument(INSTRUMENT)
+                .setPriceTicks(priceTicks).setSide(side)
+                .setClientid("hon123")
+                .setOrderqty(orderqty)
+                .setOrderType(orderType)
+                .createSimpleOrder();
+        return simpleOrder;
+    }
+
+    /** Test levels spread over several bitmap words are ranked best price first **/
+    @Test
+    public void TestPriceOrdering(){
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000, 256);
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9990, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9900, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9999, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 10120, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 10001, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 10064, 100));
+        List<IOrder> bids = orderbook.getBidQueue();
+        List<IOrder> asks = orderbook.getAskQueue();
+        Assert.assertEquals(9999, bids.get(0).PriceTicks());
+        Assert.assertEquals(9990, bids.get(1).PriceTicks());
+        Assert.assertEquals(9900, bids.get(2).PriceTicks());
+        Assert.assertEquals(10001, asks.get(0).PriceTicks());
+        Assert.assertEquals(10064, asks.get(1).PriceTicks());
+        Assert.assertEquals(10120, asks.get(2).PriceTicks());
+    }
+
+    /** Test sweep across bitmap words finds each next best level **/
+    @Test
+    public void TestSweepPriceLevels(){
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000, 256);
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 10050, 1000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Buy, 9980, 1000);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 9880, 1000);
+        SimpleOrder simpleOrder3 = returnTestOrder(OrderSide.Sell, 9950, 2500);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        orderbook.submitOrder(simpleOrder3);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder1.getStatus());
+        Assert.assertEquals(OrderStatus.New, simpleOrder2.getStatus());
+        Assert.assertEquals(OrderStatus.PartialFill, simpleOrder3.getStatus());
+        Assert.assertEquals(10050, simpleOrder3.Fills().get(0).PriceTicks());
+        Assert.assertEquals(9980, simpleOrder3.Fills().get(1).PriceTicks());
+        Assert.assertSame(simpleOrder2, orderbook.getBidQueue().get(0));
+        Assert.assertSame(simpleOrder3, orderbook.getAskQueue().get(0));
+    }
+
+    /** Test prices outside the window re-centre and grow the ladder without losing levels **/
+    @Test
+    public void TestRecenter(){
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000, 64);
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9990, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9000, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 12000, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 50000, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 12001, 100));
+        List<IOrder> bids = orderbook.getBidQueue();
+        List<IOrder> asks = orderbook.getAskQueue();
+        Assert.assertEquals(3, bids.size());
+        Assert.assertEquals(12000, bids.get(0).PriceTicks());
+        Assert.assertEquals(9990, bids.get(1).PriceTicks());
+        Assert.assertEquals(9000, bids.get(2).PriceTicks());
+        Assert.assertEquals(12001, asks.get(0).PriceTicks());
+        Assert.assertEquals(50000, asks.get(1).PriceTicks());
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 9000, 300, OrderType.ImmediateOrCancel);
+        orderbook.submitOrder(simpleOrder);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(0, orderbook.getBidQueue().size());
+    }
+
+    /** Test cancel of the best level moves the best price to the next occupied level **/
+    @Test
+    public void TestCancelBestLevel(){
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000, 256);
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 10001, 100);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 10100, 100);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.cancelOrder(simpleOrder.OrderID(), simpleOrder.ClientID());
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder.getStatus());
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 10100, 100);
+        orderbook.submitOrder(simpleOrder2);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder1.getStatus());
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder2.getStatus());
+        Assert.assertEquals(0, orderbook.getAskQueue().size());
+    }
+
+    /** Test ladder book produces the same book as the tree book for a random order flow **/
+    @Test
+    public void TestMatchesTreeOrderBook(){
+        Random rand = new Random(42);
+        LadderOrderBookImpl ladderbook = new LadderOrderBookImpl(INSTRUMENT, 10000, 128);
+        TreeOrderBookImpl treebook = new TreeOrderBookImpl(INSTRUMENT);
+        for (int i = 0; i < 5000; i++){
+            OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+            long price = 10000 + rand.nextInt(400) - 200;
+            int qty = 1 + rand.nextInt(500);
+            OrderType orderType = rand.nextInt(10) == 0 ? OrderType.ImmediateOrCancel : OrderType.GTC;
+            ladderbook.submitOrder(returnTestOrder(side, price, qty, orderType));
+            orderId--;
+            treebook.submitOrder(returnTestOrder(side, price, qty, orderType));
+        }
+        assertSameQueue(treebook.getBidQueue(), ladderbook.getBidQueue());
+        assertSameQueue(treebook.getAskQueue(), ladderbook.getAskQueue());
+        assertDepthMatchesQueue(ladderbook.getBidQueue(), ladderbook, true);
+        assertDepthMatchesQueue(ladderbook.getAskQueue(), ladderbook, false);
+    }
+
+    /** Test best prices and top levels with size after inserts, fills and cancels **/
+    @Test
+    public void TestMarketDepth(){
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000, 256);
+        DepthSnapshot snapshot = new DepthSnapshot(2);
+        orderbook.getDepth(snapshot);
+        Assert.assertEquals(0, orderbook.getBestBidTicks());
+        Assert.assertEquals(0, snapshot.bidLevels());
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 9990, 100);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9990, 50));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9980, 70));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9970, 10));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 10010, 30));
+        Assert.assertEquals(9990, orderbook.getBestBidTicks());
+        Assert.assertEquals(150, orderbook.getBestBidQty());
+        Assert.assertEquals(2, orderbook.getBestBidOrderCount());
+        Assert.assertEquals(10010, orderbook.getBestAskTicks());
+        Assert.assertEquals(30, orderbook.getBestAskQty());
+        Assert.assertEquals(1, orderbook.getBestAskOrderCount());
+        //Partial fill then cancel of the first order at the best bid
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 9990, 40, OrderType.ImmediateOrCancel));
+        Assert.assertEquals(110, orderbook.getBestBidQty());
+        orderbook.cancelOrder(simpleOrder.OrderID(), simpleOrder.ClientID());
+        Assert.assertEquals(50, orderbook.getBestBidQty());
+        Assert.assertEquals(1, orderbook.getBestBidOrderCount());
+        orderbook.getDepth(snapshot);
+        Assert.assertEquals(2, snapshot.bidLevels());
+        Assert.assertEquals(9990, snapshot.bidPriceTicks(0));
+        Assert.assertEquals(50, snapshot.bidQty(0));
+        Assert.assertEquals(9980, snapshot.bidPriceTicks(1));
+        Assert.assertEquals(70, snapshot.bidQty(1));
+        Assert.assertEquals(1, snapshot.bidOrderCount(1));
+        Assert.assertEquals(1, snapshot.askLevels());
+        Assert.assertEquals(10010, snapshot.askPriceTicks(0));
+    }
+
+    /** Assert snapshot levels sum the quantity and orders of the queue at each price **/
+    private void assertDepthMatchesQueue(List<IOrder> queue, LadderOrderBookImpl orderbook, boolean bids){
+        DepthSnapshot snapshot = new DepthSnapshot(1024);
+        orderbook.getDepth(snapshot);
+        int level = -1;
+        long price = -1;
+        long qty = 0;
+        int count = 0;
+        for (IOrder order : queue){
+            if (order.PriceTicks() != price){
+                if (level >= 0){
+                    assertDepthLevel(snapshot, bids, level, price, qty, count);
+                }
+                level++;
+                price = order.PriceTicks();
+                qty = 0;
+                count = 0;
+            }
+            qty += order.getRemainingQty();
+            count++;
+        }
+        if (level >= 0){
+            assertDepthLevel(snapshot, bids, level, price, qty, count);
+        }
+        Assert.assertEquals(level + 1, bids ? snapshot.bidLevels() : snapshot.askLevels());
+    }
+
+    private void assertDepthLevel(DepthSnapshot snapshot, boolean bids, int level, long price, long qty, int count){
+        Assert.assertEquals(price, bids ? snapshot.bidPriceTicks(level) : snapshot.askPriceTicks(level));
+        Assert.assertEquals(qty, bids ? snapshot.bidQty(level) : snapshot.askQty(level));
+        Assert.assertEquals(count, bids ? snapshot.bidOrderCount(level) : snapshot.askOrderCount(level));
+    }
+
+    private void assertSameQueue(List<IOrder> expected, List<IOrder> actual){
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++){
+            Assert.assertEquals(expected.get(i).OrderID(), actual.get(i).OrderID());
+            Assert.assertEquals(expected.get(i).getRemainingQty(), actual.get(i).getRemainingQty());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Market data publisher test cases
+ *
+ */
+public class MarketDataPublisherTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    private int orderId;
+
+    /** Market data listener collecting deltas and trades as text **/
+    private static class CollectingMarketDataListener implements IMarketDataListener {
+
+        private final List<String> updates = new ArrayList<>();
+
+        @Override
+        public void onLevelChange(OrderSide side, long priceTicks, long qty, int orderCount) {
+            updates.add(side + " " + priceTicks + " " + qty + " " + orderCount);
+        }
+
+        @Override
+        public void onTrade(long priceTicks, int qty, OrderSide aggressorSide) {
+            updates.add("trade " + priceTicks + " " + qty + " " + aggressorSide);
+        }
+    }
+
+    private SimpleOrder returnTestOrder(OrderSide side, long priceTicks, int orderqty){
+        return new SimpleOrderBuilder().setOrderid("test" + orderId++).setInstrument(INSTRUMENT)
+                .setPriceTicks(priceTicks).setSide(side).setClientid("hon123").setOrderqty(orderqty)
+                .createSimpleOrder();
+    }
+
+    /** Test a sweep publishes every trade and one delta per level at the end of the update **/
+    @Test
+    public void TestDeltasPerUpdate(){
+        CollectingMarketDataListener listener = new CollectingMarketDataListener();
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.setMarketDataListener(new MarketDataPublisher(listener));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 10001, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 10001, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 10002, 100));
+        Assert.assertEquals(3, listener.updates.size());
+        Assert.assertEquals("Sell 10001 200 2", listener.updates.get(1));
+        listener.updates.clear();
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 10002, 250));
+        List<String> expected = new ArrayList<>();
+        expected.add("trade 10001 100 Buy");
+        expected.add("trade 10001 100 Buy");
+        expected.add("trade 10002 50 Buy");
+        expected.add("Sell 10001 0 0");
+        expected.add("Sell 10002 50 1");
+        Assert.assertEquals(expected, listener.updates);
+    }
+
+    /** Test changes to a level within the conflation window are merged into one delta **/
+    @Test
+    public void TestConflationWindow(){
+        CollectingMarketDataListener listener = new CollectingMarketDataListener();
+        MarketDataPublisher publisher = new MarketDataPublisher(listener, Long.MAX_VALUE);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.setMarketDataListener(publisher);
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 9999, 100);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9998, 100));
+        for (int i = 0; i < 100; i++){
+            orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 9999 - (i % 2), 10));
+        }
+        orderbook.cancelOrder(simpleOrder.OrderID(), simpleOrder.ClientID());
+        Assert.assertEquals(0, listener.updates.size());
+        publisher.publish();
+        List<String> expected = new ArrayList<>();
+        expected.add("Buy 9999 500 50");
+        expected.add("Buy 9998 600 51");
+        Assert.assertEquals(expected, listener.updates);
+        Assert.assertEquals(101, publisher.conflatedUpdates());
+        listener.updates.clear();
+        publisher.publish();
+        Assert.assertEquals(0, listener.updates.size());
+    }
+
+    /** Test pending levels beyond the initial capacity are all published **/
+    @Test
+    public void TestManyLevels(){
+        CollectingMarketDataListener listener = new CollectingMarketDataListener();
+        MarketDataPublisher publisher = new MarketDataPublisher(listener, Long.MAX_VALUE);
+        for (int i = 0; i < 1000; i++){
+            publisher.onLevelChange(OrderSide.Buy, 1000 + i, i, 1);
+            publisher.onLevelChange(OrderSide.Sell, 1000 + i, i, 1);
+        }
+        publisher.onLevelChange(OrderSide.Buy, 1500, 7, 2);
+        publisher.publish();
+        Assert.assertEquals(2000, listener.updates.size());
+        Assert.assertEquals("Buy 1500 7 2", listener.updates.get(1000));
+        Assert.assertEquals("Sell 1999 999 1", listener.updates.get(1999));
+    }
+}
@@ -0,0 +1,348 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.List;
+import java.util.Random;
+
+/** Off-heap order book test cases
+ *
+ */
+public class OffHeapOrderBookImplTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    private SimpleOrder returnTestOrder(String orderId, OrderSide side, long priceTicks, int orderqty,
+                                        OrderType orderType){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setSide(side).setClientid("hon123").setOrderqty(orderqty).setOrderType(orderType).createSimpleOrder();
+    }
+
+    /** Test resting orders are read back through views and updated in the store **/
+    @Test
+    public void TestRestAndFill(){
+        OffHeapOrderBookImpl orderbook = new OffHeapOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.submitOrder(returnTestOrder("test1", OrderSide.Sell, 10001, 100, OrderType.GTC));
+        orderbook.submitOrder(returnTestOrder("test2", OrderSide.Sell, 10000, 100, OrderType.GTC));
+        orderbook.submitOrder(returnTestOrder("test3", OrderSide.Sell, 10000, 100, OrderType.GTC));
+        List<IOrder> asks = orderbook.getAskQueue();
+        Assert.assertEquals(3, asks.size());
+        Assert.assertEquals("test2", asks.get(0).OrderID());
+        Assert.assertEquals("test3", asks.get(1).OrderID());
+        Assert.assertEquals("test1", asks.get(2).OrderID());
+        Assert.assertEquals(100.00, asks.get(0).Price(), 0.0001);
+
+        SimpleOrder taker = returnTestOrder("test4", OrderSide.Buy, 10001, 150, OrderType.GTC);
+        orderbook.submitOrder(taker);
+        Assert.assertEquals(OrderStatus.FullyFilled, taker.getStatus());
+        Assert.assertEquals(150, taker.getCumulativeQty());
+        Assert.assertNull(orderbook.getOrder("test2"));
+        IOrder maker = orderbook.getOrder("test3");
+        Assert.assertEquals(OrderStatus.PartialFill, maker.getStatus());
+        Assert.assertEquals(50, maker.getRemainingQty());
+        Assert.assertEquals(50, maker.getCumulativeQty());
+        Assert.assertEquals(100.00, maker.getAveragePrice(), 0.0001);
+        Assert.assertEquals(10000, orderbook.getBestAskTicks());
+        Assert.assertEquals(50, orderbook.getBestAskQty());
+        Assert.assertEquals(2, orderbook.getStore().size());
+
+        Assert.assertFalse(orderbook.cancelOrder("test3", "other"));
+        Assert.assertTrue(orderbook.cancelOrder("test3", "hon123"));
+        Assert.assertNull(orderbook.getOrder("test3"));
+        Assert.assertEquals(10001, orderbook.getBestAskTicks());
+        Assert.assertEquals(1, orderbook.getStore().size());
+    }
+
+    /** Test orders that cannot be stored or priced on the ladder are rejected **/
+    @Test
+    public void TestRejects(){
+        OffHeapOrderBookImpl orderbook = new OffHeapOrderBookImpl(INSTRUMENT, 10000, 1024, 64);
+        SimpleOrder simpleOrder = returnTestOrder("test1", OrderSide.Buy, 20000, 100, OrderType.GTC);
+        orderbook.submitOrder(simpleOrder);
+        Assert.assertEquals(OrderStatus.Rejected, simpleOrder.getStatus());
+        SimpleOrder simpleOrder1 = returnTestOrder("an-order-id-much-too-long-to-fit-in-a-store-record",
+                OrderSide.Buy, 10000, 100, OrderType.GTC);
+        orderbook.submitOrder(simpleOrder1);
+        Assert.assertEquals(OrderStatus.Rejected, simpleOrder1.getStatus());
+        orderbook.submitOrder(returnTestOrder("test2", OrderSide.Buy, 10000, 100, OrderType.GTC));
+        SimpleOrder simpleOrder2 = returnTestOrder("test2", OrderSide.Buy, 9999, 100, OrderType.GTC);
+        orderbook.submitOrder(simpleOrder2);
+        Assert.assertEquals(OrderStatus.Rejected, simpleOrder2.getStatus());
+        Assert.assertEquals(1, orderbook.getBidQueue().size());
+    }
+
+    /** Test records are reused once freed so the store does not grow **/
+    @Test
+    public void TestRecordsReused(){
+        OffHeapOrderBookImpl orderbook = new OffHeapOrderBookImpl(INSTRUMENT, 10000, 1024, 64);
+        for (int i = 0; i < 10000; i++){
+            orderbook.submitOrder(returnTestOrder("test" + i, OrderSide.Buy, 10000 - (i % 10), 100, OrderType.GTC));
+            if (i >= 32){
+                Assert.assertTrue(orderbook.cancelOrder("test" + (i - 32), "hon123"));
+            }
+        }
+        Assert.assertEquals(32, orderbook.getStore().size());
+        Assert.assertEquals(64, orderbook.getStore().capacity());
+        Assert.assertEquals(32, orderbook.getBidQueue().size());
+    }
+
+    /** Test a random flow leaves the same book and executions as the ladder book **/
+    @Test
+    public void TestMatchesLadderBook(){
+        OffHeapOrderBookImpl offheap = new OffHeapOrderBookImpl(INSTRUMENT, 10000, 1024, 256);
+        LadderOrderBookImpl ladder = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        long[] executions = new long[4];
+        offheap.setExecutionListener((maker, taker, priceTicks, qty, makerStatus, takerStatus) -> {
+            executions[0]++;
+            executions[1] += qty * priceTicks;
+        });
+        ladder.setExecutionListener((maker, taker, priceTicks, qty, makerStatus, takerStatus) -> {
+            executions[2]++;
+            executions[3] += qty * priceTicks;
+        });
+        Random rand = new Random(7);
+        for (int i = 0; i < 50000; i++){
+            if (i > 0 && rand.nextInt(4) == 0){
+                String orderId = "order" + rand.nextInt(i);
+                Assert.assertEquals(ladder.cancelOrder(orderId, "hon123"), offheap.cancelOrder(orderId, "hon123"));
+                continue;
+            }
+            OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+            OrderType orderType = rand.nextInt(10) == 0 ? OrderType.ImmediateOrCancel : OrderType.GTC;
+            long price = 10000 + rand.nextInt(200) - 100;
+            int qty = 1 + rand.nextInt(300);
+            SimpleOrder order = returnTestOrder("order" + i, side, price, qty, orderType);
+            SimpleOrder copy = returnTestOrder("order" + i, side, price, qty, orderType);
+            offheap.submitOrder(order);
+            ladder.submitOrder(copy);
+            Assert.assertEquals(copy.getStatus(), order.getStatus());
+            Assert.assertEquals(copy.getRemainingQty(), order.getRemainingQty());
+        }
+        Assert.assertEquals(executions[2], executions[0]);
+        Assert.assertEquals(executions[3], executions[1]);
+        assertSameOrders(ladder.getBidQueue(), offheap.getBidQueue());
+        assertSameOrders(ladder.getAskQueue(), offheap.getAskQueue());
+        Assert.assertEquals(ladder.getBestBidQty(), offheap.getBestBidQty());
+        Assert.assertEquals(ladder.getBestAskTicks(), offheap.getBestAskTicks());
+        Assert.assertEquals(offheap.getBidQueue().size() + offheap.getAskQueue().size(), offheap.getStore().size());
+    }
+
+    /** Test a random flow of replaces leaves the same book and executions as the ladder book **/
+    @Test
+    public void TestReplaceMatchesLadderBook(){
+        OffHeapOrderBookImpl offheap = new OffHeapOrderBookImpl(INSTRUMENT, 10000, 1024, 256);
+        LadderOrderBookImpl ladder = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        long[] executions = new long[2];
+        offheap.setExecutionListener((maker, taker, priceTicks, qty, makerStatus, takerStatus) ->
+                executions[0] += qty * priceTicks);
+        ladder.setExecutionListener((maker, taker, priceTicks, qty, makerStatus, takerStatus) ->
+                executions[1] += qty * priceTicks);
+        Random rand = new Random(5);
+        for (int i = 0; i < 50000; i++){
+            if (i > 0 && rand.nextInt(3) == 0){
+                String orderId = "order" + rand.nextInt(i);
+                long price = rand.nextInt(8) == 0 ? 0 : 10000 + rand.nextInt(200) - 100;
+                int qty = rand.nextInt(300);
+                Assert.assertEquals(ladder.replaceOrder(orderId, "hon123", price, qty),
+                        offheap.replaceOrder(orderId, "hon123", price, qty));
+                continue;
+            }
+            OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+            long price = 10000 + rand.nextInt(200) - 100;
+            int qty = 1 + rand.nextInt(300);
+            offheap.submitOrder(returnTestOrder("order" + i, side, price, qty, OrderType.GTC));
+            ladder.submitOrder(returnTestOrder("order" + i, side, price, qty, OrderType.GTC));
+        }
+        Assert.assertEquals(executions[1], executions[0]);
+        assertSameOrders(ladder.getBidQueue(), offheap.getBidQueue());
+        assertSameOrders(ladder.getAskQueue(), offheap.getAskQueue());
+        Assert.assertEquals(ladder.getBestBidQty(), offheap.getBestBidQty());
+        Assert.assertEquals(ladder.getBestAskQty(), offheap.getBestAskQty());
+        Assert.assertEquals(offheap.getBidQueue().size() + offheap.getAskQueue().size(), offheap.getStore().size());
+
+        int client = offheap.getClientRegistry().intern("hon123");
+        offheap.submitOrder(1L << 40, client, OrderSide.Buy, OrderType.GTC, 9500, 100, false);
+        Assert.assertEquals(OrderStatus.Rejected, offheap.replaceOrder(1L << 40, client + 1, 9500, 50));
+        Assert.assertEquals(OrderStatus.New, offheap.replaceOrder(1L << 40, client, 9500, 50));
+        Assert.assertEquals(50, offheap.getOrder(1L << 40).getRemainingQty());
+        Assert.assertEquals(OrderStatus.New, offheap.replaceOrder(1L << 40, client, 9501, 50));
+        Assert.assertEquals(9501, offheap.getOrder(1L << 40).PriceTicks());
+    }
+
+    /** Test mass cancel cancels the string and numeric orders of a client, raising one mass cancel event **/
+    @Test
+    public void TestCancelAllOrders(){
+        OffHeapOrderBookImpl orderbook = new OffHeapOrderBookImpl(INSTRUMENT, 10000, 1024, 256);
+        int[] events = new int[3];
+        orderbook.setEventSink(new NoOpEventSink() {
+            @Override
+            public void onOrderCancelled(String orderId, int remainingQty) {
+                events[0]++;
+            }
+
+            @Override
+            public void onMassCancel(String clientId, OrderSide side, int cancelledCount) {
+                events[1] += cancelledCount;
+            }
+
+            @Override
+            public void flush() {
+                events[2]++;
+            }
+        });
+        for (int i = 0; i < 6; i++){
+            orderbook.submitOrder(returnTestOrder("buy" + i, OrderSide.Buy, 9990 - i % 2, 100, OrderType.GTC));
+            orderbook.submitOrder(returnTestOrder("sell" + i, OrderSide.Sell, 10010 + i % 2, 100, OrderType.GTC));
+        }
+        orderbook.submitOrder(new SimpleOrderBuilder().setOrderid("other").setInstrument(INSTRUMENT).setPriceTicks(9990)
+                .setSide(OrderSide.Buy).setClientid("other").setOrderqty(100).setOrderType(OrderType.GTC).createSimpleOrder());
+        int client = orderbook.getClientRegistry().intern("hon123");
+        orderbook.submitOrder(1L << 40, client, OrderSide.Sell, OrderType.GTC, 10010, 100, false);
+        Assert.assertEquals(0, orderbook.cancelAllOrders(null, null));
+        events[2] = 0;
+
+        Assert.assertEquals(6, orderbook.cancelAllOrders("hon123", OrderSide.Buy));
+        Assert.assertArrayEquals(new int[]{6, 6, 1}, events);
+        Assert.assertEquals(1, orderbook.getBidQueue().size());
+        Assert.assertEquals("other", orderbook.getBidQueue().get(0).OrderID());
+        Assert.assertEquals(100, orderbook.getBestBidQty());
+        Assert.assertEquals(7, orderbook.cancelAllOrders("hon123", null));
+        Assert.assertEquals(0, orderbook.cancelAllOrders("hon123", null));
+        Assert.assertEquals(0, orderbook.cancelAllOrders("unknown", null));
+        Assert.assertEquals(0, orderbook.getAskQueue().size());
+        Assert.assertNull(orderbook.getOrder("sell0"));
+        Assert.assertNull(orderbook.getOrder(1L << 40));
+        Assert.assertEquals(1, orderbook.getStore().size());
+
+        int other = orderbook.getClientRegistry().get("other");
+        orderbook.submitOrder(2, other, OrderSide.Sell, OrderType.GTC, 10010, 100, false);
+        Assert.assertEquals(0, orderbook.cancelAllOrders(other + 1, null));
+        Assert.assertEquals(1, orderbook.cancelAllOrders(other, OrderSide.Sell));
+        Assert.assertEquals(1, orderbook.cancelAllOrders(other, null));
+        Assert.assertEquals(0, orderbook.getStore().size());
+    }
+
+    /** Test mass cancels find every resting order of a client after fills, cancels and replaces **/
+    @Test
+    public void TestCancelAllOrdersAfterFills(){
+        OffHeapOrderBookImpl orderbook = new OffHeapOrderBookImpl(INSTRUMENT, 10000, 1024, 256);
+        String[] clientIds = {"client0", "client1", "client2"};
+        int[] clients = new int[clientIds.length];
+        for (int i = 0; i < clients.length; i++){
+            clients[i] = orderbook.getClientRegistry().intern(clientIds[i]);
+        }
+        Random rand = new Random(17);
+        for (int i = 0; i < 20000; i++){
+            int client = rand.nextInt(clients.length);
+            OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+            long price = 10000 + rand.nextInt(40) - 20;
+            int qty = 1 + rand.nextInt(300);
+            int action = rand.nextInt(5);
+            if (action == 0 && i > 0){
+                orderbook.replaceOrder("s" + rand.nextInt(i), clientIds[client], price, qty);
+            }
+            else if (action == 1 && i > 0){
+                orderbook.cancelOrder(rand.nextInt(i), clients[client]);
+            }
+            else if (action == 2){
+                orderbook.submitOrder(i, clients[client], side, OrderType.GTC, price, qty, false);
+            }
+            else {
+                orderbook.submitOrder(new SimpleOrder("s" + i, price, 0.01, false, side, OrderType.GTC,
+                        clientIds[client], qty));
+            }
+        }
+        int[] resting = new int[clients.length];
+        for (IOrder order : orderbook.getBidQueue()){
+            resting[orderbook.getClientRegistry().get(order.ClientID())]++;
+        }
+        for (IOrder order : orderbook.getAskQueue()){
+            resting[orderbook.getClientRegistry().get(order.ClientID())]++;
+        }
+        Assert.assertTrue(resting[0] > 0 && resting[1] > 0 && resting[2] > 0);
+        Assert.assertEquals(resting[0], orderbook.cancelAllOrders("client0", null));
+        Assert.assertEquals(resting[1], orderbook.cancelAllOrders(clients[1], null));
+        Assert.assertEquals(resting[2], orderbook.cancelAllOrders("client2", null));
+        Assert.assertEquals(0, orderbook.getBidQueue().size() + orderbook.getAskQueue().size());
+        Assert.assertEquals(0, orderbook.getStore().size());
+    }
+
+    /** Test cancels and replaces with null ids are not found instead of failing **/
+    @Test
+    public void TestNullIds(){
+        OffHeapOrderBookImpl orderbook = new OffHeapOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.submitOrder(returnTestOrder("test1", OrderSide.Sell, 10001, 100, OrderType.GTC));
+        Assert.assertFalse(orderbook.cancelOrder(null, "hon123"));
+        Assert.assertFalse(orderbook.cancelOrder("test1", null));
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder(null, "hon123", 10001, 50));
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder("test1", null, 10001, 50));
+        Assert.assertNull(orderbook.getOrder(null));
+        Assert.assertTrue(orderbook.cancelOrder("test1", "hon123"));
+    }
+
+    /** Test numeric order ids and client numbers trade and cancel like string ids **/
+    @Test
+    public void TestNumericOrders(){
+        OffHeapOrderBookImpl numeric = new OffHeapOrderBookImpl(INSTRUMENT, 10000, 1024, 256);
+        OffHeapOrderBookImpl strings = new OffHeapOrderBookImpl(INSTRUMENT, 10000, 1024, 256);
+        ClientRegistry clients = numeric.getClientRegistry();
+        int client = clients.intern("hon123");
+        Assert.assertEquals(client, clients.intern("hon123"));
+        Assert.assertEquals("hon123", clients.name(client));
+        Assert.assertEquals(ClientRegistry.UNKNOWN, clients.get("other"));
+        long[] executions = new long[2];
+        numeric.setExecutionListener((maker, taker, priceTicks, qty, makerStatus, takerStatus) -> executions[0] += qty);
+        strings.setExecutionListener((maker, taker, priceTicks, qty, makerStatus, takerStatus) -> executions[1] += qty);
+        Random rand = new Random(11);
+        for (int i = 0; i < 50000; i++){
+            if (i > 0 && rand.nextInt(4) == 0){
+                int orderId = rand.nextInt(i);
+                Assert.assertEquals(strings.cancelOrder(Integer.toString(orderId), "hon123"),
+                        numeric.cancelOrder(orderId, client));
+                continue;
+            }
+            OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+            OrderType orderType = rand.nextInt(10) == 0 ? OrderType.ImmediateOrCancel : OrderType.GTC;
+            long price = 10000 + rand.nextInt(200) - 100;
+            int qty = 1 + rand.nextInt(300);
+            boolean market = rand.nextInt(50) == 0;
+            SimpleOrder order = new SimpleOrder(Integer.toString(i), price, 0.01, market, side, orderType,
+                    "hon123", qty);
+            strings.submitOrder(order);
+            Assert.assertEquals(order.getStatus(), numeric.submitOrder(i, client, side, orderType, price, qty, market));
+        }
+        Assert.assertEquals(executions[1], executions[0]);
+        assertSameOrders(strings.getBidQueue(), numeric.getBidQueue());
+        assertSameOrders(strings.getAskQueue(), numeric.getAskQueue());
+        IOrder resting = numeric.getBidQueue().get(0);
+        Assert.assertEquals("hon123", resting.ClientID());
+        Assert.assertNotNull(numeric.getOrder(Long.parseLong(resting.OrderID())));
+        Assert.assertNull(numeric.getOrder(resting.OrderID()));
+        Assert.assertFalse(numeric.cancelOrder(resting.OrderID(), "hon123"));
+
+        Assert.assertEquals(OrderStatus.Rejected, numeric.submitOrder(1L << 40, 99, OrderSide.Buy, OrderType.GTC,
+                10000, 100, false));
+        Assert.assertEquals(OrderStatus.New, numeric.submitOrder(1L << 40, client, OrderSide.Buy, OrderType.GTC,
+                9500, 100, false));
+        Assert.assertEquals(OrderStatus.Rejected, numeric.submitOrder(1L << 40, client, OrderSide.Buy, OrderType.GTC,
+                9500, 100, false));
+        Assert.assertFalse(numeric.cancelOrder(1L << 40, client + 1));
+        Assert.assertTrue(numeric.cancelOrder(1L << 40, client));
+        Assert.assertEquals(numeric.getBidQueue().size() + numeric.getAskQueue().size(), numeric.getStore().size());
+    }
+
+    private void assertSameOrders(List<IOrder> expected, List<IOrder> actual){
+        Assert.assertEquals(expected.size(), actual.size());
+        int i = 0;
+        for (IOrder order : actual){
+            IOrder expectedOrder = expected.get(i++);
+            Assert.assertEquals(expectedOrder.OrderID(), order.OrderID());
+            Assert.assertEquals(expectedOrder.getRemainingQty(), order.getRemainingQty());
+            Assert.assertEquals(expectedOrder.getStatus(), order.getStatus());
+            Assert.assertEquals(expectedOrder.getCumulativeQty(), order.getCumulativeQty());
+            Assert.assertEquals(expectedOrder.OrderQty(), order.OrderQty());
+            Assert.assertEquals(order.getCumulativeQty() + order.getRemainingQty(), order.OrderQty());
+        }
+    }
+}
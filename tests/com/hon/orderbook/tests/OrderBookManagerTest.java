@@ -0,0 +1,171 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Order book manager test cases
+ *
+ */
+public class OrderBookManagerTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    private SimpleOrder returnTestOrder(String orderId, OrderSide side, long priceTicks, int orderqty){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setSide(side).setClientid("hon123").setOrderqty(orderqty).createSimpleOrder();
+    }
+
+    /** Test orders are routed to the order book of their instrument across shards **/
+    @Test
+    public void TestRouteByInstrument() throws InterruptedException {
+        OrderBookManager manager = new OrderBookManager(2, 1024, WaitStrategy.Parking);
+        String[] instruments = {"AAA", "BBB", "CCC", "DDD"};
+        for (String instrument : instruments){
+            manager.addOrderBook(instrument, new LadderOrderBookImpl(new Instrument(instrument, 0.01), 10000));
+        }
+        Assert.assertEquals(0, manager.getShard("AAA"));
+        Assert.assertEquals(1, manager.getShard("BBB"));
+        manager.start();
+        List<Thread> producers = new ArrayList<>();
+        for (String instrument : instruments){
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++){
+                    manager.submitOrder(instrument, returnTestOrder(instrument + i, OrderSide.Buy, 9000 + i, 10));
+                }
+                manager.cancelOrder(instrument, instrument + 0, "hon123");
+            }));
+        }
+        for (Thread producer : producers){
+            producer.start();
+        }
+        for (Thread producer : producers){
+            producer.join();
+        }
+        manager.close();
+        for (String instrument : instruments){
+            IOrderBook orderbook = manager.getOrderBook(instrument);
+            Assert.assertEquals(999, orderbook.getBidQueue().size());
+            Assert.assertEquals(instrument + 999, orderbook.getBidQueue().get(0).OrderID());
+        }
+    }
+
+    /** Test a batch routed by instrument is processed by its order book and counted as its load **/
+    @Test
+    public void TestProcessBatch(){
+        OrderBookManager manager = new OrderBookManager(2, 16, WaitStrategy.Parking);
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        int[] flushes = new int[1];
+        orderbook.setEventSink(new NoOpEventSink() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        });
+        manager.addOrderBook("AAA", orderbook, 1);
+        manager.addOrderBook("BBB", new TreeOrderBookImpl(new Instrument("BBB", 0.01)), 1);
+        manager.start();
+        OrderBatch batch = new OrderBatch(8);
+        batch.addSubmit(returnTestOrder("test1", OrderSide.Sell, 10000, 100));
+        batch.addSubmit(returnTestOrder("test2", OrderSide.Sell, 10001, 100));
+        batch.addSubmit(returnTestOrder("test3", OrderSide.Buy, 10000, 40));
+        batch.addCancel("test2", "hon123");
+        batch.addCancel("unknown", "hon123");
+        Assert.assertTrue(manager.processBatch("AAA", batch));
+        Assert.assertFalse(manager.processBatch("CCC", batch));
+        manager.submitOrder("BBB", returnTestOrder("BBB1", OrderSide.Buy, 9000, 10));
+        manager.awaitIdle();
+        Assert.assertEquals(OrderStatus.New, batch.getResult(0));
+        Assert.assertEquals(OrderStatus.FullyFilled, batch.getResult(2));
+        Assert.assertEquals(OrderStatus.Cancelled, batch.getResult(3));
+        Assert.assertEquals(OrderStatus.Rejected, batch.getResult(4));
+        Assert.assertEquals(1, flushes[0]);
+        Assert.assertEquals(60, orderbook.getBestAskQty());
+        //The batch counts as five commands of load against one for the other order book
+        manager.rebalance();
+        Assert.assertNotEquals(manager.getShard("AAA"), manager.getShard("BBB"));
+        manager.close();
+    }
+
+    /** Test a replace routed by instrument reprices the resting order on its order book **/
+    @Test
+    public void TestReplaceOrder(){
+        OrderBookManager manager = new OrderBookManager(2, 16, WaitStrategy.Parking);
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        manager.addOrderBook("AAA", orderbook);
+        manager.start();
+        SimpleOrder simpleOrder = returnTestOrder("test1", OrderSide.Buy, 10000, 100);
+        manager.submitOrder("AAA", simpleOrder);
+        Assert.assertTrue(manager.replaceOrder("AAA", "test1", "hon123", 10005, 60));
+        Assert.assertFalse(manager.replaceOrder("BBB", "test1", "hon123", 10005, 60));
+        manager.awaitIdle();
+        Assert.assertEquals(10005, simpleOrder.PriceTicks());
+        Assert.assertEquals(60, simpleOrder.OrderQty());
+        Assert.assertEquals(60, orderbook.getBestBidQty());
+        manager.close();
+    }
+
+    /** Test order for an instrument without an order book is rejected **/
+    @Test
+    public void TestUnknownInstrument(){
+        OrderBookManager manager = new OrderBookManager(1, 16, WaitStrategy.Parking);
+        SimpleOrder simpleOrder = returnTestOrder("test1", OrderSide.Buy, 10000, 100);
+        manager.submitOrder("AAA", simpleOrder);
+        Assert.assertEquals(OrderStatus.Rejected, simpleOrder.getStatus());
+        Assert.assertFalse(manager.cancelOrder("AAA", "test1", "hon123"));
+    }
+
+    /** Test rebalance spreads the busiest order books across shards **/
+    @Test
+    public void TestRebalanceByLoad(){
+        OrderBookManager manager = new OrderBookManager(2, 1024, WaitStrategy.Parking);
+        String[] instruments = {"AAA", "BBB", "CCC", "DDD"};
+        for (String instrument : instruments){
+            manager.addOrderBook(instrument, new TreeOrderBookImpl(new Instrument(instrument, 0.01)), 0);
+        }
+        manager.start();
+        for (int i = 0; i < 100; i++){
+            manager.submitOrder("AAA", returnTestOrder("AAA" + i, OrderSide.Buy, 9000 + i, 10));
+            manager.submitOrder("BBB", returnTestOrder("BBB" + i, OrderSide.Buy, 9000 + i, 10));
+        }
+        manager.submitOrder("CCC", returnTestOrder("CCC", OrderSide.Buy, 9000, 10));
+        manager.rebalance();
+        Assert.assertNotEquals(manager.getShard("AAA"), manager.getShard("BBB"));
+        manager.submitOrder("AAA", returnTestOrder("AAA", OrderSide.Sell, 9000, 1000));
+        manager.close();
+        Assert.assertEquals(0, manager.getOrderBook("AAA").getBidQueue().size());
+        Assert.assertEquals(100, manager.getOrderBook("BBB").getBidQueue().size());
+    }
+
+    /** Test order books added from many threads at once are spread evenly across the shards **/
+    @Test
+    public void TestConcurrentAdd() throws InterruptedException {
+        OrderBookManager manager = new OrderBookManager(4, 16, WaitStrategy.Parking);
+        List<Thread> adders = new ArrayList<>();
+        for (int t = 0; t < 8; t++){
+            final String prefix = "I" + t + "_";
+            adders.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++){
+                    manager.addOrderBook(prefix + i, new TreeOrderBookImpl(INSTRUMENT));
+                }
+            }));
+        }
+        for (Thread adder : adders){
+            adder.start();
+        }
+        for (Thread adder : adders){
+            adder.join();
+        }
+        int[] counts = new int[4];
+        for (int t = 0; t < 8; t++){
+            for (int i = 0; i < 50; i++){
+                counts[manager.getShard("I" + t + "_" + i)]++;
+            }
+        }
+        for (int count : counts){
+            Assert.assertEquals(100, count);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** Order book metrics test cases
+ *
+ */
+public class OrderBookMetricsTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    private SimpleOrder returnTestOrder(String orderId, OrderSide side, long priceTicks, int orderqty){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setSide(side).setClientid("hon123").setOrderqty(orderqty).createSimpleOrder();
+    }
+
+    /** Test submits, fills, levels, rejects, cancels and depth are counted on a level book **/
+    @Test
+    public void TestLevelBookMetrics(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        OrderBookMetrics metrics = new OrderBookMetrics();
+        orderbook.setMetrics(metrics);
+        orderbook.submitOrder(returnTestOrder("test1", OrderSide.Sell, 10000, 100));
+        orderbook.submitOrder(returnTestOrder("test2", OrderSide.Sell, 10000, 100));
+        orderbook.submitOrder(returnTestOrder("test3", OrderSide.Sell, 10001, 100));
+        orderbook.submitOrder(returnTestOrder("test4", OrderSide.Buy, 9990, 100));
+        Assert.assertEquals(1, metrics.getBidLevels());
+        Assert.assertEquals(2, metrics.getAskLevels());
+        Assert.assertEquals(3, metrics.getAskOrders());
+        //Sweeps both ask levels
+        orderbook.submitOrder(returnTestOrder("test5", OrderSide.Buy, 10001, 250));
+        Assert.assertEquals(3, metrics.getFillCount());
+        Assert.assertEquals(2, metrics.getLevelsMatchedCount());
+        Assert.assertEquals(3, metrics.getFillsPerOrder().max());
+        Assert.assertEquals(2, metrics.getLevelsPerOrderP99());
+        Assert.assertEquals(1, metrics.getAskOrders());
+        Assert.assertEquals(1, metrics.getAskLevels());
+        orderbook.submitOrder(returnTestOrder("test6", OrderSide.Buy, 0, 100));
+        Assert.assertEquals(1, metrics.getRejectCount());
+        Assert.assertTrue(orderbook.cancelOrder("test4", "hon123"));
+        Assert.assertFalse(orderbook.cancelOrder("test4", "hon123"));
+        Assert.assertEquals(2, metrics.getCancelCount());
+        Assert.assertEquals(1, metrics.getCancelMissCount());
+        Assert.assertEquals(0, metrics.getBidOrders());
+        Assert.assertEquals(6, metrics.getSubmitCount());
+        Assert.assertEquals(6, metrics.getSubmitLatency().count());
+        Assert.assertEquals(2, metrics.getCancelLatency().count());
+        Assert.assertTrue(metrics.getSubmitLatencyMax() >= metrics.getSubmitLatencyP50());
+        //Mass cancelled orders count as cancels
+        Assert.assertEquals(1, orderbook.cancelAllOrders("hon123", null));
+        Assert.assertEquals(3, metrics.getCancelCount());
+        Assert.assertEquals(1, metrics.getCancelMissCount());
+        Assert.assertEquals(0, metrics.getAskOrders());
+        //Metrics switched off record nothing more
+        orderbook.setMetrics(null);
+        orderbook.submitOrder(returnTestOrder("test7", OrderSide.Buy, 9990, 100));
+        Assert.assertEquals(6, metrics.getSubmitCount());
+    }
+
+    /** Test submits, fills, rejects and cancels are counted on the simple book **/
+    @Test
+    public void TestSimpleBookMetrics(){
+        SimpleOrderBookImpl orderbook = new SimpleOrderBookImpl(INSTRUMENT);
+        orderbook.setEventSink(null);
+        OrderBookMetrics metrics = new OrderBookMetrics();
+        orderbook.setMetrics(metrics);
+        orderbook.submitOrder(returnTestOrder("test1", OrderSide.Sell, 10000, 100));
+        orderbook.submitOrder(returnTestOrder("test2", OrderSide.Sell, 10001, 100));
+        orderbook.submitOrder(returnTestOrder("test3", OrderSide.Buy, 10000, 150));
+        Assert.assertEquals(2, metrics.getFillCount());
+        Assert.assertEquals(2, metrics.getLevelsMatchedCount());
+        //The sell left resting is an ask order
+        Assert.assertEquals(0, metrics.getBidOrders());
+        Assert.assertEquals(1, metrics.getAskOrders());
+        orderbook.submitOrder(returnTestOrder("test4", OrderSide.Buy, 0, 100));
+        Assert.assertEquals(1, metrics.getRejectCount());
+        Assert.assertFalse(orderbook.cancelOrder("test1", "hon123"));
+        Assert.assertEquals(1, metrics.getCancelMissCount());
+    }
+
+    /** Test metrics are read from another thread while the book records and through JMX **/
+    @Test
+    public void TestReadWhileRecording() throws Exception {
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        OrderBookMetrics metrics = new OrderBookMetrics();
+        orderbook.setMetrics(metrics);
+        AtomicBoolean done = new AtomicBoolean();
+        long[] lastSeen = new long[1];
+        Thread reader = new Thread(() -> {
+            while (!done.get()){
+                long submits = metrics.getSubmitCount();
+                if (submits < lastSeen[0]){
+                    throw new AssertionError("Submit count went backwards");
+                }
+                lastSeen[0] = submits;
+                metrics.getSubmitLatencyP99();
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20000; i++){
+            orderbook.submitOrder(returnTestOrder("test" + i, i % 2 == 0 ? OrderSide.Buy : OrderSide.Sell,
+                    10000 + (i % 7) - 3, 10));
+        }
+        done.set(true);
+        reader.join();
+        Assert.assertEquals(20000, metrics.getSubmitCount());
+
+        metrics.register("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.hon.orderbook:type=OrderBookMetrics,name=\"test\"");
+            Assert.assertEquals(20000L, server.getAttribute(name, "SubmitCount"));
+            Assert.assertEquals(metrics.getBidOrders(), server.getAttribute(name, "BidOrders"));
+        } finally {
+            metrics.unregister();
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName("com.hon.orderbook:type=OrderBookMetrics,name=\"test\"")));
+    }
+}
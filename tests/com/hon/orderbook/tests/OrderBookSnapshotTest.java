@@ -0,0 +1,179 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/** Order book snapshot test cases
+ *
+ */
+public class OrderBookSnapshotTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SimpleOrder returnTestOrder(String orderId, OrderSide side, long priceTicks, int orderqty, OrderType orderType){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setSide(side).setClientid("client" + orderId.length()).setOrderqty(orderqty).setOrderType(orderType)
+                .createSimpleOrder();
+    }
+
+    private void runFlow(IOrderBook orderbook, Random rand, int from, int to){
+        for (int i = from; i < to; i++){
+            if (i > 0 && rand.nextInt(5) == 0){
+                String orderId = "order-with-a-longer-id-" + rand.nextInt(i);
+                orderbook.cancelOrder(orderId, "client" + orderId.length());
+                continue;
+            }
+            OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+            OrderType orderType = rand.nextInt(10) == 0 ? OrderType.ImmediateOrCancel : OrderType.GTC;
+            orderbook.submitOrder(returnTestOrder("order-with-a-longer-id-" + i, side,
+                    10000 + rand.nextInt(400) - 200, 1 + rand.nextInt(300), orderType));
+        }
+    }
+
+    /** Test snapshot plus journal replay from the snapshot sequence rebuilds the order book **/
+    @Test
+    public void TestSnapshotAndJournalRecovery() throws IOException {
+        Path journalFile = folder.getRoot().toPath().resolve("orderbook.journal");
+        Path snapshotFile = folder.getRoot().toPath().resolve("orderbook.snapshot");
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        Random rand = new Random(5);
+        long snapshotSequence;
+        try (OrderJournal journal = new OrderJournal(journalFile, INSTRUMENT, 20000, FsyncPolicy.None)){
+            JournaledOrderBook journaled = new JournaledOrderBook(orderbook, journal);
+            runFlow(journaled, rand, 0, 10000);
+            snapshotSequence = journal.sequence();
+            int written = OrderBookSnapshot.write(snapshotFile, orderbook, snapshotSequence);
+            Assert.assertEquals(orderbook.getBidQueue().size() + orderbook.getAskQueue().size(), written);
+            Assert.assertTrue(Files.size(snapshotFile) > (1 << 16));
+            runFlow(journaled, rand, 10000, 12000);
+        }
+        LadderOrderBookImpl recovered = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        Assert.assertEquals(snapshotSequence, OrderBookSnapshot.load(snapshotFile, recovered));
+        try (OrderJournal journal = new OrderJournal(journalFile, INSTRUMENT, 20000, FsyncPolicy.None)){
+            journal.replay(recovered, snapshotSequence);
+        }
+        assertSameQueue(orderbook.getBidQueue(), recovered.getBidQueue());
+        assertSameQueue(orderbook.getAskQueue(), recovered.getAskQueue());
+        Assert.assertEquals(orderbook.getBestBidQty(), recovered.getBestBidQty());
+        Assert.assertEquals(orderbook.getBestAskOrderCount(), recovered.getBestAskOrderCount());
+    }
+
+    /** Returns a stop order, a market order unless a limit price is given **/
+    private SimpleOrder returnTestStopOrder(String orderId, OrderSide side, long stopTicks, long priceTicks, int orderqty){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setMarket(priceTicks == 0).setStopPriceTicks(stopTicks).setSide(side)
+                .setClientid("client" + orderId.length()).setOrderqty(orderqty)
+                .setOrderType(priceTicks == 0 ? OrderType.Stop : OrderType.StopLimit).createSimpleOrder();
+    }
+
+    /** Test pending stops and the last trade survive a snapshot and trigger the same after journal replay **/
+    @Test
+    public void TestSnapshotWithStopOrders() throws IOException {
+        Path journalFile = folder.getRoot().toPath().resolve("orderbook.journal");
+        Path snapshotFile = folder.getRoot().toPath().resolve("orderbook.snapshot");
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        long snapshotSequence;
+        try (OrderJournal journal = new OrderJournal(journalFile, INSTRUMENT, 1000, FsyncPolicy.None)){
+            JournaledOrderBook journaled = new JournaledOrderBook(orderbook, journal);
+            journaled.submitOrder(returnTestOrder("rest1", OrderSide.Sell, 10100, 100, OrderType.GTC));
+            journaled.submitOrder(returnTestOrder("rest2", OrderSide.Sell, 10200, 100, OrderType.GTC));
+            journaled.submitOrder(returnTestOrder("rest3", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            journaled.submitOrder(returnTestOrder("rest4", OrderSide.Buy, 9800, 100, OrderType.GTC));
+            journaled.submitOrder(returnTestOrder("take1", OrderSide.Buy, 10100, 10, OrderType.GTC));
+            journaled.submitOrder(returnTestStopOrder("stop1", OrderSide.Buy, 10150, 0, 20));
+            journaled.submitOrder(returnTestStopOrder("stop2", OrderSide.Buy, 10150, 10200, 30));
+            journaled.submitOrder(returnTestStopOrder("stop3", OrderSide.Sell, 9850, 0, 40));
+            journaled.submitOrder(returnTestStopOrder("stop4", OrderSide.Sell, 9950, 9800, 10));
+            Assert.assertEquals(4, orderbook.getStopOrderCount());
+            snapshotSequence = journal.sequence();
+            Assert.assertEquals(8, OrderBookSnapshot.write(snapshotFile, orderbook, snapshotSequence));
+            //Triggers at once on the last trade, then a trade at 10200 triggers the buy stops
+            journaled.submitOrder(returnTestStopOrder("stop5", OrderSide.Buy, 10100, 0, 5));
+            journaled.submitOrder(returnTestOrder("take2", OrderSide.Buy, 10200, 100, OrderType.GTC));
+            Assert.assertEquals(2, orderbook.getStopOrderCount());
+        }
+        LadderOrderBookImpl recovered = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        Assert.assertEquals(snapshotSequence, OrderBookSnapshot.load(snapshotFile, recovered));
+        Assert.assertEquals(4, recovered.getStopOrderCount());
+        Assert.assertEquals(10100, recovered.getLastTradeTicks());
+        try (OrderJournal journal = new OrderJournal(journalFile, INSTRUMENT, 1000, FsyncPolicy.None)){
+            journal.replay(recovered, snapshotSequence);
+        }
+        Assert.assertEquals(orderbook.getStopOrderCount(), recovered.getStopOrderCount());
+        Assert.assertEquals(orderbook.getLastTradeTicks(), recovered.getLastTradeTicks());
+        assertSameQueue(orderbook.getBidQueue(), recovered.getBidQueue());
+        assertSameQueue(orderbook.getAskQueue(), recovered.getAskQueue());
+        //Remaining sell stops trigger the same on both
+        orderbook.submitOrder(returnTestOrder("take3", OrderSide.Sell, 9800, 150, OrderType.GTC));
+        recovered.submitOrder(returnTestOrder("take3", OrderSide.Sell, 9800, 150, OrderType.GTC));
+        Assert.assertEquals(0, recovered.getStopOrderCount());
+        Assert.assertEquals(orderbook.getStopOrderCount(), recovered.getStopOrderCount());
+        assertSameQueue(orderbook.getBidQueue(), recovered.getBidQueue());
+        assertSameQueue(orderbook.getAskQueue(), recovered.getAskQueue());
+    }
+
+    /** Test orders without a client id are written and loaded back without one **/
+    @Test
+    public void TestNullClientId() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.snapshot");
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        orderbook.submitOrder(new SimpleOrderBuilder().setOrderid("test1").setInstrument(INSTRUMENT).setPriceTicks(9900)
+                .setSide(OrderSide.Buy).setOrderqty(100).createSimpleOrder());
+        orderbook.submitOrder(returnTestOrder("test2", OrderSide.Buy, 9900, 100, OrderType.GTC));
+        orderbook.submitOrder(new SimpleOrderBuilder().setOrderid("test3").setInstrument(INSTRUMENT).setMarket(true)
+                .setStopPriceTicks(10100).setSide(OrderSide.Buy).setOrderqty(100).setOrderType(OrderType.Stop)
+                .createSimpleOrder());
+        Assert.assertEquals(3, OrderBookSnapshot.write(file, orderbook, 0));
+        TreeOrderBookImpl recovered = new TreeOrderBookImpl(INSTRUMENT);
+        OrderBookSnapshot.load(file, recovered);
+        assertSameQueue(orderbook.getBidQueue(), recovered.getBidQueue());
+        Assert.assertNull(recovered.getBidQueue().get(0).ClientID());
+        Assert.assertEquals(1, recovered.getStopOrderCount());
+        Assert.assertTrue(recovered.cancelOrder("test3", null));
+    }
+
+    /** Test loading a file that is not a snapshot fails **/
+    @Test(expected = IOException.class)
+    public void TestNotASnapshot() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.snapshot");
+        Files.write(file, new byte[64]);
+        OrderBookSnapshot.load(file, new TreeOrderBookImpl(INSTRUMENT));
+    }
+
+    /** Test loading a snapshot with an out of range side fails with an IOException **/
+    @Test(expected = IOException.class)
+    public void TestCorruptSnapshot() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.snapshot");
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        orderbook.submitOrder(returnTestOrder("test1", OrderSide.Buy, 9900, 100, OrderType.GTC));
+        OrderBookSnapshot.write(file, orderbook, 0);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[36] = 7;
+        Files.write(file, bytes);
+        OrderBookSnapshot.load(file, new TreeOrderBookImpl(INSTRUMENT));
+    }
+
+    private void assertSameQueue(List<IOrder> expected, List<IOrder> actual){
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++){
+            Assert.assertEquals(expected.get(i).OrderID(), actual.get(i).OrderID());
+            Assert.assertEquals(expected.get(i).ClientID(), actual.get(i).ClientID());
+            Assert.assertEquals(expected.get(i).PriceTicks(), actual.get(i).PriceTicks());
+            Assert.assertEquals(expected.get(i).getRemainingQty(), actual.get(i).getRemainingQty());
+            Assert.assertEquals(expected.get(i).getStatus(), actual.get(i).getStatus());
+            Assert.assertEquals(expected.get(i).getCumulativeQty(), actual.get(i).getCumulativeQty());
+            Assert.assertEquals(expected.get(i).getAveragePrice(), actual.get(i).getAveragePrice(), 1e-9);
+        }
+    }
+}
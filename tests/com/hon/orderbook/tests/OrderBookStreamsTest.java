@@ -0,0 +1,263 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Flow;
+
+/** Order book stream test cases
+ *
+ */
+public class OrderBookStreamsTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    /** Executor running the deliveries when the test drains it **/
+    private static final class ManualExecutor implements Executor {
+
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable command) {
+            if (this.rejecting){
+                throw new RejectedExecutionException("Executor saturated");
+            }
+            this.tasks.add(command);
+        }
+
+        void drain(){
+            Runnable task;
+            while ((task = this.tasks.poll()) != null){
+                task.run();
+            }
+        }
+    }
+
+    /** Subscriber recording what it receives, requesting an initial demand **/
+    private static final class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+
+        private final long initial;
+        private final List<T> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean complete;
+
+        RecordingSubscriber(long initial){
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (this.initial > 0){
+                subscription.request(this.initial);
+            }
+        }
+
+        @Override
+        public void onNext(T item) {
+            this.items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.complete = true;
+        }
+    }
+
+    private static SimpleOrder order(String id, long price, OrderSide side, OrderType type, int qty){
+        return new SimpleOrderBuilder().setOrderid(id).setPriceTicks(price).setTickSize(0.01).setSide(side)
+                .setOrderType(type).setClientid("hon123").setOrderqty(qty).createSimpleOrder();
+    }
+
+    /** Test order status transitions are streamed for the incoming and the resting order **/
+    @Test
+    public void TestOrderUpdates(){
+        ManualExecutor executor = new ManualExecutor();
+        OrderBookStreams streams = new OrderBookStreams(executor, 64);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        streams.attach(orderbook);
+        RecordingSubscriber<OrderBookStreams.OrderUpdate> updates = new RecordingSubscriber<>(Long.MAX_VALUE);
+        RecordingSubscriber<OrderBookStreams.Trade> trades = new RecordingSubscriber<>(Long.MAX_VALUE);
+        streams.orderUpdates().subscribe(updates);
+        streams.trades().subscribe(trades);
+        executor.drain();
+
+        orderbook.submitOrder(order("test1", 10000, OrderSide.Sell, OrderType.GTC, 100));
+        orderbook.submitOrder(order("test2", 10000, OrderSide.Buy, OrderType.GTC, 40));
+        orderbook.cancelOrder("test1", "hon123");
+        executor.drain();
+
+        Assert.assertEquals(5, updates.items.size());
+        assertUpdate(updates.items.get(0), "test1", OrderStatus.New, 100);
+        assertUpdate(updates.items.get(1), "test2", OrderStatus.New, 40);
+        assertUpdate(updates.items.get(2), "test1", OrderStatus.PartialFill, 40);
+        assertUpdate(updates.items.get(3), "test2", OrderStatus.FullyFilled, 40);
+        assertUpdate(updates.items.get(4), "test1", OrderStatus.Cancelled, 60);
+        Assert.assertEquals(1, trades.items.size());
+        Assert.assertEquals("test1", trades.items.get(0).getMakerOrderId());
+        Assert.assertEquals("test2", trades.items.get(0).getTakerOrderId());
+        Assert.assertEquals(10000, trades.items.get(0).getPriceTicks());
+        Assert.assertEquals(40, trades.items.get(0).getQty());
+    }
+
+    private static void assertUpdate(OrderBookStreams.OrderUpdate update, String orderId, OrderStatus status, int qty){
+        Assert.assertEquals(orderId, update.getOrderId());
+        Assert.assertEquals(status, update.getStatus());
+        Assert.assertEquals(qty, update.getQty());
+    }
+
+    /** Test items are delivered no faster than requested **/
+    @Test
+    public void TestDemand(){
+        ManualExecutor executor = new ManualExecutor();
+        OrderBookStreams streams = new OrderBookStreams(executor, 64);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        streams.attach(orderbook);
+        RecordingSubscriber<OrderBookStreams.LevelChange> levels = new RecordingSubscriber<>(2);
+        streams.levelChanges().subscribe(levels);
+        executor.drain();
+
+        for (int i = 0; i < 5; i++){
+            orderbook.submitOrder(order("test" + i, 9990 - i, OrderSide.Buy, OrderType.GTC, 100));
+        }
+        executor.drain();
+        Assert.assertEquals(2, levels.items.size());
+        Assert.assertEquals(OrderSide.Buy, levels.items.get(0).getSide());
+        Assert.assertEquals(9990, levels.items.get(0).getPriceTicks());
+        Assert.assertEquals(100, levels.items.get(0).getQty());
+        Assert.assertEquals(1, levels.items.get(0).getOrderCount());
+
+        levels.subscription.request(10);
+        executor.drain();
+        Assert.assertEquals(5, levels.items.size());
+        Assert.assertEquals(9986, levels.items.get(4).getPriceTicks());
+        Assert.assertNull(levels.error);
+    }
+
+    /** Test a subscriber falling behind its buffer is cut off while the order book keeps matching **/
+    @Test
+    public void TestSlowSubscriberOverflow(){
+        ManualExecutor executor = new ManualExecutor();
+        OrderBookStreams streams = new OrderBookStreams(executor, 4);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        streams.attach(orderbook);
+        RecordingSubscriber<OrderBookStreams.Trade> slow = new RecordingSubscriber<>(1);
+        RecordingSubscriber<OrderBookStreams.Trade> fast = new RecordingSubscriber<>(Long.MAX_VALUE);
+        streams.trades().subscribe(slow);
+        streams.trades().subscribe(fast);
+        executor.drain();
+
+        orderbook.submitOrder(order("rest", 10000, OrderSide.Sell, OrderType.GTC, 1000));
+        for (int i = 0; i < 20; i++){
+            orderbook.submitOrder(order("test" + i, 10000, OrderSide.Buy, OrderType.GTC, 10));
+            if (i % 2 == 0){
+                executor.drain();
+            }
+        }
+        executor.drain();
+
+        Assert.assertEquals(800, orderbook.getAskQueue().get(0).getRemainingQty());
+        Assert.assertEquals(20, fast.items.size());
+        Assert.assertNull(fast.error);
+        Assert.assertEquals(1, slow.items.size());
+        Assert.assertTrue(slow.error instanceof SubscriberOverflowException);
+        Assert.assertFalse(slow.complete);
+    }
+
+    /** Test a delivery rejected by a saturated executor overflows the subscriber instead of stalling it **/
+    @Test
+    public void TestRejectedDelivery(){
+        ManualExecutor executor = new ManualExecutor();
+        OrderBookStreams streams = new OrderBookStreams(executor, 4);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        streams.attach(orderbook);
+        RecordingSubscriber<OrderBookStreams.Trade> subscriber = new RecordingSubscriber<>(0);
+        streams.trades().subscribe(subscriber);
+        executor.drain();
+
+        executor.rejecting = true;
+        orderbook.submitOrder(order("rest", 10000, OrderSide.Sell, OrderType.GTC, 1000));
+        orderbook.submitOrder(order("test1", 10000, OrderSide.Buy, OrderType.GTC, 10));
+        executor.rejecting = false;
+        subscriber.subscription.request(1);
+        executor.drain();
+        Assert.assertTrue(subscriber.items.isEmpty());
+        Assert.assertTrue(subscriber.error instanceof SubscriberOverflowException);
+    }
+
+    /** Test a rejected delivery is signalled on the next submit to a subscriber with outstanding demand **/
+    @Test
+    public void TestRejectedDeliveryRetried(){
+        ManualExecutor executor = new ManualExecutor();
+        OrderBookStreams streams = new OrderBookStreams(executor, 4);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        streams.attach(orderbook);
+        RecordingSubscriber<OrderBookStreams.Trade> subscriber = new RecordingSubscriber<>(16);
+        streams.trades().subscribe(subscriber);
+        executor.drain();
+
+        orderbook.submitOrder(order("rest", 10000, OrderSide.Sell, OrderType.GTC, 1000));
+        executor.rejecting = true;
+        orderbook.submitOrder(order("test1", 10000, OrderSide.Buy, OrderType.GTC, 10));
+        executor.rejecting = false;
+        executor.drain();
+        Assert.assertNull(subscriber.error);
+        orderbook.submitOrder(order("test2", 10000, OrderSide.Buy, OrderType.GTC, 10));
+        executor.drain();
+        Assert.assertTrue(subscriber.items.isEmpty());
+        Assert.assertTrue(subscriber.error instanceof SubscriberOverflowException);
+    }
+
+    /** Test closing the streams completes subscribers after the buffered items **/
+    @Test
+    public void TestCloseCompletes(){
+        ManualExecutor executor = new ManualExecutor();
+        OrderBookStreams streams = new OrderBookStreams(executor, 16);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        streams.attach(orderbook);
+        RecordingSubscriber<OrderBookStreams.LevelChange> levels = new RecordingSubscriber<>(0);
+        streams.levelChanges().subscribe(levels);
+        executor.drain();
+
+        orderbook.submitOrder(order("test1", 9990, OrderSide.Buy, OrderType.GTC, 100));
+        streams.close();
+        executor.drain();
+        Assert.assertFalse(levels.complete);
+        levels.subscription.request(1);
+        executor.drain();
+        Assert.assertEquals(1, levels.items.size());
+        Assert.assertTrue(levels.complete);
+
+        RecordingSubscriber<OrderBookStreams.LevelChange> late = new RecordingSubscriber<>(1);
+        streams.levelChanges().subscribe(late);
+        executor.drain();
+        Assert.assertTrue(late.complete);
+        Assert.assertTrue(late.items.isEmpty());
+    }
+
+    /** Test a non positive request is signalled as an error **/
+    @Test
+    public void TestInvalidRequest(){
+        ManualExecutor executor = new ManualExecutor();
+        BoundedPublisher<String> publisher = new BoundedPublisher<>(executor, 8);
+        RecordingSubscriber<String> subscriber = new RecordingSubscriber<>(0);
+        publisher.subscribe(subscriber);
+        executor.drain();
+        subscriber.subscription.request(0);
+        executor.drain();
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+        Assert.assertFalse(publisher.hasSubscribers());
+    }
+}
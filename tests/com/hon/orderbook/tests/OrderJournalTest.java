@@ -0,0 +1,259 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Order journal test cases
+ *
+ */
+public class OrderJournalTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SimpleOrder returnTestOrder(String orderId, OrderSide side, long priceTicks, int orderqty, OrderType orderType){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setSide(side).setClientid("hon123").setOrderqty(orderqty).setOrderType(orderType)
+                .createSimpleOrder();
+    }
+
+    /** Test replaying the journal rebuilds the same queues and order statuses **/
+    @Test
+    public void TestReplayRebuildsOrderBook() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.journal");
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        Random rand = new Random(11);
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 10000, FsyncPolicy.Group)){
+            JournaledOrderBook journaled = new JournaledOrderBook(orderbook, journal);
+            for (int i = 0; i < 3000; i++){
+                if (i > 0 && rand.nextInt(5) == 0){
+                    journaled.cancelOrder("test" + rand.nextInt(i), "hon123");
+                    continue;
+                }
+                if (i > 0 && rand.nextInt(5) == 0){
+                    journaled.replaceOrder("test" + rand.nextInt(i), "hon123", 10000 + rand.nextInt(100) - 50,
+                            1 + rand.nextInt(300));
+                    continue;
+                }
+                if (i % 1000 == 999){
+                    journaled.cancelAllOrders("hon123", OrderSide.Buy);
+                    continue;
+                }
+                OrderSide side = rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell;
+                OrderType orderType = rand.nextInt(10) == 0 ? OrderType.ImmediateOrCancel : OrderType.GTC;
+                SimpleOrder order = returnTestOrder("test" + i, side, 10000 + rand.nextInt(100) - 50,
+                        1 + rand.nextInt(300), rand.nextInt(20) == 0 ? OrderType.StopLimit : orderType);
+                order.setStopPriceTicks(10000 + rand.nextInt(100) - 50);
+                journaled.submitOrder(order);
+            }
+            journal.awaitDurable(journal.sequence());
+            Assert.assertEquals(journal.sequence(), journal.durableSequence());
+        }
+        TreeOrderBookImpl recovered = new TreeOrderBookImpl(INSTRUMENT);
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 10000, FsyncPolicy.None)){
+            Assert.assertEquals(journal.sequence(), journal.replay(recovered));
+        }
+        assertSameQueue(orderbook.getBidQueue(), recovered.getBidQueue());
+        assertSameQueue(orderbook.getAskQueue(), recovered.getAskQueue());
+        Assert.assertEquals(orderbook.getStopOrderCount(), recovered.getStopOrderCount());
+    }
+
+    /** Test appending continues after the last record when a journal is reopened **/
+    @Test
+    public void TestReopenAppends() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.journal");
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 16, FsyncPolicy.None)){
+            journal.appendSubmit(returnTestOrder("test1", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            journal.appendSubmit(returnTestOrder("test2", OrderSide.Buy, 9900, 100, OrderType.GTC));
+        }
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 16, FsyncPolicy.None)){
+            Assert.assertEquals(2, journal.sequence());
+            journal.appendCancel("test1", "hon123");
+        }
+        TreeOrderBookImpl recovered = new TreeOrderBookImpl(INSTRUMENT);
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 16, FsyncPolicy.None)){
+            Assert.assertEquals(3, journal.replay(recovered));
+        }
+        Assert.assertEquals(1, recovered.getBidQueue().size());
+        Assert.assertEquals("test2", recovered.getBidQueue().get(0).OrderID());
+    }
+
+    /** Test a record without its commit marker is not replayed **/
+    @Test
+    public void TestTornRecordIgnored() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.journal");
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 16, FsyncPolicy.None)){
+            journal.appendSubmit(returnTestOrder("test1", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            journal.appendSubmit(returnTestOrder("test2", OrderSide.Buy, 9900, 100, OrderType.GTC));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)){
+            channel.write(ByteBuffer.allocate(4), 3L * OrderJournal.RECORD_SIZE - 4);
+        }
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 16, FsyncPolicy.None)){
+            Assert.assertEquals(1, journal.sequence());
+        }
+    }
+
+    /** Test full journal and oversized ids are refused **/
+    @Test
+    public void TestRefusedAppends() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.journal");
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 1, FsyncPolicy.None)){
+            try {
+                journal.appendCancel(new String(new char[OrderJournal.MAX_ID_LENGTH + 1]).replace('\0', 'x'), "hon123");
+                Assert.fail();
+            }
+            catch (IllegalArgumentException e){
+                Assert.assertEquals(0, journal.sequence());
+            }
+            journal.appendCancel("test1", "hon123");
+            try {
+                journal.appendCancel("test2", "hon123");
+                Assert.fail();
+            }
+            catch (IllegalStateException e){
+                Assert.assertEquals(1, journal.sequence());
+            }
+        }
+    }
+
+    private void assertSameQueue(List<IOrder> expected, List<IOrder> actual){
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++){
+            Assert.assertEquals(expected.get(i).OrderID(), actual.get(i).OrderID());
+            Assert.assertEquals(expected.get(i).getRemainingQty(), actual.get(i).getRemainingQty());
+            Assert.assertEquals(expected.get(i).getStatus(), actual.get(i).getStatus());
+            Assert.assertEquals(expected.get(i).Fills().size(), actual.get(i).Fills().size());
+        }
+    }
+
+    /** Test an order with an id the journal cannot hold is rejected through the sink and not journaled **/
+    @Test
+    public void TestRejectOversizedId() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.journal");
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        List<String> rejected = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 16, FsyncPolicy.periodic(1000000))){
+            JournaledOrderBook journaled = new JournaledOrderBook(orderbook, journal);
+            journaled.setEventSink(new IEventSink() {
+                @Override
+                public void onOrderReceived(String orderId, OrderSide side, int qty, long priceTicks, boolean market) {
+                }
+
+                @Override
+                public void onOrderRejected(String orderId, String reason) {
+                    rejected.add(orderId);
+                }
+
+                @Override
+                public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty) {
+                }
+
+                @Override
+                public void onOrderCancelled(String orderId, int remainingQty) {
+                }
+            });
+            String longId = new String(new char[OrderJournal.MAX_ID_LENGTH + 1]).replace('\0', 'x');
+            SimpleOrder order = returnTestOrder(longId, OrderSide.Buy, 9900, 100, OrderType.GTC);
+            journaled.submitOrder(order);
+            Assert.assertEquals(OrderStatus.Rejected, order.getStatus());
+            Assert.assertEquals(1, rejected.size());
+            Assert.assertEquals(0, journal.sequence());
+            Assert.assertEquals(0, orderbook.getBidQueue().size());
+            journaled.submitOrder(returnTestOrder("test1", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            journal.awaitDurable(1);
+            Assert.assertEquals(1, journal.durableSequence());
+        }
+    }
+
+    /** Test a capacity a single mapping cannot hold is refused up front **/
+    @Test(expected = IllegalArgumentException.class)
+    public void TestCapacityTooLarge() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.journal");
+        new OrderJournal(file, INSTRUMENT, OrderJournal.MAX_CAPACITY + 1, FsyncPolicy.None).close();
+    }
+
+    /** Test submits once the journal is full are rejected through the sink instead of failing **/
+    @Test
+    public void TestRejectWhenFull() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.journal");
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        List<String> rejected = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 2, FsyncPolicy.None)){
+            JournaledOrderBook journaled = new JournaledOrderBook(orderbook, journal);
+            journaled.setEventSink(new NoOpEventSink() {
+                @Override
+                public void onOrderRejected(String orderId, String reason) {
+                    rejected.add(orderId + " " + reason);
+                }
+            });
+            journaled.submitOrder(returnTestOrder("test1", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            journaled.submitOrder(returnTestOrder("test2", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            Assert.assertTrue(journal.isFull());
+            SimpleOrder order = returnTestOrder("test3", OrderSide.Buy, 9900, 100, OrderType.GTC);
+            journaled.submitOrder(order);
+            Assert.assertEquals(OrderStatus.Rejected, order.getStatus());
+            Assert.assertEquals(1, rejected.size());
+            Assert.assertEquals("test3 Order journal full", rejected.get(0));
+            Assert.assertEquals(2, orderbook.getBidQueue().size());
+            Assert.assertEquals(2, journal.sequence());
+        }
+    }
+
+    /** Test cancels, replaces and mass cancels are journaled before the order book applies and reports them **/
+    @Test
+    public void TestJournalBeforeApply() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("orderbook.journal");
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        List<Long> sequences = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 6, FsyncPolicy.None)){
+            JournaledOrderBook journaled = new JournaledOrderBook(orderbook, journal);
+            journaled.setEventSink(new NoOpEventSink() {
+                @Override
+                public void onOrderCancelled(String orderId, int remainingQty) {
+                    sequences.add(journal.sequence());
+                }
+
+                @Override
+                public void onOrderReplaced(String orderId, long priceTicks, int remainingQty) {
+                    sequences.add(journal.sequence());
+                }
+            });
+            journaled.submitOrder(returnTestOrder("test1", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            journaled.submitOrder(returnTestOrder("test2", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            Assert.assertEquals(OrderStatus.New, journaled.replaceOrder("test1", "hon123", 9900, 50));
+            Assert.assertTrue(journaled.cancelOrder("test1", "hon123"));
+            Assert.assertEquals(1, journaled.cancelAllOrders("hon123", null));
+            Assert.assertEquals(3, sequences.size());
+            Assert.assertEquals(3, (long) sequences.get(0));
+            Assert.assertEquals(4, (long) sequences.get(1));
+            Assert.assertEquals(5, (long) sequences.get(2));
+            //Nothing is applied once the journal is full
+            journaled.submitOrder(returnTestOrder("test3", OrderSide.Buy, 9900, 100, OrderType.GTC));
+            Assert.assertTrue(journal.isFull());
+            Assert.assertFalse(journaled.cancelOrder("test3", "hon123"));
+            Assert.assertEquals(OrderStatus.Rejected, journaled.replaceOrder("test3", "hon123", 9900, 50));
+            Assert.assertEquals(0, journaled.cancelAllOrders("hon123", null));
+            Assert.assertEquals(1, orderbook.getBidQueue().size());
+        }
+        TreeOrderBookImpl recovered = new TreeOrderBookImpl(INSTRUMENT);
+        try (OrderJournal journal = new OrderJournal(file, INSTRUMENT, 6, FsyncPolicy.None)){
+            Assert.assertEquals(6, journal.replay(recovered));
+        }
+        Assert.assertEquals(1, recovered.getBidQueue().size());
+        Assert.assertEquals("test3", recovered.getBidQueue().get(0).OrderID());
+    }
+}
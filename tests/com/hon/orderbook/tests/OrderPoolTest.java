@@ -0,0 +1,132 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import java.lang.management.ManagementFactory;
+
+/** Order pool and allocation free order book test cases
+ *
+ */
+public class OrderPoolTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    /** Test pooled orders are recycled once fully filled or cancelled **/
+    @Test
+    public void TestReleaseOnTerminalStatus(){
+        OrderPool pool = new OrderPool(4, 8);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.setOrderPool(pool);
+        SimpleOrder simpleOrder = pool.acquireOrder("test1", 10000, 0.01, false, OrderSide.Sell, OrderType.GTC, "hon123", 100);
+        SimpleOrder simpleOrder1 = pool.acquireOrder("test2", 10000, 0.01, false, OrderSide.Sell, OrderType.GTC, "hon123", 100);
+        Assert.assertEquals(OrderStatus.New, simpleOrder.getStatus());
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        Assert.assertEquals(2, pool.availableOrders());
+        SimpleOrder simpleOrder2 = pool.acquireOrder("test3", 10000, 0.01, false, OrderSide.Buy, OrderType.GTC, "hon123", 100);
+        orderbook.submitOrder(simpleOrder2);
+        //Taker and fully filled maker released with their fills
+        Assert.assertEquals(3, pool.availableOrders());
+        Assert.assertEquals(8, pool.availableFills());
+        Assert.assertTrue(orderbook.cancelOrder("test2", "hon123"));
+        Assert.assertEquals(4, pool.availableOrders());
+        //Released orders keep their final status and quantities until acquired again
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder1.getStatus());
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(100, simpleOrder1.getRemainingQty());
+        Assert.assertTrue(simpleOrder.Fills().isEmpty());
+        Assert.assertEquals(0, orderbook.getAskQueue().size());
+        //Releasing twice does not add the order to the pool again
+        pool.release(simpleOrder1);
+        Assert.assertEquals(4, pool.availableOrders());
+    }
+
+    /** Test resubmitting a resting pooled order is rejected without releasing or changing the resting order **/
+    @Test
+    public void TestResubmitRestingOrder(){
+        OrderPool pool = new OrderPool(4, 8);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.setOrderPool(pool);
+        SimpleOrder simpleOrder = pool.acquireOrder("test1", 10000, 0.01, false, OrderSide.Sell, OrderType.GTC, "hon123", 100);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder);
+        Assert.assertEquals(OrderStatus.New, simpleOrder.getStatus());
+        Assert.assertEquals(3, pool.availableOrders());
+        Assert.assertSame(simpleOrder, orderbook.getAskQueue().get(0));
+        Assert.assertEquals(100, orderbook.getBestAskQty());
+        Assert.assertTrue(orderbook.cancelOrder("test1", "hon123"));
+        Assert.assertEquals(4, pool.availableOrders());
+    }
+
+    /** Test resting pooled orders keep their fills until they are released **/
+    @Test
+    public void TestPartialFillKeepsFills(){
+        OrderPool pool = new OrderPool(4, 8);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.setOrderPool(pool);
+        SimpleOrder simpleOrder = pool.acquireOrder("test1", 10000, 0.01, false, OrderSide.Sell, OrderType.GTC, "hon123", 100);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(pool.acquireOrder("test2", 10000, 0.01, false, OrderSide.Buy, OrderType.GTC, "hon123", 40));
+        Assert.assertEquals(OrderStatus.PartialFill, simpleOrder.getStatus());
+        Assert.assertEquals(1, simpleOrder.Fills().size());
+        Assert.assertEquals(40, simpleOrder.Fills().get(0).OrderQty());
+        Assert.assertEquals(60, simpleOrder.getRemainingQty());
+    }
+
+    /** Test order that never trades does not create a fill list **/
+    @Test
+    public void TestNoFillsWithoutTrade(){
+        SimpleOrder simpleOrder = new SimpleOrderBuilder().setOrderid("test1").setPrice(100.00)
+                .setSide(OrderSide.Buy).setClientid("hon123").setOrderqty(100).createSimpleOrder();
+        Assert.assertTrue(simpleOrder.Fills().isEmpty());
+    }
+
+    /** Test submit and cancel of pooled orders allocate nothing after warm-up **/
+    @Test
+    public void TestSteadyStateAllocationFree(){
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        OrderPool pool = new OrderPool(1024, 4096);
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.setOrderPool(pool);
+        String[] orderIds = new String[256];
+        for (int i = 0; i < orderIds.length; i++){
+            orderIds[i] = "test" + i;
+        }
+        //Orders resting across the whole test
+        for (int i = 0; i < 64; i++){
+            orderbook.submitOrder(pool.acquireOrder("rest" + i, 9900 - i, 0.01, false, OrderSide.Buy, OrderType.GTC, "hon123", 100));
+            orderbook.submitOrder(pool.acquireOrder("restask" + i, 10100 + i, 0.01, false, OrderSide.Sell, OrderType.GTC, "hon123", 100));
+        }
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 200000; i++){
+            runFlow(orderbook, pool, orderIds, i);
+        }
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        long baseline = threadBean.getThreadAllocatedBytes(threadId) - before;
+        before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++){
+            runFlow(orderbook, pool, orderIds, i);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - baseline;
+        Assert.assertEquals(0, allocated);
+        Assert.assertEquals(128, orderbook.getBidQueue().size() + orderbook.getAskQueue().size());
+    }
+
+    /** Rest an order, partially fill it, cancel it and send an IOC that does not trade **/
+    private void runFlow(LadderOrderBookImpl orderbook, OrderPool pool, String[] orderIds, int i){
+        String makerId = orderIds[(2 * i) % orderIds.length];
+        String takerId = orderIds[(2 * i + 1) % orderIds.length];
+        long price = 10000 + (i % 50);
+        orderbook.submitOrder(pool.acquireOrder(makerId, price, 0.01, false, OrderSide.Sell, OrderType.GTC, "hon123", 100));
+        orderbook.submitOrder(pool.acquireOrder(takerId, price, 0.01, false, OrderSide.Buy, OrderType.GTC, "hon123", 60));
+        orderbook.cancelOrder(makerId, "hon123");
+        orderbook.submitOrder(pool.acquireOrder(takerId, 9950, 0.01, false, OrderSide.Sell, OrderType.ImmediateOrCancel, "hon123", 10));
+    }
+}
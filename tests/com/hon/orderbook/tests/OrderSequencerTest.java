@@ -0,0 +1,116 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Order sequencer test cases
+ *
+ */
+public class OrderSequencerTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    /** Execution listener counting executed quantity on the matching thread **/
+    private static class QtyExecutionListener implements IExecutionListener {
+
+        private long executedQty;
+
+        @Override
+        public void onExecution(String makerOrderId, String takerOrderId, long priceTicks, int qty,
+                                OrderStatus makerStatus, OrderStatus takerStatus) {
+            executedQty += qty;
+        }
+    }
+
+    private SimpleOrder returnTestOrder(String orderId, OrderSide side, long priceTicks, int orderqty){
+        return new SimpleOrderBuilder().setOrderid(orderId).setInstrument(INSTRUMENT).setPriceTicks(priceTicks)
+                .setSide(side).setClientid("hon123").setOrderqty(orderqty).createSimpleOrder();
+    }
+
+    /** Test orders from concurrent producers are all matched by each wait strategy **/
+    @Test
+    public void TestConcurrentProducers() throws InterruptedException {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()){
+            LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+            QtyExecutionListener listener = new QtyExecutionListener();
+            orderbook.setExecutionListener(listener);
+            OrderSequencer sequencer = new OrderSequencer(orderbook, 1024, waitStrategy);
+            sequencer.start();
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < 4; p++){
+                final OrderSide side = p % 2 == 0 ? OrderSide.Buy : OrderSide.Sell;
+                final String prefix = "test" + p + "_";
+                producers.add(new Thread(() -> {
+                    for (int i = 0; i < 5000; i++){
+                        sequencer.submitOrder(returnTestOrder(prefix + i, side, 10000, 10));
+                    }
+                }));
+            }
+            for (Thread producer : producers){
+                producer.start();
+            }
+            for (Thread producer : producers){
+                producer.join();
+            }
+            sequencer.close();
+            Assert.assertEquals(waitStrategy.name(), 2 * 5000 * 10, listener.executedQty);
+            Assert.assertEquals(0, orderbook.getBidQueue().size());
+            Assert.assertEquals(0, orderbook.getAskQueue().size());
+        }
+    }
+
+    /** Test cancel is applied after the submit sequenced before it **/
+    @Test
+    public void TestCancelInSequence(){
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        OrderSequencer sequencer = new OrderSequencer(orderbook, 4, WaitStrategy.Parking);
+        sequencer.start();
+        SimpleOrder simpleOrder = returnTestOrder("test1", OrderSide.Buy, 9900, 100);
+        SimpleOrder simpleOrder1 = returnTestOrder("test2", OrderSide.Buy, 9800, 100);
+        sequencer.submitOrder(simpleOrder);
+        sequencer.submitOrder(simpleOrder1);
+        sequencer.cancelOrder("test1", "hon123");
+        sequencer.close();
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder.getStatus());
+        Assert.assertEquals(1, orderbook.getBidQueue().size());
+        Assert.assertSame(simpleOrder1, orderbook.getBidQueue().get(0));
+    }
+
+    /** Test a command that throws does not stop the matching thread and commands are refused once closed **/
+    @Test
+    public void TestFailedCommandAndClose(){
+        LadderOrderBookImpl orderbook = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        orderbook.setExecutionListener((makerOrderId, takerOrderId, priceTicks, qty, makerStatus, takerStatus) -> {
+            if (qty == 1){
+                throw new IllegalStateException("Listener failure");
+            }
+        });
+        OrderSequencer sequencer = new OrderSequencer(orderbook, 4, WaitStrategy.Parking, "orderbook-failure-test");
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> { });
+        try {
+            sequencer.start();
+            sequencer.submitOrder(returnTestOrder("test1", OrderSide.Sell, 10000, 100));
+            sequencer.submitOrder(returnTestOrder("test2", OrderSide.Buy, 10000, 1));
+            for (int i = 0; i < 16; i++){
+                sequencer.submitOrder(returnTestOrder("test" + (i + 3), OrderSide.Buy, 9900, 10));
+            }
+            sequencer.awaitIdle();
+            Assert.assertEquals(1, sequencer.failedCommands());
+            Assert.assertEquals(16, orderbook.getBidQueue().size());
+            sequencer.close();
+        }
+        finally {
+            Thread.setDefaultUncaughtExceptionHandler(null);
+        }
+        try {
+            sequencer.cancelOrder("test3", "hon123");
+            Assert.fail("Closed sequencer should refuse commands");
+        }
+        catch (IllegalStateException e){
+            Assert.assertEquals(16, orderbook.getBidQueue().size());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/** Replay engine and latency histogram test cases
+ *
+ */
+public class ReplayEngineTest {
+
+    private static final Instrument INSTRUMENT = new Instrument("test", 0.01);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Record the same random flow as binary and CSV, and count its executions live **/
+    private long[] recordFlow(Path binary, Path csv, int count) throws IOException {
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        long[] executions = new long[2];
+        orderbook.setExecutionListener((maker, taker, priceTicks, qty, makerStatus, takerStatus) -> {
+            executions[0]++;
+            executions[1] += qty;
+        });
+        Random rand = new Random(42);
+        try (OrderFlowWriter writer = new OrderFlowWriter(binary);
+             BufferedWriter text = Files.newBufferedWriter(csv, StandardCharsets.US_ASCII)){
+            text.write("timestamp,type,orderId,clientId,side,orderType,priceTicks,qty,market\n");
+            for (int i = 0; i < count; i++){
+                long timestamp = 1000L * i;
+                if (i > 0 && rand.nextInt(4) == 0){
+                    String orderId = "order" + rand.nextInt(i);
+                    writer.appendCancel(timestamp, orderId, "client1");
+                    text.write(timestamp + ",C," + orderId + ",client1\n");
+                    orderbook.cancelOrder(orderId, "client1");
+                    continue;
+                }
+                SimpleOrder order = new SimpleOrder("order" + i, 10000 + rand.nextInt(100) - 50, 0.01,
+                        rand.nextInt(50) == 0, rand.nextBoolean() ? OrderSide.Buy : OrderSide.Sell,
+                        rand.nextInt(10) == 0 ? OrderType.ImmediateOrCancel : OrderType.GTC, "client1",
+                        1 + rand.nextInt(200));
+                writer.appendSubmit(timestamp, order);
+                text.write(timestamp + ",S," + order.OrderID() + "," + order.ClientID() + "," + order.Side() + ","
+                        + order.OrderType() + "," + order.PriceTicks() + "," + order.OrderQty() + ","
+                        + order.isMarketOrder() + "\r\n");
+                orderbook.submitOrder(order);
+            }
+        }
+        return executions;
+    }
+
+    private void assertSameBook(List<IOrder> expected, List<IOrder> actual){
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++){
+            Assert.assertEquals(expected.get(i).OrderID(), actual.get(i).OrderID());
+            Assert.assertEquals(expected.get(i).getRemainingQty(), actual.get(i).getRemainingQty());
+        }
+    }
+
+    /** Test binary and CSV replays give the same book and executions as the recorded flow **/
+    @Test
+    public void TestReplayBinaryAndCsv() throws IOException {
+        Path binary = this.folder.getRoot().toPath().resolve("flow.bin");
+        Path csv = this.folder.getRoot().toPath().resolve("flow.csv");
+        long[] executions = recordFlow(binary, csv, 20000);
+        Assert.assertTrue(executions[0] > 0);
+
+        TreeOrderBookImpl fromBinary = new TreeOrderBookImpl(INSTRUMENT);
+        fromBinary.setRetainFills(false);
+        ReplayReport binaryReport = new ReplayEngine(fromBinary, INSTRUMENT).replayBinary(binary);
+        LadderOrderBookImpl fromCsv = new LadderOrderBookImpl(INSTRUMENT, 10000);
+        ReplayReport csvReport = new ReplayEngine(fromCsv, INSTRUMENT).replayCsv(csv);
+
+        for (ReplayReport report : new ReplayReport[]{binaryReport, csvReport}){
+            Assert.assertEquals(20000, report.getMessages());
+            Assert.assertEquals(report.getMessages(), report.getSubmits() + report.getCancels());
+            Assert.assertEquals(executions[0], report.getExecutions());
+            Assert.assertEquals(executions[1], report.getExecutedQty());
+            Assert.assertEquals(20000, report.getLatency().count());
+            Assert.assertTrue(report.messagesPerSecond() > 0);
+        }
+        assertSameBook(fromBinary.getBidQueue(), fromCsv.getBidQueue());
+        assertSameBook(fromBinary.getAskQueue(), fromCsv.getAskQueue());
+    }
+
+    /** Test the first limit price of a flow is found in binary and CSV files to centre a ladder on **/
+    @Test
+    public void TestFirstPriceTicks() throws IOException {
+        Path binary = this.folder.getRoot().toPath().resolve("flow.bin");
+        Path csv = this.folder.getRoot().toPath().resolve("flow.csv");
+        recordFlow(binary, csv, 100);
+        long priceTicks = ReplayEngine.firstPriceTicks(binary, false);
+        Assert.assertEquals(priceTicks, ReplayEngine.firstPriceTicks(csv, true));
+        Assert.assertTrue(priceTicks >= 9950 && priceTicks < 10050);
+    }
+
+    /** Test ids longer than a signed short are replayed from a binary flow **/
+    @Test
+    public void TestReplayLongIds() throws IOException {
+        Path binary = this.folder.getRoot().toPath().resolve("flow.bin");
+        String orderId = new String(new char[40000]).replace('\0', 'x');
+        try (OrderFlowWriter writer = new OrderFlowWriter(binary)){
+            writer.appendSubmit(0, new SimpleOrder(orderId, 10000, 0.01, false, OrderSide.Buy, OrderType.GTC,
+                    "client1", 100));
+            writer.appendCancel(1, orderId, "client1");
+        }
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(INSTRUMENT);
+        ReplayReport report = new ReplayEngine(orderbook, INSTRUMENT).replayBinary(binary);
+        Assert.assertEquals(1, report.getSubmits());
+        Assert.assertEquals(1, report.getCancels());
+        Assert.assertEquals(0, orderbook.getBidQueue().size());
+    }
+
+    /** Test replay at recorded pace takes at least the recorded time **/
+    @Test
+    public void TestReplayPaced() throws IOException {
+        Path binary = this.folder.getRoot().toPath().resolve("flow.bin");
+        try (OrderFlowWriter writer = new OrderFlowWriter(binary)){
+            for (int i = 0; i < 11; i++){
+                writer.appendSubmit(5_000_000L * i, new SimpleOrder("order" + i, 10000 + i, 0.01, false,
+                        OrderSide.Sell, OrderType.GTC, "client1", 100));
+            }
+        }
+        ReplayEngine engine = new ReplayEngine(new TreeOrderBookImpl(INSTRUMENT), INSTRUMENT);
+        engine.setSpeed(1.0);
+        ReplayReport report = engine.replayBinary(binary);
+        Assert.assertEquals(11, report.getSubmits());
+        Assert.assertTrue(report.getElapsedNanos() >= 50_000_000L);
+    }
+
+    /** Test a file that is not a recorded flow is refused **/
+    @Test(expected = IOException.class)
+    public void TestReplayRejectsUnknownFile() throws IOException {
+        Path file = this.folder.newFile("flow.bin").toPath();
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        new ReplayEngine(new TreeOrderBookImpl(INSTRUMENT), INSTRUMENT).replayBinary(file);
+    }
+
+    /** Test a record with a side out of range is refused **/
+    @Test(expected = IOException.class)
+    public void TestReplayRejectsCorruptRecord() throws IOException {
+        Path binary = this.folder.getRoot().toPath().resolve("flow.bin");
+        try (OrderFlowWriter writer = new OrderFlowWriter(binary)){
+            writer.appendSubmit(0, new SimpleOrder("order1", 10000, 0.01, false, OrderSide.Buy, OrderType.GTC,
+                    "client1", 100));
+        }
+        byte[] flow = Files.readAllBytes(binary);
+        flow[9] = 7;
+        Files.write(binary, flow);
+        new ReplayEngine(new TreeOrderBookImpl(INSTRUMENT), INSTRUMENT).replayBinary(binary);
+    }
+
+    /** Test percentiles are reported within a bucket of the recorded latencies **/
+    @Test
+    public void TestLatencyHistogram(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.percentile(50));
+        for (int i = 1; i <= 1000; i++){
+            histogram.record(i * 100L);
+        }
+        Assert.assertEquals(1000, histogram.count());
+        Assert.assertEquals(100, histogram.min());
+        Assert.assertEquals(100000, histogram.max());
+        Assert.assertEquals(50050.0, histogram.mean(), 0.001);
+        long p50 = histogram.percentile(50);
+        Assert.assertTrue(p50 >= 50000 && p50 <= 50000 * 1.125);
+        long p99 = histogram.percentile(99);
+        Assert.assertTrue(p99 >= 99000 && p99 <= 100000);
+        Assert.assertEquals(100000, histogram.percentile(100));
+        histogram.reset();
+        Assert.assertEquals(0, histogram.count());
+        Assert.assertEquals(0, histogram.max());
+    }
+}
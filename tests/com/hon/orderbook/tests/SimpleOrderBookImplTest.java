@@ -7,6 +7,8 @@ import org.junit.Before;
 import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 /** Order book test cases
@@ -54,6 +56,18 @@ public class SimpleOrderBookImplTest {
         return simpleOrder;
     }
 
+    /** Returns a simple market order **/
+    private SimpleOrder returnTestMarketOrder(OrderSide side, int orderqty, OrderType orderType){
+
+        SimpleOrder simpleOrder = new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId())
+                .setMarket(true).setSide(side)
+                .setClientid("hon123")
+                .setOrderqty(orderqty)
+                .setOrderType(orderType)
+                .createSimpleOrder();
+        return simpleOrder;
+    }
+
     /** Test submit order **/
     @Test
     public void TestsubmitOrder() {
@@ -265,13 +279,88 @@ public class SimpleOrderBookImplTest {
         Assert.assertEquals(0, simpleorderbook.getBidQueue().size());
     }
 
+    /** Test replace keeps time priority on a lower quantity and executes again on a new price**/
+    @Test
+    public void TestReplaceOrder(){
+        SimpleOrderBookImpl simpleorderbook = new SimpleOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 100.00, 1500);
+        simpleorderbook.submitOrder(simpleOrder);
+        simpleorderbook.submitOrder(simpleOrder1);
+        Assert.assertEquals(OrderStatus.New, simpleorderbook.replaceOrder(simpleOrder.OrderID(), simpleOrder.ClientID(), 10000, 1000));
+        Assert.assertSame(simpleOrder, simpleorderbook.getBidQueue().get(0));
+        Assert.assertEquals(1000, simpleOrder.getRemainingQty());
+        Assert.assertEquals(OrderStatus.Rejected, simpleorderbook.replaceOrder(simpleOrder.OrderID(), "other", 10000, 500));
+        Assert.assertEquals(OrderStatus.New, simpleorderbook.replaceOrder(simpleOrder.OrderID(), simpleOrder.ClientID(), 10100, 1000));
+        Assert.assertSame(simpleOrder1, simpleorderbook.getBidQueue().get(0));
+        Assert.assertSame(simpleOrder, simpleorderbook.getBidQueue().get(1));
+        Assert.assertEquals(10100, simpleOrder.PriceTicks());
+        Assert.assertEquals(2, simpleorderbook.getBidQueue().size());
+    }
+
+    /** Test mass cancel of the orders of a client by side, raising one mass cancel event and flushing once **/
+    @Test
+    public void TestCancelAllOrders(){
+        SimpleOrderBookImpl simpleorderbook = new SimpleOrderBookImpl("test");
+        int[] events = new int[3];
+        simpleorderbook.setEventSink(new NoOpEventSink() {
+            @Override
+            public void onOrderCancelled(String orderId, int remainingQty) {
+                events[0]++;
+            }
+
+            @Override
+            public void onMassCancel(String clientId, OrderSide side, int cancelledCount) {
+                events[1] += cancelledCount;
+            }
+
+            @Override
+            public void flush() {
+                events[2]++;
+            }
+        });
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 101.00, 1500);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 102.00, 1000);
+        simpleorderbook.submitOrder(simpleOrder);
+        simpleorderbook.submitOrder(simpleOrder1);
+        simpleorderbook.submitOrder(simpleOrder2);
+        Assert.assertEquals(0, simpleorderbook.cancelAllOrders(null, null));
+        Assert.assertEquals(0, simpleorderbook.cancelAllOrders("other", null));
+        events[2] = 0;
+        Assert.assertEquals(2, simpleorderbook.cancelAllOrders(simpleOrder.ClientID(), OrderSide.Sell));
+        Assert.assertArrayEquals(new int[]{2, 2, 1}, events);
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder1.getStatus());
+        Assert.assertEquals(OrderStatus.New, simpleOrder2.getStatus());
+        Assert.assertEquals(1, simpleorderbook.cancelAllOrders(simpleOrder.ClientID(), null));
+        Assert.assertEquals(0, simpleorderbook.getBidQueue().size() + simpleorderbook.getAskQueue().size());
+    }
+
+    /** Test orders without a client id and cancels without an order id are not found instead of failing **/
+    @Test
+    public void TestNullIds(){
+        SimpleOrderBookImpl simpleorderbook = new SimpleOrderBookImpl("test");
+        SimpleOrder simpleOrder = new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId())
+                .setPrice(100.00).setSide(OrderSide.Sell).setOrderqty(100).createSimpleOrder();
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 101.00, 100);
+        simpleorderbook.submitOrder(simpleOrder1);
+        simpleorderbook.submitOrder(simpleOrder);
+        Assert.assertFalse(simpleorderbook.cancelOrder(null, "hon123"));
+        Assert.assertFalse(simpleorderbook.cancelOrder(simpleOrder.OrderID(), "hon123"));
+        Assert.assertEquals(OrderStatus.Rejected, simpleorderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 10000, 50));
+        Assert.assertEquals(1, simpleorderbook.cancelAllOrders("hon123", null));
+        Assert.assertEquals(OrderStatus.New, simpleorderbook.replaceOrder(simpleOrder.OrderID(), null, 10000, 50));
+        Assert.assertTrue(simpleorderbook.cancelOrder(simpleOrder.OrderID(), null));
+        Assert.assertEquals(0, simpleorderbook.getBidQueue().size() + simpleorderbook.getAskQueue().size());
+    }
+
     /** Test partially filled sell GTC market order**/
     @Test
     public void TestBuySellMarketOrder(){
         SimpleOrderBookImpl simpleorderbook = new SimpleOrderBookImpl("test");
         SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 100.00, 2000);
         SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Buy, 100.00, 1500);
-        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Sell, 0, 4000, OrderType.GTC);
+        SimpleOrder simpleOrder2 = returnTestMarketOrder(OrderSide.Sell, 4000, OrderType.GTC);
         simpleorderbook.submitOrder(simpleOrder);
         simpleorderbook.submitOrder(simpleOrder1);
         simpleorderbook.submitOrder(simpleOrder2);
@@ -289,7 +378,7 @@ public class SimpleOrderBookImplTest {
         SimpleOrderBookImpl simpleorderbook = new SimpleOrderBookImpl("test");
         SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 2000);
         SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 100.00, 1500);
-        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 0, 4000, OrderType.GTC);
+        SimpleOrder simpleOrder2 = returnTestMarketOrder(OrderSide.Buy, 4000, OrderType.GTC);
         simpleorderbook.submitOrder(simpleOrder);
         simpleorderbook.submitOrder(simpleOrder1);
         simpleorderbook.submitOrder(simpleOrder2);
@@ -300,4 +389,72 @@ public class SimpleOrderBookImplTest {
         Assert.assertEquals(1500,simpleOrder2.Fills().get(1).OrderQty());
         Assert.assertEquals(500,simpleOrder2.getRemainingQty());
     }
-}
\ No newline at end of file
+
+    /** Test execution listener is notified of each execution **/
+    @Test
+    public void TestExecutionListener(){
+        SimpleOrderBookImpl simpleorderbook = new SimpleOrderBookImpl("test");
+        List<String> executions = new ArrayList<String>();
+        simpleorderbook.setExecutionListener((makerOrderId, takerOrderId, priceTicks, qty, makerStatus, takerStatus) ->
+                executions.add(makerOrderId + " " + takerOrderId + " " + qty + " " + makerStatus + " " + takerStatus));
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 100.00, 1500);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 100.00, 3000);
+        simpleorderbook.submitOrder(simpleOrder);
+        simpleorderbook.submitOrder(simpleOrder1);
+        simpleorderbook.submitOrder(simpleOrder2);
+        Assert.assertEquals(2, executions.size());
+        Assert.assertEquals(simpleOrder.OrderID() + " " + simpleOrder2.OrderID() + " 2000 FullyFilled PartialFill", executions.get(0));
+        Assert.assertEquals(simpleOrder1.OrderID() + " " + simpleOrder2.OrderID() + " 1000 PartialFill FullyFilled", executions.get(1));
+        Assert.assertEquals(3000, simpleOrder2.getCumulativeQty());
+    }
+
+    /** Test market order executions are priced at the queued orders and stop once the market order is filled **/
+    @Test
+    public void TestMarketOrderExecutions(){
+        SimpleOrderBookImpl simpleorderbook = new SimpleOrderBookImpl("test");
+        List<String> executions = new ArrayList<String>();
+        simpleorderbook.setExecutionListener((makerOrderId, takerOrderId, priceTicks, qty, makerStatus, takerStatus) -> {
+            Assert.assertTrue(qty > 0);
+            Assert.assertTrue(priceTicks > 0);
+            executions.add(makerOrderId + " " + priceTicks + " " + qty);
+        });
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 101.00, 1500);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Sell, 102.00, 1000);
+        simpleorderbook.submitOrder(simpleOrder);
+        simpleorderbook.submitOrder(simpleOrder1);
+        simpleorderbook.submitOrder(simpleOrder2);
+        SimpleOrder simpleOrder3 = returnTestMarketOrder(OrderSide.Buy, 2500, OrderType.GTC);
+        simpleorderbook.submitOrder(simpleOrder3);
+        Assert.assertEquals(2, executions.size());
+        Assert.assertEquals(simpleOrder.OrderID() + " " + simpleOrder.PriceTicks() + " 2000", executions.get(0));
+        Assert.assertEquals(simpleOrder1.OrderID() + " " + simpleOrder1.PriceTicks() + " 500", executions.get(1));
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder3.getStatus());
+        Assert.assertEquals(simpleOrder1.PriceTicks(), simpleOrder3.Fills().get(1).PriceTicks());
+        Assert.assertEquals(OrderStatus.New, simpleOrder2.getStatus());
+        Assert.assertTrue(simpleOrder2.Fills().isEmpty());
+    }
+
+    /** Test a filled market order does not add zero quantity fills to the orders still queued **/
+    @Test
+    public void TestMarketOrderStopsWhenFilled(){
+        SimpleOrderBookImpl simpleorderbook = new SimpleOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 100.00, 1000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Buy, 100.00, 1000);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 100.00, 1000);
+        simpleorderbook.submitOrder(simpleOrder);
+        simpleorderbook.submitOrder(simpleOrder1);
+        simpleorderbook.submitOrder(simpleOrder2);
+        SimpleOrder simpleOrder3 = returnTestMarketOrder(OrderSide.Sell, 1000, OrderType.GTC);
+        simpleorderbook.submitOrder(simpleOrder3);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder3.getStatus());
+        Assert.assertEquals(1, simpleOrder3.Fills().size());
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.New, simpleOrder1.getStatus());
+        Assert.assertEquals(OrderStatus.New, simpleOrder2.getStatus());
+        Assert.assertTrue(simpleOrder1.Fills().isEmpty());
+        Assert.assertTrue(simpleOrder2.Fills().isEmpty());
+        Assert.assertEquals(2, simpleorderbook.getAskQueue().size());
+    }
+}
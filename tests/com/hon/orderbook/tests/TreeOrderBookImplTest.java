@@ -0,0 +1,615 @@
+package com.hon.orderbook.tests;
+
+import com.hon.orderbook.*;
+import org.junit.Assert;
+import org.junit.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Tree order book test cases
+ *
+ */
+public class TreeOrderBookImplTest {
+
+    private int returnRandOrderId(){
+        Random rand = new Random();
+        return rand.nextInt(Integer.MAX_VALUE);
+    }
+
+    /** Returns a simple order **/
+    private SimpleOrder returnTestOrder(OrderSide side, double price, int orderqty){
+        return returnTestOrder(side, price, orderqty, OrderType.GTC);
+    }
+
+    /** Returns a simple order **/
+    private SimpleOrder returnTestOrder(OrderSide side, double price, int orderqty, OrderType orderType){
+
+        SimpleOrder simpleOrder = new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId())
+                .setPrice(price).setSide(side)
+                .setClientid("hon123")
+                .setOrderqty(orderqty)
+                .setOrderType(orderType)
+                .createSimpleOrder();
+        return simpleOrder;
+    }
+
+    /** Returns a simple market order **/
+    private SimpleOrder returnTestMarketOrder(OrderSide side, int orderqty){
+
+        SimpleOrder simpleOrder = new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId())
+                .setMarket(true).setSide(side)
+                .setClientid("hon123")
+                .setOrderqty(orderqty)
+                .createSimpleOrder();
+        return simpleOrder;
+    }
+
+    /** Test buy order is queued on bid side and sell order on ask side **/
+    @Test
+    public void TestaddToEmptyQueues(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 99.00, 1000));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 101.00, 1000));
+        Assert.assertEquals(1, orderbook.getBidQueue().size());
+        Assert.assertEquals(1, orderbook.getAskQueue().size());
+    }
+
+    /** Test bid side is sorted by descending price and ask side by ascending price **/
+    @Test
+    public void TestPriceOrdering(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 98.00, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 99.00, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 97.00, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 103.00, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 101.00, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 102.00, 100));
+        List<IOrder> bids = orderbook.getBidQueue();
+        List<IOrder> asks = orderbook.getAskQueue();
+        Assert.assertEquals(99.00, bids.get(0).Price(), 0.0);
+        Assert.assertEquals(98.00, bids.get(1).Price(), 0.0);
+        Assert.assertEquals(97.00, bids.get(2).Price(), 0.0);
+        Assert.assertEquals(101.00, asks.get(0).Price(), 0.0);
+        Assert.assertEquals(102.00, asks.get(1).Price(), 0.0);
+        Assert.assertEquals(103.00, asks.get(2).Price(), 0.0);
+    }
+
+    /** Test orders at the same price fill in time priority **/
+    @Test
+    public void TestTimePriority(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 100.00, 1500);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 100.00, 1000);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        Assert.assertEquals(1000, simpleOrder.getRemainingQty());
+        Assert.assertEquals(OrderStatus.PartialFill, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.New, simpleOrder1.getStatus());
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder2.getStatus());
+        Assert.assertSame(simpleOrder, orderbook.getAskQueue().get(0));
+        Assert.assertSame(simpleOrder1, orderbook.getAskQueue().get(1));
+    }
+
+    /** Test aggressive buy sweeps the ask side best price first at resting prices **/
+    @Test
+    public void TestSweepPriceLevels(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 101.00, 1000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 100.00, 1000);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Sell, 102.00, 1000);
+        SimpleOrder simpleOrder3 = returnTestOrder(OrderSide.Buy, 101.00, 2500);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        orderbook.submitOrder(simpleOrder3);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder1.getStatus());
+        Assert.assertEquals(OrderStatus.New, simpleOrder2.getStatus());
+        Assert.assertEquals(OrderStatus.PartialFill, simpleOrder3.getStatus());
+        Assert.assertEquals(100.00, simpleOrder3.Fills().get(0).Price(), 0.0);
+        Assert.assertEquals(101.00, simpleOrder3.Fills().get(1).Price(), 0.0);
+        Assert.assertEquals(500, simpleOrder3.getRemainingQty());
+        Assert.assertSame(simpleOrder3, orderbook.getBidQueue().get(0));
+        Assert.assertEquals(1, orderbook.getAskQueue().size());
+    }
+
+    /** Test limit order that does not cross is queued **/
+    @Test
+    public void TestNoCross(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 101.00, 1000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Buy, 100.00, 1000);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        Assert.assertEquals(OrderStatus.New, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.New, simpleOrder1.getStatus());
+        Assert.assertEquals(1, orderbook.getBidQueue().size());
+        Assert.assertEquals(1, orderbook.getAskQueue().size());
+    }
+
+    /** Test partially filled IOC order is cancelled and not queued **/
+    @Test
+    public void TestPartialFillIOCOrder(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 100.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 100.00, 3000, OrderType.ImmediateOrCancel);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder1.getStatus());
+        Assert.assertEquals(1000, simpleOrder1.getRemainingQty());
+        Assert.assertEquals(0, orderbook.getBidQueue().size());
+        Assert.assertEquals(0, orderbook.getAskQueue().size());
+    }
+
+    /** Test market order sweeps all levels and cancels the remainder **/
+    @Test
+    public void TestMarketOrder(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 100.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Buy, 99.00, 1500);
+        SimpleOrder simpleOrder2 = returnTestMarketOrder(OrderSide.Sell, 4000);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder1.getStatus());
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder2.getStatus());
+        Assert.assertEquals(2000, simpleOrder2.Fills().get(0).OrderQty());
+        Assert.assertEquals(1500, simpleOrder2.Fills().get(1).OrderQty());
+        Assert.assertEquals(99.00, simpleOrder2.Fills().get(1).Price(), 0.0);
+        Assert.assertEquals(500, simpleOrder2.getRemainingQty());
+        Assert.assertEquals(0, orderbook.getAskQueue().size());
+    }
+
+    /** Test cancel order removes it and its empty level **/
+    @Test
+    public void TestCancelOrder(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 101.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Buy, 100.00, 1500);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Sell, 102.00, 500);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        orderbook.cancelOrder(simpleOrder.OrderID(), simpleOrder.ClientID());
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder.getStatus());
+        orderbook.cancelOrder(simpleOrder1.OrderID(), simpleOrder1.ClientID());
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder1.getStatus());
+        Assert.assertEquals(0, orderbook.getBidQueue().size());
+        Assert.assertEquals(1, orderbook.getAskQueue().size());
+        //Best ask moved to the next level
+        SimpleOrder simpleOrder3 = returnTestOrder(OrderSide.Buy, 102.00, 500);
+        orderbook.submitOrder(simpleOrder3);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder2.getStatus());
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder3.getStatus());
+    }
+
+    /** Test cancel result for resting, filled, unknown and other client orders **/
+    @Test
+    public void TestCancelResult(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 101.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 101.00, 1000);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Sell, 101.00, 500);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 101.00, 2000));
+        Assert.assertFalse(orderbook.cancelOrder(simpleOrder.OrderID(), simpleOrder.ClientID()));
+        Assert.assertFalse(orderbook.cancelOrder("unknown", simpleOrder.ClientID()));
+        Assert.assertFalse(orderbook.cancelOrder(simpleOrder1.OrderID(), "other"));
+        Assert.assertTrue(orderbook.cancelOrder(simpleOrder1.OrderID(), simpleOrder1.ClientID()));
+        Assert.assertFalse(orderbook.cancelOrder(simpleOrder1.OrderID(), simpleOrder1.ClientID()));
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.Cancelled, simpleOrder1.getStatus());
+        Assert.assertSame(simpleOrder2, orderbook.getAskQueue().get(0));
+        Assert.assertEquals(1, orderbook.getAskQueue().size());
+    }
+
+    /** Test replace keeps time priority on a lower quantity and moves the order on a new price or higher quantity **/
+    @Test
+    public void TestReplaceOrder(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 101.00, 2000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 101.00, 1000);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Sell, 102.00, 500);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        //Lower quantity in place
+        Assert.assertEquals(OrderStatus.New, orderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 10100, 1500));
+        Assert.assertSame(simpleOrder, orderbook.getAskQueue().get(0));
+        Assert.assertEquals(1500, simpleOrder.getRemainingQty());
+        Assert.assertEquals(2500, orderbook.getBestAskQty());
+        //Higher quantity goes to the back of the level
+        Assert.assertEquals(OrderStatus.New, orderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 10100, 1800));
+        Assert.assertSame(simpleOrder1, orderbook.getAskQueue().get(0));
+        Assert.assertSame(simpleOrder, orderbook.getAskQueue().get(1));
+        Assert.assertEquals(2800, orderbook.getBestAskQty());
+        //New price moves the order to its level
+        Assert.assertEquals(OrderStatus.New, orderbook.replaceOrder(simpleOrder1.OrderID(), "hon123", 10200, 1000));
+        Assert.assertSame(simpleOrder, orderbook.getAskQueue().get(0));
+        Assert.assertSame(simpleOrder2, orderbook.getAskQueue().get(1));
+        Assert.assertSame(simpleOrder1, orderbook.getAskQueue().get(2));
+        Assert.assertEquals(1800, orderbook.getBestAskQty());
+        //Rejected replaces leave the order unchanged
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder(simpleOrder.OrderID(), "other", 10100, 100));
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 10100, 0));
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 0, 100));
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder("unknown", "hon123", 10100, 100));
+        Assert.assertEquals(1800, simpleOrder.getRemainingQty());
+        Assert.assertEquals(10100, simpleOrder.PriceTicks());
+        //Price crossing the book matches like an incoming order
+        SimpleOrder simpleOrder3 = returnTestOrder(OrderSide.Buy, 100.00, 1000);
+        orderbook.submitOrder(simpleOrder3);
+        Assert.assertEquals(OrderStatus.PartialFill, orderbook.replaceOrder(simpleOrder3.OrderID(), "hon123", 10100, 2000));
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(200, simpleOrder3.getRemainingQty());
+        Assert.assertEquals(10100, orderbook.getBestBidTicks());
+        Assert.assertEquals(10200, orderbook.getBestAskTicks());
+        Assert.assertEquals(OrderStatus.FullyFilled, orderbook.replaceOrder(simpleOrder3.OrderID(), "hon123", 10200, 200));
+        Assert.assertEquals(0, orderbook.getBidQueue().size());
+        Assert.assertEquals(1300, orderbook.getBestAskQty());
+        Assert.assertFalse(orderbook.cancelOrder(simpleOrder3.OrderID(), "hon123"));
+    }
+
+    /** Test the order quantity of a replaced order is its executed plus its new open quantity **/
+    @Test
+    public void TestReplaceOrderQty(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 101.00, 1000);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 101.00, 400));
+        Assert.assertEquals(OrderStatus.PartialFill, orderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 10100, 1000));
+        Assert.assertEquals(1400, simpleOrder.OrderQty());
+        Assert.assertEquals(1000, simpleOrder.getRemainingQty());
+        Assert.assertEquals(OrderStatus.PartialFill, orderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 10100, 100));
+        Assert.assertEquals(500, simpleOrder.OrderQty());
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 101.00, 100));
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(500, simpleOrder.getCumulativeQty());
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 10100, 100));
+        Assert.assertEquals(500, simpleOrder.OrderQty());
+    }
+
+    /** Returns a stop order, a market order unless a limit price is given **/
+    private SimpleOrder returnTestStopOrder(OrderSide side, double stopPrice, double price, int orderqty){
+        return new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId())
+                .setMarket(price == 0).setPrice(price).setStopPrice(stopPrice).setSide(side)
+                .setClientid("hon123")
+                .setOrderqty(orderqty)
+                .setOrderType(price == 0 ? OrderType.Stop : OrderType.StopLimit)
+                .createSimpleOrder();
+    }
+
+    /** Test stop orders wait off the book until a trade reaches their stop price **/
+    @Test
+    public void TestStopOrders(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 101.00, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 103.00, 1000));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 99.00, 1000));
+        SimpleOrder buyStop = returnTestStopOrder(OrderSide.Buy, 101.00, 0, 300);
+        SimpleOrder buyStopLimit = returnTestStopOrder(OrderSide.Buy, 102.00, 102.00, 200);
+        SimpleOrder sellStop = returnTestStopOrder(OrderSide.Sell, 99.50, 0, 400);
+        orderbook.submitOrder(buyStop);
+        orderbook.submitOrder(buyStopLimit);
+        orderbook.submitOrder(sellStop);
+        Assert.assertEquals(OrderStatus.New, buyStop.getStatus());
+        Assert.assertEquals(3, orderbook.getStopOrderCount());
+        Assert.assertEquals(2, orderbook.getAskQueue().size());
+        Assert.assertEquals(1, orderbook.getBidQueue().size());
+
+        //Trade at 101 triggers the buy stop at 101 only, which lifts the offer at 103
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 101.00, 100);
+        orderbook.submitOrder(simpleOrder);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder.getStatus());
+        Assert.assertEquals(OrderStatus.FullyFilled, buyStop.getStatus());
+        Assert.assertEquals(10300, buyStop.Fills().get(0).PriceTicks());
+        //Trade at 103 then triggers the buy stop limit at 102, which rests at its limit
+        Assert.assertEquals(OrderStatus.New, buyStopLimit.getStatus());
+        Assert.assertSame(buyStopLimit, orderbook.getBidQueue().get(0));
+        Assert.assertEquals(1, orderbook.getStopOrderCount());
+        Assert.assertEquals(10300, orderbook.getLastTradeTicks());
+
+        //Trade at 102 does not reach the sell stop at 99.50
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 99.00, 100));
+        Assert.assertEquals(1, orderbook.getStopOrderCount());
+        //Sweep down to a trade at 99 triggers it
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 99.00, 101));
+        Assert.assertEquals(OrderStatus.FullyFilled, buyStopLimit.getStatus());
+        Assert.assertEquals(0, orderbook.getStopOrderCount());
+        Assert.assertEquals(OrderStatus.FullyFilled, sellStop.getStatus());
+        Assert.assertEquals(9900, sellStop.Fills().get(0).PriceTicks());
+        Assert.assertEquals(599, orderbook.getBestBidQty());
+    }
+
+    /** Test stop orders are cancelled, rejected and triggered on submit once the last trade reached them **/
+    @Test
+    public void TestStopOrderLifecycle(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder buyStop = returnTestStopOrder(OrderSide.Buy, 101.00, 0, 300);
+        orderbook.submitOrder(buyStop);
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder(buyStop.OrderID(), "hon123", 10100, 100));
+        Assert.assertFalse(orderbook.cancelOrder(buyStop.OrderID(), "other"));
+        Assert.assertTrue(orderbook.cancelOrder(buyStop.OrderID(), "hon123"));
+        Assert.assertEquals(OrderStatus.Cancelled, buyStop.getStatus());
+        Assert.assertEquals(0, orderbook.getStopOrderCount());
+
+        SimpleOrder noStopPrice = returnTestStopOrder(OrderSide.Buy, 0, 101.00, 300);
+        SimpleOrder limitStop = new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId()).setPrice(101.00)
+                .setStopPrice(101.00).setSide(OrderSide.Buy).setClientid("hon123").setOrderqty(100)
+                .setOrderType(OrderType.Stop).createSimpleOrder();
+        orderbook.submitOrder(noStopPrice);
+        orderbook.submitOrder(limitStop);
+        Assert.assertEquals(OrderStatus.Rejected, noStopPrice.getStatus());
+        Assert.assertEquals(OrderStatus.Rejected, limitStop.getStatus());
+
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 100.00, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 100.00, 100));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 99.00, 100));
+        //Last trade at 100 already reached the sell stop at 100.50
+        SimpleOrder sellStop = returnTestStopOrder(OrderSide.Sell, 100.50, 0, 50);
+        orderbook.submitOrder(sellStop);
+        Assert.assertEquals(OrderStatus.FullyFilled, sellStop.getStatus());
+        Assert.assertEquals(0, orderbook.getStopOrderCount());
+        Assert.assertEquals(50, orderbook.getBestBidQty());
+    }
+
+    /** Returns a simple order of a client **/
+    private SimpleOrder returnClientOrder(String clientId, OrderSide side, double price, int orderqty){
+        return new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId())
+                .setPrice(price).setSide(side)
+                .setClientid(clientId)
+                .setOrderqty(orderqty)
+                .createSimpleOrder();
+    }
+
+    /** Test orders without a client id and cancels without an order id are not found instead of failing **/
+    @Test
+    public void TestNullIds(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnClientOrder(null, OrderSide.Sell, 101.00, 100);
+        SimpleOrder buyStop = new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId()).setMarket(true)
+                .setStopPrice(103.00).setSide(OrderSide.Buy).setOrderqty(100).setOrderType(OrderType.Stop)
+                .createSimpleOrder();
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(buyStop);
+        Assert.assertEquals(OrderStatus.New, simpleOrder.getStatus());
+        Assert.assertEquals(1, orderbook.getStopOrderCount());
+        Assert.assertFalse(orderbook.cancelOrder(null, "hon123"));
+        Assert.assertFalse(orderbook.cancelOrder(simpleOrder.OrderID(), "hon123"));
+        Assert.assertFalse(orderbook.cancelOrder(buyStop.OrderID(), "hon123"));
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder(simpleOrder.OrderID(), "hon123", 10100, 50));
+        Assert.assertEquals(OrderStatus.Rejected, orderbook.replaceOrder(null, "hon123", 10100, 50));
+        Assert.assertEquals(OrderStatus.New, orderbook.replaceOrder(simpleOrder.OrderID(), null, 10100, 50));
+        Assert.assertTrue(orderbook.cancelOrder(simpleOrder.OrderID(), null));
+        Assert.assertTrue(orderbook.cancelOrder(buyStop.OrderID(), null));
+        Assert.assertEquals(0, orderbook.getStopOrderCount());
+    }
+
+    /** Test mass cancel cancels the resting and pending stop orders of one client only, optionally by side **/
+    @Test
+    public void TestCancelAllOrders(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        List<SimpleOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 6; i++){
+            String clientId = i % 3 == 0 ? "other" : "hon123";
+            SimpleOrder buy = returnClientOrder(clientId, OrderSide.Buy, 99.00 - i % 2, 100);
+            SimpleOrder sell = returnClientOrder(clientId, OrderSide.Sell, 101.00 + i % 2, 100);
+            orderbook.submitOrder(buy);
+            orderbook.submitOrder(sell);
+            orders.add(buy);
+            orders.add(sell);
+        }
+        SimpleOrder buyStop = returnTestStopOrder(OrderSide.Buy, 103.00, 0, 100);
+        SimpleOrder sellStop = returnTestStopOrder(OrderSide.Sell, 97.00, 96.00, 100);
+        orderbook.submitOrder(buyStop);
+        orderbook.submitOrder(sellStop);
+
+        Assert.assertEquals(5, orderbook.cancelAllOrders("hon123", OrderSide.Sell));
+        Assert.assertEquals(OrderStatus.Cancelled, sellStop.getStatus());
+        Assert.assertEquals(OrderStatus.New, buyStop.getStatus());
+        Assert.assertEquals(2, orderbook.getAskQueue().size());
+        Assert.assertEquals(6, orderbook.getBidQueue().size());
+        Assert.assertEquals(100, orderbook.getBestAskQty());
+
+        Assert.assertEquals(5, orderbook.cancelAllOrders("hon123", null));
+        Assert.assertEquals(0, orderbook.cancelAllOrders("hon123", null));
+        Assert.assertEquals(0, orderbook.getStopOrderCount());
+        Assert.assertEquals(2, orderbook.getBidQueue().size());
+        Assert.assertEquals(100, orderbook.getBestBidQty());
+        for (SimpleOrder order : orders){
+            Assert.assertEquals("other".equals(order.ClientID()) ? OrderStatus.New : OrderStatus.Cancelled,
+                    order.getStatus());
+        }
+        //Orders of the other client still cancel and trade normally
+        Assert.assertTrue(orderbook.cancelOrder(orders.get(0).OrderID(), "other"));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Sell, 98.00, 100));
+        Assert.assertEquals(OrderStatus.FullyFilled, orders.get(6).getStatus());
+        Assert.assertEquals(0, orderbook.getBidQueue().size());
+        Assert.assertEquals(2, orderbook.cancelAllOrders("other", null));
+        Assert.assertEquals(0, orderbook.getAskQueue().size());
+    }
+
+    /** Test queues are live read only views and a cancel in the middle of a level keeps time priority **/
+    @Test
+    public void TestQueueViews(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        List<IOrder> asks = orderbook.getAskQueue();
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 101.00, 100);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 101.00, 100);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Sell, 101.00, 100);
+        SimpleOrder simpleOrder3 = returnTestOrder(OrderSide.Sell, 102.00, 100);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        orderbook.submitOrder(simpleOrder3);
+        Assert.assertEquals(4, asks.size());
+        Assert.assertTrue(orderbook.cancelOrder(simpleOrder1.OrderID(), simpleOrder1.ClientID()));
+        Assert.assertEquals(3, asks.size());
+        Assert.assertSame(simpleOrder, asks.get(0));
+        Assert.assertSame(simpleOrder2, asks.get(1));
+        Assert.assertSame(simpleOrder3, asks.get(2));
+        orderbook.submitOrder(returnTestOrder(OrderSide.Buy, 101.00, 200));
+        Assert.assertEquals(1, asks.size());
+        Assert.assertSame(simpleOrder3, asks.get(0));
+        try {
+            asks.add(simpleOrder);
+            Assert.fail("Queue view should be read only");
+        }
+        catch (UnsupportedOperationException e){
+            Assert.assertEquals(1, asks.size());
+        }
+    }
+
+    /** Test order with the id of a resting order is rejected **/
+    @Test
+    public void TestRejectDuplicateOrderId(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 101.00, 2000);
+        SimpleOrder simpleOrder1 = new SimpleOrderBuilder().setOrderid(simpleOrder.OrderID())
+                .setPrice(102.00).setSide(OrderSide.Sell).setClientid("hon123").setOrderqty(100)
+                .createSimpleOrder();
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        Assert.assertEquals(OrderStatus.Rejected, simpleOrder1.getStatus());
+        Assert.assertEquals(1, orderbook.getAskQueue().size());
+    }
+
+    /** Test execution listener receives maker, taker, price, quantity and resulting statuses **/
+    @Test
+    public void TestExecutionListener(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        List<String> executions = new ArrayList<String>();
+        orderbook.setExecutionListener((makerOrderId, takerOrderId, priceTicks, qty, makerStatus, takerStatus) ->
+                executions.add(makerOrderId + " " + takerOrderId + " " + priceTicks + " " + qty + " " + makerStatus + " " + takerStatus));
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 1000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 101.00, 1000);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 101.00, 1500);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        Assert.assertEquals(2, executions.size());
+        Assert.assertEquals(simpleOrder.OrderID() + " " + simpleOrder2.OrderID() + " 10000 1000 FullyFilled PartialFill", executions.get(0));
+        Assert.assertEquals(simpleOrder1.OrderID() + " " + simpleOrder2.OrderID() + " 10100 500 PartialFill FullyFilled", executions.get(1));
+    }
+
+    /** Test orders only record cumulative quantity and average price when fills are not retained **/
+    @Test
+    public void TestFillRetentionOff(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        orderbook.setRetainFills(false);
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 1000);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Sell, 101.00, 1000);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 101.00, 2000);
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        orderbook.submitOrder(simpleOrder2);
+        Assert.assertTrue(simpleOrder2.Fills().isEmpty());
+        Assert.assertEquals(2000, simpleOrder2.getCumulativeQty());
+        Assert.assertEquals(100.50, simpleOrder2.getAveragePrice(), 1e-9);
+        Assert.assertEquals(1000, simpleOrder.getCumulativeQty());
+        Assert.assertEquals(100.00, simpleOrder.getAveragePrice(), 1e-9);
+    }
+
+    /** Test orders with invalid quantity are rejected **/
+    @Test
+    public void TestRejectOrder(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Buy, 100.00, 0);
+        orderbook.submitOrder(simpleOrder);
+        Assert.assertEquals(OrderStatus.Rejected, simpleOrder.getStatus());
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Buy, 0, 100);
+        orderbook.submitOrder(simpleOrder1);
+        Assert.assertEquals(OrderStatus.Rejected, simpleOrder1.getStatus());
+        Assert.assertEquals(0, orderbook.getBidQueue().size());
+    }
+
+    /** Test prices are held as ticks of the instrument tick size **/
+    @Test
+    public void TestTickPrices(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl(new Instrument("test", 0.25));
+        SimpleOrder simpleOrder = new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId())
+                .setTickSize(0.25).setPrice(100.25).setSide(OrderSide.Sell)
+                .setClientid("hon123").setOrderqty(100).createSimpleOrder();
+        SimpleOrder simpleOrder1 = new SimpleOrderBuilder().setOrderid("test" + returnRandOrderId())
+                .setTickSize(0.25).setPriceTicks(402).setSide(OrderSide.Buy)
+                .setClientid("hon123").setOrderqty(100).createSimpleOrder();
+        Assert.assertEquals(401, simpleOrder.PriceTicks());
+        orderbook.submitOrder(simpleOrder);
+        orderbook.submitOrder(simpleOrder1);
+        Assert.assertEquals(OrderStatus.FullyFilled, simpleOrder1.getStatus());
+        Assert.assertEquals(401, simpleOrder1.Fills().get(0).PriceTicks());
+        Assert.assertEquals(100.25, simpleOrder1.Fills().get(0).Price(), 0.0);
+    }
+
+    /** Test common prices round trip through ticks exactly **/
+    @Test
+    public void TestTickPriceRoundTrip(){
+        double[] tickSizes = {0.01, 0.05, 0.25, 0.5, 1, 0.0001, 5, 0.03};
+        for (double tickSize : tickSizes){
+            for (long ticks = 0; ticks < 200000; ticks += 7){
+                double price = new BigDecimal(Long.toString(ticks))
+                        .multiply(new BigDecimal(Double.toString(tickSize))).doubleValue();
+                Assert.assertEquals(price, Instrument.toPrice(ticks, tickSize), 0.0);
+                Assert.assertEquals(ticks, Instrument.toTicks(price, tickSize));
+            }
+        }
+        Assert.assertEquals("100.1", Double.toString(Instrument.toPrice(10010, 0.01)));
+        Assert.assertEquals("0.07", Double.toString(new Instrument("test", 0.01).toPrice(7)));
+    }
+
+    /** Test batch of submits and cancels is processed in order with a result per command **/
+    @Test
+    public void TestProcessBatch(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        SimpleOrder simpleOrder = returnTestOrder(OrderSide.Sell, 100.00, 100);
+        SimpleOrder simpleOrder1 = returnTestOrder(OrderSide.Buy, 100.00, 40);
+        SimpleOrder simpleOrder2 = returnTestOrder(OrderSide.Buy, 99.00, 100);
+        OrderBatch batch = new OrderBatch(4);
+        Assert.assertTrue(batch.addSubmit(simpleOrder));
+        Assert.assertTrue(batch.addSubmit(simpleOrder1));
+        Assert.assertTrue(batch.addCancel(simpleOrder.OrderID(), "hon123"));
+        Assert.assertTrue(batch.addCancel(simpleOrder1.OrderID(), "hon123"));
+        Assert.assertFalse(batch.addSubmit(simpleOrder2));
+        orderbook.processBatch(batch);
+        Assert.assertEquals(OrderStatus.New, batch.getResult(0));
+        Assert.assertEquals(OrderStatus.FullyFilled, batch.getResult(1));
+        Assert.assertEquals(OrderStatus.Cancelled, batch.getResult(2));
+        Assert.assertEquals(OrderStatus.Rejected, batch.getResult(3));
+        Assert.assertEquals(60, simpleOrder.getRemainingQty());
+        Assert.assertEquals(0, orderbook.getAskQueue().size());
+        batch.clear();
+        Assert.assertEquals(0, batch.size());
+        Assert.assertTrue(batch.addSubmit(simpleOrder2));
+        orderbook.processBatch(batch);
+        Assert.assertSame(simpleOrder2, orderbook.getBidQueue().get(0));
+    }
+
+    /** Test array batch entry points write results to the caller supplied buffers **/
+    @Test
+    public void TestSubmitAndCancelOrders(){
+        TreeOrderBookImpl orderbook = new TreeOrderBookImpl("test");
+        IOrder[] orders = {returnTestOrder(OrderSide.Sell, 100.00, 100),
+                returnTestOrder(OrderSide.Buy, 101.00, 150, OrderType.ImmediateOrCancel),
+                returnTestOrder(OrderSide.Buy, 99.00, 100)};
+        OrderStatus[] results = new OrderStatus[3];
+        orderbook.submitOrders(orders, 3, results);
+        Assert.assertEquals(OrderStatus.New, results[0]);
+        Assert.assertEquals(OrderStatus.Cancelled, results[1]);
+        Assert.assertEquals(OrderStatus.New, results[2]);
+        String[] orderIds = {orders[2].OrderID(), orders[0].OrderID()};
+        String[] clientIds = {"hon123", "hon123"};
+        boolean[] cancelled = new boolean[2];
+        orderbook.cancelOrders(orderIds, clientIds, 2, cancelled);
+        Assert.assertTrue(cancelled[0]);
+        Assert.assertFalse(cancelled[1]);
+        Assert.assertEquals(0, orderbook.getBidQueue().size());
+    }
+}